@@ -0,0 +1,105 @@
+package de.marw.cmake.cmakecache;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
+
+/**
+ * Measures {@link CMakeCacheFileParser#parse} with and without an
+ * {@link EntryFilter} and the creation of {@link SimpleCMakeCacheEntry}
+ * objects.
+ *
+ * @author Martin Weber
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CMakeCacheFileParserBenchmark {
+
+    /** accepts the build tool entry only, like BuildToolEntryParser did */
+    private static final EntryFilter BUILD_TOOL_FILTER = new EntryFilter() {
+        @Override
+        public boolean accept(String key) {
+            return SyntheticCacheFile.BUILD_TOOL_KEY.equals(key);
+        }
+    };
+
+    @Param({ "1000", "20000", "200000" })
+    public int entries;
+
+    private String content;
+    private String[] keys;
+    private String[] values;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = SyntheticCacheFile.content(entries);
+        final List<SimpleCMakeCacheEntry> parsed = new ArrayList<>(entries);
+        new CMakeCacheFileParser().parse(new StringReader(content), null,
+                parsed, null);
+        keys = new String[parsed.size()];
+        values = new String[parsed.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = parsed.get(i).getKey();
+            values[i] = parsed.get(i).getValue();
+        }
+    }
+
+    @Benchmark
+    public List<SimpleCMakeCacheEntry> parseAsList() throws IOException {
+        final List<SimpleCMakeCacheEntry> result = new ArrayList<>();
+        new CMakeCacheFileParser().parse(new StringReader(content), null,
+                result, null);
+        return result;
+    }
+
+    @Benchmark
+    public HashSet<SimpleCMakeCacheEntry> parseAsSet() throws IOException {
+        final HashSet<SimpleCMakeCacheEntry> result = new HashSet<>();
+        new CMakeCacheFileParser().parse(new StringReader(content), null,
+                result, null);
+        return result;
+    }
+
+    @Benchmark
+    public List<SimpleCMakeCacheEntry> parseFiltered() throws IOException {
+        final List<SimpleCMakeCacheEntry> result = new ArrayList<>(1);
+        new CMakeCacheFileParser().parse(new StringReader(content),
+                BUILD_TOOL_FILTER, result, null);
+        return result;
+    }
+
+    @Benchmark
+    public boolean parseSyntaxOnly() throws IOException {
+        return new CMakeCacheFileParser().parse(new StringReader(content),
+                null, null, null);
+    }
+
+    @Benchmark
+    public void createEntries(Blackhole bh) {
+        for (int i = 0; i < keys.length; i++) {
+            bh.consume(new SimpleCMakeCacheEntry(keys[i], values[i]));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.cmakecache;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading a large CMake cache file through a {@code Reader} with
+ * scanning its bytes, for the former regular expression based parser,
+ * {@link CMakeCacheFileParser#parse}, {@link CMakeCache#read} and
+ * {@link CMakeCacheFileParser#lookup}.
+ *
+ * @author Martin Weber
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserThroughputBenchmark {
+
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+    private static final List<String> BUILD_TOOL_KEY = Collections
+            .singletonList(SyntheticCacheFile.BUILD_TOOL_KEY);
+
+    @Param({ "20000", "200000" })
+    public int entries;
+
+    private String content;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        content = SyntheticCacheFile.content(entries);
+        bytes = content.getBytes(CHARSET);
+    }
+
+    @Benchmark
+    public List<SimpleCMakeCacheEntry> regexParseReader() throws IOException {
+        final List<SimpleCMakeCacheEntry> result = new ArrayList<>();
+        new RegexCMakeCacheFileParser().parse(new StringReader(content), null,
+                result, null);
+        return result;
+    }
+
+    @Benchmark
+    public List<SimpleCMakeCacheEntry> parseReader() throws IOException {
+        final List<SimpleCMakeCacheEntry> result = new ArrayList<>();
+        new CMakeCacheFileParser().parse(new StringReader(content), null,
+                result, null);
+        return result;
+    }
+
+    @Benchmark
+    public List<SimpleCMakeCacheEntry> parseBytes() {
+        final List<SimpleCMakeCacheEntry> result = new ArrayList<>();
+        new CMakeCacheFileParser().parse(ByteBuffer.wrap(bytes), CHARSET, null,
+                result, null);
+        return result;
+    }
+
+    @Benchmark
+    public CMakeCache readReader() throws IOException {
+        return CMakeCache.read(new StringReader(content));
+    }
+
+    @Benchmark
+    public CMakeCache readBytes() {
+        return CMakeCache.read(ByteBuffer.wrap(bytes), CHARSET);
+    }
+
+    @Benchmark
+    public Map<String, String> lookupReader() throws IOException {
+        return new CMakeCacheFileParser().lookup(new StringReader(content),
+                BUILD_TOOL_KEY);
+    }
+
+    @Benchmark
+    public Map<String, String> lookupBytes() {
+        return new CMakeCacheFileParser().lookup(ByteBuffer.wrap(bytes),
+                CHARSET, BUILD_TOOL_KEY);
+    }
+}
@@ -0,0 +1,79 @@
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.marw.cmake.cmakecache.SyntheticCacheFile;
+
+/**
+ * Measures {@link BuildToolEntryParser} on a cache file on disk, both when the
+ * file has to be parsed and when its model is served from memory.
+ *
+ * @author Martin Weber
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildToolEntryParserBenchmark {
+
+    @Param({ "1000", "20000", "200000" })
+    public int entries;
+
+    private File cacheFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        cacheFile = File.createTempFile("CMakeCache", ".txt");
+        SyntheticCacheFile.write(cacheFile.toPath(), entries,
+                Charset.defaultCharset());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile.toPath());
+    }
+
+    /**
+     * The cache file changed since it was last read.
+     */
+    @Benchmark
+    public String parseChanged() throws Exception {
+        CMakeCacheLoader.clear();
+        return invoke();
+    }
+
+    /**
+     * The cache file did not change since it was last read.
+     */
+    @Benchmark
+    public String parseUnchanged() throws Exception {
+        return invoke();
+    }
+
+    private String invoke() throws Exception {
+        final String buildTool = new BuildToolEntryParser().invoke(cacheFile,
+                null);
+        if (!SyntheticCacheFile.BUILD_TOOL.equals(buildTool))
+            throw new AssertionError(buildTool);
+        return buildTool;
+    }
+}
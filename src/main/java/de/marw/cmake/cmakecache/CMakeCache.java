@@ -0,0 +1,326 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.cmakecache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable model of the entries of a CMake cache file
+ * ({@code CMakeCache.txt}), including the entry types and the
+ * {@code ADVANCED} property.
+ * <p>
+ * The entries are held in parallel arrays that are sorted by key, so looking
+ * up an entry is a binary search. Keys are interned, since the same keys show
+ * up in each cache file of each build. The {@code KEY-ADVANCED:INTERNAL}
+ * entries CMake uses to persist the {@code ADVANCED} property are folded into
+ * the entry they refer to and do not show up as entries on their own.
+ * </p>
+ *
+ * @author Martin Weber
+ */
+public final class CMakeCache implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** the suffix of keys that persist the ADVANCED property of an entry */
+    private static final String ADVANCED_SUFFIX = "-ADVANCED"; //$NON-NLS-1$
+    /** bit in {@link #types} that marks an advanced entry */
+    private static final int ADVANCED_FLAG = 0x80;
+    /** bits in {@link #types} that hold the type ordinal */
+    private static final int TYPE_MASK = 0x7f;
+
+    /** the keys in ascending order */
+    private final String[] keys;
+    private final String[] values;
+    /** the ordinal of the type of each entry, or-ed with ADVANCED_FLAG */
+    private final byte[] types;
+
+    private CMakeCache(String[] keys, String[] values, byte[] types) {
+        this.keys = keys;
+        this.values = values;
+        this.types = types;
+    }
+
+    /**
+     * Parses the content of the specified reader as a CMake cache file. If the
+     * file holds multiple entries of the same key, the last one wins.
+     *
+     * @param reader
+     *            the reader that serves the content of the CMake cache file
+     * @return the parsed cache, never {@code null}
+     * @throws IOException
+     *             if an operation on the reader failed
+     */
+    public static CMakeCache read(Reader reader) throws IOException {
+        final Builder builder = new Builder();
+        builder.scan(reader);
+        return builder.build();
+    }
+
+    /**
+     * Parses the bytes of the specified buffer as a CMake cache file. If the
+     * file holds multiple entries of the same key, the last one wins.
+     *
+     * @param content
+     *            the content of the CMake cache file, from its position to its
+     *            limit. The position of the buffer is not modified.
+     * @param charset
+     *            the encoding of the content, see
+     *            {@link CMakeCacheFileParser#isScannable(Charset)}
+     * @return the parsed cache, never {@code null}
+     * @throws IllegalArgumentException
+     *             if the bytes of the charset cannot be scanned
+     */
+    public static CMakeCache read(ByteBuffer content, Charset charset) {
+        final Builder builder = new Builder();
+        builder.scan(content, charset);
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of entries in this cache.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the index of the entry with the specified key.
+     *
+     * @return the index of the entry, if it is contained in this cache,
+     *         otherwise a negative value
+     */
+    public int indexOf(String key) {
+        return Arrays.binarySearch(keys, key);
+    }
+
+    /**
+     * Gets whether this cache contains an entry with the specified key.
+     */
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Gets the value of the entry with the specified key.
+     *
+     * @return the value or {@code null} if this cache does not contain an
+     *         entry with the key
+     */
+    public String getValue(String key) {
+        final int idx = indexOf(key);
+        return idx < 0 ? null : values[idx];
+    }
+
+    /**
+     * Gets the type of the entry with the specified key.
+     *
+     * @return the type or {@code null} if this cache does not contain an entry
+     *         with the key
+     */
+    public CMakeCacheEntryType getType(String key) {
+        final int idx = indexOf(key);
+        return idx < 0 ? null : getType(idx);
+    }
+
+    /**
+     * Gets whether the entry with the specified key is marked as advanced.
+     *
+     * @return {@code false} if this cache does not contain an entry with the
+     *         key
+     */
+    public boolean isAdvanced(String key) {
+        final int idx = indexOf(key);
+        return idx >= 0 && isAdvanced(idx);
+    }
+
+    /**
+     * Gets the key of the entry at the specified index.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Gets the value of the entry at the specified index.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public String getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the type of the entry at the specified index.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public CMakeCacheEntryType getType(int index) {
+        return CMakeCacheEntryType.of(types[index] & TYPE_MASK);
+    }
+
+    /**
+     * Gets whether the entry at the specified index is marked as advanced.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public boolean isAdvanced(int index) {
+        return (types[index] & ADVANCED_FLAG) != 0;
+    }
+
+    /**
+     * Gets the keys of all entries in ascending order.
+     *
+     * @return an unmodifiable list of the keys
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Gets a model that holds the entries of this model that are accepted by
+     * the specified filter.
+     *
+     * @param filter
+     *            the filter for the entry keys
+     * @return the model, never {@code null}. This model if the filter accepts
+     *         all entries.
+     */
+    public CMakeCache select(CMakeCacheFileParser.EntryFilter filter) {
+        final String[] selectedKeys = new String[keys.length];
+        final String[] selectedValues = new String[keys.length];
+        final byte[] selectedTypes = new byte[keys.length];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (filter.accept(keys[i])) {
+                selectedKeys[n] = keys[i];
+                selectedValues[n] = values[i];
+                selectedTypes[n] = types[i];
+                n++;
+            }
+        }
+        if (n == keys.length)
+            return this;
+        return new CMakeCache(Arrays.copyOf(selectedKeys, n),
+                Arrays.copyOf(selectedValues, n),
+                Arrays.copyOf(selectedTypes, n));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + keys.length + " entries]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Gets whether the specified value is a true constant as understood by
+     * CMake´s {@code cmIsOn()}.
+     */
+    private static boolean isOn(String value) {
+        return "1".equals(value) || "ON".equalsIgnoreCase(value) //$NON-NLS-1$ //$NON-NLS-2$
+                || "YES".equalsIgnoreCase(value) //$NON-NLS-1$
+                || "TRUE".equalsIgnoreCase(value) //$NON-NLS-1$
+                || "Y".equalsIgnoreCase(value); //$NON-NLS-1$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Collects the entries of a CMake cache file and creates the immutable
+     * model from them.
+     */
+    private static class Builder extends CMakeCacheFileParser.LineScanner {
+        private final List<String> keys = new ArrayList<>(1024);
+        private final List<String> values = new ArrayList<>(1024);
+        private byte[] types = new byte[1024];
+
+        @Override
+        void entry(int keyFrom, int keyTo, int typeFrom, int typeTo,
+                int valueFrom, int valueTo) {
+            final int idx = keys.size();
+            if (idx == types.length) {
+                types = Arrays.copyOf(types, idx * 2);
+            }
+            keys.add(text(keyFrom, keyTo).intern());
+            values.add(value(valueFrom, valueTo));
+            types[idx] = (byte) type(typeFrom, typeTo).ordinal();
+        }
+
+        @Override
+        void error(int from, int to) {
+            // ignore malformed lines, just like CMake does
+        }
+
+        CMakeCache build() {
+            final int count = keys.size();
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            // stable sort, entries of equal keys stay in file order
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return keys.get(o1).compareTo(keys.get(o2));
+                }
+            });
+
+            final String[] sortedKeys = new String[count];
+            final String[] sortedValues = new String[count];
+            final byte[] sortedTypes = new byte[count];
+            final List<String> advanced = new ArrayList<>();
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                final int idx = order[i];
+                final String key = keys.get(idx);
+                if (i + 1 < count && key.equals(keys.get(order[i + 1])))
+                    continue; // the last entry of a key wins
+                if (types[idx] == CMakeCacheEntryType.INTERNAL.ordinal()
+                        && key.endsWith(ADVANCED_SUFFIX)) {
+                    // property entry
+                    if (isOn(values.get(idx))) {
+                        advanced.add(key.substring(0,
+                                key.length() - ADVANCED_SUFFIX.length()));
+                    }
+                    continue;
+                }
+                sortedKeys[n] = key;
+                sortedValues[n] = values.get(idx);
+                sortedTypes[n] = types[idx];
+                n++;
+            }
+            final CMakeCache cache = new CMakeCache(
+                    Arrays.copyOf(sortedKeys, n), Arrays.copyOf(sortedValues, n),
+                    Arrays.copyOf(sortedTypes, n));
+            for (String key : advanced) {
+                final int idx = cache.indexOf(key);
+                if (idx >= 0) {
+                    cache.types[idx] |= ADVANCED_FLAG;
+                }
+            }
+            return cache;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.cmakecache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The key-level differences between two CMake cache files: the entries that
+ * were added, removed or changed their value.
+ *
+ * @author Martin Weber
+ */
+public final class CMakeCacheDiff implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<Change> changed;
+
+    private CMakeCacheDiff(List<String> added, List<String> removed,
+            List<Change> changed) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    /**
+     * Computes the differences between the specified caches. Since the
+     * entries of both caches are sorted by key, this is a single merge pass.
+     *
+     * @param previous
+     *            the former cache
+     * @param current
+     *            the new cache
+     * @return the differences, never {@code null}
+     */
+    public static CMakeCacheDiff compute(CMakeCache previous,
+            CMakeCache current) {
+        final List<String> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        final List<Change> changed = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < previous.size() || j < current.size()) {
+            final int cmp;
+            if (i == previous.size()) {
+                cmp = 1;
+            } else if (j == current.size()) {
+                cmp = -1;
+            } else {
+                cmp = previous.getKey(i).compareTo(current.getKey(j));
+            }
+            if (cmp < 0) {
+                removed.add(previous.getKey(i++));
+            } else if (cmp > 0) {
+                added.add(current.getKey(j++));
+            } else {
+                final String oldValue = previous.getValue(i);
+                final String newValue = current.getValue(j);
+                if (!oldValue.equals(newValue)) {
+                    changed.add(new Change(current.getKey(j), oldValue,
+                            newValue));
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CMakeCacheDiff(added, removed, changed);
+    }
+
+    /**
+     * Computes the differences between the caches of the specified digests.
+     * The values of changed entries are taken from the specified caches,
+     * which may hold a subset of the entries.
+     *
+     * @param previous
+     *            the digest of the former cache
+     * @param previousValues
+     *            the former values to report or {@code null}
+     * @param current
+     *            the digest of the new cache
+     * @param currentValues
+     *            the new values to report or {@code null}
+     * @return the differences, never {@code null}. The values of a change
+     *         are {@code null} if they are not in the caches of values.
+     */
+    public static CMakeCacheDiff compute(CMakeCacheDigest previous,
+            CMakeCache previousValues, CMakeCacheDigest current,
+            CMakeCache currentValues) {
+        final List<String> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        final List<Change> changed = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < previous.size() || j < current.size()) {
+            final int cmp;
+            if (i == previous.size()) {
+                cmp = 1;
+            } else if (j == current.size()) {
+                cmp = -1;
+            } else {
+                cmp = previous.getKey(i).compareTo(current.getKey(j));
+            }
+            if (cmp < 0) {
+                removed.add(previous.getKey(i++));
+            } else if (cmp > 0) {
+                added.add(current.getKey(j++));
+            } else {
+                if (previous.getHash(i) != current.getHash(j)) {
+                    final String key = current.getKey(j);
+                    changed.add(new Change(key,
+                            previousValues == null ? null
+                                    : previousValues.getValue(key),
+                            currentValues == null ? null
+                                    : currentValues.getValue(key)));
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CMakeCacheDiff(added, removed, changed);
+    }
+
+    /**
+     * Gets the keys of the entries that are in the new cache only.
+     *
+     * @return an unmodifiable list of keys in ascending order
+     */
+    public List<String> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * Gets the keys of the entries that are in the former cache only.
+     *
+     * @return an unmodifiable list of keys in ascending order
+     */
+    public List<String> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Gets the entries that are in both caches but have a different value.
+     *
+     * @return an unmodifiable list, ordered by key
+     */
+    public List<Change> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * Gets whether both caches hold the same entries with the same values.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * Gets whether the entry with the specified key was added, removed or
+     * changed its value.
+     */
+    public boolean affects(String key) {
+        if (Collections.binarySearch(added, key) >= 0
+                || Collections.binarySearch(removed, key) >= 0)
+            return true;
+        for (Change change : changed) {
+            if (change.key.equals(key))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[added=" + added.size() //$NON-NLS-1$
+                + ", removed=" + removed.size() + ", changed=" //$NON-NLS-1$ //$NON-NLS-2$
+                + changed.size() + "]"; //$NON-NLS-1$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * An entry that changed its value.
+     */
+    public static final class Change implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        private final String oldValue;
+        private final String newValue;
+
+        Change(String key, String oldValue, String newValue) {
+            this.key = key;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the former value or {@code null} if it is not known
+         */
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        /**
+         * @return the new value or {@code null} if it is not known
+         */
+        public String getNewValue() {
+            return newValue;
+        }
+
+        @Override
+        public String toString() {
+            return key + ": " + oldValue + " -> " + newValue; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+}
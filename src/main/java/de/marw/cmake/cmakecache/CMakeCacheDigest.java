@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.cmakecache;
+
+import java.io.Serializable;
+
+/**
+ * The keys of all entries of a CMake cache with a 64-bit hash of the value of
+ * each entry. Far smaller than the cache itself, it allows to tell which
+ * entries were added, removed or changed their value without keeping the
+ * values, see {@link CMakeCacheDiff#compute(CMakeCacheDigest, CMakeCacheDigest)}.
+ *
+ * @author Martin Weber
+ */
+public final class CMakeCacheDigest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** the keys in ascending order */
+    private final String[] keys;
+    /** the hash of the value of each entry */
+    private final long[] hashes;
+
+    private CMakeCacheDigest(String[] keys, long[] hashes) {
+        this.keys = keys;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Computes the digest of the specified cache.
+     *
+     * @return the digest, never {@code null}
+     */
+    public static CMakeCacheDigest of(CMakeCache cache) {
+        final String[] keys = new String[cache.size()];
+        final long[] hashes = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = cache.getKey(i);
+            hashes[i] = hash(cache.getValue(i));
+        }
+        return new CMakeCacheDigest(keys, hashes);
+    }
+
+    /**
+     * Gets the 64-bit FNV-1a hash of the characters of the specified value.
+     */
+    static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the number of entries of the cache.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the key of the entry at the specified index.
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Gets the hash of the value of the entry at the specified index.
+     */
+    public long getHash(int index) {
+        return hashes[index];
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + keys.length + " entries]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.cmakecache;
+
+/**
+ * The types of CMake cache file entries.
+ *
+ * @author Martin Weber
+ */
+public enum CMakeCacheEntryType {
+    BOOL, PATH, FILEPATH, STRING, INTERNAL, STATIC, UNINITIALIZED;
+
+    private static final CMakeCacheEntryType[] VALUES = values();
+
+    /**
+     * Gets the entry type from its name in the specified range of the line
+     * being scanned. Like {@code cmState::StringToCacheEntryType()}, an
+     * unknown type name maps to {@link #STRING}.
+     *
+     * @param scanner
+     *            the scanner holding the line
+     * @param from
+     *            the index of the first character of the type name
+     * @param to
+     *            the index after the last character of the type name
+     * @return the entry type, never {@code null}
+     */
+    static CMakeCacheEntryType of(CMakeCacheFileParser.LineScanner scanner,
+            int from, int to) {
+        for (CMakeCacheEntryType type : VALUES) {
+            if (scanner.regionEquals(from, to, type.name()))
+                return type;
+        }
+        return STRING;
+    }
+
+    /**
+     * Gets the entry type with the specified ordinal.
+     */
+    static CMakeCacheEntryType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -14,36 +14,62 @@ package de.marw.cmake.cmakecache;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A simple parser for CMake cache files ({@code CMakeCache.txt}). This
- * implementation extracts only key-value-pairs corresponding to an entry. It
- * does not extract any help texts nor entry types.
+ * implementation extracts only key-value-pairs corresponding to an entry and
+ * the entry types. It does not extract any help texts.
+ * <p>
+ * Entries can either be collected into a {@code Collection} or be pushed to an
+ * {@link EntryVisitor} one by one while the input is scanned, which allows to
+ * process large files without holding all entries in memory and to stop
+ * parsing as soon as the entries of interest were seen.
+ * </p>
+ * <p>
+ * The parser scans the characters of the input directly, without regular
+ * expressions and without creating a {@code String} per line. Only the keys
+ * of entries and the values of accepted entries are materialized.
+ * </p>
+ * <p>
+ * Besides a {@code Reader}, the parser can scan the raw bytes of a
+ * {@code ByteBuffer}, for example a memory-mapped file. In that mode,
+ * characters are decoded only for the parts of the input that are actually
+ * returned; lines that hold non-ASCII bytes are decoded as a whole.
+ * </p>
  *
  * @author Martin Weber
+ * @see CMakeCache
  */
 public class CMakeCacheFileParser {
 
-    // input line is: key:type=value
-    private static final Pattern reg = Pattern
-            .compile("([^=:]*):([^=]*)=(.*[^\t ]|[\t ]*)[\t ]*");
-    // input line is: "key":type=value
-    private static final Pattern regQuoted = Pattern
-            .compile("\"([^=:]*)\":([^=]*)=(.*[^\t ]|[\t ]*)[\t ]*");
-    // input line is: key=value
-    private static final Pattern regNoType = Pattern
-            .compile("([^=]*)=(.*[^\t ]|[\t ]*)[\t ]*");
-    // input line is: "key"=value
-    private static final Pattern regQuotedNoType = Pattern
-            .compile("\"([^=]*)\"=(.*[^\t ]|[\t ]*)[\t ]*");
+    /** initial size of the character buffer */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** a filter that does not accept any entry */
+    private static final EntryFilter REJECT_ALL = new EntryFilter() {
+        @Override
+        public boolean accept(String key) {
+            return false;
+        }
+    };
 
     /**
      * Parses the content of the specified input stream as a CMake cache file
@@ -74,101 +100,571 @@ public class CMakeCacheFileParser {
     public boolean parse(final Reader isr, final EntryFilter filter,
             Collection<SimpleCMakeCacheEntry> parsedEntries,
             List<String> errorLog) throws IOException {
-        final LineNumberReader reader = isr instanceof LineNumberReader
-                ? (LineNumberReader) isr : new LineNumberReader(isr);
-        boolean hasErrors = false;
+        final CollectingVisitor visitor = new CollectingVisitor(parsedEntries,
+                errorLog);
+        parse(isr, parsedEntries == null ? REJECT_ALL : filter, visitor);
+        return visitor.hasErrors;
+    }
 
-        Map<String, SimpleCMakeCacheEntry> uniqueMap = null;
-        if (parsedEntries != null && parsedEntries instanceof Set) {
-            // avoid returning duplicate keys
-            uniqueMap = new HashMap<String, SimpleCMakeCacheEntry>();
+    /**
+     * Parses the bytes of the specified buffer as a CMake cache file content.
+     * Other than that, this behaves like
+     * {@link #parse(Reader, EntryFilter, Collection, List)}.
+     *
+     * @param content
+     *            the content of the CMake cache file, from its position to its
+     *            limit. The position of the buffer is not modified.
+     * @param charset
+     *            the encoding of the content, see
+     *            {@link #isScannable(Charset)}
+     * @throws IllegalArgumentException
+     *             if the bytes of the charset cannot be scanned
+     */
+    public boolean parse(final ByteBuffer content, Charset charset,
+            final EntryFilter filter,
+            Collection<SimpleCMakeCacheEntry> parsedEntries,
+            List<String> errorLog) {
+        final CollectingVisitor visitor = new CollectingVisitor(parsedEntries,
+                errorLog);
+        parse(content, charset, parsedEntries == null ? REJECT_ALL : filter,
+                visitor);
+        return visitor.hasErrors;
+    }
+
+    /**
+     * Parses the content of the specified reader as a CMake cache file content
+     * and reports each entry and each malformed line to the specified visitor
+     * as soon as it is read. Parsing stops when the visitor asks to.
+     *
+     * @param isr
+     *            the reader that serves the content of the CMake cache file
+     * @param filter
+     *            an optional filter for CMake cache file entries or
+     *            {@code null} if all entries are of interest. Entries not
+     *            accepted by the filter are not reported to the visitor.
+     * @param visitor
+     *            receives the entries and errors
+     * @throws IOException
+     *             if an operation on the input stream failed
+     */
+    public void parse(final Reader isr, final EntryFilter filter,
+            final EntryVisitor visitor) throws IOException {
+        final VisitingScanner scanner = new VisitingScanner(filter, visitor);
+        if (isr instanceof LineNumberReader) {
+            scanner.lineNumber = ((LineNumberReader) isr).getLineNumber();
         }
+        scanner.scan(isr);
+    }
 
-        for (String line; null != (line = reader.readLine());) {
-            int idx = 0;
-            // skip leading whitespaces...
-            for (; idx < line.length(); idx++) {
-                final char c = line.charAt(idx);
-                if (!Character.isWhitespace(c))
-                    break;
+    /**
+     * Parses the bytes of the specified buffer as a CMake cache file content
+     * and reports each entry and each malformed line to the specified visitor.
+     * Other than that, this behaves like
+     * {@link #parse(Reader, EntryFilter, EntryVisitor)}.
+     *
+     * @param content
+     *            the content of the CMake cache file, from its position to its
+     *            limit. The position of the buffer is not modified.
+     * @param charset
+     *            the encoding of the content, see
+     *            {@link #isScannable(Charset)}
+     * @throws IllegalArgumentException
+     *             if the bytes of the charset cannot be scanned
+     */
+    public void parse(final ByteBuffer content, Charset charset,
+            final EntryFilter filter, final EntryVisitor visitor) {
+        new VisitingScanner(filter, visitor).scan(content, charset);
+    }
+
+    /**
+     * Gets the values of the cache entries with the specified keys. Other than
+     * {@link #parse}, this method stops reading as soon as an entry has been
+     * found for each of the keys. If the file holds multiple entries of the
+     * same key, the first one wins.
+     *
+     * @param isr
+     *            the reader that serves the content of the CMake cache file
+     * @param keys
+     *            the keys of the entries of interest
+     * @return a map of the keys found to their values, never {@code null}
+     * @throws IOException
+     *             if an operation on the input stream failed
+     */
+    public Map<String, String> lookup(final Reader isr,
+            final Collection<String> keys) throws IOException {
+        final LookupScanner scanner = new LookupScanner(keys);
+        if (!scanner.done)
+            scanner.scan(isr);
+        return scanner.values;
+    }
+
+    /**
+     * Gets the values of the cache entries with the specified keys from the
+     * bytes of the specified buffer. Other than that, this behaves like
+     * {@link #lookup(Reader, Collection)}.
+     *
+     * @param content
+     *            the content of the CMake cache file, from its position to its
+     *            limit. The position of the buffer is not modified.
+     * @param charset
+     *            the encoding of the content, see
+     *            {@link #isScannable(Charset)}
+     * @throws IllegalArgumentException
+     *             if the bytes of the charset cannot be scanned
+     */
+    public Map<String, String> lookup(final ByteBuffer content,
+            Charset charset, final Collection<String> keys) {
+        final LookupScanner scanner = new LookupScanner(keys);
+        if (!scanner.done)
+            scanner.scan(content, charset);
+        return scanner.values;
+    }
+
+    /**
+     * Gets whether the bytes of the specified character encoding can be
+     * scanned directly. This is the case for encodings that represent ASCII
+     * characters as single bytes and never use bytes in the ASCII range as
+     * part of the encoding of a non-ASCII character.
+     */
+    public static boolean isScannable(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset)
+                || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    /**
+     * Gets whether the specified character is a line terminator as recognized
+     * by the {@code .} construct of {@link java.util.regex.Pattern}.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+                || c == '\u2029';
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Splits the input into lines and each line into the key, type and value
+     * parts of an entry. Blank lines, comment lines and help strings are
+     * skipped.<br>
+     * Lines are recognized like {@link java.io.BufferedReader#readLine()}
+     * does, entries are recognized like the regular expressions
+     * {@code key:type=value}, {@code "key":type=value}, {@code key=value} and
+     * {@code "key"=value} did in former versions of this parser.
+     * <p>
+     * Sub-classes receive the parts of a line as index ranges and materialize
+     * the parts they are interested in by means of {@link #text(int, int)},
+     * {@link #value(int, int)} and {@link #type(int, int)}.
+     * </p>
+     *
+     * @author Martin Weber
+     */
+    static abstract class LineScanner {
+        /** the number of the line currently being processed */
+        int lineNumber;
+        /** set to {@code true} to stop reading the input */
+        boolean done;
+        /** the characters of the current line, if not scanning bytes */
+        private char[] chars;
+        /** the bytes of the current line, if not scanning characters */
+        private ByteBuffer bytes;
+        /** scratch space to decode bytes */
+        private byte[] scratch;
+
+        /**
+         * Reads the specified input to its end (or until {@link #done} is set)
+         * and calls {@link #entry(int, int, int, int, int, int)} for each
+         * entry line and {@link #error(int, int)} for each malformed line.
+         */
+        final void scan(Reader reader) throws IOException {
+            char[] buf = new char[BUFFER_SIZE];
+            int fill = 0; // number of valid chars in buf
+            int start = 0; // start of the current line
+            int pos = 0; // next char to examine for a line terminator
+            boolean skipLF = false;
+            bytes = null;
+            for (;;) {
+                if (pos == fill) {
+                    // need more input
+                    if (start > 0) {
+                        // discard the lines already processed
+                        System.arraycopy(buf, start, buf, 0, fill - start);
+                        fill -= start;
+                        pos -= start;
+                        start = 0;
+                    }
+                    if (fill == buf.length) {
+                        // a line longer than the buffer
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    }
+                    final int n = reader.read(buf, fill, buf.length - fill);
+                    if (n < 0) {
+                        if (start < fill) {
+                            // last line without line terminator
+                            lineNumber++;
+                            chars = buf;
+                            line(start, fill);
+                        }
+                        return;
+                    }
+                    fill += n;
+                    continue;
+                }
+                final char c = buf[pos];
+                if (skipLF) {
+                    skipLF = false;
+                    if (c == '\n') {
+                        // second half of CR-LF
+                        start = ++pos;
+                        continue;
+                    }
+                }
+                if (c == '\n' || c == '\r') {
+                    lineNumber++;
+                    chars = buf;
+                    line(start, pos);
+                    if (done)
+                        return;
+                    skipLF = c == '\r';
+                    start = ++pos;
+                } else {
+                    pos++;
+                }
             }
-            if (!(idx < line.length()))
-                continue; // skip blank lines
-
-            if (line.charAt(idx) == '#')
-                continue; // skip cmake comment lines
-
-            if (idx < line.length()) {
-                line = line.substring(idx);
-
-                if (line.startsWith("//"))
-                    continue; // ignore help string
-
-                // parse cache entry...
-                String key = null;
-                String value = null;
-                Matcher matcher;
-
-                if ((matcher = reg.matcher(line)).matches()
-                        || (matcher = regQuoted.matcher(line)).matches()) {
-                    // input line is: key:type=value
-                    // input line is: "key":type=value
-                    key = matcher.group(1);
-                    // we do not need the type from group(2)
-                    value = matcher.group(3);
-                } else if ((matcher = regNoType.matcher(line)).matches()
-                        || (matcher = regQuotedNoType.matcher(line))
-                                .matches()) {
-                    // input line is: key=value
-                    // input line is: "key"=value
-                    key = matcher.group(1);
-                    value = matcher.group(2);
+        }
+
+        /**
+         * Scans the bytes of the specified buffer from its position to its
+         * limit (or until {@link #done} is set) and calls
+         * {@link #entry(int, int, int, int, int, int)} for each entry line and
+         * {@link #error(int, int)} for each malformed line. Lines that consist
+         * of ASCII characters only are scanned without decoding, other lines
+         * are decoded using the specified charset.
+         *
+         * @throws IllegalArgumentException
+         *             if the bytes of the charset cannot be scanned
+         */
+        final void scan(ByteBuffer content, Charset charset) {
+            if (!isScannable(charset))
+                throw new IllegalArgumentException(charset.name());
+            final CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer decoded = null;
+            final int limit = content.limit();
+            int pos = content.position();
+            while (pos < limit) {
+                int end = pos;
+                int high = 0; // sign bit is set, if line has non-ASCII bytes
+                for (; end < limit; end++) {
+                    final byte b = content.get(end);
+                    if (b == '\n' || b == '\r')
+                        break;
+                    high |= b;
+                }
+                lineNumber++;
+                if (high >= 0) {
+                    chars = null;
+                    bytes = content;
+                    line(pos, end);
                 } else {
-                    hasErrors |= true;
-                    // add error message
-                    if (errorLog != null) {
-                        final String msg = MessageFormat.format(
-                                "Error: Line {0,number,integer}: Offending entry: {1}",
-                                reader.getLineNumber(), line);
-                        errorLog.add(msg);
+                    // decode the line to have non-ASCII whitespace recognized
+                    if (decoded == null || decoded.capacity() < end - pos) {
+                        decoded = CharBuffer.allocate(
+                                Math.max(end - pos, BUFFER_SIZE));
                     }
+                    final ByteBuffer in = content.duplicate();
+                    ((Buffer) in).limit(end);
+                    ((Buffer) in).position(pos);
+                    ((Buffer) decoded).clear();
+                    decoder.reset();
+                    decoder.decode(in, decoded, true);
+                    decoder.flush(decoded);
+                    chars = decoded.array();
+                    bytes = null;
+                    line(0, decoded.position());
+                }
+                if (done)
+                    return;
+                if (end + 1 < limit && content.get(end) == '\r'
+                        && content.get(end + 1) == '\n') {
+                    end++; // CR-LF
                 }
+                pos = end + 1;
+            }
+        }
+
+        /**
+         * Gets the character of the current line at the specified index.
+         */
+        final char charAt(int index) {
+            return chars != null ? chars[index] : (char) bytes.get(index);
+        }
 
-                if (filter != null && parsedEntries != null) {
-                    // no need to call the filter if nothing is to be returned
-                    if (!filter.accept(key))
-                        continue; // uninteresting entry, get next line
+        /**
+         * Gets the text of the current line in the specified range.
+         */
+        final String text(int from, int to) {
+            if (chars != null)
+                return new String(chars, from, to - from);
+            // ASCII only
+            final int len = to - from;
+            if (scratch == null || scratch.length < len)
+                scratch = new byte[Math.max(len, 256)];
+            for (int i = 0; i < len; i++) {
+                scratch[i] = bytes.get(from + i);
+            }
+            return new String(scratch, 0, len, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Gets whether the text of the current line in the specified range
+         * equals the specified string.
+         */
+        final boolean regionEquals(int from, int to, String s) {
+            if (s.length() != to - from)
+                return false;
+            for (int i = from; i < to; i++) {
+                if (charAt(i) != s.charAt(i - from))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Gets the value of an entry in the specified range of the current
+         * line.
+         */
+        final String value(int from, int to) {
+            // if value is enclosed in single quotes ('foo') then remove
+            // them
+            // it is used to enclose trailing space or tab
+            if (to - from >= 2 && charAt(from) == '\'' && charAt(to - 1) == '\'') {
+                from++;
+            }
+            return text(from, to);
+        }
+
+        /**
+         * Gets the type of an entry in the specified range of the current line.
+         *
+         * @param from
+         *            the start of the type or {@code -1} if the entry has no
+         *            type
+         */
+        final CMakeCacheEntryType type(int from, int to) {
+            return from < 0 ? CMakeCacheEntryType.UNINITIALIZED
+                    : CMakeCacheEntryType.of(this, from, to);
+        }
+
+        /**
+         * Parses a single line.
+         *
+         * @param from
+         *            the index of the first character of the line
+         * @param to
+         *            the index after the last character of the line
+         */
+        private void line(final int from, final int to) {
+            int idx = from;
+            // skip leading whitespaces...
+            while (idx < to && Character.isWhitespace(charAt(idx)))
+                idx++;
+            if (idx == to)
+                return; // skip blank lines
+            if (charAt(idx) == '#')
+                return; // skip cmake comment lines
+            if (charAt(idx) == '/' && idx + 1 < to && charAt(idx + 1) == '/')
+                return; // ignore help string
+
+            // find the first '=' and the first ':' preceding it
+            int colon = -1;
+            int equals = -1;
+            for (int i = idx; i < to; i++) {
+                final char c = charAt(i);
+                if (c == '=') {
+                    equals = i;
+                    break;
                 }
+                if (c == ':' && colon < 0)
+                    colon = i;
+            }
+            final int keyEnd = colon < 0 ? equals : colon;
+            if (equals < 0 || keyEnd == idx) {
+                // no '=' at all (even if a ':' is present) or an empty key
+                error(idx, to);
+                return;
+            }
 
-                // if value is enclosed in single quotes ('foo') then remove
-                // them
-                // it is used to enclose trailing space or tab
-                if (key != null && value != null && value.length() >= 2
-                        && value.charAt(0) == '\''
-                        && value.charAt(value.length() - 1) == '\'') {
+            // value: strip trailing blanks, but keep a value consisting of
+            // blanks only
+            final int valueFrom = equals + 1;
+            int valueTo = to;
+            while (valueTo > valueFrom && (charAt(valueTo - 1) == ' '
+                    || charAt(valueTo - 1) == '\t'))
+                valueTo--;
+            if (valueTo == valueFrom) {
+                valueTo = to;
+            } else if (chars != null) {
+                // ASCII bytes never are line terminators
+                for (int i = valueFrom; i < valueTo - 1; i++) {
+                    if (isLineTerminator(chars[i])) {
+                        error(idx, to);
+                        return;
+                    }
+                }
+            }
+            if (colon < 0)
+                entry(idx, keyEnd, -1, -1, valueFrom, valueTo);
+            else
+                entry(idx, keyEnd, colon + 1, equals, valueFrom, valueTo);
+        }
+
+        /**
+         * Called for each entry line. All ranges are half-open intervals in
+         * the current line.
+         *
+         * @param typeFrom
+         *            the start of the type or {@code -1} if the entry has no
+         *            type
+         * @param typeTo
+         *            the end of the type or {@code -1} if the entry has no
+         *            type
+         */
+        abstract void entry(int keyFrom, int keyTo, int typeFrom, int typeTo,
+                int valueFrom, int valueTo);
+
+        /**
+         * Called for each malformed line.
+         *
+         * @param from
+         *            the index of the first non-whitespace character of the
+         *            line
+         * @param to
+         *            the index after the last character of the line
+         */
+        abstract void error(int from, int to);
+    }
+
+    /**
+     * Reports entries and malformed lines to an {@link EntryVisitor}.
+     */
+    private static class VisitingScanner extends LineScanner {
+        private final EntryFilter filter;
+        private final EntryVisitor visitor;
+
+        VisitingScanner(EntryFilter filter, EntryVisitor visitor) {
+            this.filter = filter;
+            this.visitor = visitor;
+        }
 
-                    value = value.substring(1, value.length());
+        @Override
+        void entry(int keyFrom, int keyTo, int typeFrom, int typeTo,
+                int valueFrom, int valueTo) {
+            final String key = text(keyFrom, keyTo);
+            if (filter != null && !filter.accept(key))
+                return; // uninteresting entry, get next line
+            done = !visitor.onEntry(key, type(typeFrom, typeTo),
+                    value(valueFrom, valueTo));
+        }
+
+        @Override
+        void error(int from, int to) {
+            done = !visitor.onError(lineNumber, text(from, to));
+        }
+    }
+
+    /**
+     * Collects entries into a {@code Collection} as specified by
+     * {@link CMakeCacheFileParser#parse(Reader, EntryFilter, Collection, List)}.
+     */
+    private static class CollectingVisitor implements EntryVisitor {
+        private final Collection<SimpleCMakeCacheEntry> parsedEntries;
+        private final List<String> errorLog;
+        /** the keys collected so far, non-null if duplicates must be avoided */
+        private final Set<String> keys;
+        boolean hasErrors;
+
+        CollectingVisitor(Collection<SimpleCMakeCacheEntry> parsedEntries,
+                List<String> errorLog) {
+            this.parsedEntries = parsedEntries;
+            this.errorLog = errorLog;
+            if (parsedEntries != null && parsedEntries instanceof Set) {
+                // avoid returning duplicate keys
+                keys = new HashSet<String>();
+            } else {
+                keys = null;
+            }
+        }
+
+        @Override
+        public boolean onEntry(final String key, CMakeCacheEntryType type,
+                String value) {
+            if (keys != null && !keys.add(key)) {
+                // duplicate key, the last entry wins. CMake never writes
+                // those, so a linear search is acceptable
+                for (Iterator<SimpleCMakeCacheEntry> iter = parsedEntries
+                        .iterator(); iter.hasNext();) {
+                    if (iter.next().getKey().equals(key))
+                        iter.remove();
                 }
+            }
+            parsedEntries.add(new SimpleCMakeCacheEntry(key, value));
+            return true;
+        }
+
+        @Override
+        public boolean onError(int lineNumber, String text) {
+            hasErrors = true;
+            // add error message
+            if (errorLog != null) {
+                final String msg = MessageFormat.format(
+                        "Error: Line {0,number,integer}: Offending entry: {1}",
+                        lineNumber, text);
+                errorLog.add(msg);
+            }
+            return true;
+        }
+    }
 
-                // store entry
-                if (parsedEntries != null) {
-                    final SimpleCMakeCacheEntry entry = new SimpleCMakeCacheEntry(
-                            key, value);
-                    if (uniqueMap != null)
-                        uniqueMap.put(key, entry);
-                    else
-                        parsedEntries.add(entry);
+    /**
+     * Gets the values of selected entries and stops scanning once all are
+     * found. Keys are compared in place, so only the values of the requested
+     * entries are materialized.
+     */
+    private static class LookupScanner extends LineScanner {
+        /** the keys not found yet */
+        private final List<String> wanted;
+        final Map<String, String> values;
+
+        LookupScanner(Collection<String> keys) {
+            this.wanted = new ArrayList<String>(
+                    new LinkedHashSet<String>(keys));
+            this.values = new HashMap<String, String>(keys.size() * 2);
+            done = wanted.isEmpty();
+        }
+
+        @Override
+        void entry(int keyFrom, int keyTo, int typeFrom, int typeTo,
+                int valueFrom, int valueTo) {
+            for (int i = 0; i < wanted.size(); i++) {
+                final String key = wanted.get(i);
+                if (regionEquals(keyFrom, keyTo, key)) {
+                    values.put(key, value(valueFrom, valueTo));
+                    wanted.remove(i);
+                    done = wanted.isEmpty();
+                    return;
                 }
             }
         }
-        if (parsedEntries != null && uniqueMap != null)
-            parsedEntries.addAll(uniqueMap.values());
-        return hasErrors;
+
+        @Override
+        void error(int from, int to) {
+            // ignore
+        }
     }
 
-    ////////////////////////////////////////////////////////////////////
-    // inner classes
-    ////////////////////////////////////////////////////////////////////
     /**
      * A filter for CMake cache file entry keys.
      * <p>
@@ -190,4 +686,37 @@ public class CMakeCacheFileParser {
          */
         boolean accept(String key);
     }
+
+    /**
+     * Receives the entries and parse errors of a CMake cache file while the
+     * file is parsed.
+     *
+     * @author Martin Weber
+     * @see CMakeCacheFileParser#parse(Reader, EntryFilter, EntryVisitor)
+     */
+    public interface EntryVisitor {
+        /**
+         * Called for each entry accepted by the filter.
+         *
+         * @param key
+         *            the entry key, never {@code null}
+         * @param type
+         *            the entry type, never {@code null}
+         * @param value
+         *            the entry value, never {@code null}
+         * @return {@code true} to continue parsing, {@code false} to stop
+         */
+        boolean onEntry(String key, CMakeCacheEntryType type, String value);
+
+        /**
+         * Called for each malformed line.
+         *
+         * @param lineNumber
+         *            the number of the line, starting at 1
+         * @param text
+         *            the line, without leading whitespace
+         * @return {@code true} to continue parsing, {@code false} to stop
+         */
+        boolean onError(int lineNumber, String text);
+    }
 }
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.fileapi;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of a CMake File API {@code codemodel} object that are of interest
+ * for a build: the configurations, their build targets and the artifacts the
+ * targets produce.
+ *
+ * @author Martin Weber
+ */
+public class CodeModel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String sourceDir;
+    private final String buildDir;
+    private final List<Configuration> configurations;
+
+    /**
+     * @param sourceDir
+     *            the absolute path of the top-level source directory
+     * @param buildDir
+     *            the absolute path of the top-level build directory
+     * @param configurations
+     *            the configurations
+     */
+    public CodeModel(String sourceDir, String buildDir,
+            List<Configuration> configurations) {
+        this.sourceDir = sourceDir;
+        this.buildDir = buildDir;
+        this.configurations = Collections.unmodifiableList(configurations);
+    }
+
+    /**
+     * Gets the absolute path of the top-level source directory.
+     */
+    public String getSourceDir() {
+        return sourceDir;
+    }
+
+    /**
+     * Gets the absolute path of the top-level build directory.
+     */
+    public String getBuildDir() {
+        return buildDir;
+    }
+
+    /**
+     * Gets the configurations. Single-configuration generators produce
+     * exactly one configuration.
+     */
+    public List<Configuration> getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * Gets the configuration with the specified name.
+     *
+     * @return the configuration or {@code null} if there is none
+     */
+    public Configuration getConfiguration(String name) {
+        for (Configuration configuration : configurations) {
+            if (configuration.getName().equals(name))
+                return configuration;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "CodeModel [sourceDir=" + sourceDir + ", buildDir=" + buildDir //$NON-NLS-1$ //$NON-NLS-2$
+                + ", configurations=" + configurations + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * A build configuration, e.g. {@code Debug}.
+     */
+    public static class Configuration implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final List<Target> targets;
+
+        /**
+         * @param name
+         *            the name of the configuration, may be empty for
+         *            single-configuration generators without a build type
+         * @param targets
+         *            the build targets
+         */
+        public Configuration(String name, List<Target> targets) {
+            this.name = name;
+            this.targets = Collections.unmodifiableList(targets);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Target> getTargets() {
+            return targets;
+        }
+
+        /**
+         * Gets the target with the specified name.
+         *
+         * @return the target or {@code null} if there is none
+         */
+        public Target getTarget(String name) {
+            for (Target target : targets) {
+                if (target.getName().equals(name))
+                    return target;
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "Configuration [name=" + name + ", targets=" + targets + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    /**
+     * A build target.
+     */
+    public static class Target implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final String type;
+        private final String nameOnDisk;
+        private final List<String> artifacts;
+
+        /**
+         * @param name
+         *            the logical name of the target
+         * @param type
+         *            the type of the target, e.g. {@code EXECUTABLE} or
+         *            {@code STATIC_LIBRARY}
+         * @param nameOnDisk
+         *            the file name of the primary artifact or {@code null} if
+         *            the target produces none
+         * @param artifacts
+         *            the paths of the artifacts, relative to the top-level
+         *            build directory unless absolute
+         */
+        public Target(String name, String type, String nameOnDisk,
+                List<String> artifacts) {
+            this.name = name;
+            this.type = type;
+            this.nameOnDisk = nameOnDisk;
+            this.artifacts = Collections.unmodifiableList(artifacts);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Gets the file name of the primary artifact.
+         *
+         * @return the file name or {@code null} if the target produces none
+         */
+        public String getNameOnDisk() {
+            return nameOnDisk;
+        }
+
+        /**
+         * Gets the paths of the artifacts, relative to the top-level build
+         * directory unless absolute.
+         */
+        public List<String> getArtifacts() {
+            return artifacts;
+        }
+
+        @Override
+        public String toString() {
+            return "Target [name=" + name + ", type=" + type + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+}
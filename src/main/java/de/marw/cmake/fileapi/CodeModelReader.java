@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.fileapi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queries and reads the {@code codemodel} object of the CMake File API
+ * (requires cmake 3.14 or later).<br>
+ * Before cmake is run, {@link #writeQuery(Path)} places a stateless client
+ * query in the build directory. After cmake has generated the build system,
+ * {@link #read(Path)} reads the reply: the latest index file, the codemodel
+ * file the index refers to and the file of each target the codemodel refers
+ * to. The files are parsed by a streaming parser that keeps only the values
+ * of interest, since the target files of large projects list thousands of
+ * source files and compile groups.
+ *
+ * @author Martin Weber
+ */
+public class CodeModelReader {
+
+    /** the name of the File API client */
+    public static final String CLIENT = "client-cmakebuilder"; //$NON-NLS-1$
+    /** the kind and major version of the object to query */
+    private static final String CODEMODEL = "codemodel-v2"; //$NON-NLS-1$
+    private static final String API_DIR = ".cmake/api/v1"; //$NON-NLS-1$
+
+    private CodeModelReader() {
+    }
+
+    /**
+     * Writes the query for the codemodel into the specified build directory.
+     * Does nothing if the query exists.
+     *
+     * @param buildDir
+     *            the top-level build directory
+     */
+    public static void writeQuery(Path buildDir) throws IOException {
+        final Path query = buildDir
+                .resolve(API_DIR + "/query/" + CLIENT + "/" + CODEMODEL); //$NON-NLS-1$ //$NON-NLS-2$
+        if (!Files.exists(query)) {
+            Files.createDirectories(query.getParent());
+            Files.createFile(query);
+        }
+    }
+
+    /**
+     * Reads the codemodel that cmake wrote in reply to the query.
+     *
+     * @param buildDir
+     *            the top-level build directory
+     * @return the code model or {@code null} if cmake did not write a reply
+     *         to the query, e.g. because it is older than 3.14
+     * @throws IOException
+     *             if a reply file could not be read or is malformed
+     */
+    public static CodeModel read(Path buildDir) throws IOException {
+        final Path replyDir = buildDir.resolve(API_DIR + "/reply"); //$NON-NLS-1$
+        final Path index = findIndex(replyDir);
+        if (index == null)
+            return null;
+        final String codemodelFile = readIndex(index);
+        if (codemodelFile == null)
+            return null;
+        return readCodemodel(replyDir, replyDir.resolve(codemodelFile));
+    }
+
+    /**
+     * Gets the latest index file, which is the one whose name sorts last.
+     *
+     * @return the index file or {@code null} if there is none
+     */
+    private static Path findIndex(Path replyDir) throws IOException {
+        if (!Files.isDirectory(replyDir))
+            return null;
+        Path latest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(replyDir,
+                "index-*.json")) { //$NON-NLS-1$
+            for (Path file : files) {
+                if (latest == null || file.getFileName().toString()
+                        .compareTo(latest.getFileName().toString()) > 0) {
+                    latest = file;
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Gets the name of the codemodel file that answers our query from the
+     * specified index file.
+     *
+     * @return the file name, relative to the reply directory, or {@code null}
+     *         if the query was not answered
+     */
+    private static String readIndex(Path index) throws IOException {
+        String jsonFile = null;
+        try (JsonReader reader = open(index)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("reply")) { //$NON-NLS-1$
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!reader.nextName().equals(CLIENT)) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (!reader.nextName().equals(CODEMODEL)) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        // holds 'error' instead of 'jsonFile' if cmake
+                        // cannot answer the query
+                        jsonFile = readMember(reader, "jsonFile"); //$NON-NLS-1$
+                    }
+                    reader.endObject();
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        return jsonFile;
+    }
+
+    private static CodeModel readCodemodel(Path replyDir, Path file)
+            throws IOException {
+        String source = null;
+        String build = null;
+        final List<Configuration> configurations = new ArrayList<>();
+        try (JsonReader reader = open(file)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (name.equals("paths")) { //$NON-NLS-1$
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        final String path = reader.nextName();
+                        if (path.equals("source")) { //$NON-NLS-1$
+                            source = reader.nextString();
+                        } else if (path.equals("build")) { //$NON-NLS-1$
+                            build = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else if (name.equals("configurations")) { //$NON-NLS-1$
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        configurations.add(readConfiguration(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        final List<CodeModel.Configuration> result = new ArrayList<>(
+                configurations.size());
+        for (Configuration configuration : configurations) {
+            final List<CodeModel.Target> targets = new ArrayList<>(
+                    configuration.targetFiles.size());
+            for (String targetFile : configuration.targetFiles) {
+                targets.add(readTarget(replyDir.resolve(targetFile)));
+            }
+            result.add(new CodeModel.Configuration(configuration.name,
+                    targets));
+        }
+        return new CodeModel(source, build, result);
+    }
+
+    /**
+     * Reads a configuration object of the codemodel. Collects the names of
+     * the target files only, the targets are read after the codemodel file
+     * is closed.
+     */
+    private static Configuration readConfiguration(JsonReader reader)
+            throws IOException {
+        final Configuration configuration = new Configuration();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (name.equals("name")) { //$NON-NLS-1$
+                configuration.name = reader.nextString();
+            } else if (name.equals("targets")) { //$NON-NLS-1$
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    final String jsonFile = readMember(reader, "jsonFile"); //$NON-NLS-1$
+                    if (jsonFile != null)
+                        configuration.targetFiles.add(jsonFile);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return configuration;
+    }
+
+    private static CodeModel.Target readTarget(Path file) throws IOException {
+        String name = null;
+        String type = null;
+        String nameOnDisk = null;
+        final List<String> artifacts = new ArrayList<>();
+        try (JsonReader reader = open(file)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String member = reader.nextName();
+                if (member.equals("name")) { //$NON-NLS-1$
+                    name = reader.nextString();
+                } else if (member.equals("type")) { //$NON-NLS-1$
+                    type = reader.nextString();
+                } else if (member.equals("nameOnDisk")) { //$NON-NLS-1$
+                    nameOnDisk = reader.nextString();
+                } else if (member.equals("artifacts")) { //$NON-NLS-1$
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        final String path = readMember(reader, "path"); //$NON-NLS-1$
+                        if (path != null)
+                            artifacts.add(path);
+                    }
+                    reader.endArray();
+                } else {
+                    // skip sources, compileGroups, backtraceGraph...
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        if (name == null || type == null) {
+            throw new IOException(file + ": not a target object"); //$NON-NLS-1$
+        }
+        return new CodeModel.Target(name, type, nameOnDisk, artifacts);
+    }
+
+    /**
+     * Reads an object and gets the string value of the specified member.
+     *
+     * @return the value or {@code null} if the object has no such member
+     */
+    private static String readMember(JsonReader reader, String member)
+            throws IOException {
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(member)) {
+                value = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    private static JsonReader open(Path file) throws IOException {
+        return new JsonReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * A configuration of the codemodel whose targets are not yet read.
+     */
+    private static class Configuration {
+        String name = ""; //$NON-NLS-1$
+        final List<String> targetFiles = new ArrayList<>();
+    }
+}
@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.fileapi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A minimal pull parser for JSON documents (RFC 8259). Reads one token at a
+ * time from the underlying reader, so a document is never held in memory as a
+ * whole. Values that are not of interest are skipped with
+ * {@link #skipValue()}. Also used to read the CMake presets files, see
+ * {@code de.marw.cmake.presets}.
+ *
+ * @author Martin Weber
+ */
+public class JsonReader implements Closeable {
+
+    /** the kinds of tokens */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER,
+        BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    /** the containers the parser is in */
+    private static final byte IN_OBJECT = 1;
+    private static final byte IN_ARRAY = 2;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+
+    private byte[] stack = new byte[16];
+    private int depth;
+    /** whether the next token in an object is a name */
+    private boolean expectName;
+    /** whether a value or name was read in the current container */
+    private boolean hasElement;
+    /** the token peeked or {@code null} */
+    private Token peeked;
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * @param in
+     *            the reader that serves the JSON document
+     */
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Gets the kind of the next token without consuming it.
+     */
+    public Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    /**
+     * Gets whether the current object or array has another element.
+     */
+    public boolean hasNext() throws IOException {
+        final Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY
+                && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the next name of an object member.
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return text.toString();
+    }
+
+    /**
+     * Consumes the next string value. Numbers and booleans are returned in
+     * their literal form.
+     */
+    public String nextString() throws IOException {
+        final Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER
+                && token != Token.BOOLEAN) {
+            throw syntaxError("expected a string but was " + token); //$NON-NLS-1$
+        }
+        peeked = null;
+        return text.toString();
+    }
+
+    /**
+     * Consumes the next value, including all values nested in it.
+     */
+    public void skipValue() throws IOException {
+        int nesting = 0;
+        do {
+            final Token token = peek();
+            peeked = null;
+            switch (token) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                nesting++;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                nesting--;
+                break;
+            case END_DOCUMENT:
+                throw syntaxError("unexpected end of document"); //$NON-NLS-1$
+            default:
+                break;
+            }
+        } while (nesting > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(Token expected) throws IOException {
+        final Token token = peek();
+        if (token != expected) {
+            throw syntaxError("expected " + expected + " but was " + token); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        peeked = null;
+    }
+
+    private Token readToken() throws IOException {
+        int c = nextNonBlank();
+        if (depth > 0) {
+            final byte container = stack[depth - 1];
+            if (c == (container == IN_OBJECT ? '}' : ']')) {
+                if (container == IN_OBJECT && expectName == false
+                        && hasElement) {
+                    throw syntaxError("missing value"); //$NON-NLS-1$
+                }
+                depth--;
+                afterValue();
+                return container == IN_OBJECT ? Token.END_OBJECT
+                        : Token.END_ARRAY;
+            }
+            if (container == IN_OBJECT && expectName) {
+                if (hasElement) {
+                    if (c != ',')
+                        throw syntaxError("expected ',' or '}'"); //$NON-NLS-1$
+                    c = nextNonBlank();
+                }
+                if (c != '"')
+                    throw syntaxError("expected a name"); //$NON-NLS-1$
+                readString();
+                if (nextNonBlank() != ':')
+                    throw syntaxError("expected ':'"); //$NON-NLS-1$
+                expectName = false;
+                hasElement = true;
+                return Token.NAME;
+            }
+            if (container == IN_ARRAY && hasElement) {
+                if (c != ',')
+                    throw syntaxError("expected ',' or ']'"); //$NON-NLS-1$
+                c = nextNonBlank();
+            }
+        } else if (hasElement) {
+            if (c != -1)
+                throw syntaxError("trailing data after the document"); //$NON-NLS-1$
+            return Token.END_DOCUMENT;
+        }
+
+        switch (c) {
+        case -1:
+            throw syntaxError("unexpected end of document"); //$NON-NLS-1$
+        case '{':
+            push(IN_OBJECT);
+            return Token.BEGIN_OBJECT;
+        case '[':
+            push(IN_ARRAY);
+            return Token.BEGIN_ARRAY;
+        case '"':
+            readString();
+            afterValue();
+            return Token.STRING;
+        case 't':
+            readLiteral("true"); //$NON-NLS-1$
+            afterValue();
+            return Token.BOOLEAN;
+        case 'f':
+            readLiteral("false"); //$NON-NLS-1$
+            afterValue();
+            return Token.BOOLEAN;
+        case 'n':
+            readLiteral("null"); //$NON-NLS-1$
+            afterValue();
+            return Token.NULL;
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                readNumber((char) c);
+                afterValue();
+                return Token.NUMBER;
+            }
+            throw syntaxError("unexpected character '" + (char) c + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private void push(byte container) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = container;
+        expectName = container == IN_OBJECT;
+        hasElement = false;
+    }
+
+    /**
+     * Updates the state after a complete value was read.
+     */
+    private void afterValue() {
+        hasElement = true;
+        expectName = depth > 0 && stack[depth - 1] == IN_OBJECT;
+    }
+
+    /**
+     * Reads the characters of a string after the opening quote into
+     * {@link #text}.
+     */
+    private void readString() throws IOException {
+        text.setLength(0);
+        for (;;) {
+            final int c = read();
+            if (c == -1)
+                throw syntaxError("unterminated string"); //$NON-NLS-1$
+            if (c == '"')
+                return;
+            if (c == '\\') {
+                final int e = read();
+                switch (e) {
+                case '"':
+                case '\\':
+                case '/':
+                    text.append((char) e);
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        final int digit = Character.digit(read(), 16);
+                        if (digit < 0)
+                            throw syntaxError("malformed unicode escape"); //$NON-NLS-1$
+                        value = (value << 4) | digit;
+                    }
+                    text.append((char) value);
+                    break;
+                default:
+                    throw syntaxError("malformed escape sequence"); //$NON-NLS-1$
+                }
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void readNumber(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        for (;;) {
+            final int c = peekChar();
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E'
+                    || c == '+' || c == '-') {
+                text.append((char) read());
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 1; i < literal.length(); i++) {
+            if (read() != literal.charAt(i))
+                throw syntaxError("expected " + literal); //$NON-NLS-1$
+        }
+        text.setLength(0);
+        text.append(literal);
+    }
+
+    private int nextNonBlank() throws IOException {
+        for (;;) {
+            final int c = read();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                return c;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return buffer[pos++];
+    }
+
+    private int peekChar() throws IOException {
+        if (pos == limit && !fill())
+            return -1;
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        final int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0)
+            return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message); //$NON-NLS-1$
+    }
+}
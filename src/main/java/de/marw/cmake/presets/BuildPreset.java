@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import java.util.List;
+
+/**
+ * A build preset: the targets to build in the build tree of a configure
+ * preset and how.
+ *
+ * @author Martin Weber
+ */
+public class BuildPreset extends Preset {
+    private static final long serialVersionUID = 1L;
+
+    String configurePreset;
+    Integer jobs;
+    List<String> targets;
+    String configuration;
+    Boolean cleanFirst;
+    Boolean verbose;
+    List<String> nativeToolOptions;
+
+    BuildPreset(String fileDir) {
+        super(fileDir);
+    }
+
+    /**
+     * Gets the name of the configure preset whose build tree to build.
+     *
+     * @return the name or {@code null} if not specified
+     */
+    public String getConfigurePreset() {
+        return configurePreset;
+    }
+
+    /**
+     * Gets the number of parallel jobs.
+     *
+     * @return the number or {@code null} to leave it to the build tool
+     */
+    public Integer getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Gets the targets to build.
+     *
+     * @return the targets or {@code null} to build the default target
+     */
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Gets the configuration to build in a multi-configuration build tree.
+     *
+     * @return the configuration or {@code null}
+     */
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    public boolean isCleanFirst() {
+        return Boolean.TRUE.equals(cleanFirst);
+    }
+
+    public boolean isVerbose() {
+        return Boolean.TRUE.equals(verbose);
+    }
+
+    /**
+     * Gets the options to pass to the build tool.
+     *
+     * @return the options or {@code null}
+     */
+    public List<String> getNativeToolOptions() {
+        return nativeToolOptions;
+    }
+
+    @Override
+    void inherit(Preset parent) {
+        final BuildPreset other = (BuildPreset) parent;
+        configurePreset = inherit(configurePreset, other.configurePreset);
+        jobs = inherit(jobs, other.jobs);
+        targets = inherit(targets, other.targets);
+        configuration = inherit(configuration, other.configuration);
+        cleanFirst = inherit(cleanFirst, other.cleanFirst);
+        verbose = inherit(verbose, other.verbose);
+        nativeToolOptions = inherit(nativeToolOptions, other.nativeToolOptions);
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A configure preset: the generator, the build directory, the cache
+ * variables and the environment to configure a build tree with.
+ *
+ * @author Martin Weber
+ */
+public class ConfigurePreset extends Preset {
+    private static final long serialVersionUID = 1L;
+
+    String generator;
+    String binaryDir;
+    String installDir;
+    String toolchainFile;
+    /** the cache variables, a {@code null} value leaves a variable unset */
+    final Map<String, CacheVariable> cacheVariables = new LinkedHashMap<>();
+    /** the environment, a {@code null} value unsets a variable */
+    final Map<String, String> environment = new LinkedHashMap<>();
+
+    ConfigurePreset(String fileDir) {
+        super(fileDir);
+    }
+
+    /**
+     * Gets the name of the generator.
+     *
+     * @return the name or {@code null} if the preset does not specify one
+     */
+    public String getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Gets the build directory, with macros not expanded. A relative path is
+     * relative to the source directory.
+     *
+     * @return the directory or {@code null} if the preset does not specify
+     *         one
+     */
+    public String getBinaryDir() {
+        return binaryDir;
+    }
+
+    /**
+     * Gets the installation directory, with macros not expanded.
+     *
+     * @return the directory or {@code null}
+     */
+    public String getInstallDir() {
+        return installDir;
+    }
+
+    /**
+     * Gets the toolchain file, with macros not expanded.
+     *
+     * @return the file or {@code null}
+     */
+    public String getToolchainFile() {
+        return toolchainFile;
+    }
+
+    /**
+     * Gets the cache variables by name, with macros not expanded. A
+     * {@code null} value means the variable is not set.
+     */
+    public Map<String, CacheVariable> getCacheVariables() {
+        return Collections.unmodifiableMap(cacheVariables);
+    }
+
+    /**
+     * Gets the environment variables by name, with macros not expanded. A
+     * {@code null} value means the variable is unset.
+     */
+    public Map<String, String> getEnvironment() {
+        return Collections.unmodifiableMap(environment);
+    }
+
+    @Override
+    void inherit(Preset parent) {
+        final ConfigurePreset other = (ConfigurePreset) parent;
+        generator = inherit(generator, other.generator);
+        binaryDir = inherit(binaryDir, other.binaryDir);
+        installDir = inherit(installDir, other.installDir);
+        toolchainFile = inherit(toolchainFile, other.toolchainFile);
+        inherit(cacheVariables, other.cacheVariables);
+        inherit(environment, other.environment);
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The value of a cache variable and its optional type.
+     */
+    public static class CacheVariable implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String type;
+        private final String value;
+
+        /**
+         * @param type
+         *            the type, e.g. {@code BOOL}, or {@code null}
+         * @param value
+         *            the value
+         */
+        public CacheVariable(String type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        /**
+         * Gets the type.
+         *
+         * @return the type or {@code null} if unspecified
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return type == null ? value : type + ":" + value; //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields all kinds of presets have in common.
+ *
+ * @author Martin Weber
+ */
+public abstract class Preset implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    String name;
+    /** the directory of the file that defines the preset */
+    private final String fileDir;
+    boolean hidden;
+    final List<String> inherits = new ArrayList<>();
+
+    /**
+     * @param fileDir
+     *            the absolute path of the directory of the file that defines
+     *            the preset
+     */
+    Preset(String fileDir) {
+        this.fileDir = fileDir;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the absolute path of the directory of the file that defines the
+     * preset, the value of the {@code ${fileDir}} macro.
+     */
+    public String getFileDir() {
+        return fileDir;
+    }
+
+    /**
+     * Gets whether the preset is hidden, i.e. only serves as a base of other
+     * presets and cannot be used.
+     */
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    /**
+     * Gets the names of the presets this preset inherits from.
+     */
+    public List<String> getInherits() {
+        return Collections.unmodifiableList(inherits);
+    }
+
+    /**
+     * Takes the values of the specified parent preset for the fields this
+     * preset does not set. Called for each parent in the order of
+     * {@link #getInherits()}, so earlier parents take precedence.
+     *
+     * @param parent
+     *            the parent, its own parents are already inherited
+     */
+    abstract void inherit(Preset parent);
+
+    /**
+     * Gets the own value if set, else the inherited value.
+     */
+    static <T> T inherit(T own, T inherited) {
+        return own != null ? own : inherited;
+    }
+
+    /**
+     * Adds the entries of the parent map whose keys are not in the own map.
+     * A key mapped to {@code null} is present and blocks the inherited value.
+     */
+    static <V> void inherit(Map<String, V> own, Map<String, V> inherited) {
+        for (Map.Entry<String, V> entry : inherited.entrySet()) {
+            if (!own.containsKey(entry.getKey()))
+                own.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [name=" + name + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
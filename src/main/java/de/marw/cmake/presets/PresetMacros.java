@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Expands the macros in the values of presets: {@code ${name}} for the
+ * macros of the preset (e.g. {@code ${sourceDir}}, {@code ${presetName}}),
+ * {@code $env{NAME}} for the environment of the preset and the environment
+ * it is used in and {@code $penv{NAME}} for the environment it is used in
+ * only. Macros that are unknown and {@code $vendor{...}} macros are left as
+ * they are. An environment variable of the preset that refers to itself,
+ * directly or through others, is an error.
+ *
+ * @author Martin Weber
+ */
+public class PresetMacros {
+
+    private final Map<String, String> macros;
+    private final Map<String, String> presetEnv;
+    private final Map<String, String> parentEnv;
+
+    /**
+     * @param macros
+     *            the values of the {@code ${name}} macros by name
+     * @param presetEnv
+     *            the environment of the preset, with macros not expanded; a
+     *            {@code null} value unsets a variable
+     * @param parentEnv
+     *            the environment the preset is used in
+     */
+    public PresetMacros(Map<String, String> macros,
+            Map<String, String> presetEnv, Map<String, String> parentEnv) {
+        this.macros = macros;
+        this.presetEnv = presetEnv;
+        this.parentEnv = parentEnv;
+    }
+
+    /**
+     * Expands the macros in the specified value.
+     *
+     * @return the expanded value or {@code null} if the value is
+     *         {@code null}
+     * @throws IOException
+     *             if an environment variable of the preset refers to itself
+     */
+    public String expand(String value) throws IOException {
+        return value == null ? null : expand(value, new HashSet<String>());
+    }
+
+    /**
+     * Gets the environment of the preset with the macros in its values
+     * expanded.
+     *
+     * @return the values by name, a {@code null} value unsets a variable
+     * @throws IOException
+     *             if an environment variable of the preset refers to itself
+     */
+    public Map<String, String> expandEnvironment() throws IOException {
+        final Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : presetEnv.entrySet()) {
+            result.put(entry.getKey(), entry.getValue() == null ? null
+                    : expand(entry.getValue(), new HashSet<>(
+                            Collections.singleton(entry.getKey()))));
+        }
+        return result;
+    }
+
+    /**
+     * @param resolving
+     *            the names of the environment variables of the preset being
+     *            expanded
+     */
+    private String expand(String value, Set<String> resolving)
+            throws IOException {
+        final StringBuilder sb = new StringBuilder(value.length());
+        int pos = 0;
+        for (int dollar; (dollar = value.indexOf('$', pos)) >= 0;) {
+            // $, an optional namespace of letters, {
+            int open = dollar + 1;
+            while (open < value.length() && isLetter(value.charAt(open)))
+                open++;
+            if (open == value.length() || value.charAt(open) != '{') {
+                sb.append(value, pos, open);
+                pos = open;
+                continue;
+            }
+            final int close = value.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            sb.append(value, pos, dollar);
+            final String namespace = value.substring(dollar + 1, open);
+            final String name = value.substring(open + 1, close);
+            final String replacement = lookup(namespace, name, resolving);
+            sb.append(replacement != null ? replacement
+                    : value.substring(dollar, close + 1));
+            pos = close + 1;
+        }
+        return sb.append(value, pos, value.length()).toString();
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z';
+    }
+
+    /**
+     * Gets the value of a macro.
+     *
+     * @return the value or {@code null} if the macro is unknown
+     */
+    private String lookup(String namespace, String name,
+            Set<String> resolving) throws IOException {
+        switch (namespace) {
+        case "": //$NON-NLS-1$
+            return "dollar".equals(name) ? "$" : macros.get(name); //$NON-NLS-1$ //$NON-NLS-2$
+        case "env": //$NON-NLS-1$
+            if (presetEnv.containsKey(name)) {
+                final String value = presetEnv.get(name);
+                if (value == null)
+                    return ""; //$NON-NLS-1$
+                // may refer to other variables
+                if (!resolving.add(name)) {
+                    throw new IOException("environment variable " + name //$NON-NLS-1$
+                            + " of the preset refers to itself"); //$NON-NLS-1$
+                }
+                final String expanded = expand(value, resolving);
+                resolving.remove(name);
+                return expanded;
+            }
+            return parentValue(name);
+        case "penv": //$NON-NLS-1$
+            return parentValue(name);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Gets the value of a variable of the environment the preset is used in.
+     *
+     * @return the value or an empty string if the variable is not set
+     */
+    private String parentValue(String name) {
+        final String value = parentEnv.get(name);
+        return value == null ? "" : value; //$NON-NLS-1$
+    }
+}
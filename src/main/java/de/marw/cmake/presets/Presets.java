@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The presets of a source tree, read from {@code CMakePresets.json},
+ * {@code CMakeUserPresets.json} and the files these include, with the
+ * inheritance of the presets resolved.
+ *
+ * @author Martin Weber
+ */
+public class Presets implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, String> files;
+    private final Map<String, ConfigurePreset> configurePresets;
+    private final Map<String, BuildPreset> buildPresets;
+    private final Map<String, TestPreset> testPresets;
+
+    /**
+     * @param files
+     *            the SHA-256 hash of the content by absolute path of each
+     *            file read
+     */
+    Presets(Map<String, String> files,
+            Map<String, ConfigurePreset> configurePresets,
+            Map<String, BuildPreset> buildPresets,
+            Map<String, TestPreset> testPresets) {
+        this.files = Collections.unmodifiableMap(files);
+        this.configurePresets = Collections.unmodifiableMap(configurePresets);
+        this.buildPresets = Collections.unmodifiableMap(buildPresets);
+        this.testPresets = Collections.unmodifiableMap(testPresets);
+    }
+
+    /**
+     * Gets the files the presets were read from.
+     *
+     * @return the SHA-256 hash of the content (hex) by absolute path
+     */
+    public Map<String, String> getFiles() {
+        return files;
+    }
+
+    /**
+     * Gets the configure presets by name, including hidden presets.
+     */
+    public Map<String, ConfigurePreset> getConfigurePresets() {
+        return configurePresets;
+    }
+
+    /**
+     * Gets the build presets by name, including hidden presets.
+     */
+    public Map<String, BuildPreset> getBuildPresets() {
+        return buildPresets;
+    }
+
+    /**
+     * Gets the test presets by name, including hidden presets.
+     */
+    public Map<String, TestPreset> getTestPresets() {
+        return testPresets;
+    }
+
+    @Override
+    public String toString() {
+        return "Presets [files=" + files.keySet() + ", configurePresets=" //$NON-NLS-1$ //$NON-NLS-2$
+                + configurePresets.keySet() + ", buildPresets=" //$NON-NLS-1$
+                + buildPresets.keySet() + ", testPresets=" //$NON-NLS-1$
+                + testPresets.keySet() + "]"; //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,482 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.marw.cmake.fileapi.JsonReader;
+
+/**
+ * Reads the CMake presets of a source tree: {@code CMakePresets.json},
+ * {@code CMakeUserPresets.json}, which implicitly includes the former, and
+ * the files these include (presets schema version 4 and later), and resolves
+ * the inheritance of the presets.<br>
+ * Presets are read as they are, macros in their values are expanded when a
+ * preset is used, see {@link PresetMacros}. Conditions are not evaluated and
+ * vendor fields are ignored.
+ *
+ * @author Martin Weber
+ */
+public class PresetsReader {
+
+    /** the name of the project presets file */
+    public static final String PRESETS_FILE = "CMakePresets.json"; //$NON-NLS-1$
+    /** the name of the user presets file */
+    public static final String USER_PRESETS_FILE = "CMakeUserPresets.json"; //$NON-NLS-1$
+
+    private final Map<String, String> files = new LinkedHashMap<>();
+    private final Map<String, ConfigurePreset> configurePresets = new LinkedHashMap<>();
+    private final Map<String, BuildPreset> buildPresets = new LinkedHashMap<>();
+    private final Map<String, TestPreset> testPresets = new LinkedHashMap<>();
+
+    private PresetsReader() {
+    }
+
+    /**
+     * Reads the presets of the specified source tree.
+     *
+     * @param sourceDir
+     *            the top-level source directory
+     * @return the presets or {@code null} if the source tree has no presets
+     *         file
+     * @throws IOException
+     *             if a presets file could not be read, is malformed or a
+     *             preset inherits from a preset that does not exist
+     */
+    public static Presets read(Path sourceDir) throws IOException {
+        final Path presetsFile = sourceDir.resolve(PRESETS_FILE);
+        final Path userPresetsFile = sourceDir.resolve(USER_PRESETS_FILE);
+        final PresetsReader reader = new PresetsReader();
+        if (Files.exists(userPresetsFile)) {
+            reader.readFile(userPresetsFile, Files.exists(presetsFile)
+                    ? Collections.singletonList(presetsFile)
+                    : Collections.<Path> emptyList());
+        } else if (Files.exists(presetsFile)) {
+            reader.readFile(presetsFile, Collections.<Path> emptyList());
+        } else {
+            return null;
+        }
+        resolve(reader.configurePresets);
+        resolve(reader.buildPresets);
+        resolve(reader.testPresets);
+        return new Presets(reader.files, reader.configurePresets,
+                reader.buildPresets, reader.testPresets);
+    }
+
+    /**
+     * Gets the SHA-256 hash of the content of the specified file.
+     *
+     * @return the hash (hex)
+     */
+    public static String hash(Path file) throws IOException {
+        return toHex(sha256(Files.readAllBytes(file)));
+    }
+
+    /**
+     * Reads the specified file and the files it includes. Does nothing if
+     * the file was read already.
+     *
+     * @param implicitIncludes
+     *            the files to include in addition to those the file lists
+     */
+    private void readFile(Path file, List<Path> implicitIncludes)
+            throws IOException {
+        file = file.toAbsolutePath().normalize();
+        final String key = file.toString();
+        if (files.containsKey(key))
+            return;
+        // small files, read at once to hash the exact content
+        final byte[] content = Files.readAllBytes(file);
+        files.put(key, toHex(sha256(content)));
+
+        final String fileDir = file.getParent().toString();
+        final List<Path> includes = new ArrayList<>(implicitIncludes);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (name.equals("include")) { //$NON-NLS-1$
+                    for (String include : readStringList(reader)) {
+                        // relative to the including file
+                        includes.add(file.getParent().resolve(include));
+                    }
+                } else if (name.equals("configurePresets")) { //$NON-NLS-1$
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        add(configurePresets,
+                                readConfigurePreset(reader, fileDir), file);
+                    }
+                    reader.endArray();
+                } else if (name.equals("buildPresets")) { //$NON-NLS-1$
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        add(buildPresets, readBuildPreset(reader, fileDir),
+                                file);
+                    }
+                    reader.endArray();
+                } else if (name.equals("testPresets")) { //$NON-NLS-1$
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        add(testPresets, readTestPreset(reader, fileDir),
+                                file);
+                    }
+                    reader.endArray();
+                } else {
+                    // skip version, vendor, packagePresets...
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        for (Path include : includes) {
+            readFile(include, Collections.<Path> emptyList());
+        }
+    }
+
+    private static <P extends Preset> void add(Map<String, P> presets,
+            P preset, Path file) throws IOException {
+        if (preset.getName() == null) {
+            throw new IOException(file + ": preset without a name"); //$NON-NLS-1$
+        }
+        if (presets.put(preset.getName(), preset) != null) {
+            throw new IOException(
+                    file + ": duplicate preset " + preset.getName()); //$NON-NLS-1$
+        }
+    }
+
+    private static ConfigurePreset readConfigurePreset(JsonReader reader,
+            String fileDir) throws IOException {
+        final ConfigurePreset preset = new ConfigurePreset(fileDir);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (readCommon(reader, name, preset)) {
+                continue;
+            }
+            if (name.equals("generator")) { //$NON-NLS-1$
+                preset.generator = nextString(reader);
+            } else if (name.equals("binaryDir")) { //$NON-NLS-1$
+                preset.binaryDir = nextString(reader);
+            } else if (name.equals("installDir")) { //$NON-NLS-1$
+                preset.installDir = nextString(reader);
+            } else if (name.equals("toolchainFile")) { //$NON-NLS-1$
+                preset.toolchainFile = nextString(reader);
+            } else if (name.equals("cacheVariables")) { //$NON-NLS-1$
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String variable = reader.nextName();
+                    preset.cacheVariables.put(variable,
+                            readCacheVariable(reader));
+                }
+                reader.endObject();
+            } else if (name.equals("environment")) { //$NON-NLS-1$
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String variable = reader.nextName();
+                    preset.environment.put(variable, nextString(reader));
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return preset;
+    }
+
+    /**
+     * Reads the value of a cache variable, which is a string, a boolean, an
+     * object with a type and a value or {@code null}.
+     */
+    private static ConfigurePreset.CacheVariable readCacheVariable(
+            JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+        case NULL:
+            reader.skipValue();
+            return null;
+        case BOOLEAN:
+            return new ConfigurePreset.CacheVariable("BOOL", //$NON-NLS-1$
+                    toBool(reader.nextString()));
+        case BEGIN_OBJECT:
+            String type = null;
+            String value = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (name.equals("type")) { //$NON-NLS-1$
+                    type = nextString(reader);
+                } else if (name.equals("value")) { //$NON-NLS-1$
+                    final boolean bool = reader
+                            .peek() == JsonReader.Token.BOOLEAN;
+                    value = nextString(reader);
+                    if (bool)
+                        value = toBool(value);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new ConfigurePreset.CacheVariable(type,
+                    value == null ? "" : value); //$NON-NLS-1$
+        default:
+            return new ConfigurePreset.CacheVariable(null, reader.nextString());
+        }
+    }
+
+    private static BuildPreset readBuildPreset(JsonReader reader,
+            String fileDir) throws IOException {
+        final BuildPreset preset = new BuildPreset(fileDir);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (readCommon(reader, name, preset)) {
+                continue;
+            }
+            if (name.equals("configurePreset")) { //$NON-NLS-1$
+                preset.configurePreset = nextString(reader);
+            } else if (name.equals("jobs")) { //$NON-NLS-1$
+                preset.jobs = nextInt(reader);
+            } else if (name.equals("targets")) { //$NON-NLS-1$
+                preset.targets = readStringList(reader);
+            } else if (name.equals("configuration")) { //$NON-NLS-1$
+                preset.configuration = nextString(reader);
+            } else if (name.equals("cleanFirst")) { //$NON-NLS-1$
+                preset.cleanFirst = nextBoolean(reader);
+            } else if (name.equals("verbose")) { //$NON-NLS-1$
+                preset.verbose = nextBoolean(reader);
+            } else if (name.equals("nativeToolOptions")) { //$NON-NLS-1$
+                preset.nativeToolOptions = readStringList(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return preset;
+    }
+
+    private static TestPreset readTestPreset(JsonReader reader,
+            String fileDir) throws IOException {
+        final TestPreset preset = new TestPreset(fileDir);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (readCommon(reader, name, preset)) {
+                continue;
+            }
+            if (name.equals("configurePreset")) { //$NON-NLS-1$
+                preset.configurePreset = nextString(reader);
+            } else if (name.equals("configuration")) { //$NON-NLS-1$
+                preset.configuration = nextString(reader);
+            } else if (name.equals("output")) { //$NON-NLS-1$
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("outputOnFailure")) { //$NON-NLS-1$
+                        preset.outputOnFailure = nextBoolean(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if (name.equals("execution")) { //$NON-NLS-1$
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String member = reader.nextName();
+                    if (member.equals("jobs")) { //$NON-NLS-1$
+                        preset.jobs = nextInt(reader);
+                    } else if (member.equals("stopOnFailure")) { //$NON-NLS-1$
+                        preset.stopOnFailure = nextBoolean(reader);
+                    } else if (member.equals("timeout")) { //$NON-NLS-1$
+                        preset.timeout = nextInt(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if (name.equals("filter")) { //$NON-NLS-1$
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String member = reader.nextName();
+                    if (member.equals("include")) { //$NON-NLS-1$
+                        final String[] filter = readFilter(reader);
+                        preset.includeName = filter[0];
+                        preset.includeLabel = filter[1];
+                    } else if (member.equals("exclude")) { //$NON-NLS-1$
+                        final String[] filter = readFilter(reader);
+                        preset.excludeName = filter[0];
+                        preset.excludeLabel = filter[1];
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return preset;
+    }
+
+    /**
+     * Reads the name and the label of an include or exclude filter object.
+     */
+    private static String[] readFilter(JsonReader reader) throws IOException {
+        final String[] filter = new String[2];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (name.equals("name")) { //$NON-NLS-1$
+                filter[0] = nextString(reader);
+            } else if (name.equals("label")) { //$NON-NLS-1$
+                filter[1] = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return filter;
+    }
+
+    /**
+     * Reads the members all presets have.
+     *
+     * @return {@code true} if the member was read, {@code false} if it is
+     *         specific to the kind of preset
+     */
+    private static boolean readCommon(JsonReader reader, String name,
+            Preset preset) throws IOException {
+        if (name.equals("name")) { //$NON-NLS-1$
+            preset.name = nextString(reader);
+        } else if (name.equals("hidden")) { //$NON-NLS-1$
+            preset.hidden = Boolean.TRUE.equals(nextBoolean(reader));
+        } else if (name.equals("inherits")) { //$NON-NLS-1$
+            preset.inherits.addAll(readStringList(reader));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the inheritance of the specified presets.
+     */
+    private static <P extends Preset> void resolve(Map<String, P> presets)
+            throws IOException {
+        final Set<String> resolved = new HashSet<>();
+        for (P preset : presets.values()) {
+            resolve(preset, presets, resolved, new HashSet<String>());
+        }
+    }
+
+    private static <P extends Preset> void resolve(P preset,
+            Map<String, P> presets, Set<String> resolved,
+            Set<String> resolving) throws IOException {
+        if (resolved.contains(preset.getName()))
+            return;
+        if (!resolving.add(preset.getName())) {
+            throw new IOException("preset " + preset.getName() //$NON-NLS-1$
+                    + " inherits from itself"); //$NON-NLS-1$
+        }
+        for (String parentName : preset.inherits) {
+            final P parent = presets.get(parentName);
+            if (parent == null) {
+                throw new IOException("preset " + preset.getName() //$NON-NLS-1$
+                        + " inherits from unknown preset " + parentName); //$NON-NLS-1$
+            }
+            resolve(parent, presets, resolved, resolving);
+            preset.inherit(parent);
+        }
+        resolving.remove(preset.getName());
+        resolved.add(preset.getName());
+    }
+
+    /**
+     * Reads a string or an array of strings.
+     */
+    private static List<String> readStringList(JsonReader reader)
+            throws IOException {
+        final List<String> values = new ArrayList<>();
+        if (reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                values.add(reader.nextString());
+            }
+            reader.endArray();
+        } else {
+            values.add(reader.nextString());
+        }
+        return values;
+    }
+
+    /**
+     * Reads a string, number or boolean value or {@code null}.
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.skipValue();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static Boolean nextBoolean(JsonReader reader) throws IOException {
+        final String value = nextString(reader);
+        return value == null ? null : Boolean.valueOf(value);
+    }
+
+    private static Integer nextInt(JsonReader reader) throws IOException {
+        final String value = nextString(reader);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IOException("expected an integer but was " + value); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Converts a JSON boolean to the value cmake sets for it.
+     */
+    private static String toBool(String literal) {
+        return Boolean.parseBoolean(literal) ? "TRUE" : "FALSE"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static byte[] sha256(byte[] content) throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content); //$NON-NLS-1$
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16))
+                    .append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+/**
+ * A test preset: how to run the tests of the build tree of a configure
+ * preset with ctest.
+ *
+ * @author Martin Weber
+ */
+public class TestPreset extends Preset {
+    private static final long serialVersionUID = 1L;
+
+    String configurePreset;
+    String configuration;
+    Boolean outputOnFailure;
+    Integer jobs;
+    Boolean stopOnFailure;
+    Integer timeout;
+    String includeName;
+    String includeLabel;
+    String excludeName;
+    String excludeLabel;
+
+    TestPreset(String fileDir) {
+        super(fileDir);
+    }
+
+    /**
+     * Gets the name of the configure preset whose build tree to test.
+     *
+     * @return the name or {@code null} if not specified
+     */
+    public String getConfigurePreset() {
+        return configurePreset;
+    }
+
+    /**
+     * Gets the configuration to test in a multi-configuration build tree.
+     *
+     * @return the configuration or {@code null}
+     */
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    public boolean isOutputOnFailure() {
+        return Boolean.TRUE.equals(outputOnFailure);
+    }
+
+    /**
+     * Gets the number of tests to run in parallel.
+     *
+     * @return the number or {@code null} if not specified
+     */
+    public Integer getJobs() {
+        return jobs;
+    }
+
+    public boolean isStopOnFailure() {
+        return Boolean.TRUE.equals(stopOnFailure);
+    }
+
+    /**
+     * Gets the default timeout of a test in seconds.
+     *
+     * @return the timeout or {@code null}
+     */
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the regular expression of the names of the tests to run.
+     *
+     * @return the expression or {@code null}
+     */
+    public String getIncludeName() {
+        return includeName;
+    }
+
+    /**
+     * Gets the regular expression of the labels of the tests to run.
+     *
+     * @return the expression or {@code null}
+     */
+    public String getIncludeLabel() {
+        return includeLabel;
+    }
+
+    /**
+     * Gets the regular expression of the names of the tests not to run.
+     *
+     * @return the expression or {@code null}
+     */
+    public String getExcludeName() {
+        return excludeName;
+    }
+
+    /**
+     * Gets the regular expression of the labels of the tests not to run.
+     *
+     * @return the expression or {@code null}
+     */
+    public String getExcludeLabel() {
+        return excludeLabel;
+    }
+
+    @Override
+    void inherit(Preset parent) {
+        final TestPreset other = (TestPreset) parent;
+        configurePreset = inherit(configurePreset, other.configurePreset);
+        configuration = inherit(configuration, other.configuration);
+        outputOnFailure = inherit(outputOnFailure, other.outputOnFailure);
+        jobs = inherit(jobs, other.jobs);
+        stopOnFailure = inherit(stopOnFailure, other.stopOnFailure);
+        timeout = inherit(timeout, other.timeout);
+        includeName = inherit(includeName, other.includeName);
+        includeLabel = inherit(includeLabel, other.includeLabel);
+        excludeName = inherit(excludeName, other.excludeName);
+        excludeLabel = inherit(excludeLabel, other.excludeLabel);
+    }
+}
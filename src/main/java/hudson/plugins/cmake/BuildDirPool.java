@@ -0,0 +1,682 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * A pool of build directories on a node, outside of the workspaces. Keeps
+ * build trees warm across builds of different branches and across wiped
+ * workspaces, so that builds are incremental.<br>
+ * The trees are keyed by a hash of the source repository, the generator, the
+ * build type and the toolchain. A build leases a tree of its key with an
+ * exclusive file lock, builds in it and returns it; concurrent builds of the
+ * same key get trees of their own. Each tree has a {@value #SOURCE_LINK}
+ * symbolic link to the sources of the build that leases it, which is passed
+ * to cmake as the source directory. So the paths cmake and the compilers see
+ * do not depend on the workspace.<br>
+ * When a tree is returned, the least recently used trees that are not leased
+ * are deleted until the trees fit into the maximum size of the pool.<br>
+ * A lease that was not returned within {@link #MAX_LEASE_MILLIS}, e.g.
+ * because the connection to the controller was lost while the tree was
+ * returned, has expired: the tree can be leased by another build.
+ *
+ * @author Martin Weber
+ */
+class BuildDirPool {
+
+    /** the name of the pool directory below the root directory of a node */
+    static final String POOL_DIR_NAME = "cmakebuilder-builddirs"; //$NON-NLS-1$
+    /** the default maximum size of a pool in MiB */
+    static final int DEFAULT_MAX_SIZE = 20 * 1024;
+
+    /** the name of the build tree in a pool entry */
+    private static final String BUILD_DIR = "build"; //$NON-NLS-1$
+    /** the name of the link to the sources in a pool entry */
+    static final String SOURCE_LINK = "source"; //$NON-NLS-1$
+    private static final String LOCK_FILE = "lock"; //$NON-NLS-1$
+    /** the file holding the size and the time of last use of an entry */
+    private static final String STATE_FILE = "state"; //$NON-NLS-1$
+    /** the directory of the pool that evicted entries are moved to */
+    static final String EVICTED_DIR = ".evicted"; //$NON-NLS-1$
+    /** the time after which a lease expires, system property in hours */
+    static final long MAX_LEASE_MILLIS = Long.getLong(
+            BuildDirPool.class.getName() + ".maxLeaseHours", 24) //$NON-NLS-1$
+            * 60 * 60 * 1000L;
+
+    /**
+     * the entries leased in this JVM, also the monitor that serializes
+     * locking and removing entries
+     */
+    private static final Map<Path, Held> locks = new HashMap<>();
+    /** the evicted entries that are deleted in this JVM */
+    private static final Set<Path> deleting = ConcurrentHashMap.newKeySet();
+
+    private BuildDirPool() {
+    }
+
+    /**
+     * Computes the key of the build trees for a build.
+     *
+     * @param repository
+     *            identifies the source repository
+     * @param generator
+     *            the generator or {@code null}
+     * @param buildType
+     *            the build type or the configuration types or {@code null}
+     * @param toolHome
+     *            the home directory of the cmake installation or {@code null}
+     * @param env
+     *            the environment cmake is run in
+     */
+    static String computeKey(String repository, String generator,
+            String buildType, String toolHome, Map<String, String> env) {
+        return ToolchainCache.computeKey(
+                Arrays.asList("repository=" + repository, //$NON-NLS-1$
+                        "generator=" + generator, "buildType=" + buildType), //$NON-NLS-1$ //$NON-NLS-2$
+                toolHome, env);
+    }
+
+    /**
+     * Gets the pool directory of the specified node.
+     *
+     * @return the path of the pool or {@code null} if the node is offline
+     */
+    static String getPoolDir(Node node) {
+        final FilePath root = node == null ? null : node.getRootPath();
+        return root == null ? null : root.child(POOL_DIR_NAME).getRemote();
+    }
+
+    /**
+     * Leases a build tree of the specified key. Creates a tree if all trees
+     * of the key are leased.
+     *
+     * @param sourceDir
+     *            the source directory of the build
+     * @param owner
+     *            identifies the build that leases the tree
+     */
+    static Lease lease(Path pool, String key, Path sourceDir, String owner)
+            throws IOException {
+        return lease(pool, key, sourceDir, owner, System.currentTimeMillis());
+    }
+
+    /**
+     * Leases a build tree of the specified key at the specified time.
+     *
+     * @param now
+     *            the current time in milliseconds since the epoch
+     */
+    static Lease lease(Path pool, String key, Path sourceDir, String owner,
+            long now) throws IOException {
+        // keep paths short
+        final String prefix = key.substring(0, 16) + "-"; //$NON-NLS-1$
+        for (int i = 0;; i++) {
+            final Path entry = pool.resolve(prefix + i);
+            final Held expired;
+            final Held held = new Held(owner, now);
+            synchronized (locks) {
+                expired = expire(entry, held.since);
+                if (!tryLock(entry, held))
+                    continue;
+            }
+            try {
+                final Path buildDir = entry.resolve(BUILD_DIR);
+                final boolean warm = Files
+                        .exists(buildDir.resolve("CMakeCache.txt")); //$NON-NLS-1$
+                Files.createDirectories(buildDir);
+                return new Lease(entry.toString(), buildDir.toString(),
+                        linkSource(entry, sourceDir), warm, owner, held.since,
+                        expired == null ? null : expired.owner);
+            } catch (IOException ex) {
+                unlock(entry);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Removes the lease of the specified entry if it has expired.
+     *
+     * @return the expired lease or {@code null} if the entry is not leased
+     *         in this JVM or the lease has not expired
+     */
+    private static Held expire(Path entry, long now) throws IOException {
+        final Held held = locks.get(entry);
+        if (held == null || now - held.since < MAX_LEASE_MILLIS)
+            return null;
+        unlock(entry);
+        return held;
+    }
+
+    /**
+     * Points the source link of the specified entry to the specified
+     * directory.
+     *
+     * @return the path to pass to cmake as the source directory: the link or
+     *         the source directory itself, if links are not supported
+     */
+    private static String linkSource(Path entry, Path sourceDir) {
+        final Path link = entry.resolve(SOURCE_LINK);
+        try {
+            if (Files.isSymbolicLink(link)) {
+                Files.delete(link);
+            } else if (Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+                return sourceDir.toString();
+            }
+            Files.createSymbolicLink(link, sourceDir);
+            return link.toString();
+        } catch (IOException | UnsupportedOperationException ex) {
+            // e.g. Windows without the privilege to create links
+            return sourceDir.toString();
+        }
+    }
+
+    /**
+     * Returns a leased entry to the pool and evicts the least recently used
+     * entries that exceed the maximum size. A lease that has expired and was
+     * taken over by another build is not returned.
+     *
+     * @param maxSize
+     *            the maximum size of the pool in bytes
+     * @return the usage of the pool
+     */
+    static Usage release(Path pool, Lease lease, long maxSize)
+            throws IOException {
+        final Path entry = Paths.get(lease.getEntry());
+        final boolean owned;
+        synchronized (locks) {
+            final Held held = locks.get(entry);
+            owned = held != null && held.owner.equals(lease.getOwner())
+                    && held.since == lease.getSince();
+        }
+        if (owned) {
+            try {
+                writeState(entry, sizeOf(entry.resolve(BUILD_DIR)),
+                        System.currentTimeMillis());
+            } finally {
+                unlock(entry);
+            }
+        }
+        return evict(pool, maxSize);
+    }
+
+    /**
+     * Deletes the least recently used entries that are not leased until the
+     * pool fits into the specified size. An entry is renamed into the
+     * {@value #EVICTED_DIR} directory of the pool while no lease can be
+     * taken, and deleted afterwards, so that leases of other entries do not
+     * wait for the deletion.
+     *
+     * @return the usage of the pool after eviction
+     */
+    static Usage evict(Path pool, long maxSize) throws IOException {
+        final Path evictedDir = pool.resolve(EVICTED_DIR);
+        final List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(pool)) {
+            for (Path dir : dirs) {
+                if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)
+                        || dir.equals(evictedDir))
+                    continue;
+                final Entry entry = readState(dir);
+                entries.add(entry);
+                total += entry.getSize();
+            }
+        }
+        // least recently used first
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                return Long.compare(e1.getLastUsed(), e2.getLastUsed());
+            }
+        });
+        final List<Path> evicted = new ArrayList<>();
+        try {
+            for (Entry entry : new ArrayList<>(entries)) {
+                if (total <= maxSize)
+                    break;
+                final Path dir = pool.resolve(entry.getName());
+                final Path target = evictedDir.resolve(
+                        entry.getName() + "-" + UUID.randomUUID()); //$NON-NLS-1$
+                // no lease may create the entry anew before it is moved
+                synchronized (locks) {
+                    if (!tryLock(dir,
+                            new Held(null, System.currentTimeMillis()))) {
+                        entry.leased = true;
+                        continue;
+                    }
+                    // the lock file must be closed to move the entry on
+                    // Windows
+                    unlock(dir);
+                    Files.createDirectories(evictedDir);
+                    deleting.add(target);
+                    Files.move(dir, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                evicted.add(target);
+                entries.remove(entry);
+                total -= entry.getSize();
+            }
+        } finally {
+            for (Path target : evicted) {
+                try {
+                    BuildDirTrash.deleteRecursive(target);
+                } finally {
+                    deleting.remove(target);
+                }
+            }
+            deleteLeftovers(evictedDir);
+        }
+        return new Usage(entries, total, maxSize, evicted.size());
+    }
+
+    /**
+     * Deletes the entries that were moved out of the pool but not deleted,
+     * e.g. because the node was shut down, and that no eviction in this JVM
+     * is deleting.
+     */
+    private static void deleteLeftovers(Path evictedDir) throws IOException {
+        if (!Files.isDirectory(evictedDir))
+            return;
+        try (DirectoryStream<Path> dirs = Files
+                .newDirectoryStream(evictedDir)) {
+            for (Path dir : dirs) {
+                if (deleting.add(dir)) {
+                    try {
+                        BuildDirTrash.deleteRecursive(dir);
+                    } finally {
+                        deleting.remove(dir);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Locks the specified entry exclusively. Creates the entry if it does not
+     * exist.
+     *
+     * @param held
+     *            the lease to record for the entry
+     * @return {@code true} if locked, {@code false} if the entry is leased by
+     *         another build
+     */
+    private static boolean tryLock(Path entry, Held held) throws IOException {
+        synchronized (locks) {
+            if (locks.containsKey(entry))
+                return false; // leased by a build on this node
+            Files.createDirectories(entry);
+            final FileChannel channel = FileChannel.open(
+                    entry.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            FileLock lock = null;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException ex) {
+                // locked in this JVM, but by another class loader
+            } finally {
+                if (lock == null)
+                    channel.close();
+            }
+            if (lock == null)
+                return false;
+            held.lock = lock;
+            locks.put(entry, held);
+            return true;
+        }
+    }
+
+    private static void unlock(Path entry) throws IOException {
+        final Held held;
+        synchronized (locks) {
+            held = locks.remove(entry);
+        }
+        if (held != null) {
+            held.lock.channel().close(); // releases the lock
+        }
+    }
+
+    private static void writeState(Path entry, long size, long lastUsed)
+            throws IOException {
+        Files.write(entry.resolve(STATE_FILE),
+                (size + "\t" + lastUsed + "\n") //$NON-NLS-1$ //$NON-NLS-2$
+                        .getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Reads the state of the specified entry. Computes the size of an entry
+     * that was never returned to the pool, e.g. because the node crashed.
+     */
+    private static Entry readState(Path entry) throws IOException {
+        final Path stateFile = entry.resolve(STATE_FILE);
+        if (Files.exists(stateFile)) {
+            final String[] state = new String(Files.readAllBytes(stateFile),
+                    StandardCharsets.US_ASCII).trim().split("\t"); //$NON-NLS-1$
+            try {
+                return new Entry(entry.getFileName().toString(),
+                        Long.parseLong(state[0]), Long.parseLong(state[1]));
+            } catch (NumberFormatException
+                    | ArrayIndexOutOfBoundsException ex) {
+                // fall through, recompute
+            }
+        }
+        return new Entry(entry.getFileName().toString(),
+                sizeOf(entry.resolve(BUILD_DIR)),
+                Files.getLastModifiedTime(entry).toMillis());
+    }
+
+    /**
+     * Gets the size of the files in the specified directory tree in bytes.
+     */
+    static long sizeOf(Path dir) throws IOException {
+        if (!Files.isDirectory(dir))
+            return 0;
+        final long[] size = { 0 };
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file,
+                    IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The lock of an entry leased in this JVM.
+     */
+    private static class Held {
+        /** the build that leased the entry or {@code null} for eviction */
+        final String owner;
+        /** the time of the lease in milliseconds since the epoch */
+        final long since;
+        FileLock lock;
+
+        Held(String owner, long since) {
+            this.owner = owner;
+            this.since = since;
+        }
+    }
+
+    /**
+     * A leased build tree.
+     */
+    static class Lease implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String entry;
+        private final String buildDir;
+        private final String sourceDir;
+        private final boolean warm;
+        private final String owner;
+        private final long since;
+        private final String expiredOwner;
+
+        Lease(String entry, String buildDir, String sourceDir, boolean warm,
+                String owner, long since, String expiredOwner) {
+            this.entry = entry;
+            this.buildDir = buildDir;
+            this.sourceDir = sourceDir;
+            this.warm = warm;
+            this.owner = owner;
+            this.since = since;
+            this.expiredOwner = expiredOwner;
+        }
+
+        /**
+         * Gets the path of the pool entry.
+         */
+        String getEntry() {
+            return entry;
+        }
+
+        /**
+         * Gets the path of the build tree.
+         */
+        String getBuildDir() {
+            return buildDir;
+        }
+
+        /**
+         * Gets the path to pass to cmake as the source directory.
+         */
+        String getSourceDir() {
+            return sourceDir;
+        }
+
+        /**
+         * Gets whether the tree was configured by a former build.
+         */
+        boolean isWarm() {
+            return warm;
+        }
+
+        /**
+         * Gets the build that leased the tree.
+         */
+        String getOwner() {
+            return owner;
+        }
+
+        /**
+         * Gets the time of the lease in milliseconds since the epoch.
+         */
+        long getSince() {
+            return since;
+        }
+
+        /**
+         * Gets the build whose expired lease of the tree was taken over.
+         *
+         * @return the build or {@code null} if the tree was not leased
+         */
+        String getExpiredOwner() {
+            return expiredOwner;
+        }
+    }
+
+    /**
+     * A build tree in the pool.
+     */
+    public static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final long size;
+        private final long lastUsed;
+        /** whether the entry is leased by a build */
+        private boolean leased;
+
+        Entry(String name, long size, long lastUsed) {
+            this.name = name;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the size of the build tree in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the time the tree was returned to the pool, in milliseconds
+         * since the epoch.
+         */
+        public long getLastUsed() {
+            return lastUsed;
+        }
+
+        public Date getLastUsedDate() {
+            return new Date(lastUsed);
+        }
+
+        /**
+         * Gets whether the entry was leased by a build when the usage was
+         * determined. Only known for entries that eviction would have deleted.
+         */
+        public boolean isLeased() {
+            return leased;
+        }
+    }
+
+    /**
+     * The usage of a pool.
+     */
+    public static class Usage implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Entry> entries;
+        private final long size;
+        private final long maxSize;
+        private final int evicted;
+
+        Usage(List<Entry> entries, long size, long maxSize, int evicted) {
+            this.entries = entries;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.evicted = evicted;
+        }
+
+        /**
+         * Gets the entries, least recently used first.
+         */
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Gets the size of all entries in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the maximum size of the pool in bytes.
+         */
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * Gets the number of entries evicted.
+         */
+        public int getEvicted() {
+            return evicted;
+        }
+    }
+
+    /**
+     * Leases a build tree on the node.
+     */
+    static class Acquire extends MasterToSlaveCallable<Lease, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final String poolDir;
+        private final String key;
+        private final String sourceDir;
+        private final String owner;
+
+        /**
+         * @param poolDir
+         *            the path of the pool on the node
+         * @param key
+         *            the key of the build tree, see
+         *            {@link BuildDirPool#computeKey(String, String, String, String, Map)}
+         * @param sourceDir
+         *            the absolute path of the source directory of the build
+         * @param owner
+         *            identifies the build that leases the tree
+         */
+        Acquire(String poolDir, String key, String sourceDir, String owner) {
+            this.poolDir = poolDir;
+            this.key = key;
+            this.sourceDir = sourceDir;
+            this.owner = owner;
+        }
+
+        @Override
+        public Lease call() throws IOException {
+            return lease(Paths.get(poolDir), key, Paths.get(sourceDir), owner);
+        }
+    }
+
+    /**
+     * Returns a leased build tree to the pool on the node.
+     */
+    static class Release extends MasterToSlaveCallable<Usage, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final String poolDir;
+        private final Lease lease;
+        private final long maxSize;
+
+        /**
+         * @param poolDir
+         *            the path of the pool on the node
+         * @param lease
+         *            the lease to return
+         * @param maxSize
+         *            the maximum size of the pool in MiB
+         */
+        Release(String poolDir, Lease lease, int maxSize) {
+            this.poolDir = poolDir;
+            this.lease = lease;
+            this.maxSize = maxSize * NodeResources.MIB;
+        }
+
+        @Override
+        public Usage call() throws IOException {
+            return release(Paths.get(poolDir), lease, maxSize);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.RunAction2;
+
+/**
+ * Keeps the build trees a build leased from the build directory pool of its
+ * node and the usage of the pool after the trees were returned. Shown as a
+ * page of the build.
+ *
+ * @author Martin Weber
+ */
+public class BuildDirPoolAction implements RunAction2 {
+
+    /** the leases by build directory */
+    private final Map<String, Record> records = new TreeMap<>();
+    private transient Run<?, ?> run;
+
+    /**
+     * Records the lease of a build tree.
+     *
+     * @param run
+     *            the current build
+     * @param buildDir
+     *            the build directory setting, {@code "."} if none
+     * @param lease
+     *            the lease
+     * @param usage
+     *            the usage of the pool after the tree was returned
+     */
+    static void record(Run<?, ?> run, String buildDir,
+            BuildDirPool.Lease lease, BuildDirPool.Usage usage) {
+        synchronized (run) {
+            BuildDirPoolAction action = run.getAction(BuildDirPoolAction.class);
+            if (action == null) {
+                action = new BuildDirPoolAction();
+                run.addAction(action);
+            }
+            synchronized (action.records) {
+                action.records.put(buildDir, new Record(lease.getBuildDir(),
+                        lease.isWarm(), usage));
+            }
+        }
+    }
+
+    /**
+     * Records the lease of a build tree like
+     * {@link #record(Run, String, BuildDirPool.Lease, BuildDirPool.Usage)}
+     * and logs the usage of the pool.
+     */
+    static void recordAndReport(Run<?, ?> run, String buildDir,
+            BuildDirPool.Lease lease, BuildDirPool.Usage usage,
+            TaskListener listener) {
+        record(run, buildDir, lease, usage);
+        listener.getLogger().printf(
+                Messages.getString("BuildDirPoolAction.Usage"), //$NON-NLS-1$
+                usage.getEntries().size(), usage.getSize() / NodeResources.MIB,
+                usage.getMaxSize() / NodeResources.MIB, usage.getEvicted());
+    }
+
+    /**
+     * Gets the leases of all build directories, ordered by build directory.
+     */
+    public Map<String, Record> getRecords() {
+        synchronized (records) {
+            return new TreeMap<>(records);
+        }
+    }
+
+    /**
+     * Gets the build this action belongs to.
+     */
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "folder.png"; //$NON-NLS-1$
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.getString("BuildDirPoolAction.DisplayName"); //$NON-NLS-1$
+    }
+
+    @Override
+    public String getUrlName() {
+        return "cmakeBuildDirPool"; //$NON-NLS-1$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * A leased build tree.
+     */
+    public static class Record implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String tree;
+        private final boolean warm;
+        private final BuildDirPool.Usage usage;
+
+        Record(String tree, boolean warm, BuildDirPool.Usage usage) {
+            this.tree = tree;
+            this.warm = warm;
+            this.usage = usage;
+        }
+
+        /**
+         * Gets the path of the build tree on the node.
+         */
+        public String getTree() {
+            return tree;
+        }
+
+        /**
+         * Gets whether the tree was configured by a former build.
+         */
+        public boolean isWarm() {
+            return warm;
+        }
+
+        public BuildDirPool.Usage getUsage() {
+            return usage;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DirScanner;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Saves build directories into a store and restores them, so that builds on
+ * short-lived nodes (e.g. containers) start from the tree of a former build
+ * instead of from scratch.<br>
+ * After a successful build, the build directory is written to the store as
+ * a gzip compressed tar archive, which is streamed to the store without an
+ * intermediate copy of the tree. Archives are content-addressed: an archive
+ * is named after the SHA-256 hash of its content and is stored once, a
+ * reference file per configuration key names the archive of the key. The
+ * store may be on a local or on a shared file system.<br>
+ * Before cmake configures an empty build directory, the archive of the
+ * configuration key is extracted into it. The modification times of the
+ * files are preserved, so that the build tool sees an up-to-date tree.
+ * Temporary files of cmake and ctest are not saved.<br>
+ * The modification time of a reference is the time it was last saved, i.e.
+ * the last time a build that used it succeeded; references older than
+ * {@link #MAX_REF_AGE_MILLIS} are deleted.
+ * The modification time of an archive is the time it was last added, saved
+ * again or replaced; archives no reference names are deleted
+ * {@link #GC_MIN_AGE_MILLIS} after that.
+ *
+ * @author Martin Weber
+ */
+class BuildDirSnapshot {
+
+    /**
+     * the files not to save, relative to the build directory. The logs of
+     * ninja are saved, without them ninja rebuilds every target.
+     */
+    static final String EXCLUDES = "CMakeFiles/CMakeTmp/**,CMakeFiles/CMakeScratch/**," //$NON-NLS-1$
+            + "Testing/Temporary/**,**/*.tmp"; //$NON-NLS-1$
+
+    private static final String OBJECTS_DIR = "objects"; //$NON-NLS-1$
+    private static final String REFS_DIR = "refs"; //$NON-NLS-1$
+    private static final String ARCHIVE_SUFFIX = ".tar.gz"; //$NON-NLS-1$
+    /**
+     * the minimum age of an unreferenced archive to delete it, concurrent
+     * builds may be about to reference it
+     */
+    private static final long GC_MIN_AGE_MILLIS = 60 * 60 * 1000L;
+    /**
+     * the age of a reference that was not saved to delete it, system property
+     * in days
+     */
+    static final long MAX_REF_AGE_MILLIS = Long.getLong(
+            BuildDirSnapshot.class.getName() + ".maxRefAgeDays", 30) //$NON-NLS-1$
+            * 24 * 60 * 60 * 1000L;
+
+    /** the results of restoring a build directory */
+    enum Result {
+        /** the snapshot was extracted into the build directory */
+        RESTORED,
+        /** the store holds no snapshot of the configuration */
+        NOT_STORED,
+        /** the build directory is configured already, nothing restored */
+        CONFIGURED,
+        /** the snapshot could not be extracted, nothing restored */
+        FAILED
+    }
+
+    private BuildDirSnapshot() {
+    }
+
+    /**
+     * Gets the store directory of the specified node.
+     *
+     * @param store
+     *            the store setting: an absolute path or a path relative to
+     *            the root directory of the node
+     * @return the path of the store or {@code null} if the node is offline
+     */
+    static String getStoreDir(Node node, String store) {
+        if (isAbsolute(store))
+            return store;
+        final FilePath root = node == null ? null : node.getRootPath();
+        return root == null ? null : root.child(store).getRemote();
+    }
+
+    /**
+     * Gets whether the specified path is absolute on a Unix or Windows node.
+     */
+    static boolean isAbsolute(String path) {
+        return path.startsWith("/") || path.startsWith("\\\\") //$NON-NLS-1$ //$NON-NLS-2$
+                || path.matches("[A-Za-z]:[\\\\/].*"); //$NON-NLS-1$
+    }
+
+    /**
+     * Restores the snapshot of the specified configuration key into the
+     * specified build directory, unless it is configured already.
+     */
+    static Result restore(Path store, String key, Path buildDir)
+            throws IOException, InterruptedException {
+        if (Files.exists(buildDir.resolve(CacheTreeScanner.CACHE_FILE_NAME))) {
+            return Result.CONFIGURED;
+        }
+        final Path archive = getArchive(store, key);
+        if (archive == null) {
+            return Result.NOT_STORED;
+        }
+        try (InputStream in = Files.newInputStream(archive)) {
+            new FilePath(buildDir.toFile()).untar(in,
+                    FilePath.TarCompression.GZIP);
+        } catch (IOException ex) {
+            // do not leave a partial tree behind
+            BuildDirTrash.deleteRecursive(buildDir);
+            Files.createDirectories(buildDir);
+            return Result.FAILED;
+        }
+        // the reference is refreshed when the build succeeds and saves the
+        // tree, a tree that fails to build expires
+        return Result.RESTORED;
+    }
+
+    /**
+     * Gets the archive the reference of the specified configuration key
+     * names.
+     *
+     * @return the archive or {@code null} if there is none
+     */
+    private static Path getArchive(Path store, String key) throws IOException {
+        final String hash = readRef(store.resolve(REFS_DIR).resolve(key));
+        if (hash == null) {
+            return null;
+        }
+        final Path archive = store.resolve(OBJECTS_DIR)
+                .resolve(hash + ARCHIVE_SUFFIX);
+        return Files.isRegularFile(archive) ? archive : null;
+    }
+
+    /**
+     * Reads the hash of the archive the specified reference names.
+     *
+     * @return the hash or {@code null} if the reference does not exist
+     */
+    private static String readRef(Path ref) throws IOException {
+        try {
+            return new String(Files.readAllBytes(ref),
+                    StandardCharsets.US_ASCII).trim();
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the modification time of the specified file to now, if it
+     * exists.
+     */
+    private static void touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file,
+                    FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException ex) {
+            // deleted concurrently
+        }
+    }
+
+    /**
+     * Saves the specified build directory as the snapshot of the specified
+     * configuration key and deletes archives no key refers to any more.
+     *
+     * @return the saved snapshot
+     */
+    static Snapshot save(Path store, String key, Path buildDir)
+            throws IOException, InterruptedException {
+        final Path objects = Files.createDirectories(store.resolve(OBJECTS_DIR));
+        final Path refs = Files.createDirectories(store.resolve(REFS_DIR));
+        final Path tmp = objects.resolve(UUID.randomUUID() + ".tmp"); //$NON-NLS-1$
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        try {
+            try (OutputStream out = FilePath.TarCompression.GZIP
+                    .compress(new DigestOutputStream(Files.newOutputStream(tmp),
+                            md))) {
+                new FilePath(buildDir.toFile()).tar(out,
+                        new DirScanner.Glob("**", EXCLUDES)); //$NON-NLS-1$
+            }
+            final String hash = ConfigureFingerprint.toHex(md.digest());
+            final Path archive = objects.resolve(hash + ARCHIVE_SUFFIX);
+            final long size = Files.size(tmp);
+            final boolean added = !Files.exists(archive);
+            if (added) {
+                Files.move(tmp, archive, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                // same content as a stored snapshot, which is about to be
+                // referenced: keep it from garbage collection
+                Files.delete(tmp);
+                touch(archive);
+            }
+            // replace the reference atomically
+            final Path ref = refs.resolve(key);
+            final String replaced = readRef(ref);
+            final Path refTmp = refs.resolve(key + ".tmp"); //$NON-NLS-1$
+            Files.write(refTmp, hash.getBytes(StandardCharsets.US_ASCII));
+            Files.move(refTmp, ref, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            if (replaced != null && !replaced.equals(hash)) {
+                // unreferenced from now on, unless other keys name it
+                touch(objects.resolve(replaced + ARCHIVE_SUFFIX));
+            }
+            collectGarbage(store, GC_MIN_AGE_MILLIS, MAX_REF_AGE_MILLIS);
+            return new Snapshot(hash, size, added);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the references that are older than the specified maximum age
+     * and the archives no reference names that were last used longer than
+     * the specified minimum age ago.
+     *
+     * @param minAgeMillis
+     *            the time since an archive was last added, saved again or
+     *            replaced before it may be deleted
+     * @param maxRefAgeMillis
+     *            the time since a reference was last saved after which it
+     *            is deleted
+     */
+    static void collectGarbage(Path store, long minAgeMillis,
+            long maxRefAgeMillis) throws IOException {
+        final Set<String> referenced = new HashSet<>();
+        final Path objects = store.resolve(OBJECTS_DIR);
+        final long maxRefTime = System.currentTimeMillis() - maxRefAgeMillis;
+        try (DirectoryStream<Path> refs = Files
+                .newDirectoryStream(store.resolve(REFS_DIR))) {
+            for (Path ref : refs) {
+                final String hash = readRef(ref);
+                if (hash == null)
+                    continue; // replaced concurrently
+                try {
+                    if (Files.getLastModifiedTime(ref).toMillis() < maxRefTime) {
+                        // unused for too long
+                        Files.deleteIfExists(ref);
+                        touch(objects.resolve(hash + ARCHIVE_SUFFIX));
+                        continue;
+                    }
+                } catch (NoSuchFileException ex) {
+                    continue; // deleted concurrently
+                }
+                referenced.add(hash + ARCHIVE_SUFFIX);
+            }
+        }
+        final long maxTime = System.currentTimeMillis() - minAgeMillis;
+        try (DirectoryStream<Path> archives = Files
+                .newDirectoryStream(objects)) {
+            for (Path archive : archives) {
+                if (!referenced.contains(archive.getFileName().toString())
+                        && Files.getLastModifiedTime(archive)
+                                .toMillis() < maxTime) {
+                    Files.deleteIfExists(archive);
+                }
+            }
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * A snapshot that was saved.
+     */
+    static class Snapshot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String hash;
+        private final long size;
+        private final boolean added;
+
+        Snapshot(String hash, long size, boolean added) {
+            this.hash = hash;
+            this.size = size;
+            this.added = added;
+        }
+
+        /**
+         * Gets the hash of the content of the archive.
+         */
+        String getHash() {
+            return hash;
+        }
+
+        /**
+         * Gets the size of the archive in bytes.
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets whether the archive was added to the store, {@code false} if
+         * the store held an archive with the same content.
+         */
+        boolean isAdded() {
+            return added;
+        }
+    }
+
+    /**
+     * Restores the snapshot of a configuration into a build directory before
+     * cmake is run.
+     */
+    static class Restore extends MasterToSlaveFileCallable<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final String storeDir;
+        private final String key;
+
+        /**
+         * @param storeDir
+         *            the path of the store on the node
+         * @param key
+         *            the configuration key, see
+         *            {@link ToolchainCache#computeKey(java.util.List, String, java.util.Map)}
+         */
+        Restore(String storeDir, String key) {
+            this.storeDir = storeDir;
+            this.key = key;
+        }
+
+        @Override
+        public Result invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            return restore(Paths.get(storeDir), key, buildDir.toPath());
+        }
+    }
+
+    /**
+     * Saves a build directory as the snapshot of a configuration after a
+     * successful build.
+     */
+    static class Save extends MasterToSlaveFileCallable<Snapshot> {
+        private static final long serialVersionUID = 1L;
+
+        private final String storeDir;
+        private final String key;
+
+        /**
+         * @param storeDir
+         *            the path of the store on the node
+         * @param key
+         *            the configuration key, see
+         *            {@link ToolchainCache#computeKey(java.util.List, String, java.util.Map)}
+         */
+        Save(String storeDir, String key) {
+            this.storeDir = storeDir;
+            this.key = key;
+        }
+
+        @Override
+        public Snapshot invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            return save(Paths.get(storeDir), key, buildDir.toPath());
+        }
+    }
+}
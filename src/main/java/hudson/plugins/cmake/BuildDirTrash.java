@@ -0,0 +1,237 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * A trash directory on a node that build directories are moved to instead of
+ * deleting them in place. Moving a directory is a single atomic rename, the
+ * content of the trash is deleted by a background thread in the JVM of the
+ * node while the build proceeds.<br>
+ * The number of directories in the trash is bounded; if the trash is full,
+ * the caller has to delete the build directory itself. Directories left in the
+ * trash when the node was restarted are deleted the next time the trash is
+ * used.
+ *
+ * @author Martin Weber
+ */
+class BuildDirTrash {
+    private static final Logger LOGGER = Logger
+            .getLogger(BuildDirTrash.class.getName());
+
+    /** the name of the trash directory below the root directory of a node */
+    static final String TRASH_DIR_NAME = "cmakebuilder-trash"; //$NON-NLS-1$
+
+    /** the maximum number of directories in the trash */
+    static final int MAX_ENTRIES = Integer.getInteger(
+            BuildDirTrash.class.getName() + ".maxEntries", 8); //$NON-NLS-1$
+
+    /** the directories scheduled for deletion */
+    private static final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    private static final ExecutorService deleter = Executors
+            .newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r,
+                            "cmakebuilder build dir trash deleter"); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+
+    private BuildDirTrash() {
+    }
+
+    /**
+     * Deletes the specified build directory. If requested, the directory is
+     * moved into the trash of the node and deleted in background, falling back
+     * to deleting it in place, see {@link DeleteRecursive}.
+     *
+     * @param node
+     *            the node the build directory is on
+     * @param buildDir
+     *            the build directory
+     * @param inBackground
+     *            whether to delete the directory in background
+     */
+    static void clean(Node node, FilePath buildDir, boolean inBackground,
+            TaskListener listener) throws IOException, InterruptedException {
+        if (inBackground) {
+            final FilePath root = node == null ? null : node.getRootPath();
+            if (root != null) {
+                if (buildDir.act(new MoveToTrash(
+                        root.child(TRASH_DIR_NAME).getRemote()))) {
+                    listener.getLogger()
+                            .printf(Messages.getString("BuildDirTrash.Moved")); //$NON-NLS-1$
+                    return;
+                }
+                listener.getLogger()
+                        .printf(Messages.getString("BuildDirTrash.Not_moved")); //$NON-NLS-1$
+            }
+        }
+        final DeleteRecursive.Result result = buildDir
+                .act(new DeleteRecursive());
+        listener.getLogger().printf(
+                Messages.getString("BuildDirTrash.Deleted"), //$NON-NLS-1$
+                result.getFiles(), result.getBytes() / (1024.0 * 1024.0),
+                result.getMillis() / 1000.0);
+    }
+
+    /**
+     * Moves the specified directory into the trash and schedules it for
+     * deletion.
+     *
+     * @param trash
+     *            the trash directory, must be on the same file system as the
+     *            directory to move
+     * @param dir
+     *            the directory to move
+     * @return {@code true} if the directory was moved or did not exist,
+     *         {@code false} if the trash is full or the directory could not
+     *         be moved atomically
+     */
+    static boolean moveToTrash(Path trash, Path dir) throws IOException {
+        Files.createDirectories(trash);
+        // delete what was left over when the node was shut down or what
+        // failed to delete before
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(trash)) {
+            for (Path entry : entries) {
+                scheduleDeletion(entry);
+            }
+        }
+        if (!Files.exists(dir)) {
+            return true;
+        }
+        if (countEntries(trash) >= MAX_ENTRIES) {
+            return false;
+        }
+        final Path target = trash.resolve(dir.getFileName() + "-" //$NON-NLS-1$
+                + UUID.randomUUID());
+        try {
+            Files.move(dir, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            // different file systems or files in use
+            LOGGER.log(Level.FINE, "Cannot move " + dir + " to trash", ex); //$NON-NLS-1$ //$NON-NLS-2$
+            return false;
+        }
+        scheduleDeletion(target);
+        return true;
+    }
+
+    /**
+     * Gets the number of directories in the trash, including the one that is
+     * being deleted.
+     */
+    private static int countEntries(Path trash) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(trash)) {
+            for (@SuppressWarnings("unused")
+            Path entry : entries) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void scheduleDeletion(final Path path) {
+        if (!pending.add(path))
+            return; // already scheduled
+        deleter.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deleteRecursive(path);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Failed to delete " + path, ex); //$NON-NLS-1$
+                } finally {
+                    pending.remove(path);
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes the specified file or directory tree in the calling thread.
+     * Does nothing if it does not exist.
+     */
+    static void deleteRecursive(Path path) throws IOException {
+        if (!Files.exists(path))
+            return;
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                if (exc != null)
+                    throw exc;
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Moves a build directory into the trash of the node.
+     */
+    static class MoveToTrash extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final String trashDir;
+
+        /**
+         * @param trashDir
+         *            the path of the trash directory on the node
+         */
+        MoveToTrash(String trashDir) {
+            this.trashDir = trashDir;
+        }
+
+        /**
+         * @return {@code true} if the directory was moved or did not exist,
+         *         {@code false} if the caller has to delete it
+         */
+        @Override
+        public Boolean invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            return moveToTrash(Paths.get(trashDir), buildDir.toPath());
+        }
+    }
+}
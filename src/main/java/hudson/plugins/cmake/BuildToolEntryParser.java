@@ -8,25 +8,17 @@ package hudson.plugins.cmake;
 
 import hudson.remoting.VirtualChannel;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
 
 import jenkins.MasterToSlaveFileCallable;
-import de.marw.cmake.cmakecache.CMakeCacheFileParser;
-import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
-import de.marw.cmake.cmakecache.SimpleCMakeCacheEntry;
 
 /**
  * Gets the value of the {@code "CMAKE_MAKE_PROGRAM"} entry from a cmake cache
  * file.
  *
  * @author Martin Weber
+ * @see CacheEntriesParser
  */
 public class BuildToolEntryParser extends MasterToSlaveFileCallable<String> {
 
@@ -41,25 +33,8 @@ public class BuildToolEntryParser extends MasterToSlaveFileCallable<String> {
     @Override
     public String invoke(File cmakeCacheFile, VirtualChannel channel)
             throws IOException, InterruptedException {
-        InputStreamReader isr = new InputStreamReader(
-                new BufferedInputStream(new FileInputStream(cmakeCacheFile)),
-                Charset.defaultCharset());
-        List<SimpleCMakeCacheEntry> result = new ArrayList<>(1);
-        final CMakeCacheFileParser parser = new CMakeCacheFileParser();
-        try {
-            parser.parse(isr, new EntryFilter() {
-
-                @Override
-                public boolean accept(String key) {
-                    return "CMAKE_MAKE_PROGRAM".equals(key); //$NON-NLS-1$
-                }
-            }, result, null);
-        } finally {
-            isr.close();
-        }
-        if (result.size() > 0) {
-            return result.get(0).getValue();
-        }
-        return null;
+        return new CacheEntriesParser(CacheEntriesParser.CMAKE_MAKE_PROGRAM)
+                .invoke(cmakeCacheFile, channel)
+                .get(CacheEntriesParser.CMAKE_MAKE_PROGRAM);
     }
 }
@@ -17,8 +17,12 @@ import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Serializable;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -33,9 +37,23 @@ public class BuildToolStep extends AbstractDescribableImpl<BuildToolStep> implem
 
     private static final long serialVersionUID = 1L;
 
+    /** the parallelism setting that computes the number of jobs */
+    static final String AUTO_PARALLELISM = "auto"; //$NON-NLS-1$
+    /** the default memory estimate per job in MiB */
+    static final int DEFAULT_MEMORY_PER_JOB = 1024;
+    /** the names of the build tools that understand {@code -jN} */
+    private static final List<String> JOBS_OPTION_TOOLS = Arrays.asList("make", //$NON-NLS-1$
+            "gmake", "mingw32-make", "ninja", "ninja-build"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
     private String args;
     private String vars;
     private boolean withCmake;
+    /** the number of parallel jobs, 'auto' or {@code null} */
+    private String parallelism;
+    /** the memory estimate per job in MiB, 0 for the default */
+    private int memoryPerJob;
+    /** the name of the group of steps that run as one invocation or {@code null} */
+    private String parallelGroup;
 
     /**
      *
@@ -58,6 +76,155 @@ public class BuildToolStep extends AbstractDescribableImpl<BuildToolStep> implem
         return Util.tokenize(argsEx);
     }
 
+    /**
+     * Gets the arguments to pass to the build tool, including the argument
+     * that specifies the number of parallel jobs. This is {@code --parallel N}
+     * if cmake runs the build tool and {@code -jN} if make or ninja is
+     * invoked directly. Other build tools get no job count, since their
+     * options differ.
+     *
+     * @param buildEnvironment
+     *            the environement of the build step, for variable expansion.
+     * @param jobs
+     *            the number of parallel jobs or {@code 0} to not specify it
+     * @param buildTool
+     *            the build tool that is invoked directly or {@code null} if
+     *            unknown
+     * @return the arguments, never {@code null}
+     * @see #getJobs(EnvVars, NodeResources, TaskListener)
+     */
+    public String[] getCommandArguments(EnvVars buildEnvironment, int jobs,
+            String buildTool) {
+        final String[] args = getCommandArguments(buildEnvironment);
+        if (!withCmake && !acceptsJobsOption(buildTool))
+            return args;
+        return addJobsArgument(args, jobs, withCmake);
+    }
+
+    /**
+     * Adds the argument that specifies the number of parallel jobs to the
+     * specified arguments, unless these specify it already.
+     */
+    static String[] addJobsArgument(String[] args, int jobs,
+            boolean withCmake) {
+        if (jobs <= 0)
+            return args;
+        for (String arg : args) {
+            if (arg.startsWith("-j") || arg.startsWith("--parallel")) //$NON-NLS-1$ //$NON-NLS-2$
+                return args; // user knows better
+        }
+        final List<String> result = new ArrayList<>(args.length + 2);
+        if (withCmake) {
+            result.add("--parallel"); //$NON-NLS-1$
+            result.add(Integer.toString(jobs));
+        } else {
+            result.add("-j" + jobs); //$NON-NLS-1$
+        }
+        result.addAll(Arrays.asList(args));
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Gets whether the specified build tool understands the {@code -jN}
+     * option, i.e. whether it is make or ninja.
+     *
+     * @param buildTool
+     *            the path or name of the build tool or {@code null}
+     */
+    static boolean acceptsJobsOption(String buildTool) {
+        final String name = getToolName(buildTool);
+        return name != null && JOBS_OPTION_TOOLS.contains(name);
+    }
+
+    /**
+     * Gets the name of the specified build tool: its file name in lower
+     * case, without the {@code .exe} extension.
+     *
+     * @param buildTool
+     *            the path or name of the build tool or {@code null}
+     * @return the name or {@code null} if the build tool is {@code null}
+     */
+    static String getToolName(String buildTool) {
+        if (buildTool == null)
+            return null;
+        String name = buildTool
+                .substring(Math.max(buildTool.lastIndexOf('/'),
+                        buildTool.lastIndexOf('\\')) + 1)
+                .toLowerCase(Locale.ROOT);
+        if (name.endsWith(".exe")) //$NON-NLS-1$
+            name = name.substring(0, name.length() - 4);
+        return name;
+    }
+
+    /**
+     * Gets whether the number of parallel jobs is computed from the
+     * resources of the node.
+     */
+    boolean isAutoParallelism() {
+        return AUTO_PARALLELISM.equals(parallelism);
+    }
+
+    /**
+     * Gets the number of parallel jobs the build tool should run. For
+     * {@value #AUTO_PARALLELISM}, this is the number of processors of the
+     * node, but not more than the available memory allows for the memory
+     * estimate per job. The calculation is logged.
+     *
+     * @param buildEnvironment
+     *            the environement of the build step, for variable expansion.
+     * @param resources
+     *            the resources of the node, must not be {@code null} if
+     *            {@link #isAutoParallelism()}
+     * @return the number of jobs or {@code 0} to leave it to the build tool
+     */
+    int getJobs(EnvVars buildEnvironment, NodeResources resources,
+            TaskListener listener) {
+        if (parallelism == null)
+            return 0;
+        if (isAutoParallelism()) {
+            final long available = resources.getAvailableMemory();
+            final int jobs = computeJobs(resources.getProcessors(), available,
+                    getMemoryPerJob() * NodeResources.MIB);
+            listener.getLogger().printf(
+                    Messages.getString("BuildToolStep.Auto_parallelism"), //$NON-NLS-1$
+                    resources.getProcessors(),
+                    available < 0 ? "?" : Long.toString(available / NodeResources.MIB), //$NON-NLS-1$
+                    getMemoryPerJob(), jobs);
+            return jobs;
+        }
+        final String value = Util.replaceMacro(parallelism, buildEnvironment);
+        try {
+            final int jobs = Integer.parseInt(value.trim());
+            if (jobs > 0)
+                return jobs;
+        } catch (NumberFormatException ex) {
+            // handled below
+        }
+        listener.error(Messages.getString("BuildToolStep.Garbled_parallelism"), //$NON-NLS-1$
+                value);
+        return 0;
+    }
+
+    /**
+     * Computes the number of parallel jobs.
+     *
+     * @param processors
+     *            the number of processors
+     * @param availableMemory
+     *            the available memory in bytes or a negative value if unknown
+     * @param memoryPerJob
+     *            the memory estimate per job in bytes
+     * @return the number of jobs, at least {@code 1}
+     */
+    static int computeJobs(int processors, long availableMemory,
+            long memoryPerJob) {
+        long jobs = processors;
+        if (availableMemory >= 0 && memoryPerJob > 0) {
+            jobs = Math.min(jobs, availableMemory / memoryPerJob);
+        }
+        return (int) Math.max(1, jobs);
+    }
+
     /**
      * Gets the extra environment variables to pass to the build tool.
      *
@@ -151,6 +318,68 @@ public class BuildToolStep extends AbstractDescribableImpl<BuildToolStep> implem
         this.vars = Util.fixEmptyAndTrim(vars);
     }
 
+    /**
+     * Gets the content of the form field 'parallelism'.
+     */
+    public String getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of parallel jobs the build tool should run.
+     *
+     * @param parallelism
+     *            the number of jobs, {@value #AUTO_PARALLELISM} to compute it
+     *            from the processors and the available memory of the node or
+     *            {@code null} or empty to leave it to the build tool
+     */
+    @DataBoundSetter
+    public void setParallelism(String parallelism) {
+        this.parallelism = Util.fixEmptyAndTrim(parallelism);
+    }
+
+    /**
+     * Gets the memory estimate per job in MiB.
+     */
+    public int getMemoryPerJob() {
+        return memoryPerJob > 0 ? memoryPerJob : DEFAULT_MEMORY_PER_JOB;
+    }
+
+    /**
+     * Sets the memory estimate per job in MiB for the computation of the
+     * number of parallel jobs.
+     *
+     * @param memoryPerJob
+     *            the memory in MiB or {@code 0} for the default
+     */
+    @DataBoundSetter
+    public void setMemoryPerJob(int memoryPerJob) {
+        this.memoryPerJob = Math.max(0, memoryPerJob);
+    }
+
+    /**
+     * Gets the name of the group of steps this step is merged with.
+     *
+     * @return the name or {@code null} if the step runs on its own
+     */
+    public String getParallelGroup() {
+        return parallelGroup;
+    }
+
+    /**
+     * Sets the name of the group of steps this step is merged with.
+     * Consecutive steps with the same group name that build targets only run
+     * as a single invocation of the build tool; otherwise they run one after
+     * another.
+     *
+     * @param parallelGroup
+     *            the name or {@code null} or empty to run the step on its own
+     */
+    @DataBoundSetter
+    public void setParallelGroup(String parallelGroup) {
+        this.parallelGroup = Util.fixEmptyAndTrim(parallelGroup);
+    }
+
     // //////////////////////////////////////////////////////////////////
     // inner classes
     // //////////////////////////////////////////////////////////////////
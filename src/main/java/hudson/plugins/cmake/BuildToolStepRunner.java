@@ -0,0 +1,332 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.util.ArgumentListBuilder;
+
+/**
+ * Runs the build tool steps of a builder in the build directory.<br>
+ * Consecutive steps with the same {@link BuildToolStep#getParallelGroup()
+ * parallel group} that build targets only run as a single invocation of the
+ * build tool with the targets of all steps, either
+ * {@code cmake --build <dir> --target <targets>} or ninja run directly. It
+ * runs as many jobs as the node has processors. The steps of a group that
+ * cannot be merged, and all other steps, run one after another: concurrent
+ * invocations of the build tool in the same build directory would race.
+ * <br>
+ * When the node is shared with other builds, the steps that specify a job
+ * count are limited to the jobs of the share.<br>
+ * If a step fails, no later steps are run.
+ *
+ * @author Martin Weber
+ */
+class BuildToolStepRunner {
+
+    private final Launcher launcher;
+    private final FilePath buildDir;
+    /** the build tool the steps invoke directly or {@code null} */
+    private final String buildTool;
+    private final EnvVars env;
+    private final TaskListener listener;
+    /** the share of the node resources or {@code null} */
+    private final NodeResources share;
+
+    /**
+     * @param launcher
+     *            the launcher for the build tool processes
+     * @param buildDir
+     *            the build directory
+     * @param buildTool
+     *            the build tool the steps invoke directly or {@code null} if
+     *            unknown
+     * @param env
+     *            the environment of the steps
+     */
+    BuildToolStepRunner(Launcher launcher, FilePath buildDir,
+            String buildTool, EnvVars env, TaskListener listener) {
+        this(launcher, buildDir, buildTool, env, listener, null);
+    }
+
+    /**
+     * @param launcher
+     *            the launcher for the build tool processes
+     * @param buildDir
+     *            the build directory
+     * @param buildTool
+     *            the build tool the steps invoke directly or {@code null} if
+     *            unknown
+     * @param env
+     *            the environment of the steps
+     * @param share
+     *            the share of the node resources the steps may use or
+     *            {@code null} to use all resources of the node
+     */
+    BuildToolStepRunner(Launcher launcher, FilePath buildDir,
+            String buildTool, EnvVars env, TaskListener listener,
+            NodeResources share) {
+        this.launcher = launcher;
+        this.buildDir = buildDir;
+        this.buildTool = buildTool;
+        this.env = env;
+        this.listener = listener;
+        this.share = share;
+    }
+
+    /**
+     * Runs the specified steps.
+     *
+     * @param steps
+     *            the steps in configuration order
+     * @param factory
+     *            creates the command line of a step
+     * @return the failed step or {@code null} if all steps succeeded
+     */
+    Failure run(List<BuildToolStep> steps, CallFactory factory)
+            throws IOException, InterruptedException {
+        NodeResources resources = share;
+        int number = 1;
+        for (List<BuildToolStep> group : partition(steps)) {
+            if (resources == null && needsResources(group)) {
+                resources = launcher.getChannel()
+                        .call(new NodeResources.Probe());
+            }
+            final Failure failure = group.size() == 1
+                    ? runSingle(group.get(0), number, factory, resources)
+                    : runGroup(group, number, factory, resources);
+            if (failure != null)
+                return failure;
+            number += group.size();
+        }
+        return null;
+    }
+
+    private Failure runSingle(BuildToolStep step, int number,
+            CallFactory factory, NodeResources resources)
+            throws IOException, InterruptedException {
+        int jobs = step.getJobs(env, resources, listener);
+        if (share != null && jobs > 0) {
+            // leave an unspecified job count to the build tool
+            jobs = shareJobs(jobs, share.getProcessors(), 1);
+        }
+        final ArgumentListBuilder toolCall = factory.create(step,
+                step.getCommandArguments(env, jobs, buildTool));
+        final int exitCode = launcher.launch().pwd(buildDir)
+                .envs(getStepEnv(step)).stdout(listener).cmds(toolCall).join();
+        return exitCode == 0 ? null
+                : new Failure(number, toolCall.toString(), exitCode);
+    }
+
+    /**
+     * Runs the steps of a parallel group. If the steps build targets only,
+     * the targets are built by a single invocation of the build tool, which
+     * builds common dependencies once. Otherwise the steps run one after
+     * another, since concurrent invocations of ninja or make in the same
+     * build directory race on the files they maintain there and on the
+     * dependencies the steps have in common.
+     *
+     * @param firstNumber
+     *            the number of the first step of the group in the
+     *            configuration
+     */
+    private Failure runGroup(List<BuildToolStep> group, int firstNumber,
+            CallFactory factory, NodeResources resources)
+            throws IOException, InterruptedException {
+        final String name = group.get(0).getParallelGroup();
+        final List<String> targets = getTargets(group);
+        if (targets == null) {
+            listener.getLogger().printf(
+                    Messages.getString("BuildToolStepRunner.Serializing_group"), //$NON-NLS-1$
+                    group.size(), name);
+            for (int i = 0; i < group.size(); i++) {
+                final Failure failure = runSingle(group.get(i),
+                        firstNumber + i, factory, resources);
+                if (failure != null)
+                    return failure;
+            }
+            return null;
+        }
+        final int budget = resources.getProcessors();
+        listener.getLogger().printf(
+                Messages.getString("BuildToolStepRunner.Merging_group"), //$NON-NLS-1$
+                group.size(), name, budget);
+        int jobs = 0;
+        for (BuildToolStep step : group) {
+            jobs = Math.max(jobs, step.getJobs(env, resources, listener));
+        }
+        final boolean withCmake = group.get(0).getWithCmake();
+        final List<String> toolArgs = new ArrayList<>(targets.size() + 1);
+        if (withCmake)
+            toolArgs.add("--target"); //$NON-NLS-1$
+        toolArgs.addAll(targets);
+        final ArgumentListBuilder toolCall = factory.create(group.get(0),
+                BuildToolStep.addJobsArgument(toolArgs.toArray(new String[0]),
+                        shareJobs(jobs, budget, 1), withCmake));
+        final int exitCode = launcher.launch().pwd(buildDir).envs(env)
+                .stdout(listener).cmds(toolCall).join();
+        return exitCode == 0 ? null
+                : new Failure(firstNumber, toolCall.toString(), exitCode);
+    }
+
+    /**
+     * Gets the targets of the specified group if the group can be run as a
+     * single invocation of the build tool: each step passes targets and no
+     * environment variables, and either all steps run
+     * {@code cmake --build <dir> --target <targets>} or all steps invoke
+     * ninja directly with the targets as arguments.
+     *
+     * @return the targets of all steps or {@code null} if the steps must run
+     *         one after another
+     */
+    List<String> getTargets(List<BuildToolStep> group) {
+        final boolean withCmake = group.get(0).getWithCmake();
+        if (!withCmake && !isNinja(buildTool))
+            return null;
+        final List<String> targets = new ArrayList<>();
+        for (BuildToolStep step : group) {
+            if (step.getWithCmake() != withCmake
+                    || !step.getEnvironmentVars(env, listener).isEmpty())
+                return null;
+            final String[] args = step.getCommandArguments(env);
+            int i = 0;
+            if (withCmake) {
+                // cmake --build <dir> --target <target>...
+                if (args.length == 0 || !("--target".equals(args[0]) //$NON-NLS-1$
+                        || "-t".equals(args[0]))) //$NON-NLS-1$
+                    return null;
+                i = 1;
+            }
+            if (i == args.length)
+                return null; // builds the default target
+            for (; i < args.length; i++) {
+                final String arg = args[i];
+                if (arg.startsWith("-")) //$NON-NLS-1$
+                    return null;
+                if (!targets.contains(arg))
+                    targets.add(arg);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Gets whether the specified build tool is ninja.
+     *
+     * @param buildTool
+     *            the path or name of the build tool or {@code null}
+     */
+    static boolean isNinja(String buildTool) {
+        final String name = BuildToolStep.getToolName(buildTool);
+        return "ninja".equals(name) || "ninja-build".equals(name); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private EnvVars getStepEnv(BuildToolStep step) {
+        return new EnvVars(env)
+                .overrideAll(step.getEnvironmentVars(env, listener));
+    }
+
+    /**
+     * Gets whether the number of jobs of the specified group is computed from
+     * the resources of the node.
+     */
+    private static boolean needsResources(List<BuildToolStep> group) {
+        if (group.size() > 1)
+            return true;
+        return group.get(0).isAutoParallelism();
+    }
+
+    /**
+     * Splits the specified steps into groups. Consecutive steps with the same
+     * parallel group form a group, each other step forms a group of its own.
+     */
+    static List<List<BuildToolStep>> partition(List<BuildToolStep> steps) {
+        final List<List<BuildToolStep>> groups = new ArrayList<>();
+        List<BuildToolStep> current = null;
+        for (BuildToolStep step : steps) {
+            final String name = step.getParallelGroup();
+            if (current == null || name == null
+                    || !name.equals(current.get(0).getParallelGroup())) {
+                current = new ArrayList<>();
+                groups.add(current);
+            }
+            current.add(step);
+        }
+        return groups;
+    }
+
+    /**
+     * Limits the number of jobs of a step to its share of the job budget.
+     *
+     * @param jobs
+     *            the number of jobs of the step or {@code 0} if unspecified
+     * @param budget
+     *            the total number of jobs of the group
+     * @param groupSize
+     *            the number of steps in the group
+     * @return the number of jobs, at least {@code 1}
+     */
+    static int shareJobs(int jobs, int budget, int groupSize) {
+        final int share = Math.max(1, budget / groupSize);
+        return jobs <= 0 ? share : Math.min(jobs, share);
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Creates the command line of a build tool step.
+     */
+    interface CallFactory {
+        /**
+         * @param step
+         *            the step
+         * @param toolArgs
+         *            the arguments of the step, including the job count
+         */
+        ArgumentListBuilder create(BuildToolStep step, String[] toolArgs);
+    }
+
+    /**
+     * A failed step.
+     */
+    static class Failure {
+        private final int number;
+        private final String command;
+        private final int exitCode;
+
+        /**
+         * @param number
+         *            the number of the step in the configuration
+         * @param command
+         *            the command line of the step
+         */
+        Failure(int number, String command, int exitCode) {
+            this.number = number;
+            this.command = command;
+            this.exitCode = exitCode;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * Gets the message that reports the failed step.
+         */
+        String getMessage() {
+            return String.format(
+                    Messages.getString("BuildToolStepRunner.Step_failed"), //$NON-NLS-1$
+                    number, command, exitCode);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.marw.cmake.cmakecache.CMakeCache;
+import de.marw.cmake.cmakecache.CMakeCacheDiff;
+import de.marw.cmake.cmakecache.CMakeCacheDigest;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.RunAction2;
+
+/**
+ * Keeps a snapshot of the cmake cache of each build directory of a build and
+ * the differences to the cache of the previous build. Shown as a page of the
+ * build.<br>
+ * The differences cover all entries of the cache. To keep {@code build.xml}
+ * small, the values of only the entries that specify the toolchain and the
+ * configuration essentials (see {@link #SNAPSHOT_KEYS}) are recorded; the
+ * other entries are recorded as a hash of their value (see
+ * {@link CMakeCacheDigest}), so their changes are reported without the
+ * values.<br>
+ * Other plugins may use {@link #getDiff(Run, String)} to find out whether
+ * the compiler or toolchain changed, which invalidates incremental builds.
+ *
+ * @author Martin Weber
+ */
+public class CMakeCacheAction implements RunAction2 {
+
+    /** accepts the keys of the entries to keep the values of */
+    static final EntryFilter SNAPSHOT_KEYS = new EntryFilter() {
+        @Override
+        public boolean accept(String key) {
+            if (isToolchainKey(key))
+                return true;
+            for (String configurationKey : CacheEntriesParser.CONFIGURATION_KEYS) {
+                if (configurationKey.equals(key))
+                    return true;
+            }
+            return false;
+        }
+    };
+
+    /** the snapshots by build directory */
+    private final Map<String, Record> records = new TreeMap<>();
+    private transient Run<?, ?> run;
+
+    /**
+     * Records the cache of the specified build directory and computes the
+     * differences to the cache recorded for the same build directory by the
+     * previous build.
+     *
+     * @param run
+     *            the current build
+     * @param buildDir
+     *            the build directory, relative to the workspace
+     * @param cache
+     *            the cache model holding all entries
+     * @return the differences or {@code null} if the previous build did not
+     *         record a cache for the build directory
+     */
+    public static CMakeCacheDiff record(Run<?, ?> run, String buildDir,
+            CMakeCache cache) {
+        return record(run, buildDir, cache, CMakeCacheDigest.of(cache));
+    }
+
+    /**
+     * Records the cache of the specified build directory and computes the
+     * differences to the cache recorded for the same build directory by the
+     * previous build.
+     *
+     * @param run
+     *            the current build
+     * @param buildDir
+     *            the build directory, relative to the workspace
+     * @param cache
+     *            the cache model. Only the values of the entries accepted by
+     *            {@link #SNAPSHOT_KEYS} are recorded, it need not hold other
+     *            entries.
+     * @param digest
+     *            the digest of all entries of the cache
+     * @return the differences or {@code null} if the previous build did not
+     *         record a cache for the build directory
+     */
+    public static CMakeCacheDiff record(Run<?, ?> run, String buildDir,
+            CMakeCache cache, CMakeCacheDigest digest) {
+        final CMakeCache snapshot = cache.select(SNAPSHOT_KEYS);
+        CMakeCacheDiff diff = null;
+        int previousNumber = 0;
+        final Run<?, ?> previous = run.getPreviousBuild();
+        if (previous != null) {
+            final CMakeCacheAction action = previous
+                    .getAction(CMakeCacheAction.class);
+            if (action != null) {
+                final Record former = action.getRecord(buildDir);
+                if (former != null) {
+                    if (former.digest != null) {
+                        diff = CMakeCacheDiff.compute(former.digest,
+                                former.snapshot, digest, snapshot);
+                    } else {
+                        // records of former versions hold no digest
+                        diff = CMakeCacheDiff.compute(
+                                former.snapshot.select(SNAPSHOT_KEYS),
+                                snapshot);
+                    }
+                    previousNumber = previous.getNumber();
+                }
+            }
+        }
+        synchronized (run) {
+            CMakeCacheAction action = run.getAction(CMakeCacheAction.class);
+            if (action == null) {
+                action = new CMakeCacheAction();
+                run.addAction(action);
+            }
+            synchronized (action.records) {
+                action.records.put(buildDir,
+                        new Record(snapshot, digest, diff, previousNumber));
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Records the cache of the specified build directory like
+     * {@link #record(Run, String, CMakeCache, CMakeCacheDigest)} and logs a
+     * summary of the differences. Toolchain changes are logged as a warning.
+     */
+    static void recordAndReport(Run<?, ?> run, String buildDir,
+            CMakeCache cache, CMakeCacheDigest digest, TaskListener listener) {
+        final CMakeCacheDiff diff = record(run, buildDir, cache, digest);
+        if (diff == null || diff.isEmpty())
+            return;
+        final int previousNumber = run.getPreviousBuild().getNumber();
+        listener.getLogger().printf(
+                Messages.getString("CMakeCacheAction.Changes"), previousNumber, //$NON-NLS-1$
+                diff.getAdded().size(), diff.getRemoved().size(),
+                diff.getChanged().size());
+        final List<String> toolchainChanges = getToolchainChanges(diff);
+        if (!toolchainChanges.isEmpty()) {
+            listener.getLogger().printf(
+                    Messages.getString("CMakeCacheAction.Toolchain_changed"), //$NON-NLS-1$
+                    previousNumber, toolchainChanges);
+        }
+    }
+
+    /**
+     * Gets the differences of the cache of the specified build directory to
+     * the cache of the previous build.
+     *
+     * @param run
+     *            the build
+     * @param buildDir
+     *            the build directory, relative to the workspace
+     * @return the differences or {@code null} if none were recorded
+     */
+    public static CMakeCacheDiff getDiff(Run<?, ?> run, String buildDir) {
+        final CMakeCacheAction action = run.getAction(CMakeCacheAction.class);
+        if (action == null)
+            return null;
+        final Record record = action.getRecord(buildDir);
+        return record == null ? null : record.diff;
+    }
+
+    /**
+     * Gets the keys of the entries that specify the toolchain (the
+     * generator, the build tool, the toolchain file and the compilers) and
+     * that are affected by the specified differences.
+     *
+     * @return the keys in ascending order, never {@code null}
+     */
+    public static List<String> getToolchainChanges(CMakeCacheDiff diff) {
+        final List<String> keys = new ArrayList<>();
+        for (String key : diff.getAdded()) {
+            if (isToolchainKey(key))
+                keys.add(key);
+        }
+        for (String key : diff.getRemoved()) {
+            if (isToolchainKey(key))
+                keys.add(key);
+        }
+        for (CMakeCacheDiff.Change change : diff.getChanged()) {
+            if (isToolchainKey(change.getKey()))
+                keys.add(change.getKey());
+        }
+        Collections.sort(keys);
+        return keys;
+    }
+
+    private static boolean isToolchainKey(String key) {
+        return CacheEntriesParser.CMAKE_GENERATOR.equals(key)
+                || CacheEntriesParser.CMAKE_MAKE_PROGRAM.equals(key)
+                || "CMAKE_TOOLCHAIN_FILE".equals(key) //$NON-NLS-1$
+                || (key.startsWith("CMAKE_") && key.endsWith("_COMPILER")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Gets the record of the specified build directory.
+     *
+     * @return the record or {@code null} if none was recorded
+     */
+    public Record getRecord(String buildDir) {
+        synchronized (records) {
+            return records.get(buildDir);
+        }
+    }
+
+    /**
+     * Gets the records of all build directories, ordered by build directory.
+     */
+    public Map<String, Record> getRecords() {
+        synchronized (records) {
+            return new TreeMap<>(records);
+        }
+    }
+
+    /**
+     * Gets the build this action belongs to.
+     */
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "notepad.png"; //$NON-NLS-1$
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.getString("CMakeCacheAction.DisplayName"); //$NON-NLS-1$
+    }
+
+    @Override
+    public String getUrlName() {
+        return "cmakeCache"; //$NON-NLS-1$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The snapshot of the cache of a build directory.
+     */
+    public static class Record {
+        private final CMakeCache snapshot;
+        /** the digest of all entries, {@code null} in former versions */
+        private final CMakeCacheDigest digest;
+        private final CMakeCacheDiff diff;
+        /** the number of the build the diff refers to, 0 if none */
+        private final int previousNumber;
+
+        Record(CMakeCache snapshot, CMakeCacheDigest digest,
+                CMakeCacheDiff diff, int previousNumber) {
+            this.snapshot = snapshot;
+            this.digest = digest;
+            this.diff = diff;
+            this.previousNumber = previousNumber;
+        }
+
+        /**
+         * Gets the model of the entries whose values were recorded.
+         */
+        public CMakeCache getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Gets the number of entries of the cache.
+         */
+        public int getEntries() {
+            return digest != null ? digest.size() : snapshot.size();
+        }
+
+        /**
+         * Gets the differences to the previous build.
+         *
+         * @return the differences or {@code null} if the previous build did
+         *         not record a cache for the build directory
+         */
+        public CMakeCacheDiff getDiff() {
+            return diff;
+        }
+
+        /**
+         * Gets the number of the build {@link #getDiff()} refers to.
+         *
+         * @return the build number or {@code 0} if there is no diff
+         */
+        public int getPreviousNumber() {
+            return previousNumber;
+        }
+    }
+}
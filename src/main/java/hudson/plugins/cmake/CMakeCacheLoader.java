@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.marw.cmake.cmakecache.CMakeCache;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser;
+
+/**
+ * Loads CMake cache files into {@link CMakeCache} models and keeps the models
+ * in memory of the JVM it runs in (normally the JVM of an agent). A cache file
+ * that did not change since it was last loaded is served from memory.<br>
+ * A file is considered unchanged if its path, size, modification time and
+ * file key (the inode on unix-like systems) are unchanged. The number of
+ * models held is bounded, the least recently used model is evicted first.<br>
+ * Large files are read into memory at once and scanned byte-wise.<br>
+ * The hit and miss counters are available through {@link #getHitCount()}
+ * and {@link #getMissCount()} and are logged at level {@code FINE}.
+ *
+ * @author Martin Weber
+ */
+public class CMakeCacheLoader {
+    private static final Logger LOGGER = Logger
+            .getLogger(CMakeCacheLoader.class.getName());
+
+    /** the maximum number of models to keep in memory */
+    static final int MAX_ENTRIES = Integer.getInteger(
+            CMakeCacheLoader.class.getName() + ".maxEntries", 32); //$NON-NLS-1$
+
+    /**
+     * the minimum size of a file in bytes to have its bytes scanned instead
+     * of reading it through a {@code Reader}
+     */
+    static final long BYTE_SCAN_THRESHOLD = Long.getLong(
+            CMakeCacheLoader.class.getName() + ".byteScanThreshold", //$NON-NLS-1$
+            1024 * 1024);
+
+    /** the cached models by absolute file path, in LRU order */
+    private static final Map<String, Entry> models = new LinkedHashMap<String, Entry>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private CMakeCacheLoader() {
+    }
+
+    /**
+     * Gets the model of the specified CMake cache file, parsing the file if
+     * it changed since it was last loaded.
+     *
+     * @param cmakeCacheFile
+     *            the CMake cache file
+     * @return the model, never {@code null}
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public static CMakeCache load(File cmakeCacheFile) throws IOException {
+        final Path path = cmakeCacheFile.toPath().toAbsolutePath().normalize();
+        final String key = path.toString();
+        final Fingerprint fingerprint = Fingerprint.of(path);
+        synchronized (models) {
+            final Entry entry = models.get(key);
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+                final long hitCount = hits.incrementAndGet();
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Served {0} from memory (hits: {1}, misses: {2})", //$NON-NLS-1$
+                            new Object[] { key, hitCount, misses.get() });
+                }
+                return entry.model;
+            }
+        }
+        misses.incrementAndGet();
+        final CMakeCache model = read(path, fingerprint.size);
+        if (fingerprint.equals(Fingerprint.of(path))) {
+            // file did not change while we were reading it
+            synchronized (models) {
+                models.put(key, new Entry(fingerprint, model));
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Parsed {0}, {1} entries (hits: {2}, misses: {3})", //$NON-NLS-1$
+                    new Object[] { key, model.size(), hits.get(), misses.get() });
+        }
+        return model;
+    }
+
+    /**
+     * Parses the specified CMake cache file. The bytes of large files are
+     * scanned, if the platform´s default charset allows to. The file is not
+     * memory-mapped: a mapping stays until the buffer is garbage collected,
+     * which keeps the file locked on Windows and thus blocks the next run of
+     * cmake.
+     *
+     * @param size
+     *            the size of the file
+     */
+    private static CMakeCache read(Path path, long size) throws IOException {
+        final Charset charset = Charset.defaultCharset();
+        if (size >= BYTE_SCAN_THRESHOLD && size <= Integer.MAX_VALUE
+                && CMakeCacheFileParser.isScannable(charset)) {
+            return CMakeCache.read(ByteBuffer.wrap(Files.readAllBytes(path)),
+                    charset);
+        }
+        try (InputStreamReader isr = new InputStreamReader(
+                new BufferedInputStream(Files.newInputStream(path)),
+                charset)) {
+            return CMakeCache.read(isr);
+        }
+    }
+
+    /**
+     * Gets the number of loads served from memory.
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of loads that required to parse the file.
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Discards all models held in memory. Does not reset the counters.
+     */
+    static void clear() {
+        synchronized (models) {
+            models.clear();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Identifies the state of a file.
+     */
+    private static class Fingerprint {
+        private final long size;
+        private final long lastModified;
+        /** the inode or {@code null} if the file system does not have one */
+        private final Object fileKey;
+
+        private Fingerprint(BasicFileAttributes attrs) {
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+            this.fileKey = attrs.fileKey();
+        }
+
+        static Fingerprint of(Path path) throws IOException {
+            return new Fingerprint(
+                    Files.readAttributes(path, BasicFileAttributes.class));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Fingerprint))
+                return false;
+            Fingerprint other = (Fingerprint) obj;
+            return size == other.size && lastModified == other.lastModified
+                    && Objects.equals(fileKey, other.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified, fileKey);
+        }
+    }
+
+    private static class Entry {
+        final Fingerprint fingerprint;
+        final CMakeCache model;
+
+        Entry(Fingerprint fingerprint, CMakeCache model) {
+            this.fingerprint = fingerprint;
+            this.model = model;
+        }
+    }
+}
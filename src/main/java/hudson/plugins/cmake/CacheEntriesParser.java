@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.marw.cmake.cmakecache.CMakeCache;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Gets the values of selected entries from a cmake cache file. Reading stops
+ * as soon as all entries are found; use {@link CacheSnapshotParser} to get a
+ * model of the whole file.
+ *
+ * @author Martin Weber
+ */
+public class CacheEntriesParser
+        extends MasterToSlaveFileCallable<Map<String, String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** the cache entry that holds the build tool */
+    public static final String CMAKE_MAKE_PROGRAM = "CMAKE_MAKE_PROGRAM"; //$NON-NLS-1$
+    /** the cache entry that holds the name of the build-script generator */
+    public static final String CMAKE_GENERATOR = "CMAKE_GENERATOR"; //$NON-NLS-1$
+    /** the cache entry that holds the build type */
+    public static final String CMAKE_BUILD_TYPE = "CMAKE_BUILD_TYPE"; //$NON-NLS-1$
+    /** the cache entry that holds the C compiler */
+    public static final String CMAKE_C_COMPILER = "CMAKE_C_COMPILER"; //$NON-NLS-1$
+    /** the cache entry that holds the C++ compiler */
+    public static final String CMAKE_CXX_COMPILER = "CMAKE_CXX_COMPILER"; //$NON-NLS-1$
+
+    /**
+     * The entries the build steps are interested in after cmake has generated
+     * the build-scripts.
+     */
+    static final String[] CONFIGURATION_KEYS = { CMAKE_MAKE_PROGRAM,
+            CMAKE_GENERATOR, CMAKE_BUILD_TYPE, CMAKE_C_COMPILER,
+            CMAKE_CXX_COMPILER };
+
+    /** the syntax of an environment variable name */
+    private static final Pattern ENV_VAR_NAME = Pattern
+            .compile("[A-Za-z_][A-Za-z0-9_]*"); //$NON-NLS-1$
+
+    private final String[] keys;
+
+    /**
+     * @param keys
+     *            the keys of the cache entries to get
+     */
+    public CacheEntriesParser(String... keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Parses the cache file and returns the values of the requested entries.
+     *
+     * @return a map of the keys found to their values. The map is empty if
+     *         the cache file does not exist.
+     */
+    @Override
+    public Map<String, String> invoke(File cmakeCacheFile,
+            VirtualChannel channel) throws IOException, InterruptedException {
+        if (!cmakeCacheFile.isFile()) {
+            return new HashMap<>(0);
+        }
+        try (InputStreamReader isr = new InputStreamReader(
+                new BufferedInputStream(new FileInputStream(cmakeCacheFile)),
+                Charset.defaultCharset())) {
+            return new CMakeCacheFileParser().lookup(isr, Arrays.asList(keys));
+        }
+    }
+
+    /**
+     * Gets the values of the specified entries from a cache model.
+     *
+     * @param cache
+     *            the cache model or {@code null}
+     * @param keys
+     *            the keys of the cache entries to get
+     * @return a map of the keys found to their values. The map is empty if
+     *         the cache is {@code null}.
+     */
+    static Map<String, String> select(CMakeCache cache, String... keys) {
+        if (cache == null) {
+            return new HashMap<>(0);
+        }
+        final Map<String, String> values = new HashMap<>(keys.length * 2);
+        for (String key : keys) {
+            final String value = cache.getValue(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets the values of the entries whose keys match any of the specified
+     * glob patterns. Entries with keys that are no valid environment variable
+     * names are skipped.
+     *
+     * @param cache
+     *            the cache model or {@code null}
+     * @param globs
+     *            a list of glob patterns, separated by white space or commas.
+     *            A {@code '*'} matches any sequence of characters, a
+     *            {@code '?'} matches any single character. May be
+     *            {@code null}.
+     * @return a map of the matching keys to their values, sorted by key. The
+     *         map is empty if the cache is {@code null}.
+     */
+    static Map<String, String> selectMatching(CMakeCache cache,
+            String globs) {
+        final Map<String, String> values = new TreeMap<>();
+        final Pattern pattern = toPattern(globs);
+        if (cache == null || pattern == null) {
+            return values;
+        }
+        final Matcher matcher = pattern.matcher(""); //$NON-NLS-1$
+        for (int i = 0; i < cache.size(); i++) {
+            final String key = cache.getKey(i);
+            if (matcher.reset(key).matches()
+                    && ENV_VAR_NAME.matcher(key).matches()) {
+                values.put(key, cache.getValue(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Converts a list of glob patterns into a regular expression.
+     *
+     * @return the regular expression or {@code null} if the list is empty
+     */
+    static Pattern toPattern(String globs) {
+        if (globs == null)
+            return null;
+        final StringBuilder regex = new StringBuilder();
+        for (String glob : globs.split("[\\s,]+")) { //$NON-NLS-1$
+            if (glob.isEmpty())
+                continue;
+            if (regex.length() > 0)
+                regex.append('|');
+            int start = 0;
+            for (int i = 0; i < glob.length(); i++) {
+                final char c = glob.charAt(i);
+                if (c == '*' || c == '?') {
+                    if (i > start)
+                        regex.append(Pattern.quote(glob.substring(start, i)));
+                    regex.append(c == '*' ? ".*" : "."); //$NON-NLS-1$ //$NON-NLS-2$
+                    start = i + 1;
+                }
+            }
+            if (start < glob.length())
+                regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return regex.length() == 0 ? null : Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Formats the specified entries for the build log.
+     *
+     * @param values
+     *            the entry values as returned by
+     *            {@link #invoke(File, VirtualChannel)}
+     * @param keys
+     *            the keys of the entries to format, in the desired order.
+     *            Keys without a value are skipped.
+     * @return a string of comma separated {@code KEY=value} pairs
+     */
+    static String format(Map<String, String> values, String... keys) {
+        StringBuilder sb = new StringBuilder();
+        for (String key : keys) {
+            final String value = values.get(key);
+            if (value != null) {
+                if (sb.length() > 0)
+                    sb.append(", "); //$NON-NLS-1$
+                sb.append(key).append('=').append(value);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.regex.Pattern;
+
+import de.marw.cmake.cmakecache.CMakeCache;
+import de.marw.cmake.cmakecache.CMakeCacheDigest;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Gets the model of a cmake cache file, to keep a snapshot of the cache of a
+ * build. The file is parsed only if it changed since it was last read on the
+ * node, see {@link CMakeCacheLoader}.<br>
+ * To keep the remoting payload small, the model returned holds only the
+ * entries recorded by {@link CMakeCacheAction} and the entries to export,
+ * the other entries are represented by the digest of the whole cache.
+ *
+ * @author Martin Weber
+ * @see CacheEntriesParser
+ */
+public class CacheSnapshotParser
+        extends MasterToSlaveFileCallable<CacheSnapshotParser.Snapshot> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String exportCacheEntries;
+
+    /**
+     * @param exportCacheEntries
+     *            the glob patterns of the entries to export, see
+     *            {@link CacheEntriesParser#selectMatching(CMakeCache, String)}.
+     *            May be {@code null}.
+     */
+    public CacheSnapshotParser(String exportCacheEntries) {
+        this.exportCacheEntries = exportCacheEntries;
+    }
+
+    /**
+     * Parses the cache file.
+     *
+     * @return the snapshot or {@code null} if the cache file does not exist
+     */
+    @Override
+    public Snapshot invoke(File cmakeCacheFile, VirtualChannel channel)
+            throws IOException, InterruptedException {
+        if (!cmakeCacheFile.isFile()) {
+            return null;
+        }
+        final Pattern exports = CacheEntriesParser
+                .toPattern(exportCacheEntries);
+        final CMakeCache cache = CMakeCacheLoader.load(cmakeCacheFile);
+        return new Snapshot(cache.select(new EntryFilter() {
+            @Override
+            public boolean accept(String key) {
+                return CMakeCacheAction.SNAPSHOT_KEYS.accept(key)
+                        || (exports != null && exports.matcher(key).matches());
+            }
+        }), CMakeCacheDigest.of(cache));
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The selected entries and the digest of all entries of a cache.
+     */
+    public static class Snapshot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final CMakeCache cache;
+        private final CMakeCacheDigest digest;
+
+        Snapshot(CMakeCache cache, CMakeCacheDigest digest) {
+            this.cache = cache;
+            this.digest = digest;
+        }
+
+        /**
+         * Gets the model of the selected entries.
+         */
+        public CMakeCache getCache() {
+            return cache;
+        }
+
+        /**
+         * Gets the digest of all entries.
+         */
+        public CMakeCacheDigest getDigest() {
+            return digest;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import de.marw.cmake.cmakecache.CMakeCacheEntryType;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryVisitor;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Finds each cmake cache file in a directory tree, for example the nested
+ * build directories of a superbuild that uses {@code ExternalProject}, and
+ * gets the values of selected entries from each of them. The files are
+ * parsed in parallel on the node and the result is returned in a single
+ * remoting round trip.<br>
+ * The files are parsed without building a {@code CMakeCache} model, so that a
+ * superbuild with many nested caches does not flush the models of the build
+ * directories proper out of {@link CMakeCacheLoader}.
+ *
+ * @author Martin Weber
+ * @see CacheEntriesParser
+ */
+public class CacheTreeScanner
+        extends MasterToSlaveFileCallable<CacheTreeSummary> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** the name of the cmake cache file */
+    static final String CACHE_FILE_NAME = "CMakeCache.txt"; //$NON-NLS-1$
+    /**
+     * the name of the directory cmake keeps its internal files in. Never holds
+     * a cache file, so it is not searched.
+     */
+    private static final String CMAKE_FILES_DIR = "CMakeFiles"; //$NON-NLS-1$
+    /** the suffix of the keys that persist the ADVANCED property of an entry */
+    private static final String ADVANCED_SUFFIX = "-ADVANCED"; //$NON-NLS-1$
+
+    /**
+     * the maximum number of threads used to parse the files, defaults to the
+     * number of processors of the node
+     */
+    private static final int PARALLELISM = Integer.getInteger(
+            CacheTreeScanner.class.getName() + ".parallelism", 0); //$NON-NLS-1$
+
+    private final String[] keys;
+
+    /**
+     * @param keys
+     *            the keys of the cache entries to get from each cache file
+     */
+    public CacheTreeScanner(String... keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Searches the build root for cache files and parses them.
+     *
+     * @param buildRoot
+     *            the root of the directory tree to search
+     * @return the summary of each cache file found, never {@code null}
+     */
+    @Override
+    public CacheTreeSummary invoke(File buildRoot, VirtualChannel channel)
+            throws IOException, InterruptedException {
+        final Path root = buildRoot.toPath();
+        if (!Files.isDirectory(root)) {
+            return new CacheTreeSummary(keys,
+                    Collections.<CacheTreeSummary.Cache> emptyList());
+        }
+        final List<Path> files = findCacheFiles(root);
+        final CacheTreeSummary.Cache[] caches = new CacheTreeSummary.Cache[files
+                .size()];
+        final int parallelism = PARALLELISM > 0 ? PARALLELISM
+                : Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool pool = new ForkJoinPool(
+                Math.max(1, Math.min(parallelism, files.size())));
+        try {
+            pool.invoke(new ParseAction(root, files, caches, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        final List<CacheTreeSummary.Cache> result = new ArrayList<>(
+                caches.length);
+        Collections.addAll(result, caches);
+        return new CacheTreeSummary(keys, result);
+    }
+
+    /**
+     * Gets the cache files in the specified directory tree, ordered by path.
+     */
+    private static List<Path> findCacheFiles(Path root) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) {
+                final Path name = dir.getFileName();
+                if (name != null && CMAKE_FILES_DIR.equals(name.toString()))
+                    return FileVisitResult.SKIP_SUBTREE;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()
+                        && CACHE_FILE_NAME.equals(file.getFileName().toString()))
+                    files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // unreadable directory, skip it
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Parses a range of the cache files, splitting the range until a single
+     * file is left.
+     */
+    private class ParseAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final List<Path> files;
+        private final CacheTreeSummary.Cache[] caches;
+        private final int from;
+        private final int to;
+
+        ParseAction(Path root, List<Path> files,
+                CacheTreeSummary.Cache[] caches, int from, int to) {
+            this.root = root;
+            this.files = files;
+            this.caches = caches;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new ParseAction(root, files, caches, from, mid),
+                        new ParseAction(root, files, caches, mid, to));
+            } else if (to > from) {
+                caches[from] = parse(files.get(from));
+            }
+        }
+
+        private CacheTreeSummary.Cache parse(Path file) {
+            String dir = root.relativize(file.getParent()).toString()
+                    .replace(File.separatorChar, '/');
+            if (dir.isEmpty()) {
+                dir = "."; //$NON-NLS-1$
+            }
+            final String[] values = new String[keys.length];
+            final int[] entryCount = new int[1];
+            try (Reader reader = Files.newBufferedReader(file,
+                    Charset.defaultCharset())) {
+                new CMakeCacheFileParser().parse(reader, new EntryFilter() {
+                    @Override
+                    public boolean accept(String key) {
+                        if (!key.endsWith(ADVANCED_SUFFIX))
+                            entryCount[0]++;
+                        return indexOf(key) >= 0;
+                    }
+                }, new EntryVisitor() {
+                    @Override
+                    public boolean onEntry(String key, CMakeCacheEntryType type,
+                            String value) {
+                        // the last entry of a key wins, like in CMakeCache
+                        values[indexOf(key)] = value;
+                        return true;
+                    }
+
+                    @Override
+                    public boolean onError(int lineNumber, String text) {
+                        return true;
+                    }
+                });
+                return new CacheTreeSummary.Cache(dir, keys, entryCount[0],
+                        values, null);
+            } catch (IOException ex) {
+                return new CacheTreeSummary.Cache(dir, keys, -1, null,
+                        String.valueOf(ex.getMessage()));
+            }
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key))
+                    return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a {@link CacheTreeScanner}: the selected entries of each cmake
+ * cache file found in a directory tree. All caches share the array of
+ * requested keys, so the keys are serialized once only.
+ *
+ * @author Martin Weber
+ */
+public class CacheTreeSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] keys;
+    private final List<Cache> caches;
+
+    /**
+     * @param keys
+     *            the keys of the entries requested from each cache file
+     * @param caches
+     *            the summary of each cache file
+     */
+    CacheTreeSummary(String[] keys, List<Cache> caches) {
+        this.keys = keys;
+        this.caches = caches;
+    }
+
+    /**
+     * Gets the keys of the entries requested from each cache file.
+     *
+     * @return an unmodifiable list, never {@code null}
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Gets the summaries of the cache files found, ordered by directory.
+     *
+     * @return an unmodifiable list, never {@code null}
+     */
+    public List<Cache> getCaches() {
+        return Collections.unmodifiableList(caches);
+    }
+
+    /**
+     * Gets the summary of the cache file in the specified directory.
+     *
+     * @param directory
+     *            the directory, relative to the build root and separated by
+     *            {@code '/'}. The build root itself is {@code "."}.
+     * @return the summary or {@code null} if no cache file was found in the
+     *         directory
+     */
+    public Cache getCache(String directory) {
+        for (Cache cache : caches) {
+            if (cache.directory.equals(directory))
+                return cache;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the caches that could not be read.
+     *
+     * @return a list of the caches that have an error, never {@code null}
+     */
+    public List<Cache> getUnreadable() {
+        final List<Cache> result = new ArrayList<>();
+        for (Cache cache : caches) {
+            if (cache.error != null)
+                result.add(cache);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + caches;
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The selected entries of a single cmake cache file.
+     */
+    public static class Cache implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String directory;
+        /** the requested keys, shared with the other caches */
+        private final String[] keys;
+        private final int entryCount;
+        /** the values in the order of the requested keys */
+        private final String[] values;
+        private final String error;
+
+        Cache(String directory, String[] keys, int entryCount,
+                String[] values, String error) {
+            this.directory = directory;
+            this.keys = keys;
+            this.entryCount = entryCount;
+            this.values = values;
+            this.error = error;
+        }
+
+        /**
+         * Gets the directory that holds the cache file, relative to the build
+         * root and separated by {@code '/'}.
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Gets the number of entries in the cache file.
+         *
+         * @return the number of entries or {@code -1} if the file could not
+         *         be read
+         */
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * Gets the value of the specified entry.
+         *
+         * @return the value or {@code null} if the key was not requested or
+         *         the cache file does not hold the entry
+         */
+        public String getValue(String key) {
+            if (values != null) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i].equals(key))
+                        return values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the message of the error that occurred when the cache file was
+         * read.
+         *
+         * @return the message or {@code null} if the file could be read
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return directory + "[" + entryCount + " entries]"; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+}
@@ -6,7 +6,9 @@
 package hudson.plugins.cmake;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.ServletException;
 
@@ -15,6 +17,8 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
+import de.marw.cmake.cmakecache.CMakeCache;
+import de.marw.cmake.fileapi.CodeModel;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
@@ -51,6 +55,24 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
     private String buildType;
     private String preloadScript;
     private boolean cleanBuild;
+    /** the glob patterns of the cache entries to export to the environment */
+    private String exportCacheEntries;
+    /** whether to skip cmake if the build dir is configured from same inputs */
+    private boolean skipConfigureIfUnchanged;
+    /** whether to delete the build dir in background on clean builds */
+    private boolean cleanInBackground;
+    /** whether to reuse the toolchain detection results of a former configure */
+    private boolean reuseToolchainChecks;
+    /** the memory per compile job in MiB for a ninja job pool, 0 for none */
+    private int compileJobMemory;
+    /** the memory per link job in MiB for a ninja job pool, 0 for none */
+    private int linkJobMemory;
+    /** the compiler launcher, e.g. ccache, or {@code null} for none */
+    private String compilerLauncher;
+    /** whether to set source file times to their last commit times */
+    private boolean normalizeSourceTimestamps;
+    /** whether to record the targets reported by the cmake File API */
+    private boolean recordTargets;
 
     // for backward compatibility with < 2.4.0
     // see
@@ -106,7 +128,9 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
      *
      * @param generator
      *            the name of cmake´s build-script generator or {@code null} or
-     *            empty if the default generator should be used
+     *            empty if the default generator should be used or
+     *            {@code "auto"} to select the fastest generator available on
+     *            the node
      */
     @DataBoundSetter
     public void setGenerator(String generator) {
@@ -157,6 +181,124 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
         return this.cleanBuild;
     }
 
+    /**
+     * Sets whether to move the build directory to the trash of the node and
+     * delete it in background on clean builds.
+     */
+    @DataBoundSetter
+    public void setCleanInBackground(boolean cleanInBackground) {
+        this.cleanInBackground = cleanInBackground;
+    }
+
+    public boolean isCleanInBackground() {
+        return cleanInBackground;
+    }
+
+    /**
+     * Sets whether to seed an unconfigured build directory with the toolchain
+     * detection results cmake stored on a former configure with the same
+     * inputs on the same node.
+     */
+    @DataBoundSetter
+    public void setReuseToolchainChecks(boolean reuseToolchainChecks) {
+        this.reuseToolchainChecks = reuseToolchainChecks;
+    }
+
+    public boolean isReuseToolchainChecks() {
+        return reuseToolchainChecks;
+    }
+
+    /**
+     * Sets the memory a compile job needs, to generate a Ninja job pool for
+     * compile steps sized from the physical memory of the node.
+     *
+     * @param compileJobMemory
+     *            the memory in MiB or {@code 0} to not generate a pool
+     */
+    @DataBoundSetter
+    public void setCompileJobMemory(int compileJobMemory) {
+        this.compileJobMemory = Math.max(0, compileJobMemory);
+    }
+
+    public int getCompileJobMemory() {
+        return compileJobMemory;
+    }
+
+    /**
+     * Sets the memory a link job needs, to generate a Ninja job pool for link
+     * steps sized from the physical memory of the node.
+     *
+     * @param linkJobMemory
+     *            the memory in MiB or {@code 0} to not generate a pool
+     */
+    @DataBoundSetter
+    public void setLinkJobMemory(int linkJobMemory) {
+        this.linkJobMemory = Math.max(0, linkJobMemory);
+    }
+
+    public int getLinkJobMemory() {
+        return linkJobMemory;
+    }
+
+    /**
+     * Sets the compiler launcher to pass to cmake as
+     * {@code CMAKE_<LANG>_COMPILER_LAUNCHER}. The cache statistics of ccache
+     * and sccache are recorded for the build tool steps.
+     *
+     * @param compilerLauncher
+     *            the launcher, e.g. {@code ccache} or {@code sccache}, or
+     *            {@code null} or empty for none
+     */
+    @DataBoundSetter
+    public void setCompilerLauncher(String compilerLauncher) {
+        this.compilerLauncher = Util.fixEmptyAndTrim(compilerLauncher);
+    }
+
+    public String getCompilerLauncher() {
+        return compilerLauncher;
+    }
+
+    /**
+     * Sets whether to record the targets and artifacts cmake reports through
+     * its File API, see {@link CodeModelAction}.
+     */
+    @DataBoundSetter
+    public void setRecordTargets(boolean recordTargets) {
+        this.recordTargets = recordTargets;
+    }
+
+    public boolean isRecordTargets() {
+        return recordTargets;
+    }
+
+    /**
+     * Sets whether to set the modification time of each file git tracks in
+     * the source directory to the time of the last commit that changed it,
+     * before cmake is run.
+     */
+    @DataBoundSetter
+    public void setNormalizeSourceTimestamps(
+            boolean normalizeSourceTimestamps) {
+        this.normalizeSourceTimestamps = normalizeSourceTimestamps;
+    }
+
+    public boolean isNormalizeSourceTimestamps() {
+        return normalizeSourceTimestamps;
+    }
+
+    /**
+     * Sets whether to skip the invocation of cmake if the build directory is
+     * already configured from the same inputs.
+     */
+    @DataBoundSetter
+    public void setSkipConfigureIfUnchanged(boolean skipConfigureIfUnchanged) {
+        this.skipConfigureIfUnchanged = skipConfigureIfUnchanged;
+    }
+
+    public boolean isSkipConfigureIfUnchanged() {
+        return skipConfigureIfUnchanged;
+    }
+
     @DataBoundSetter
     public void setPreloadScript(String preloadScript) {
         this.preloadScript = Util.fixEmptyAndTrim(preloadScript);
@@ -166,6 +308,22 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
         return this.preloadScript;
     }
 
+    /**
+     * Sets the cache entries to export as environment variables.
+     *
+     * @param exportCacheEntries
+     *            glob patterns of the keys of the cache entries, separated by
+     *            white space or commas, e.g. {@code CMAKE_*_COMPILER MYPROJ_*}
+     */
+    @DataBoundSetter
+    public void setExportCacheEntries(String exportCacheEntries) {
+        this.exportCacheEntries = Util.fixEmptyAndTrim(exportCacheEntries);
+    }
+
+    public String getExportCacheEntries() {
+        return exportCacheEntries;
+    }
+
     @DataBoundSetter
     public void setCmakeArgs(String cmakeArgs) {
         // because of: error: @DataBoundConstructor may not be used on an
@@ -219,7 +377,7 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
              * Create it.
              */
             final String buildDir = getWorkingDir();
-            FilePath theBuildDir = LaunchUtils.makeRemotePath(workSpace,
+            final FilePath theBuildDir = LaunchUtils.makeRemotePath(workSpace,
                     Util.replaceMacro(buildDir, envs));
             if (buildDir != null) {
                 if (this.cleanBuild && !buildDir.equals(sourceDir)) {
@@ -228,7 +386,8 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
                             .format(Messages.getString("Cleaning_build_dir"), //$NON-NLS-1$
                                     theBuildDir.getRemote())
                             .println();
-                    theBuildDir.deleteRecursive();
+                    BuildDirTrash.clean(build.getBuiltOn(), theBuildDir,
+                            this.cleanInBackground, listener);
                 }
                 theBuildDir.mkdirs();
             }
@@ -236,20 +395,127 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
             /* Invoke cmake in build dir */
             FilePath theSourceDir = LaunchUtils.makeRemotePath(workSpace,
                     Util.replaceMacro(sourceDir, envs));
+            if (this.normalizeSourceTimestamps) {
+                SourceTimestamps.normalize(launcher, theSourceDir,
+                        Collections.singletonList(
+                                SourceTimestamps.getBuiltCommit(theBuildDir)),
+                        envs, listener);
+            }
+            String generator = Util.replaceMacro(getGenerator(), envs);
+            if (GeneratorProbe.AUTO.equals(generator)) {
+                generator = GeneratorProbe.select(workSpace.toComputer(),
+                        launcher, cmakeBin, envs, listener).getGenerator();
+                generator = GeneratorProbe.keepConfigured(theBuildDir,
+                        generator, listener);
+            }
+            String cmakeArgs = Util.replaceMacro(getCmakeArgs(), envs);
+            if (this.compileJobMemory > 0 || this.linkJobMemory > 0) {
+                cmakeArgs = JobPools.addDefinitions(cmakeArgs,
+                        launcher.getChannel().call(new NodeResources.Probe()),
+                        this.compileJobMemory, this.linkJobMemory, listener);
+            }
+            final String compilerLauncher = Util
+                    .fixEmptyAndTrim(Util.replaceMacro(this.compilerLauncher, envs));
+            EnvVars cmakeEnvs = envs;
+            if (compilerLauncher != null) {
+                final List<String> languages = CompilerLauncher
+                        .getLanguages(theBuildDir);
+                if (languages != null) {
+                    cmakeArgs = CompilerLauncher.addDefinitions(cmakeArgs,
+                            compilerLauncher, languages);
+                } else {
+                    cmakeEnvs = new EnvVars(envs).overrideAll(
+                            CompilerLauncher.getEnvironment(compilerLauncher));
+                }
+            }
             ArgumentListBuilder cmakeCall = LaunchUtils.buildCMakeCall(cmakeBin,
-                    Util.replaceMacro(getGenerator(), envs),
+                    generator,
                     Util.replaceMacro(this.preloadScript, envs), theSourceDir,
-                    Util.replaceMacro(this.buildType, envs),
-                    Util.replaceMacro(getCmakeArgs(), envs));
-            // invoke cmake
-            if (0 != launcher.launch().pwd(theBuildDir).envs(envs)
-                    .stdout(listener).cmds(cmakeCall).join()) {
-                return false; // invocation failed
+                    Util.replaceMacro(this.buildType, envs), cmakeArgs);
+            String inputsHash = null;
+            boolean configure = true;
+            if (this.skipConfigureIfUnchanged) {
+                inputsHash = ConfigureFingerprint.hashInputs(cmakeCall.toList(),
+                        installToUse.getHome());
+                final ConfigureFingerprint.Result result = theBuildDir
+                        .act(new ConfigureFingerprint.Check(inputsHash));
+                listener.getLogger().printf(
+                        Messages.getString("ConfigureFingerprint." + result), //$NON-NLS-1$
+                        theBuildDir.getRemote());
+                configure = result != ConfigureFingerprint.Result.UNCHANGED;
+            }
+            String toolchainStore = null;
+            String toolchainKey = null;
+            if (this.reuseToolchainChecks) {
+                toolchainStore = ToolchainCache.getStoreDir(build.getBuiltOn());
+                toolchainKey = ToolchainCache.computeKey(cmakeCall.toList(),
+                        installToUse.getHome(), envs);
+            }
+            if (configure) {
+                if (this.recordTargets) {
+                    // ask cmake to describe the targets, see CodeModelAction
+                    CodeModelParser.query(theBuildDir, listener);
+                }
+                if (toolchainStore != null) {
+                    final ToolchainCache.Result result = theBuildDir.act(
+                            new ToolchainCache.Seed(toolchainStore, toolchainKey));
+                    if (result != ToolchainCache.Result.CONFIGURED) {
+                        listener.getLogger().printf(
+                                Messages.getString("ToolchainCache." + result), //$NON-NLS-1$
+                                theBuildDir.getRemote());
+                    }
+                }
+                // invoke cmake
+                if (0 != launcher.launch().pwd(theBuildDir).envs(cmakeEnvs)
+                        .stdout(listener).cmds(cmakeCall).join()) {
+                    return false; // invocation failed
+                }
+                if (inputsHash != null) {
+                    theBuildDir.act(new ConfigureFingerprint.Store(inputsHash));
+                }
+                if (toolchainStore != null && theBuildDir.act(
+                        new ToolchainCache.Store(toolchainStore, toolchainKey,
+                                cmakeBin))) {
+                    listener.getLogger().printf(
+                            Messages.getString("ToolchainCache.Stored"), //$NON-NLS-1$
+                            theBuildDir.getRemote());
+                }
             }
 
-            /* parse CMakeCache.txt to get the actual build tool */
+            /*
+             * parse CMakeCache.txt to get the actual build tool and the
+             * essentials of the configuration
+             */
             FilePath cacheFile = theBuildDir.child("CMakeCache.txt"); //$NON-NLS-1$
-            String buildTool = cacheFile.act(new BuildToolEntryParser());
+            final String exportGlobs = Util.replaceMacro(exportCacheEntries,
+                    envs);
+            final CacheSnapshotParser.Snapshot cacheSnapshot = cacheFile
+                    .act(new CacheSnapshotParser(exportGlobs));
+            final CMakeCache cache = cacheSnapshot == null ? null
+                    : cacheSnapshot.getCache();
+            final Map<String, String> cacheEntries = CacheEntriesParser
+                    .select(cache, CacheEntriesParser.CONFIGURATION_KEYS);
+            listener.getLogger().printf(Messages.getString("Configuration"), //$NON-NLS-1$
+                    CacheEntriesParser.format(cacheEntries,
+                            CacheEntriesParser.CONFIGURATION_KEYS));
+            if (cache != null) {
+                // keep a snapshot and report changes to the previous build
+                CMakeCacheAction.recordAndReport(build,
+                        buildDir == null ? "." //$NON-NLS-1$
+                                : Util.replaceMacro(buildDir, envs),
+                        cache, cacheSnapshot.getDigest(), listener);
+            }
+            final CodeModel codeModel = this.recordTargets
+                    ? CodeModelParser.parse(theBuildDir, listener)
+                    : null;
+            if (codeModel != null) {
+                CodeModelAction.recordAndReport(build,
+                        buildDir == null ? "." //$NON-NLS-1$
+                                : Util.replaceMacro(buildDir, envs),
+                        codeModel, listener);
+            }
+            String buildTool = cacheEntries
+                    .get(CacheEntriesParser.CMAKE_MAKE_PROGRAM);
             if (buildTool == null) {
                 listener.getLogger().printf(
                         Messages.getString("Failed_to_get_var_value"), //$NON-NLS-1$
@@ -266,31 +532,69 @@ public class CmakeBuilder extends AbstractCmakeBuilder {
                 build.getEnvironments()
                         .add(Environment.create(exportedEnvVars));
             }
+            // export selected cache entries to env for toolSteps and other
+            // build-steps
+            final Map<String, String> exportedEntries = CacheEntriesParser
+                    .selectMatching(cache, exportGlobs);
+            if (!exportedEntries.isEmpty()) {
+                listener.getLogger().printf(
+                        Messages.getString("Exporting_cache_entries"), //$NON-NLS-1$
+                        exportedEntries.keySet());
+                envs.putAll(exportedEntries);
+                build.getEnvironments().add(
+                        Environment.create(new EnvVars(exportedEntries)));
+            }
 
             /* invoke each build tool step in build dir */
             if( toolSteps != null) {
-                for (BuildToolStep step : toolSteps) {
-                    ArgumentListBuilder toolCall;
-                    if (!step.getWithCmake()) {
-                        // invoke directly
-                        // if buildTool == null, let the unexpanded macro show up in
-                        // the log
-                        final String buildToolMacro = Util.replaceMacro("${" //$NON-NLS-1$
-                                + CmakeBuilder.ENV_VAR_NAME_CMAKE_BUILD_TOOL + "}", //$NON-NLS-1$
-                                envs);
-                        toolCall = LaunchUtils.buildBuildToolCall(buildToolMacro,
-                                step.getCommandArguments(envs));
-                    } else {
-                        // invoke through 'cmake --build <dir>'
-                        toolCall = LaunchUtils.buildBuildToolCallWithCmake(cmakeBin,
-                                theBuildDir, step.getCommandArguments(envs));
-                    }
-                    final EnvVars stepEnv = new EnvVars(envs)
-                            .overrideAll(step.getEnvironmentVars(envs, listener));
-                    if (0 != launcher.launch().pwd(theBuildDir).envs(stepEnv)
-                            .stdout(listener).cmds(toolCall).join()) {
-                        return false; // invocation failed
-                    }
+                final boolean recordStats = compilerLauncher != null
+                        && CompilerLauncher.hasStats(compilerLauncher);
+                CompilerLauncher.Stats statsBefore = null;
+                if (recordStats) {
+                    statsBefore = CompilerLauncher.snapshot(launcher,
+                            theBuildDir, envs, compilerLauncher);
+                }
+                final String buildToolMacro = Util.replaceMacro("${" //$NON-NLS-1$
+                        + CmakeBuilder.ENV_VAR_NAME_CMAKE_BUILD_TOOL + "}", //$NON-NLS-1$
+                        envs);
+                final BuildToolStepRunner.Failure failure = new BuildToolStepRunner(
+                        launcher, theBuildDir, buildToolMacro, envs,
+                        listener).run(toolSteps,
+                                new BuildToolStepRunner.CallFactory() {
+                                    @Override
+                                    public ArgumentListBuilder create(
+                                            BuildToolStep step, String[] toolArgs) {
+                                        if (!step.getWithCmake()) {
+                                            // invoke directly
+                                            // if buildTool == null, let the unexpanded
+                                            // macro show up in the log
+                                            return LaunchUtils.buildBuildToolCall(
+                                                    buildToolMacro, toolArgs);
+                                        }
+                                        // invoke through 'cmake --build <dir>'
+                                        return LaunchUtils.buildBuildToolCallWithCmake(
+                                                cmakeBin, theBuildDir, toolArgs);
+                                    }
+                                });
+                if (recordStats) {
+                    final CompilerLauncher.Stats statsAfter = statsBefore == null
+                            ? null
+                            : CompilerLauncher.snapshot(launcher, theBuildDir,
+                                    envs, compilerLauncher);
+                    CompilerCacheAction.recordAndReport(build,
+                            buildDir == null ? "." //$NON-NLS-1$
+                                    : Util.replaceMacro(buildDir, envs),
+                            compilerLauncher, statsAfter == null ? null
+                                    : statsAfter.minus(statsBefore),
+                            listener);
+                }
+                if (failure != null) {
+                    listener.error(failure.getMessage());
+                    return false; // invocation failed
+                }
+                if (this.normalizeSourceTimestamps) {
+                    SourceTimestamps.recordBuiltCommit(launcher,
+                            theSourceDir, theBuildDir, envs);
                 }
             }
         } catch (IOException e) {
@@ -5,7 +5,20 @@
  */
 package hudson.plugins.cmake;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
@@ -13,6 +26,13 @@ import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
+import de.marw.cmake.cmakecache.CMakeCache;
+import de.marw.cmake.fileapi.CodeModel;
+import de.marw.cmake.presets.BuildPreset;
+import de.marw.cmake.presets.ConfigurePreset;
+import de.marw.cmake.presets.PresetMacros;
+import de.marw.cmake.presets.Presets;
+import de.marw.cmake.presets.TestPreset;
 import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.Extension;
@@ -20,8 +40,10 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Util;
 import hudson.model.Node;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.util.ArgumentListBuilder;
+import hudson.util.StreamTaskListener;
 
 /**
  * Generates the build scripts with <tt>cmake</tt> and runs the appropriate
@@ -33,6 +55,10 @@ import hudson.util.ArgumentListBuilder;
 public class CmakeBuilderStep extends AbstractStep {
 
     private static final long serialVersionUID = 1L;
+
+    /** the generator that builds several configurations in one build tree */
+    static final String MULTI_CONFIG_GENERATOR = "Ninja Multi-Config"; //$NON-NLS-1$
+
     /**
      * the name of cmake´s buildscript generator or {@code null} if the default
      * generator should be used
@@ -41,9 +67,39 @@ public class CmakeBuilderStep extends AbstractStep {
     private String buildDir;
     private String sourceDir;
     private String buildType;
+    /** the build types to build concurrently, separated by space or comma */
+    private String buildTypes;
     private String cmakeArgs;
     private String preloadScript;
     private boolean cleanBuild;
+    /** the glob patterns of the cache entries to export to the environment */
+    private String exportCacheEntries;
+    /** whether to skip cmake if the build dir is configured from same inputs */
+    private boolean skipConfigureIfUnchanged;
+    /** whether to delete the build dir in background on clean builds */
+    private boolean cleanInBackground;
+    /** whether to reuse the toolchain detection results of a former configure */
+    private boolean reuseToolchainChecks;
+    /** the memory per compile job in MiB for a ninja job pool, 0 for none */
+    private int compileJobMemory;
+    /** the memory per link job in MiB for a ninja job pool, 0 for none */
+    private int linkJobMemory;
+    /** the compiler launcher, e.g. ccache, or {@code null} for none */
+    private String compilerLauncher;
+    /** whether to set source file times to their last commit times */
+    private boolean normalizeSourceTimestamps;
+    /** whether to record the targets reported by the cmake File API */
+    private boolean recordTargets;
+    /** whether to build in a tree leased from the build dir pool of the node */
+    private boolean useBuildDirPool;
+    /** the maximum size of the build dir pool in MiB, 0 for the default */
+    private int buildDirPoolSize;
+    /** the directory of the build dir snapshot store or {@code null} */
+    private String snapshotStore;
+    /** the names of the presets to use or {@code null} */
+    private String configurePreset;
+    private String buildPreset;
+    private String testPreset;
 
     private List<BuildToolStep> toolSteps;
 
@@ -64,7 +120,9 @@ public class CmakeBuilderStep extends AbstractStep {
      *
      * @param generator
      *            the name of cmake´s build-script generator or {@code null} or
-     *            empty if the default generator should be used
+     *            empty if the default generator should be used or
+     *            {@code "auto"} to select the fastest generator available on
+     *            the node
      */
     @DataBoundSetter
     public void setGenerator(String generator) {
@@ -102,6 +160,85 @@ public class CmakeBuilderStep extends AbstractStep {
         return this.buildType;
     }
 
+    /**
+     * Sets the build types to configure and build in one step. Each build
+     * type is built in a build directory of its own, concurrently, unless the
+     * generator is {@value #MULTI_CONFIG_GENERATOR}, which builds them in one
+     * build tree.
+     *
+     * @param buildTypes
+     *            the build types, separated by white space or commas, e.g.
+     *            {@code Debug Release}, or {@code null} or empty to build the
+     *            {@link #setBuildType(String) build type} only
+     */
+    @DataBoundSetter
+    public void setBuildTypes(String buildTypes) {
+        this.buildTypes = Util.fixEmptyAndTrim(buildTypes);
+    }
+
+    public String getBuildTypes() {
+        return buildTypes;
+    }
+
+    /**
+     * Sets the configure preset of the {@code CMakePresets.json} or
+     * {@code CMakeUserPresets.json} file in the source directory to configure
+     * with. The generator, the build directory, the cache variables and the
+     * environment of the preset take precedence over the settings of this
+     * step, except the {@link #setCmakeArgs(String) cmake arguments}.
+     *
+     * @param configurePreset
+     *            the name of the preset or {@code null} or empty to use the
+     *            configure preset of the build or test preset, if any
+     */
+    @DataBoundSetter
+    public void setConfigurePreset(String configurePreset) {
+        this.configurePreset = Util.fixEmptyAndTrim(configurePreset);
+    }
+
+    public String getConfigurePreset() {
+        return configurePreset;
+    }
+
+    /**
+     * Sets the build preset to build. The preset is built before the build
+     * tool steps of this step.
+     *
+     * @param buildPreset
+     *            the name of the preset or {@code null} or empty for none
+     */
+    @DataBoundSetter
+    public void setBuildPreset(String buildPreset) {
+        this.buildPreset = Util.fixEmptyAndTrim(buildPreset);
+    }
+
+    public String getBuildPreset() {
+        return buildPreset;
+    }
+
+    /**
+     * Sets the test preset to run ctest with after the build.
+     *
+     * @param testPreset
+     *            the name of the preset or {@code null} or empty for none
+     */
+    @DataBoundSetter
+    public void setTestPreset(String testPreset) {
+        this.testPreset = Util.fixEmptyAndTrim(testPreset);
+    }
+
+    public String getTestPreset() {
+        return testPreset;
+    }
+
+    /**
+     * Gets whether this step uses presets.
+     */
+    boolean isUsingPresets() {
+        return configurePreset != null || buildPreset != null
+                || testPreset != null;
+    }
+
     @DataBoundSetter
     public void setCleanBuild(boolean cleanBuild) {
         this.cleanBuild = cleanBuild;
@@ -111,6 +248,171 @@ public class CmakeBuilderStep extends AbstractStep {
         return this.cleanBuild;
     }
 
+    /**
+     * Sets whether to move the build directory to the trash of the node and
+     * delete it in background on clean builds.
+     */
+    @DataBoundSetter
+    public void setCleanInBackground(boolean cleanInBackground) {
+        this.cleanInBackground = cleanInBackground;
+    }
+
+    public boolean isCleanInBackground() {
+        return cleanInBackground;
+    }
+
+    /**
+     * Sets whether to seed an unconfigured build directory with the toolchain
+     * detection results cmake stored on a former configure with the same
+     * inputs on the same node.
+     */
+    @DataBoundSetter
+    public void setReuseToolchainChecks(boolean reuseToolchainChecks) {
+        this.reuseToolchainChecks = reuseToolchainChecks;
+    }
+
+    public boolean isReuseToolchainChecks() {
+        return reuseToolchainChecks;
+    }
+
+    /**
+     * Sets the memory a compile job needs, to generate a Ninja job pool for
+     * compile steps sized from the physical memory of the node.
+     *
+     * @param compileJobMemory
+     *            the memory in MiB or {@code 0} to not generate a pool
+     */
+    @DataBoundSetter
+    public void setCompileJobMemory(int compileJobMemory) {
+        this.compileJobMemory = Math.max(0, compileJobMemory);
+    }
+
+    public int getCompileJobMemory() {
+        return compileJobMemory;
+    }
+
+    /**
+     * Sets the memory a link job needs, to generate a Ninja job pool for link
+     * steps sized from the physical memory of the node.
+     *
+     * @param linkJobMemory
+     *            the memory in MiB or {@code 0} to not generate a pool
+     */
+    @DataBoundSetter
+    public void setLinkJobMemory(int linkJobMemory) {
+        this.linkJobMemory = Math.max(0, linkJobMemory);
+    }
+
+    public int getLinkJobMemory() {
+        return linkJobMemory;
+    }
+
+    /**
+     * Sets the compiler launcher to pass to cmake as
+     * {@code CMAKE_<LANG>_COMPILER_LAUNCHER}. The cache statistics of ccache
+     * and sccache are recorded for the build tool steps.
+     *
+     * @param compilerLauncher
+     *            the launcher, e.g. {@code ccache} or {@code sccache}, or
+     *            {@code null} or empty for none
+     */
+    @DataBoundSetter
+    public void setCompilerLauncher(String compilerLauncher) {
+        this.compilerLauncher = Util.fixEmptyAndTrim(compilerLauncher);
+    }
+
+    public String getCompilerLauncher() {
+        return compilerLauncher;
+    }
+
+    /**
+     * Sets whether to build in a build tree leased from the build directory
+     * pool of the node instead of the build directory in the workspace.
+     */
+    @DataBoundSetter
+    public void setUseBuildDirPool(boolean useBuildDirPool) {
+        this.useBuildDirPool = useBuildDirPool;
+    }
+
+    public boolean isUseBuildDirPool() {
+        return useBuildDirPool;
+    }
+
+    /**
+     * Sets the size the build directory pool of the node is trimmed to when
+     * this step returns a build tree.
+     *
+     * @param buildDirPoolSize
+     *            the size in MiB or {@code 0} for the default
+     */
+    @DataBoundSetter
+    public void setBuildDirPoolSize(int buildDirPoolSize) {
+        this.buildDirPoolSize = Math.max(0, buildDirPoolSize);
+    }
+
+    public int getBuildDirPoolSize() {
+        return buildDirPoolSize > 0 ? buildDirPoolSize
+                : BuildDirPool.DEFAULT_MAX_SIZE;
+    }
+
+    /**
+     * Sets the directory of the store to restore build directories from and
+     * to save them to after a successful build.
+     *
+     * @param snapshotStore
+     *            an absolute path or a path relative to the root directory
+     *            of the node, {@code null} or empty to not use a store
+     */
+    @DataBoundSetter
+    public void setSnapshotStore(String snapshotStore) {
+        this.snapshotStore = Util.fixEmptyAndTrim(snapshotStore);
+    }
+
+    public String getSnapshotStore() {
+        return snapshotStore;
+    }
+
+    /**
+     * Sets whether to record the targets and artifacts cmake reports through
+     * its File API, see {@link CodeModelAction}.
+     */
+    @DataBoundSetter
+    public void setRecordTargets(boolean recordTargets) {
+        this.recordTargets = recordTargets;
+    }
+
+    public boolean isRecordTargets() {
+        return recordTargets;
+    }
+
+    /**
+     * Sets whether to set the modification time of each file git tracks in
+     * the source directory to the time of the last commit that changed it,
+     * before cmake is run.
+     */
+    @DataBoundSetter
+    public void setNormalizeSourceTimestamps(
+            boolean normalizeSourceTimestamps) {
+        this.normalizeSourceTimestamps = normalizeSourceTimestamps;
+    }
+
+    public boolean isNormalizeSourceTimestamps() {
+        return normalizeSourceTimestamps;
+    }
+
+    /**
+     * Sets whether to skip the invocation of cmake if the build directory is
+     * already configured from the same inputs.
+     */
+    @DataBoundSetter
+    public void setSkipConfigureIfUnchanged(boolean skipConfigureIfUnchanged) {
+        this.skipConfigureIfUnchanged = skipConfigureIfUnchanged;
+    }
+
+    public boolean isSkipConfigureIfUnchanged() {
+        return skipConfigureIfUnchanged;
+    }
+
     @DataBoundSetter
     public void setPreloadScript(String preloadScript) {
         this.preloadScript = Util.fixEmptyAndTrim(preloadScript);
@@ -120,6 +422,22 @@ public class CmakeBuilderStep extends AbstractStep {
         return this.preloadScript;
     }
 
+    /**
+     * Sets the cache entries to export as environment variables.
+     *
+     * @param exportCacheEntries
+     *            glob patterns of the keys of the cache entries, separated by
+     *            white space or commas, e.g. {@code CMAKE_*_COMPILER MYPROJ_*}
+     */
+    @DataBoundSetter
+    public void setExportCacheEntries(String exportCacheEntries) {
+        this.exportCacheEntries = Util.fixEmptyAndTrim(exportCacheEntries);
+    }
+
+    public String getExportCacheEntries() {
+        return exportCacheEntries;
+    }
+
     @DataBoundSetter
     public void setCmakeArgs(String cmakeArgs) {
         this.cmakeArgs= Util.fixEmptyAndTrim(cmakeArgs);
@@ -195,22 +513,57 @@ public class CmakeBuilderStep extends AbstractStep {
         return args;
     }
 
+    /**
+     * Splits the build types setting.
+     *
+     * @return the build types without duplicates, never {@code null}
+     */
+    static List<String> splitBuildTypes(String buildTypes) {
+        final Set<String> result = new LinkedHashSet<>();
+        if (buildTypes != null) {
+            for (String buildType : buildTypes.split("[\\s,]+")) { //$NON-NLS-1$
+                if (!buildType.isEmpty())
+                    result.add(buildType);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Gets the build directory of a build type when building several build
+     * types concurrently.
+     *
+     * @param buildDir
+     *            the build directory setting or {@code null}
+     * @return the sub-directory of the build directory named after the build
+     *         type
+     */
+    static String deriveBuildDir(String buildDir, String buildType) {
+        return buildDir == null ? buildType : buildDir + "/" + buildType; //$NON-NLS-1$
+    }
+
     /**
      * Constructs the command line to invoke the actual build tool.
      *
      * @param toolBin
      *            the name of the build tool binary, either as an absolute or
      *            relative file system path.
+     * @param configuration
+     *            the configuration to build in a {@value #MULTI_CONFIG_GENERATOR}
+     *            build tree or {@code null}
      * @param toolArgs
      *            addional arguments, separated by spaces to pass to cmake or
      *            {@code null}
      * @return the argument list, never {@code null}
      */
     private static ArgumentListBuilder buildBuildToolCall(final String toolBin,
-            String... toolArgs) {
+            String configuration, String... toolArgs) {
         ArgumentListBuilder args = new ArgumentListBuilder();
 
         args.add(toolBin);
+        if (configuration != null) {
+            args.add("-f").add("build-" + configuration + ".ninja"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
         if (toolArgs != null) {
             args.add(toolArgs);
         }
@@ -226,18 +579,25 @@ public class CmakeBuilderStep extends AbstractStep {
      *            relative file system path.
      * @param theBuildDir
      *            the build directory path
+     * @param configuration
+     *            the configuration to build in a multi-configuration build
+     *            tree or {@code null}
      * @param toolArgs
      *            addional build tool arguments, separated by spaces to pass to
      *            cmake or {@code null}
      * @return the argument list, never {@code null}
      */
     private static ArgumentListBuilder buildBuildToolCallWithCmake(
-            final String cmakeBin, FilePath theBuildDir, String... toolArgs) {
+            final String cmakeBin, FilePath theBuildDir, String configuration,
+            String... toolArgs) {
         ArgumentListBuilder args = new ArgumentListBuilder();
 
         args.add(cmakeBin);
         args.add("--build"); //$NON-NLS-1$
         args.add(theBuildDir.getRemote());
+        if (configuration != null) {
+            args.add("--config").add(configuration); //$NON-NLS-1$
+        }
         if (toolArgs != null) {
             args.add(toolArgs);
         }
@@ -278,7 +638,8 @@ public class CmakeBuilderStep extends AbstractStep {
             final TaskListener listener = context.get(TaskListener.class);
             final Launcher launcher = context.get(Launcher.class);
             final Node node = context.get(Node.class);
-            final EnvVars env = context.get(EnvVars.class);
+            // presets may add to the environment
+            final EnvVars env = new EnvVars(context.get(EnvVars.class));
 
             CmakeTool installToUse = step.getSelectedInstallation();
             // Raise an error if the cmake installation isn't found
@@ -293,92 +654,838 @@ public class CmakeBuilderStep extends AbstractStep {
 
             final String cmakeBin = installToUse.getAbsoluteCommand(node,
                     "cmake"); //$NON-NLS-1$
-            final FilePath workSpace = context.get(FilePath.class);
-            /*
-             * Determine remote build directory path. Clean it, if requested.
-             * Create it.
+            final List<String> buildTypes = splitBuildTypes(
+                    step.getBuildTypes());
+
+            final FilePath theSourceDir = LaunchUtils.makeRemotePath(
+                    context.get(FilePath.class), step.sourceDir);
+            ConfigurePreset configurePreset = null;
+            BuildPreset buildPreset = null;
+            TestPreset testPreset = null;
+            if (step.isUsingPresets()) {
+                if (buildTypes.size() > 1) {
+                    throw new AbortException(Messages.getString(
+                            "CmakeBuilderStep.Presets_and_build_types")); //$NON-NLS-1$
+                }
+                final Presets presets = PresetsLoader.load(theSourceDir);
+                buildPreset = PresetsLoader.select(presets.getBuildPresets(),
+                        "build", step.getBuildPreset()); //$NON-NLS-1$
+                testPreset = PresetsLoader.select(presets.getTestPresets(),
+                        "test", step.getTestPreset()); //$NON-NLS-1$
+                String configureName = step.getConfigurePreset();
+                if (configureName == null && buildPreset != null)
+                    configureName = buildPreset.getConfigurePreset();
+                if (configureName == null && testPreset != null)
+                    configureName = testPreset.getConfigurePreset();
+                checkConfigurePreset("build", buildPreset == null ? null //$NON-NLS-1$
+                        : buildPreset.getName(),
+                        buildPreset == null ? null
+                                : buildPreset.getConfigurePreset(),
+                        configureName);
+                checkConfigurePreset("test", testPreset == null ? null //$NON-NLS-1$
+                        : testPreset.getName(),
+                        testPreset == null ? null
+                                : testPreset.getConfigurePreset(),
+                        configureName);
+                configurePreset = PresetsLoader.select(
+                        presets.getConfigurePresets(), "configure", //$NON-NLS-1$
+                        configureName);
+                listener.getLogger().printf(
+                        Messages.getString("CmakeBuilderStep.Using_presets"), //$NON-NLS-1$
+                        configureName,
+                        buildPreset == null ? "-" : buildPreset.getName(), //$NON-NLS-1$
+                        testPreset == null ? "-" : testPreset.getName()); //$NON-NLS-1$
+            }
+
+            String generator = step.getGenerator();
+            if (configurePreset != null
+                    && configurePreset.getGenerator() != null) {
+                generator = configurePreset.getGenerator();
+            }
+            final boolean autoGenerator = GeneratorProbe.AUTO.equals(generator);
+            if (autoGenerator) {
+                final GeneratorProbe.Result probed = GeneratorProbe
+                        .select(node.toComputer(), launcher, cmakeBin, env,
+                                listener);
+                generator = probed.getGenerator();
+                if (buildTypes.size() > 1 && probed.isMultiConfigAvailable()) {
+                    generator = MULTI_CONFIG_GENERATOR;
+                }
+            }
+
+            String buildDir = step.getBuildDir();
+            String presetArgs = null;
+            List<BuildToolStep> toolSteps = step.getSteps();
+            ArgumentListBuilder testCall = null;
+            if (configurePreset != null) {
+                final PresetMacros macros = new PresetMacros(
+                        PresetsLoader.getMacros(theSourceDir, configurePreset,
+                                generator,
+                                launcher.getChannel().call(
+                                        new GetSystemProperties("os.name"))[0]), //$NON-NLS-1$
+                        configurePreset.getEnvironment(), env);
+                for (Map.Entry<String, String> var : macros.expandEnvironment()
+                        .entrySet()) {
+                    if (var.getValue() == null) {
+                        env.remove(var.getKey());
+                    } else {
+                        env.put(var.getKey(), var.getValue());
+                    }
+                }
+                if (configurePreset.getBinaryDir() != null) {
+                    // relative to the source directory
+                    buildDir = PresetsLoader.relativize(
+                            context.get(FilePath.class).getRemote(),
+                            theSourceDir.child(macros.expand(
+                                    configurePreset.getBinaryDir()))
+                                    .getRemote());
+                }
+                presetArgs = PresetsLoader.join(
+                        PresetsLoader.toCmakeArgs(configurePreset, macros));
+            }
+            if (buildPreset != null) {
+                toolSteps = new ArrayList<>();
+                toolSteps.add(PresetsLoader.toBuildToolStep(buildPreset));
+                if (step.getSteps() != null)
+                    toolSteps.addAll(step.getSteps());
+            }
+            if (testPreset != null) {
+                testCall = new ArgumentListBuilder(
+                        installToUse.getAbsoluteCommand(node, "ctest")) //$NON-NLS-1$
+                                .add(PresetsLoader.toCtestArgs(testPreset,
+                                        launcher.getChannel()
+                                                .call(new NodeResources.Probe())
+                                                .getProcessors()));
+            }
+
+            final Build build = new Build(context, launcher, node,
+                    installToUse, cmakeBin, generator, autoGenerator,
+                    presetArgs, toolSteps, testCall);
+            if (buildTypes.size() < 2) {
+                build.configureAndBuild(buildDir,
+                        buildTypes.isEmpty() ? step.getBuildType()
+                                : buildTypes.get(0),
+                        null, env, listener, null, true);
+            } else if (MULTI_CONFIG_GENERATOR.equals(generator)) {
+                // one tree, ninja schedules the jobs of all configurations
+                listener.getLogger().printf(
+                        Messages.getString("CmakeBuilderStep.Multi_config_tree"), //$NON-NLS-1$
+                        buildTypes);
+                build.configureAndBuild(buildDir, null, buildTypes,
+                        env, listener, null, true);
+            } else {
+                buildConcurrently(build, buildTypes, env, listener);
+            }
+            return null;
+        }
+
+        /**
+         * Checks that a build or test preset is for the configure preset
+         * used.
+         *
+         * @param name
+         *            the name of the build or test preset or {@code null} if
+         *            none is used
+         * @param presetConfigure
+         *            the configure preset of the build or test preset
+         */
+        private static void checkConfigurePreset(String kind, String name,
+                String presetConfigure, String configureName)
+                throws AbortException {
+            if (name != null && presetConfigure != null
+                    && !presetConfigure.equals(configureName)) {
+                throw new AbortException(String.format(
+                        Messages.getString("CmakeBuilderStep.Preset_mismatch"), //$NON-NLS-1$
+                        kind, name, presetConfigure, configureName));
+            }
+        }
+
+        /**
+         * Configures and builds each of the specified build types in a build
+         * directory of its own, concurrently. The build types share the
+         * processors and the memory of the node.
+         */
+        private void buildConcurrently(final Build build,
+                List<String> buildTypes, final EnvVars env,
+                final TaskListener listener) throws Exception {
+            final NodeResources share = build.launcher.getChannel()
+                    .call(new NodeResources.Probe()).share(buildTypes.size());
+            listener.getLogger().printf(
+                    Messages.getString("CmakeBuilderStep.Concurrent_build_types"), //$NON-NLS-1$
+                    buildTypes.size(), buildTypes, share.getProcessors());
+
+            final ExecutorService executor = Executors.newFixedThreadPool(
+                    buildTypes.size(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            final Thread thread = new Thread(r,
+                                    "cmakebuilder build type"); //$NON-NLS-1$
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            final List<Future<Void>> results = new ArrayList<>(
+                    buildTypes.size());
+            // the build types share the compiler cache, so take the
+            // statistics of all build types
+            final FilePath workSpace = build.context.get(FilePath.class);
+            final CompilerLauncher.Stats statsBefore = build
+                    .snapshotStats(workSpace, env);
+            try {
+                for (int i = 0; i < buildTypes.size(); i++) {
+                    final String buildType = buildTypes.get(i);
+                    // only the first build type exports to the pipeline env
+                    final boolean exportToRun = i == 0;
+                    results.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            final LinePrefixOutputStream out = new LinePrefixOutputStream(
+                                    listener.getLogger(),
+                                    "[" + buildType + "] ", //$NON-NLS-1$ //$NON-NLS-2$
+                                    Charset.defaultCharset());
+                            try {
+                                build.configureAndBuild(
+                                        deriveBuildDir(step.getBuildDir(),
+                                                buildType),
+                                        buildType, null, new EnvVars(env),
+                                        new StreamTaskListener(out), share,
+                                        exportToRun);
+                            } finally {
+                                out.close();
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                // wait for all build types, report the first that failed
+                Throwable failure = null;
+                String failedType = null;
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        results.get(i).get();
+                    } catch (ExecutionException ex) {
+                        if (failure == null) {
+                            failure = ex.getCause();
+                            failedType = buildTypes.get(i);
+                        }
+                    }
+                }
+                build.reportStats(step.getBuildDir(), statsBefore, workSpace,
+                        env, listener);
+                if (failure instanceof AbortException) {
+                    throw new AbortException(String.format(
+                            Messages.getString("CmakeBuilderStep.Build_type_failed"), //$NON-NLS-1$
+                            failedType, failure.getMessage().trim()));
+                } else if (failure instanceof Exception) {
+                    throw (Exception) failure;
+                } else if (failure != null) {
+                    throw (Error) failure;
+                }
+            } finally {
+                // interrupts the builds if this thread was interrupted
+                executor.shutdownNow();
+            }
+        }
+
+        ////////////////////////////////////////////////////////////////////
+        // inner classes
+        ////////////////////////////////////////////////////////////////////
+        /**
+         * Configures a build directory and runs the build tool steps in it.
+         * Holds what the build types of a step have in common.
+         */
+        private class Build {
+            private final StepContext context;
+            private final Launcher launcher;
+            private final Node node;
+            private final CmakeTool installToUse;
+            private final String cmakeBin;
+            private final String generator;
+            private final boolean autoGenerator;
+            /** the cmake arguments of the configure preset or {@code null} */
+            private final String presetArgs;
+            /** the build tool steps to run or {@code null} */
+            private final List<BuildToolStep> toolSteps;
+            /** the ctest call of the test preset or {@code null} */
+            private final ArgumentListBuilder testCall;
+            /**
+             * the commits the build trees of this step were built from, see
+             * normalizeSources
              */
-            final String buildDir = step.getBuildDir();
-            FilePath theBuildDir = LaunchUtils.makeRemotePath(workSpace,
-                    buildDir);
-            if (buildDir != null) {
-                if (step.isCleanBuild()
-                        && !buildDir.equals(step.getSourceDir())) {
-                    // avoid deleting source dir
-                    listener.getLogger()
-                            .format(Messages.getString("Cleaning_build_dir"), //$NON-NLS-1$
-                                    theBuildDir.getRemote())
-                            .println();
-                    theBuildDir.deleteRecursive();
-                }
-                theBuildDir.mkdirs();
+            private final List<String> builtCommits = new ArrayList<>();
+
+            Build(StepContext context, Launcher launcher, Node node,
+                    CmakeTool installToUse, String cmakeBin, String generator,
+                    boolean autoGenerator, String presetArgs,
+                    List<BuildToolStep> toolSteps,
+                    ArgumentListBuilder testCall) {
+                this.context = context;
+                this.launcher = launcher;
+                this.node = node;
+                this.installToUse = installToUse;
+                this.cmakeBin = cmakeBin;
+                this.generator = generator;
+                this.autoGenerator = autoGenerator;
+                this.presetArgs = presetArgs;
+                this.toolSteps = toolSteps;
+                this.testCall = testCall;
             }
 
-            /* Invoke cmake in build dir */
-            FilePath theSourceDir = LaunchUtils.makeRemotePath(workSpace,
-                    step.sourceDir);
-            ArgumentListBuilder cmakeCall = buildCMakeCall(cmakeBin,
-                    step.getGenerator(), step.getPreloadScript(), theSourceDir,
-                    step.getBuildType(), step.getCmakeArgs());
-            // invoke cmake
-
-            int exitCode;
-            if (0 != (exitCode = launcher.launch().pwd(theBuildDir).envs(env)
-                    .stdout(listener).cmds(cmakeCall).join())) {
-                // invocation failed
-                throw new AbortException(
-                        String.format(Messages.getString("Exited_with_error_code"), //$NON-NLS-1$
-                                step.getCommandBasename(), exitCode));
+            /**
+             * Configures the specified build directory and runs the build tool
+             * steps in it.
+             *
+             * @param buildDir
+             *            the build directory, relative to the workspace, or
+             *            {@code null}
+             * @param buildType
+             *            the build type or {@code null} to pass none
+             * @param configurationTypes
+             *            the configurations of a multi-configuration build tree
+             *            to build one after another or {@code null}
+             * @param env
+             *            the environment, the exported cache entries are added
+             *            to it
+             * @param share
+             *            the share of the node resources this build may use or
+             *            {@code null} if it runs on its own
+             * @param exportToRun
+             *            whether to export the cache entries to the pipeline
+             *            env
+             */
+            void configureAndBuild(String buildDir, String buildType,
+                    List<String> configurationTypes, EnvVars env,
+                    TaskListener listener, NodeResources share,
+                    boolean exportToRun)
+                    throws IOException, InterruptedException {
+                final Run<?, ?> run = context.get(Run.class);
+                final FilePath workSpace = context.get(FilePath.class);
+                final FilePath theSourceDir = LaunchUtils
+                        .makeRemotePath(workSpace, step.sourceDir);
+                if (step.isUseBuildDirPool()) {
+                    configureAndBuildPooled(buildDir, theSourceDir, buildType,
+                            configurationTypes, env, listener, share,
+                            exportToRun);
+                    return;
+                }
+                /*
+                 * Determine remote build directory path. Clean it, if
+                 * requested. Create it.
+                 */
+                final FilePath theBuildDir = LaunchUtils
+                        .makeRemotePath(workSpace, buildDir);
+                if (buildDir != null) {
+                    if (step.isCleanBuild()
+                            && !buildDir.equals(step.getSourceDir())) {
+                        // avoid deleting source dir
+                        listener.getLogger()
+                                .format(Messages.getString("Cleaning_build_dir"), //$NON-NLS-1$
+                                        theBuildDir.getRemote())
+                                .println();
+                        BuildDirTrash.clean(node, theBuildDir,
+                                step.isCleanInBackground(), listener);
+                    }
+                    theBuildDir.mkdirs();
+                }
+                configureAndBuild(theBuildDir, theSourceDir, buildDir,
+                        buildType, configurationTypes, env, listener, share,
+                        exportToRun);
             }
 
-            if (step.getSteps() != null) {
-                String buildTool = null;
-                boolean needBuildTool = false;
-                for (BuildToolStep toolStep : step.getSteps()) {
-                    if (!toolStep.getWithCmake()) {
-                        needBuildTool = true;
-                        break;
+            /**
+             * Leases a build tree from the build directory pool of the node,
+             * configures it and runs the build tool steps in it.
+             *
+             * @param theSourceDir
+             *            the source directory in the workspace
+             */
+            private void configureAndBuildPooled(String buildDir,
+                    FilePath theSourceDir, String buildType,
+                    List<String> configurationTypes, EnvVars env,
+                    TaskListener listener, NodeResources share,
+                    boolean exportToRun)
+                    throws IOException, InterruptedException {
+                final String poolDir = BuildDirPool.getPoolDir(node);
+                if (poolDir == null) {
+                    throw new AbortException(
+                            Messages.getString("BuildDirPool.Node_offline")); //$NON-NLS-1$
+                }
+                final String key = BuildDirPool.computeKey(getRepository(env),
+                        generator,
+                        configurationTypes == null ? buildType
+                                : Util.join(configurationTypes, ";"), //$NON-NLS-1$
+                        installToUse.getHome(), env);
+                final BuildDirPool.Lease lease = launcher.getChannel()
+                        .call(new BuildDirPool.Acquire(poolDir, key,
+                                theSourceDir.getRemote(),
+                                context.get(Run.class).getExternalizableId()));
+                if (lease.getExpiredOwner() != null) {
+                    listener.getLogger().printf(
+                            Messages.getString("BuildDirPool.Lease_expired"), //$NON-NLS-1$
+                            lease.getBuildDir(), lease.getExpiredOwner());
+                }
+                listener.getLogger().printf(
+                        Messages.getString(lease.isWarm()
+                                ? "BuildDirPool.Leased_warm" //$NON-NLS-1$
+                                : "BuildDirPool.Leased_cold"), //$NON-NLS-1$
+                        lease.getBuildDir());
+                boolean built = false;
+                try {
+                    final FilePath theBuildDir = new FilePath(
+                            launcher.getChannel(), lease.getBuildDir());
+                    if (step.isCleanBuild()) {
+                        listener.getLogger()
+                                .format(Messages.getString("Cleaning_build_dir"), //$NON-NLS-1$
+                                        theBuildDir.getRemote())
+                                .println();
+                        BuildDirTrash.clean(node, theBuildDir,
+                                step.isCleanInBackground(), listener);
+                        theBuildDir.mkdirs();
                     }
+                    configureAndBuild(theBuildDir,
+                            new FilePath(launcher.getChannel(),
+                                    lease.getSourceDir()),
+                            buildDir, buildType, configurationTypes, env,
+                            listener, share, exportToRun);
+                    built = true;
+                } finally {
+                    // return the tree, even if the build failed
+                    BuildDirPool.Usage usage = null;
+                    try {
+                        usage = launcher.getChannel()
+                                .call(new BuildDirPool.Release(poolDir, lease,
+                                        step.getBuildDirPoolSize()));
+                    } catch (IOException ex) {
+                        if (built)
+                            throw ex;
+                        // do not mask the failure of the build, the lease
+                        // expires
+                        listener.error(Messages.getString(
+                                "BuildDirPool.Release_failed"), //$NON-NLS-1$
+                                lease.getBuildDir(), ex);
+                    }
+                    if (usage != null) {
+                        BuildDirPoolAction.recordAndReport(
+                                context.get(Run.class),
+                                buildDir == null ? "." : buildDir, lease, //$NON-NLS-1$
+                                usage, listener);
+                    }
+                }
+            }
+
+            /**
+             * Gets what identifies the source repository of the build: the
+             * URL of the git repository, if the build has one, otherwise the
+             * item the job belongs to (e.g. the multibranch project), followed
+             * by the source directory setting.
+             */
+            private String getRepository(EnvVars env)
+                    throws IOException, InterruptedException {
+                String repository = env.get("GIT_URL"); //$NON-NLS-1$
+                if (repository == null) {
+                    repository = context.get(Run.class).getParent().getParent()
+                            .getFullName();
+                }
+                return repository + "/" + step.getSourceDir(); //$NON-NLS-1$
+            }
+
+            /**
+             * Configures the specified build directory and runs the build tool
+             * steps in it.
+             *
+             * @param theBuildDir
+             *            the build directory, which exists
+             * @param theSourceDir
+             *            the source directory to pass to cmake
+             * @param buildDir
+             *            the build directory setting to record the results
+             *            under
+             */
+            private void configureAndBuild(FilePath theBuildDir,
+                    FilePath theSourceDir, String buildDir, String buildType,
+                    List<String> configurationTypes, EnvVars env,
+                    TaskListener listener, NodeResources share,
+                    boolean exportToRun)
+                    throws IOException, InterruptedException {
+                final Run<?, ?> run = context.get(Run.class);
+                /* Invoke cmake in build dir */
+                String cmakeArgs = step.getCmakeArgs();
+                if (presetArgs != null && !presetArgs.isEmpty()) {
+                    // the arguments of the step take precedence
+                    cmakeArgs = presetArgs
+                            + (cmakeArgs == null ? "" : " " + cmakeArgs); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                if (step.getCompileJobMemory() > 0
+                        || step.getLinkJobMemory() > 0) {
+                    cmakeArgs = JobPools.addDefinitions(cmakeArgs,
+                            share != null ? share
+                                    : launcher.getChannel()
+                                            .call(new NodeResources.Probe()),
+                            step.getCompileJobMemory(), step.getLinkJobMemory(),
+                            listener);
+                }
+                EnvVars cmakeEnv = env;
+                if (step.getCompilerLauncher() != null) {
+                    final List<String> languages = CompilerLauncher
+                            .getLanguages(theBuildDir);
+                    if (languages != null) {
+                        cmakeArgs = CompilerLauncher.addDefinitions(cmakeArgs,
+                                step.getCompilerLauncher(), languages);
+                    } else {
+                        cmakeEnv = new EnvVars(env)
+                                .overrideAll(CompilerLauncher.getEnvironment(
+                                        step.getCompilerLauncher()));
+                    }
+                }
+                if (configurationTypes != null) {
+                    cmakeArgs = "-D CMAKE_CONFIGURATION_TYPES=" //$NON-NLS-1$
+                            + Util.join(configurationTypes, ";") //$NON-NLS-1$
+                            + (cmakeArgs == null ? "" : " " + cmakeArgs); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                final String generator = autoGenerator
+                        ? GeneratorProbe.keepConfigured(theBuildDir,
+                                this.generator, listener)
+                        : this.generator;
+                ArgumentListBuilder cmakeCall = buildCMakeCall(cmakeBin,
+                        generator, step.getPreloadScript(), theSourceDir,
+                        buildType, cmakeArgs);
+                String snapshotStoreDir = null;
+                String snapshotKey = null;
+                if (step.getSnapshotStore() != null) {
+                    snapshotStoreDir = BuildDirSnapshot.getStoreDir(node,
+                            step.getSnapshotStore());
+                    if (snapshotStoreDir == null) {
+                        throw new AbortException(Messages
+                                .getString("BuildDirSnapshot.Node_offline")); //$NON-NLS-1$
+                    }
+                    // the tree holds absolute paths of the build directory
+                    final List<String> keyInputs = new ArrayList<>(
+                            cmakeCall.toList());
+                    keyInputs.add("buildDir=" + theBuildDir.getRemote()); //$NON-NLS-1$
+                    snapshotKey = ToolchainCache.computeKey(keyInputs,
+                            installToUse.getHome(), env);
+                }
+                if (snapshotStoreDir != null && !step.isCleanBuild()) {
+                    // restore before the fingerprint is checked, a restored
+                    // tree may need no configure
+                    final BuildDirSnapshot.Result result = theBuildDir
+                            .act(new BuildDirSnapshot.Restore(snapshotStoreDir,
+                                    snapshotKey));
+                    if (result != BuildDirSnapshot.Result.CONFIGURED) {
+                        listener.getLogger().printf(
+                                Messages.getString("BuildDirSnapshot." + result), //$NON-NLS-1$
+                                theBuildDir.getRemote());
+                    }
+                }
+                if (step.isNormalizeSourceTimestamps()) {
+                    normalizeSources(theSourceDir, theBuildDir, env, listener);
                 }
-                if (needBuildTool) {
-                    /* parse CMakeCache.txt to get the actual build tool */
-                    FilePath cacheFile = theBuildDir.child("CMakeCache.txt"); //$NON-NLS-1$
-                    buildTool = cacheFile.act(new BuildToolEntryParser());
-                    if (buildTool == null) {
+                String inputsHash = null;
+                boolean configure = true;
+                if (step.isSkipConfigureIfUnchanged()) {
+                    inputsHash = ConfigureFingerprint.hashInputs(
+                            cmakeCall.toList(), installToUse.getHome());
+                    final ConfigureFingerprint.Result result = theBuildDir
+                            .act(new ConfigureFingerprint.Check(inputsHash));
+                    listener.getLogger().printf(
+                            Messages.getString("ConfigureFingerprint." + result), //$NON-NLS-1$
+                            theBuildDir.getRemote());
+                    configure = result != ConfigureFingerprint.Result.UNCHANGED;
+                }
+
+                String toolchainStore = null;
+                String toolchainKey = null;
+                if (step.isReuseToolchainChecks()) {
+                    toolchainStore = ToolchainCache.getStoreDir(node);
+                    toolchainKey = ToolchainCache.computeKey(cmakeCall.toList(),
+                            installToUse.getHome(), env);
+                }
+                int exitCode;
+                if (configure) {
+                    if (step.isRecordTargets()) {
+                        // ask cmake to describe the targets, see CodeModelAction
+                        CodeModelParser.query(theBuildDir, listener);
+                    }
+                    if (toolchainStore != null) {
+                        final ToolchainCache.Result result = theBuildDir
+                                .act(new ToolchainCache.Seed(toolchainStore,
+                                        toolchainKey));
+                        if (result != ToolchainCache.Result.CONFIGURED) {
+                            listener.getLogger().printf(
+                                    Messages.getString("ToolchainCache." + result), //$NON-NLS-1$
+                                    theBuildDir.getRemote());
+                        }
+                    }
+                    // invoke cmake
+                    if (0 != (exitCode = launcher.launch().pwd(theBuildDir)
+                            .envs(cmakeEnv).stdout(listener).cmds(cmakeCall)
+                            .join())) {
+                        // invocation failed
                         throw new AbortException(String.format(
-                                Messages.getString("Failed_to_get_var_value"), //$NON-NLS-1$
-                                CmakeBuilder.ENV_VAR_NAME_CMAKE_BUILD_TOOL,
-                                cacheFile.getRemote()));
+                                Messages.getString("Exited_with_error_code"), //$NON-NLS-1$
+                                step.getCommandBasename(), exitCode));
+                    }
+                    if (inputsHash != null) {
+                        theBuildDir
+                                .act(new ConfigureFingerprint.Store(inputsHash));
+                    }
+                    if (toolchainStore != null && theBuildDir
+                            .act(new ToolchainCache.Store(toolchainStore,
+                                    toolchainKey, cmakeBin))) {
+                        listener.getLogger().printf(
+                                Messages.getString("ToolchainCache.Stored"), //$NON-NLS-1$
+                                theBuildDir.getRemote());
                     }
                 }
 
-                /* invoke each build tool step in build dir */
-                for (BuildToolStep toolStep : step.getSteps()) {
-                    ArgumentListBuilder toolCall;
-                    if (!toolStep.getWithCmake()) {
-                        // invoke directly
-                        toolCall = buildBuildToolCall(buildTool,
-                                toolStep.getCommandArguments(env));
-                    } else {
-                        // invoke through 'cmake --build <dir>'
-                        toolCall = buildBuildToolCallWithCmake(cmakeBin,
-                                theBuildDir,
-                                toolStep.getCommandArguments(env));
+                /*
+                 * parse CMakeCache.txt to get the actual build tool and the
+                 * essentials of the configuration
+                 */
+                FilePath cacheFile = theBuildDir.child("CMakeCache.txt"); //$NON-NLS-1$
+                final CacheSnapshotParser.Snapshot cacheSnapshot = cacheFile
+                        .act(new CacheSnapshotParser(
+                                step.getExportCacheEntries()));
+                final CMakeCache cache = cacheSnapshot == null ? null
+                        : cacheSnapshot.getCache();
+                final Map<String, String> cacheEntries = CacheEntriesParser
+                        .select(cache, CacheEntriesParser.CONFIGURATION_KEYS);
+                listener.getLogger().printf(
+                        Messages.getString("Configuration"), //$NON-NLS-1$
+                        CacheEntriesParser.format(cacheEntries,
+                                CacheEntriesParser.CONFIGURATION_KEYS));
+                if (cache != null) {
+                    // keep a snapshot and report changes to the previous build
+                    CMakeCacheAction.recordAndReport(run,
+                            buildDir == null ? "." : buildDir, cache, //$NON-NLS-1$
+                            cacheSnapshot.getDigest(), listener);
+                }
+                final CodeModel codeModel = step.isRecordTargets()
+                        ? CodeModelParser.parse(theBuildDir, listener)
+                        : null;
+                if (codeModel != null) {
+                    CodeModelAction.recordAndReport(run,
+                            buildDir == null ? "." : buildDir, codeModel, //$NON-NLS-1$
+                            listener);
+                }
+                if (autoGenerator && exportToRun) {
+                    // export the build tool of the chosen generator to the
+                    // pipeline env
+                    final String buildTool = cacheEntries
+                            .get(CacheEntriesParser.CMAKE_MAKE_PROGRAM);
+                    if (buildTool != null) {
+                        ExportedCacheEntriesAction.export(run,
+                                Collections.singletonMap(
+                                        CmakeBuilder.ENV_VAR_NAME_CMAKE_BUILD_TOOL,
+                                        buildTool));
+                    }
+                }
+                // export selected cache entries to env for toolSteps and to
+                // the pipeline env
+                final Map<String, String> exportedEntries = CacheEntriesParser
+                        .selectMatching(cache, step.getExportCacheEntries());
+                if (!exportedEntries.isEmpty()) {
+                    listener.getLogger().printf(
+                            Messages.getString("Exporting_cache_entries"), //$NON-NLS-1$
+                            exportedEntries.keySet());
+                    env.putAll(exportedEntries);
+                    if (exportToRun) {
+                        ExportedCacheEntriesAction.export(run, exportedEntries);
+                    }
+                }
+
+                if (toolSteps != null) {
+                    final String buildTool = cacheEntries
+                            .get(CacheEntriesParser.CMAKE_MAKE_PROGRAM);
+                    boolean needBuildTool = false;
+                    for (BuildToolStep toolStep : toolSteps) {
+                        if (!toolStep.getWithCmake()) {
+                            needBuildTool = true;
+                            break;
+                        }
+                    }
+                    if (needBuildTool) {
+                        if (buildTool == null) {
+                            throw new AbortException(String.format(
+                                    Messages.getString("Failed_to_get_var_value"), //$NON-NLS-1$
+                                    CmakeBuilder.ENV_VAR_NAME_CMAKE_BUILD_TOOL,
+                                    cacheFile.getRemote()));
+                        }
                     }
-                    final EnvVars stepEnv = new EnvVars(env).overrideAll(
-                            toolStep.getEnvironmentVars(env, listener));
+
+                    // concurrent builds share the cache, see buildConcurrently
+                    final boolean recordStats = share == null;
+                    final CompilerLauncher.Stats statsBefore = recordStats
+                            ? snapshotStats(theBuildDir, env)
+                            : null;
+                    try {
+                        if (configurationTypes == null) {
+                            // a multi-configuration tree (e.g. Visual Studio)
+                            // would build its default configuration otherwise
+                            runToolSteps(theBuildDir, buildTool, generator,
+                                    buildType, env, listener, share);
+                        } else {
+                            for (String configuration : configurationTypes) {
+                                listener.getLogger().printf(
+                                        Messages.getString("CmakeBuilderStep.Building_configuration"), //$NON-NLS-1$
+                                        configuration);
+                                runToolSteps(theBuildDir, buildTool, generator,
+                                        configuration, env, listener, share);
+                            }
+                        }
+                    } catch (AbortException ex) {
+                        if (recordStats) {
+                            reportStats(buildDir, statsBefore, theBuildDir, env,
+                                    listener);
+                        }
+                        throw ex;
+                    }
+                    if (recordStats) {
+                        reportStats(buildDir, statsBefore, theBuildDir, env,
+                                listener);
+                    }
+                    if (step.isNormalizeSourceTimestamps()) {
+                        SourceTimestamps.recordBuiltCommit(launcher,
+                                theSourceDir, theBuildDir, env);
+                    }
+                }
+
+                if (testCall != null) {
                     if (0 != (exitCode = launcher.launch().pwd(theBuildDir)
-                            .envs(stepEnv).stdout(listener).cmds(toolCall)
+                            .envs(env).stdout(listener).cmds(testCall)
                             .join())) {
                         throw new AbortException(String.format(
                                 Messages.getString("Exited_with_error_code"), //$NON-NLS-1$
-                                buildTool, exitCode));
+                                "ctest", exitCode)); //$NON-NLS-1$
                     }
                 }
+
+                if (snapshotStoreDir != null) {
+                    // the build succeeded, save the tree for the next one
+                    final BuildDirSnapshot.Snapshot snapshot = theBuildDir
+                            .act(new BuildDirSnapshot.Save(snapshotStoreDir,
+                                    snapshotKey));
+                    listener.getLogger().printf(
+                            Messages.getString(snapshot.isAdded()
+                                    ? "BuildDirSnapshot.Saved" //$NON-NLS-1$
+                                    : "BuildDirSnapshot.Unchanged"), //$NON-NLS-1$
+                            theBuildDir.getRemote(),
+                            snapshot.getSize() / NodeResources.MIB,
+                            snapshot.getHash().substring(0, 12));
+                }
+            }
+
+            /**
+             * Takes a snapshot of the cache statistics of the compiler
+             * launcher.
+             *
+             * @return the statistics or {@code null} if no compiler launcher
+             *         with statistics is configured or the statistics cannot
+             *         be read
+             */
+            CompilerLauncher.Stats snapshotStats(FilePath pwd, EnvVars env)
+                    throws InterruptedException {
+                final String compilerLauncher = step.getCompilerLauncher();
+                if (compilerLauncher == null
+                        || !CompilerLauncher.hasStats(compilerLauncher))
+                    return null;
+                return CompilerLauncher.snapshot(launcher, pwd, env,
+                        compilerLauncher);
+            }
+
+            /**
+             * Records and logs the cache statistics of the compiler launcher
+             * since the specified snapshot.
+             *
+             * @param buildDir
+             *            the build directory, relative to the workspace, or
+             *            {@code null}
+             * @param statsBefore
+             *            the snapshot or {@code null} if the statistics could
+             *            not be read
+             */
+            void reportStats(String buildDir, CompilerLauncher.Stats statsBefore,
+                    FilePath pwd, EnvVars env, TaskListener listener)
+                    throws IOException, InterruptedException {
+                final String compilerLauncher = step.getCompilerLauncher();
+                if (compilerLauncher == null
+                        || !CompilerLauncher.hasStats(compilerLauncher))
+                    return;
+                final CompilerLauncher.Stats statsAfter = statsBefore == null
+                        ? null
+                        : snapshotStats(pwd, env);
+                CompilerCacheAction.recordAndReport(context.get(Run.class),
+                        buildDir == null ? "." : buildDir, //$NON-NLS-1$
+                        compilerLauncher, statsAfter == null ? null
+                                : statsAfter.minus(statsBefore),
+                        listener);
             }
-            return null;
-        }
 
+            /**
+             * Normalizes the modification times of the sources of the
+             * specified build tree. The build types of a step may be built
+             * concurrently from the same sources, so a file keeps the current
+             * time if it changed since the commit any of the trees was built
+             * from.
+             */
+            private void normalizeSources(FilePath theSourceDir,
+                    FilePath theBuildDir, EnvVars env, TaskListener listener)
+                    throws IOException, InterruptedException {
+                synchronized (builtCommits) {
+                    builtCommits.add(
+                            SourceTimestamps.getBuiltCommit(theBuildDir));
+                    SourceTimestamps.normalize(launcher, theSourceDir,
+                            builtCommits, env, listener);
+                }
+            }
+
+            /**
+             * Invokes each build tool step in the specified build dir.
+             *
+             * @param generator
+             *            the generator the build tree was configured with or
+             *            {@code null} if cmake chose it
+             * @param configuration
+             *            the configuration to build or {@code null}. Passed to
+             *            {@code cmake --build} as {@code --config}, which
+             *            single-configuration build trees ignore, and to
+             *            ninja if the tree is {@value #MULTI_CONFIG_GENERATOR}
+             */
+            private void runToolSteps(final FilePath theBuildDir,
+                    final String buildTool, String generator,
+                    final String configuration, EnvVars env,
+                    TaskListener listener, NodeResources share)
+                    throws IOException, InterruptedException {
+                final String ninjaConfiguration = MULTI_CONFIG_GENERATOR
+                        .equals(generator) ? configuration : null;
+                final BuildToolStepRunner.Failure failure = new BuildToolStepRunner(
+                        launcher, theBuildDir, buildTool, env, listener,
+                        share)
+                                .run(toolSteps,
+                                        new BuildToolStepRunner.CallFactory() {
+                                            @Override
+                                            public ArgumentListBuilder create(
+                                                    BuildToolStep toolStep,
+                                                    String[] toolArgs) {
+                                                if (!toolStep.getWithCmake()) {
+                                                    // invoke directly
+                                                    return buildBuildToolCall(
+                                                            buildTool,
+                                                            ninjaConfiguration,
+                                                            toolArgs);
+                                                }
+                                                // invoke through 'cmake --build
+                                                // <dir>'
+                                                return buildBuildToolCallWithCmake(
+                                                        cmakeBin, theBuildDir,
+                                                        configuration, toolArgs);
+                                            }
+                                        });
+                if (failure != null) {
+                    throw new AbortException(failure.getMessage());
+                }
+            }
+        } // Build
     } // Execution
 
     /**
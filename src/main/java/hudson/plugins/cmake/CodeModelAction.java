@@ -0,0 +1,212 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.marw.cmake.fileapi.CodeModel;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.RunAction2;
+
+/**
+ * Keeps the code model of each build directory of a build, as reported by the
+ * CMake File API: the configurations, their targets and the artifacts the
+ * targets produce. Shown as a page of the build.<br>
+ * Only a summary of each configuration is persisted with the build. The full
+ * model is held in memory while the build is running; other plugins and later
+ * build steps may use {@link #getCodeModel(Run, String)} to work on targets or
+ * artifacts without running cmake again.
+ *
+ * @author Martin Weber
+ */
+public class CodeModelAction implements RunAction2 {
+
+    /** the summaries of the configurations by build directory */
+    private final Map<String, List<Summary>> summaries = new TreeMap<>();
+    /** the code models by build directory, not persisted */
+    private transient Map<String, CodeModel> models;
+    private transient Run<?, ?> run;
+
+    /**
+     * Records the code model of the specified build directory.
+     *
+     * @param run
+     *            the current build
+     * @param buildDir
+     *            the build directory, relative to the workspace
+     * @param model
+     *            the code model
+     */
+    public static void record(Run<?, ?> run, String buildDir,
+            CodeModel model) {
+        synchronized (run) {
+            CodeModelAction action = run.getAction(CodeModelAction.class);
+            if (action == null) {
+                action = new CodeModelAction();
+                run.addAction(action);
+            }
+            synchronized (action.summaries) {
+                final List<Summary> list = new ArrayList<>();
+                for (CodeModel.Configuration configuration : model
+                        .getConfigurations()) {
+                    list.add(new Summary(configuration));
+                }
+                action.summaries.put(buildDir, list);
+                if (action.models == null) {
+                    action.models = new TreeMap<>();
+                }
+                action.models.put(buildDir, model);
+            }
+        }
+    }
+
+    /**
+     * Records the code model of the specified build directory like
+     * {@link #record(Run, String, CodeModel)} and logs a summary.
+     */
+    static void recordAndReport(Run<?, ?> run, String buildDir,
+            CodeModel model, TaskListener listener) {
+        record(run, buildDir, model);
+        for (CodeModel.Configuration configuration : model
+                .getConfigurations()) {
+            listener.getLogger().printf(
+                    Messages.getString("CodeModelAction.Configuration"), //$NON-NLS-1$
+                    configuration.getName(), configuration.getTargets().size());
+        }
+    }
+
+    /**
+     * Gets the code model of the specified build directory.
+     *
+     * @param run
+     *            the build
+     * @param buildDir
+     *            the build directory, relative to the workspace
+     * @return the code model or {@code null} if none was recorded or if the
+     *         build was loaded from disk
+     */
+    public static CodeModel getCodeModel(Run<?, ?> run, String buildDir) {
+        final CodeModelAction action = run.getAction(CodeModelAction.class);
+        return action == null ? null : action.getModel(buildDir);
+    }
+
+    /**
+     * Gets the code model of the specified build directory.
+     *
+     * @return the code model or {@code null} if none was recorded or if the
+     *         build was loaded from disk
+     */
+    public CodeModel getModel(String buildDir) {
+        synchronized (summaries) {
+            return models == null ? null : models.get(buildDir);
+        }
+    }
+
+    /**
+     * Gets the code models of all build directories, ordered by build
+     * directory.
+     *
+     * @return the models, empty if the build was loaded from disk
+     */
+    public Map<String, CodeModel> getModels() {
+        synchronized (summaries) {
+            return models == null ? new TreeMap<String, CodeModel>()
+                    : new TreeMap<>(models);
+        }
+    }
+
+    /**
+     * Gets the summaries of the configurations of all build directories,
+     * ordered by build directory.
+     */
+    public Map<String, List<Summary>> getSummaries() {
+        synchronized (summaries) {
+            return new TreeMap<>(summaries);
+        }
+    }
+
+    /**
+     * Gets the build this action belongs to.
+     */
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "package.png"; //$NON-NLS-1$
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.getString("CodeModelAction.DisplayName"); //$NON-NLS-1$
+    }
+
+    @Override
+    public String getUrlName() {
+        return "cmakeTargets"; //$NON-NLS-1$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The summary of a configuration of a code model.
+     */
+    public static class Summary {
+        private final String name;
+        private final int targets;
+        /** the number of targets by target type */
+        private final Map<String, Integer> targetTypes = new TreeMap<>();
+
+        Summary(CodeModel.Configuration configuration) {
+            this.name = configuration.getName();
+            this.targets = configuration.getTargets().size();
+            for (CodeModel.Target target : configuration.getTargets()) {
+                final Integer count = targetTypes.get(target.getType());
+                targetTypes.put(target.getType(),
+                        count == null ? 1 : count + 1);
+            }
+        }
+
+        /**
+         * Gets the name of the configuration.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of targets of the configuration.
+         */
+        public int getTargets() {
+            return targets;
+        }
+
+        /**
+         * Gets the number of targets by target type, e.g.
+         * {@code EXECUTABLE}, ordered by type.
+         */
+        public Map<String, Integer> getTargetTypes() {
+            return Collections.unmodifiableMap(targetTypes);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.marw.cmake.fileapi.CodeModel;
+import de.marw.cmake.fileapi.CodeModelReader;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Gets the code model of a build directory from the reply of the CMake File
+ * API, see {@link CodeModelReader}. The reply files are parsed on the node,
+ * only the model is sent to the controller.
+ *
+ * @author Martin Weber
+ * @see CodeModelAction
+ */
+public class CodeModelParser extends MasterToSlaveFileCallable<CodeModel> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Writes the query for the code model into the specified build directory.
+     * A failure is logged as a warning, since the code model is not required
+     * to build.
+     */
+    static void query(FilePath buildDir, TaskListener listener)
+            throws InterruptedException {
+        try {
+            buildDir.act(new Query());
+        } catch (IOException ex) {
+            listener.getLogger().printf(
+                    Messages.getString("CodeModelParser.Query_failed"), //$NON-NLS-1$
+                    buildDir.getRemote(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Parses the reply to the query in the specified build directory. A
+     * failure is logged as a warning, since the code model is not required to
+     * build.
+     *
+     * @return the model or {@code null} if cmake did not reply to the query or
+     *         if the reply could not be read
+     */
+    static CodeModel parse(FilePath buildDir, TaskListener listener)
+            throws InterruptedException {
+        try {
+            return buildDir.act(new CodeModelParser());
+        } catch (IOException ex) {
+            listener.getLogger().printf(
+                    Messages.getString("CodeModelParser.Reply_failed"), //$NON-NLS-1$
+                    buildDir.getRemote(), ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the reply.
+     *
+     * @return the model or {@code null} if cmake did not reply to the query
+     */
+    @Override
+    public CodeModel invoke(File buildDir, VirtualChannel channel)
+            throws IOException, InterruptedException {
+        return CodeModelReader.read(buildDir.toPath());
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Writes the query for the code model into a build directory before cmake
+     * is run.
+     */
+    static class Query extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            CodeModelReader.writeQuery(buildDir.toPath());
+            return null;
+        }
+    }
+}
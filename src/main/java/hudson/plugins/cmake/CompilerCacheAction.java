@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.RunAction2;
+
+/**
+ * Keeps the cache statistics of the compiler launcher (ccache or sccache) of
+ * each build directory of a build: the hits, the misses and the hit rate of
+ * the compilations of the build tool steps. Shown as a page of the build.
+ *
+ * @author Martin Weber
+ */
+public class CompilerCacheAction implements RunAction2 {
+
+    /** the statistics by build directory */
+    private final Map<String, Record> records = new TreeMap<>();
+    private transient Run<?, ?> run;
+
+    /**
+     * Records the statistics of the specified build directory.
+     *
+     * @param run
+     *            the current build
+     * @param buildDir
+     *            the build directory, relative to the workspace
+     * @param compilerLauncher
+     *            the compiler launcher
+     * @param stats
+     *            the hits and misses of the build
+     */
+    static void record(Run<?, ?> run, String buildDir,
+            String compilerLauncher, CompilerLauncher.Stats stats) {
+        synchronized (run) {
+            CompilerCacheAction action = run
+                    .getAction(CompilerCacheAction.class);
+            if (action == null) {
+                action = new CompilerCacheAction();
+                run.addAction(action);
+            }
+            synchronized (action.records) {
+                action.records.put(buildDir,
+                        new Record(compilerLauncher, stats));
+            }
+        }
+    }
+
+    /**
+     * Records the statistics of the specified build directory like
+     * {@link #record(Run, String, String, CompilerLauncher.Stats)} and logs
+     * them. Logs a warning if no compilation hit the cache.
+     *
+     * @param stats
+     *            the hits and misses of the build or {@code null} if the
+     *            statistics of the launcher could not be read
+     */
+    static void recordAndReport(Run<?, ?> run, String buildDir,
+            String compilerLauncher, CompilerLauncher.Stats stats,
+            TaskListener listener) {
+        if (stats == null) {
+            listener.getLogger().printf(
+                    Messages.getString("CompilerCacheAction.No_stats"), //$NON-NLS-1$
+                    compilerLauncher);
+            return;
+        }
+        record(run, buildDir, compilerLauncher, stats);
+        listener.getLogger().printf(
+                Messages.getString("CompilerCacheAction.Stats"), //$NON-NLS-1$
+                compilerLauncher, stats.getHits(), stats.getMisses(),
+                stats.getHitRate());
+        if (stats.getHits() == 0 && stats.getMisses() > 0) {
+            listener.getLogger().printf(
+                    Messages.getString("CompilerCacheAction.No_hits"), //$NON-NLS-1$
+                    compilerLauncher);
+        }
+    }
+
+    /**
+     * Gets the statistics of all build directories, ordered by build
+     * directory.
+     */
+    public Map<String, Record> getRecords() {
+        synchronized (records) {
+            return new TreeMap<>(records);
+        }
+    }
+
+    /**
+     * Gets the build this action belongs to.
+     */
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png"; //$NON-NLS-1$
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.getString("CompilerCacheAction.DisplayName"); //$NON-NLS-1$
+    }
+
+    @Override
+    public String getUrlName() {
+        return "compilerCache"; //$NON-NLS-1$
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The statistics of a build directory.
+     */
+    public static class Record implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String compilerLauncher;
+        private final CompilerLauncher.Stats stats;
+
+        Record(String compilerLauncher, CompilerLauncher.Stats stats) {
+            this.compilerLauncher = compilerLauncher;
+            this.stats = stats;
+        }
+
+        public String getCompilerLauncher() {
+            return compilerLauncher;
+        }
+
+        public CompilerLauncher.Stats getStats() {
+            return stats;
+        }
+    }
+}
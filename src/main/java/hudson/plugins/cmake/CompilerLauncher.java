@@ -0,0 +1,314 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.util.ArgumentListBuilder;
+
+/**
+ * Integrates a compiler launcher such as {@code ccache} or {@code sccache}:
+ * Passes the launcher to cmake for each language the project compiles and
+ * takes snapshots of the cache statistics of the launcher, so that the hits
+ * and misses of a build can be computed.<br>
+ * Defining the launcher of a language the project does not enable makes
+ * cmake warn about an unused variable. So the launcher is defined only for
+ * the languages cmake found a compiler for in a configured build directory.
+ * For the first configure of a build directory, it is passed in the
+ * {@code CMAKE_<LANG>_COMPILER_LAUNCHER} environment variables instead, which
+ * cmake (3.17 and later) uses for the languages the project enables.
+ *
+ * @author Martin Weber
+ */
+class CompilerLauncher {
+
+    /** the languages whose compiler cmake can invoke through a launcher */
+    private static final String[] LANGUAGES = { "C", "CXX", "OBJC", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            "OBJCXX", "CUDA", "HIP", "Fortran" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    /** the keys of ccache´s cache hit counters (3.7 and 4.x names) */
+    private static final String[] CCACHE_HIT_KEYS = { "direct_cache_hit", //$NON-NLS-1$
+            "preprocessed_cache_hit", "cache_hit_direct", //$NON-NLS-1$ //$NON-NLS-2$
+            "cache_hit_preprocessed" }; //$NON-NLS-1$
+    private static final String CCACHE_MISS_KEY = "cache_miss"; //$NON-NLS-1$
+
+    private static final Pattern SCCACHE_HITS = Pattern
+            .compile("^Cache hits\\s+(\\d+)\\s*$", Pattern.MULTILINE); //$NON-NLS-1$
+    private static final Pattern SCCACHE_MISSES = Pattern
+            .compile("^Cache misses\\s+(\\d+)\\s*$", Pattern.MULTILINE); //$NON-NLS-1$
+
+    private CompilerLauncher() {
+    }
+
+    /**
+     * Gets the languages cmake found a compiler for in the specified build
+     * directory.
+     *
+     * @param buildDir
+     *            the build directory
+     * @return the languages or {@code null} if the build directory is not
+     *         configured
+     */
+    static List<String> getLanguages(FilePath buildDir)
+            throws IOException, InterruptedException {
+        final FilePath cacheFile = buildDir.child("CMakeCache.txt"); //$NON-NLS-1$
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        final String[] keys = new String[LANGUAGES.length];
+        for (int i = 0; i < LANGUAGES.length; i++) {
+            keys[i] = getCompilerKey(LANGUAGES[i]);
+        }
+        return selectLanguages(cacheFile.act(new CacheEntriesParser(keys)));
+    }
+
+    /**
+     * Selects the languages that have a {@code CMAKE_<LANG>_COMPILER} entry.
+     *
+     * @param cacheEntries
+     *            the cache entries by key
+     */
+    static List<String> selectLanguages(Map<String, String> cacheEntries) {
+        final List<String> languages = new ArrayList<>(LANGUAGES.length);
+        for (String lang : LANGUAGES) {
+            final String compiler = cacheEntries.get(getCompilerKey(lang));
+            if (compiler != null && !compiler.isEmpty()) {
+                languages.add(lang);
+            }
+        }
+        return languages;
+    }
+
+    private static String getCompilerKey(String lang) {
+        return "CMAKE_" + lang + "_COMPILER"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Prepends the definitions of the {@code CMAKE_<LANG>_COMPILER_LAUNCHER}
+     * cache entries to the specified cmake arguments. Definitions are quoted
+     * as needed, since the arguments are split into tokens later.
+     *
+     * @param cmakeArgs
+     *            the cmake arguments or {@code null}
+     * @param compilerLauncher
+     *            the compiler launcher, e.g. {@code ccache}
+     * @param languages
+     *            the languages to define the launcher for
+     * @return the cmake arguments or {@code null} if there are none
+     * @see #getLanguages(FilePath)
+     */
+    static String addDefinitions(String cmakeArgs, String compilerLauncher,
+            List<String> languages) {
+        final StringBuilder sb = new StringBuilder();
+        for (String lang : languages) {
+            if (sb.length() > 0)
+                sb.append(' ');
+            // the arguments are tokenized later, keep a path with spaces
+            sb.append("-D ").append(PresetsLoader.quote("CMAKE_" + lang //$NON-NLS-1$ //$NON-NLS-2$
+                    + "_COMPILER_LAUNCHER=" + compilerLauncher)); //$NON-NLS-1$
+        }
+        if (cmakeArgs != null) {
+            if (sb.length() > 0)
+                sb.append(' ');
+            sb.append(cmakeArgs);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    /**
+     * Gets the environment variables that pass the specified launcher to the
+     * first configure of a build directory.
+     *
+     * @param compilerLauncher
+     *            the compiler launcher, e.g. {@code ccache}
+     * @return the variables and values
+     */
+    static Map<String, String> getEnvironment(String compilerLauncher) {
+        final Map<String, String> env = new LinkedHashMap<>();
+        for (String lang : LANGUAGES) {
+            env.put("CMAKE_" + lang + "_COMPILER_LAUNCHER", compilerLauncher); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return env;
+    }
+
+    /**
+     * Gets whether the statistics of the specified launcher can be read.
+     */
+    static boolean hasStats(String compilerLauncher) {
+        return getKind(compilerLauncher) != null;
+    }
+
+    /**
+     * Takes a snapshot of the cache statistics of the specified launcher.
+     *
+     * @param launcher
+     *            the launcher to run the compiler launcher on the node
+     * @param pwd
+     *            the working directory
+     * @param env
+     *            the environment of the build, which determines the cache
+     *            directory
+     * @param compilerLauncher
+     *            the compiler launcher
+     * @return the statistics or {@code null} if the launcher is neither
+     *         ccache nor sccache or the statistics cannot be read
+     */
+    static Stats snapshot(Launcher launcher, FilePath pwd,
+            Map<String, String> env, String compilerLauncher)
+            throws InterruptedException {
+        final String kind = getKind(compilerLauncher);
+        if (kind == null)
+            return null;
+        final ArgumentListBuilder args = new ArgumentListBuilder(
+                compilerLauncher);
+        args.add("sccache".equals(kind) ? "--show-stats" : "--print-stats"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (0 != launcher.launch().pwd(pwd).envs(env).cmds(args)
+                    .stdout(out).quiet(true).join()) {
+                return null;
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        final String text = new String(out.toByteArray(),
+                Charset.defaultCharset());
+        return "sccache".equals(kind) ? parseSccacheStats(text) //$NON-NLS-1$
+                : parseCcacheStats(text);
+    }
+
+    /**
+     * Gets the kind of the specified launcher from its file name.
+     *
+     * @return {@code "ccache"}, {@code "sccache"} or {@code null} if unknown
+     */
+    private static String getKind(String compilerLauncher) {
+        String name = compilerLauncher
+                .substring(Math.max(compilerLauncher.lastIndexOf('/'),
+                        compilerLauncher.lastIndexOf('\\')) + 1)
+                .toLowerCase(Locale.ROOT);
+        if (name.endsWith(".exe")) //$NON-NLS-1$
+            name = name.substring(0, name.length() - 4);
+        if (name.equals("sccache") || name.equals("ccache")) //$NON-NLS-1$ //$NON-NLS-2$
+            return name;
+        return null;
+    }
+
+    /**
+     * Parses the output of {@code ccache --print-stats} (ccache 3.7 and
+     * later), one tab-separated key and value per line.
+     *
+     * @return the statistics or {@code null} if the output holds no counters
+     */
+    static Stats parseCcacheStats(String text) {
+        long hits = 0;
+        long misses = -1;
+        try (BufferedReader reader = new BufferedReader(
+                new StringReader(text))) {
+            for (String line; (line = reader.readLine()) != null;) {
+                final int tab = line.indexOf('\t');
+                if (tab < 0)
+                    continue;
+                final String key = line.substring(0, tab);
+                final String value = line.substring(tab + 1).trim();
+                if (key.equals(CCACHE_MISS_KEY)) {
+                    misses = Long.parseLong(value);
+                } else {
+                    for (String hitKey : CCACHE_HIT_KEYS) {
+                        if (key.equals(hitKey))
+                            hits += Long.parseLong(value);
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            return null;
+        }
+        return misses < 0 ? null : new Stats(hits, misses);
+    }
+
+    /**
+     * Parses the output of {@code sccache --show-stats}.
+     *
+     * @return the statistics or {@code null} if the output holds no counters
+     */
+    static Stats parseSccacheStats(String text) {
+        final Matcher hits = SCCACHE_HITS.matcher(text);
+        final Matcher misses = SCCACHE_MISSES.matcher(text);
+        if (!hits.find() || !misses.find())
+            return null;
+        return new Stats(Long.parseLong(hits.group(1)),
+                Long.parseLong(misses.group(1)));
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The cache hits and misses of a compiler launcher.
+     */
+    public static class Stats implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long hits;
+        private final long misses;
+
+        Stats(long hits, long misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Gets the hit rate in percent.
+         *
+         * @return the hit rate or {@code 0} if there were no cacheable
+         *         compilations
+         */
+        public double getHitRate() {
+            final long total = hits + misses;
+            return total == 0 ? 0 : 100.0 * hits / total;
+        }
+
+        /**
+         * Gets the difference of these statistics and the specified former
+         * snapshot.
+         *
+         * @return the difference or these statistics, if the counters were
+         *         reset in between (e.g. the sccache server restarted)
+         */
+        Stats minus(Stats before) {
+            if (hits < before.hits || misses < before.misses)
+                return this;
+            return new Stats(hits - before.hits, misses - before.misses);
+        }
+
+        @Override
+        public String toString() {
+            return "Stats [hits=" + hits + ", misses=" + misses + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Fingerprints the effective inputs of a cmake invocation to allow to skip
+ * the invocation if the build directory is already configured from the same
+ * inputs.<br>
+ * The fingerprint consists of two parts: A hash of the command line (which
+ * holds the generator, the preload script, the build type, the tokenized
+ * arguments and the source directory) and the tool home, and a hash of the
+ * contents of the CMake listfiles the last configure read. The list of
+ * listfiles is taken from the files cmake generated for the build tool to
+ * re-run cmake by itself, which is {@code CMakeFiles/Makefile.cmake} for the
+ * Makefile generators and {@code build.ninja} for the Ninja generators. For
+ * other generators, the listfiles are unknown and configure is never skipped.
+ * <br>
+ * The fingerprint is stored in the build directory.
+ *
+ * @author Martin Weber
+ */
+class ConfigureFingerprint {
+
+    /** the file in the build directory that holds the fingerprint */
+    static final String FINGERPRINT_FILE = "CMakeFiles/cmakebuilder-configure.fingerprint"; //$NON-NLS-1$
+
+    /** the reasons to run cmake or not to run it */
+    enum Result {
+        /** the build dir is configured from the same inputs */
+        UNCHANGED,
+        /** the build dir was never configured or not with this option */
+        NOT_CONFIGURED,
+        /** the command line or the tool home changed */
+        INPUTS_CHANGED,
+        /** the content of a listfile changed */
+        LISTFILES_CHANGED,
+        /** the generator does not tell the listfiles */
+        LISTFILES_UNKNOWN
+    }
+
+    private ConfigureFingerprint() {
+    }
+
+    /**
+     * Computes the hash of the specified inputs.
+     *
+     * @param cmakeCall
+     *            the cmake command line
+     * @param toolHome
+     *            the home directory of the cmake installation or {@code null}
+     */
+    static String hashInputs(List<String> cmakeCall, String toolHome) {
+        final MessageDigest md = newDigest();
+        for (String arg : cmakeCall) {
+            update(md, arg);
+        }
+        update(md, "home=" + toolHome); //$NON-NLS-1$
+        return toHex(md.digest());
+    }
+
+    /**
+     * Computes the hash of the contents of the listfiles cmake recorded in the
+     * specified build directory.
+     *
+     * @return the hash or {@code null} if the listfiles are unknown
+     */
+    static String hashListfiles(File buildDir) throws IOException {
+        final List<String> listfiles = getListfiles(buildDir.toPath());
+        if (listfiles == null) {
+            return null;
+        }
+        final MessageDigest md = newDigest();
+        final byte[] buffer = new byte[8192];
+        for (String name : listfiles) {
+            update(md, name);
+            final Path file = buildDir.toPath().resolve(name);
+            try (InputStream is = Files.newInputStream(file)) {
+                for (int n; (n = is.read(buffer)) >= 0;) {
+                    md.update(buffer, 0, n);
+                }
+            } catch (NoSuchFileException ex) {
+                update(md, "<missing>"); //$NON-NLS-1$
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Gets the names of the listfiles cmake recorded in the specified build
+     * directory.
+     *
+     * @return the file names, relative to the build directory or absolute, or
+     *         {@code null} if the generator did not record them
+     */
+    static List<String> getListfiles(Path buildDir) throws IOException {
+        final Path makefileCmake = buildDir.resolve("CMakeFiles/Makefile.cmake"); //$NON-NLS-1$
+        if (Files.isRegularFile(makefileCmake)) {
+            return parseMakefileCmake(makefileCmake);
+        }
+        final Path buildNinja = buildDir.resolve("build.ninja"); //$NON-NLS-1$
+        if (Files.isRegularFile(buildNinja)) {
+            return parseBuildNinja(buildNinja);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the quoted file names of the {@code CMAKE_MAKEFILE_DEPENDS}
+     * variable.
+     */
+    private static List<String> parseMakefileCmake(Path file)
+            throws IOException {
+        final List<String> names = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            boolean inDepends = false;
+            for (String line; (line = reader.readLine()) != null;) {
+                line = line.trim();
+                if (!inDepends) {
+                    inDepends = line.startsWith("set(CMAKE_MAKEFILE_DEPENDS"); //$NON-NLS-1$
+                } else if (line.startsWith(")")) { //$NON-NLS-1$
+                    return names;
+                } else if (line.length() > 1 && line.charAt(0) == '"'
+                        && line.charAt(line.length() - 1) == '"') {
+                    names.add(line.substring(1, line.length() - 1));
+                }
+            }
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    /**
+     * Gets the implicit dependencies of the {@code RERUN_CMAKE} build
+     * statement.
+     */
+    private static List<String> parseBuildNinja(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            StringBuilder statement = null;
+            for (String line; (line = reader.readLine()) != null;) {
+                if (statement == null) {
+                    if (line.startsWith("build ") //$NON-NLS-1$
+                            && line.contains(": RERUN_CMAKE")) { //$NON-NLS-1$
+                        statement = new StringBuilder();
+                    } else {
+                        continue;
+                    }
+                }
+                // a '$' at the end of the line continues the line
+                if (line.endsWith("$") && !line.endsWith("$$")) { //$NON-NLS-1$ //$NON-NLS-2$
+                    statement.append(line, 0, line.length() - 1);
+                } else {
+                    statement.append(line);
+                    return splitNinjaDependencies(statement.toString());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits the implicit dependencies (the paths after the {@code '|'}) of
+     * a ninja build statement and resolves the ninja escape sequences.
+     */
+    private static List<String> splitNinjaDependencies(String statement) {
+        final List<String> names = new ArrayList<>();
+        final int rule = statement.indexOf(": RERUN_CMAKE"); //$NON-NLS-1$
+        final StringBuilder name = new StringBuilder();
+        boolean implicit = false;
+        for (int i = rule + 13; i < statement.length(); i++) {
+            final char c = statement.charAt(i);
+            if (c == '$' && i + 1 < statement.length()) {
+                // escaped character
+                name.append(statement.charAt(++i));
+            } else if (c == ' ') {
+                if (name.length() > 0) {
+                    final String token = name.toString();
+                    if (implicit) {
+                        names.add(token);
+                    } else if (token.equals("|")) { //$NON-NLS-1$
+                        implicit = true;
+                    } else if (token.equals("||")) { //$NON-NLS-1$
+                        break;
+                    }
+                    name.setLength(0);
+                }
+            } else {
+                name.append(c);
+            }
+        }
+        if (implicit && name.length() > 0 && !name.toString().equals("||")) { //$NON-NLS-1$
+            names.add(name.toString());
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE has SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void update(MessageDigest md, String value) {
+        md.update(value.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+
+    static String toHex(byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16))
+                    .append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Compares the fingerprint stored in a build directory with the current
+     * inputs.
+     */
+    static class Check extends MasterToSlaveFileCallable<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final String inputsHash;
+
+        /**
+         * @param inputsHash
+         *            the hash of the current inputs, see
+         *            {@link ConfigureFingerprint#hashInputs(List, String)}
+         */
+        Check(String inputsHash) {
+            this.inputsHash = inputsHash;
+        }
+
+        @Override
+        public Result invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final Path fingerprintFile = buildDir.toPath()
+                    .resolve(FINGERPRINT_FILE);
+            if (!Files.isRegularFile(fingerprintFile) || !Files.isRegularFile(
+                    buildDir.toPath().resolve(CacheTreeScanner.CACHE_FILE_NAME))) {
+                return Result.NOT_CONFIGURED;
+            }
+            final List<String> stored = Files.readAllLines(fingerprintFile,
+                    StandardCharsets.UTF_8);
+            if (stored.size() < 2 || !inputsHash.equals(stored.get(0))) {
+                return Result.INPUTS_CHANGED;
+            }
+            final String listfilesHash = hashListfiles(buildDir);
+            if (listfilesHash == null) {
+                return Result.LISTFILES_UNKNOWN;
+            }
+            return listfilesHash.equals(stored.get(1)) ? Result.UNCHANGED
+                    : Result.LISTFILES_CHANGED;
+        }
+    }
+
+    /**
+     * Stores the fingerprint in a build directory after cmake has been run.
+     * Removes a stale fingerprint if the listfiles are unknown.
+     */
+    static class Store extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final String inputsHash;
+
+        /**
+         * @param inputsHash
+         *            the hash of the inputs cmake was run with, see
+         *            {@link ConfigureFingerprint#hashInputs(List, String)}
+         */
+        Store(String inputsHash) {
+            this.inputsHash = inputsHash;
+        }
+
+        @Override
+        public Void invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final Path fingerprintFile = buildDir.toPath()
+                    .resolve(FINGERPRINT_FILE);
+            final String listfilesHash = hashListfiles(buildDir);
+            if (listfilesHash == null) {
+                Files.deleteIfExists(fingerprintFile);
+            } else {
+                Files.createDirectories(fingerprintFile.getParent());
+                final List<String> lines = new ArrayList<>(2);
+                lines.add(inputsHash);
+                lines.add(listfilesHash);
+                Files.write(fingerprintFile, lines, StandardCharsets.UTF_8);
+            }
+            return null;
+        }
+    }
+}
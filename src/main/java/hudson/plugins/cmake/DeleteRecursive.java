@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Deletes a directory tree on the node, like
+ * {@link hudson.FilePath#deleteRecursive()}, but deletes the subtrees in
+ * parallel on a fork-join pool. Since deleting files is mostly waiting for the
+ * file system, the pool is larger than the number of processors of the node.
+ * <br>
+ * Symbolic links are deleted, not followed. Each file is deleted through
+ * {@link Util#deleteFile(File)}, which retries deleting files that are
+ * transiently locked on Windows.<br>
+ * Interrupting the calling thread stops the deletion.
+ *
+ * @author Martin Weber
+ */
+class DeleteRecursive extends MasterToSlaveFileCallable<DeleteRecursive.Result> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the number of threads per processor used to delete files, system
+     * property
+     */
+    private static final int THREADS_PER_CPU = Integer.getInteger(
+            DeleteRecursive.class.getName() + ".threadsPerCpu", 2); //$NON-NLS-1$
+
+    /**
+     * Deletes the directory tree.
+     *
+     * @return the statistics, never {@code null}
+     */
+    @Override
+    public Result invoke(File dir, VirtualChannel channel)
+            throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final Path root = dir.toPath();
+        if (Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            final int parallelism = Runtime.getRuntime().availableProcessors()
+                    * THREADS_PER_CPU;
+            final ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            final AtomicBoolean cancelled = new AtomicBoolean();
+            try {
+                pool.submit(new DeleteAction(root, files, bytes, cancelled))
+                        .get();
+            } catch (InterruptedException ex) {
+                cancelled.set(true);
+                throw ex;
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof UncheckedIOException)
+                    throw ((UncheckedIOException) cause).getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IOException(cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return new Result(files.sum(), bytes.sum(),
+                (System.nanoTime() - start) / 1000000L);
+    }
+
+    /**
+     * Deletes a single file or empty directory.
+     */
+    private static void delete(Path path) throws IOException {
+        Util.deleteFile(path.toFile());
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The statistics of a deletion.
+     */
+    static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long files;
+        private final long bytes;
+        private final long millis;
+
+        Result(long files, long bytes, long millis) {
+            this.files = files;
+            this.bytes = bytes;
+            this.millis = millis;
+        }
+
+        /**
+         * Gets the number of files deleted, not counting directories.
+         */
+        long getFiles() {
+            return files;
+        }
+
+        /**
+         * Gets the sum of the sizes of the files deleted.
+         */
+        long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets the elapsed time in milliseconds.
+         */
+        long getMillis() {
+            return millis;
+        }
+    }
+
+    /**
+     * Deletes a directory and forks an action for each subdirectory.
+     */
+    private static class DeleteAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path path;
+        private final LongAdder files;
+        private final LongAdder bytes;
+        /** set if the deletion is cancelled */
+        private final AtomicBoolean cancelled;
+
+        DeleteAction(Path path, LongAdder files, LongAdder bytes,
+                AtomicBoolean cancelled) {
+            this.path = path;
+            this.files = files;
+            this.bytes = bytes;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * Throws a CancellationException if the deletion was cancelled or
+         * the worker thread was interrupted.
+         */
+        private void checkCancelled() {
+            if (cancelled.get() || Thread.interrupted()) {
+                cancelled.set(true);
+                throw new CancellationException();
+            }
+        }
+
+        @Override
+        protected void compute() {
+            checkCancelled();
+            try {
+                final BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path,
+                            BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException ex) {
+                    return;
+                }
+                if (attrs.isDirectory()) {
+                    final List<DeleteAction> subdirs = new ArrayList<>();
+                    try (DirectoryStream<Path> entries = Files
+                            .newDirectoryStream(path)) {
+                        for (Path entry : entries) {
+                            checkCancelled();
+                            final BasicFileAttributes entryAttrs = Files
+                                    .readAttributes(entry,
+                                            BasicFileAttributes.class,
+                                            LinkOption.NOFOLLOW_LINKS);
+                            if (entryAttrs.isDirectory()) {
+                                subdirs.add(new DeleteAction(entry, files,
+                                        bytes, cancelled));
+                            } else {
+                                delete(entry);
+                                files.increment();
+                                bytes.add(entryAttrs.size());
+                            }
+                        }
+                    }
+                    invokeAll(subdirs);
+                } else {
+                    files.increment();
+                    bytes.add(attrs.size());
+                }
+                delete(path);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import hudson.EnvVars;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+
+/**
+ * Contributes the cmake cache entries exported by the pipeline step to the
+ * environment of the build, so they show up in the pipeline {@code env} and
+ * in the environment of later steps.
+ *
+ * @author Martin Weber
+ */
+public class ExportedCacheEntriesAction extends InvisibleAction
+        implements EnvironmentContributingAction {
+
+    private final Map<String, String> entries = new TreeMap<>();
+
+    /**
+     * Adds the specified entries to the environment of the specified build.
+     * Entries exported by a former step are overridden.
+     *
+     * @param run
+     *            the build
+     * @param entries
+     *            the cache entries to export
+     */
+    static void export(Run<?, ?> run, Map<String, String> entries) {
+        if (entries.isEmpty())
+            return;
+        synchronized (run) {
+            ExportedCacheEntriesAction action = run
+                    .getAction(ExportedCacheEntriesAction.class);
+            if (action == null) {
+                action = new ExportedCacheEntriesAction();
+                run.addAction(action);
+            }
+            synchronized (action.entries) {
+                action.entries.putAll(entries);
+            }
+        }
+    }
+
+    @Override
+    public void buildEnvironment(Run<?, ?> run, EnvVars env) {
+        synchronized (entries) {
+            env.putAll(entries);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.NullStream;
+
+/**
+ * Selects the generator for the {@value #AUTO} generator setting. Probes a
+ * node for the build tools of the generators that build fastest (ninja, then
+ * jom on Windows) and whether cmake supports the {@code Ninja Multi-Config}
+ * generator. The tools are run through the launcher of the build, so that
+ * the probe sees what cmake sees, e.g. inside a container. The result is
+ * cached per computer until the computer reconnects, unless the launcher is
+ * decorated.
+ *
+ * @author Martin Weber
+ */
+class GeneratorProbe {
+
+    /** the generator setting that selects the generator by probing */
+    static final String AUTO = "auto"; //$NON-NLS-1$
+
+    /** the names of the ninja executable, in order of preference */
+    private static final String[] NINJA_NAMES = { "ninja", "ninja-build" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** the seconds to wait for a probed tool to exit, system property */
+    static final int TIMEOUT_SECONDS = Integer.getInteger(
+            GeneratorProbe.class.getName() + ".timeout", 30); //$NON-NLS-1$
+    /** the generator a build directory was configured with */
+    private static final String CMAKE_GENERATOR = "CMAKE_GENERATOR"; //$NON-NLS-1$
+
+    /** the cached results by computer */
+    private static final Map<Computer, Cached> cache = new WeakHashMap<>();
+
+    private GeneratorProbe() {
+    }
+
+    /**
+     * Selects the generator for the specified computer and logs the choice.
+     *
+     * @param computer
+     *            the computer to run cmake on or {@code null} if unknown,
+     *            which disables caching
+     * @param launcher
+     *            the launcher to run the probed tools with
+     * @param cmakeBin
+     *            the cmake executable
+     * @param env
+     *            the environment cmake is run in
+     * @return the result, never {@code null}
+     */
+    static Result select(Computer computer, Launcher launcher, String cmakeBin,
+            Map<String, String> env, TaskListener listener)
+            throws IOException, InterruptedException {
+        final Result result = probe(computer, launcher, cmakeBin, env);
+        if (result.getGenerator() != null) {
+            listener.getLogger().printf(
+                    Messages.getString("GeneratorProbe.Selected"), //$NON-NLS-1$
+                    result.getGenerator(), result.getBuildTool());
+        } else {
+            listener.getLogger()
+                    .printf(Messages.getString("GeneratorProbe.Default")); //$NON-NLS-1$
+        }
+        return result;
+    }
+
+    /**
+     * Gets the generator to configure the specified build directory with.
+     * Once cmake configured a build directory, it refuses to switch the
+     * generator, so the generator recorded in an existing cache wins over the
+     * selected one.
+     *
+     * @param buildDir
+     *            the build directory
+     * @param selected
+     *            the generator selected by probing or {@code null}
+     * @return the generator, may be {@code null}
+     */
+    static String keepConfigured(FilePath buildDir, String selected,
+            TaskListener listener) throws IOException, InterruptedException {
+        final FilePath cacheFile = buildDir.child("CMakeCache.txt"); //$NON-NLS-1$
+        if (!cacheFile.exists()) {
+            return selected;
+        }
+        final String configured = cacheFile
+                .act(new CacheEntriesParser(CMAKE_GENERATOR))
+                .get(CMAKE_GENERATOR);
+        if (configured == null || configured.isEmpty()
+                || configured.equals(selected)) {
+            return selected;
+        }
+        listener.getLogger().printf(
+                Messages.getString("GeneratorProbe.Configured"), //$NON-NLS-1$
+                configured);
+        return configured;
+    }
+
+    /**
+     * Probes the specified computer or gets the cached result.
+     */
+    private static Result probe(Computer computer, Launcher launcher,
+            String cmakeBin, Map<String, String> env)
+            throws IOException, InterruptedException {
+        final VirtualChannel channel = launcher.getChannel();
+        if (channel == null) {
+            throw new IOException("Node is offline"); //$NON-NLS-1$
+        }
+        // a decorated launcher may run the tools elsewhere, e.g. in a
+        // container of the build
+        final boolean cacheable = computer != null
+                && !(launcher instanceof Launcher.DecoratedLauncher);
+        final String key = cmakeBin + File.pathSeparator + env.get("PATH"); //$NON-NLS-1$
+        if (cacheable) {
+            synchronized (cache) {
+                final Cached cached = cache.get(computer);
+                if (cached != null && cached.channel == channel
+                        && cached.key.equals(key)) {
+                    return cached.result;
+                }
+            }
+        }
+        String ninja = null;
+        for (String name : NINJA_NAMES) {
+            if (0 == run(launcher, env, null, name, "--version")) { //$NON-NLS-1$
+                ninja = name;
+                break;
+            }
+        }
+        final boolean windows = !launcher.isUnix();
+        String jom = null;
+        if (windows && ninja == null
+                && 0 == run(launcher, env, null, "jom", "/VERSION")) { //$NON-NLS-1$ //$NON-NLS-2$
+            jom = "jom"; //$NON-NLS-1$
+        }
+        boolean multiConfig = false;
+        if (ninja != null) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (0 == run(launcher, env, out, cmakeBin, "--help")) { //$NON-NLS-1$
+                multiConfig = listsMultiConfig(
+                        new String(out.toByteArray(), Charset.defaultCharset()));
+            }
+        }
+        final Result result = choose(windows, ninja, jom, multiConfig);
+        if (cacheable) {
+            synchronized (cache) {
+                cache.put(computer, new Cached(channel, key, result));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the specified tool and waits at most {@link #TIMEOUT_SECONDS} for
+     * it to exit.
+     *
+     * @param out
+     *            the stream to receive the output or {@code null} to
+     *            discard it
+     * @return the exit code, non-zero if the tool was not found or was killed
+     */
+    private static int run(Launcher launcher, Map<String, String> env,
+            OutputStream out, String... cmd) throws InterruptedException {
+        final OutputStream stdout = out == null ? new NullStream() : out;
+        try {
+            return launcher.launch().envs(env)
+                    .cmds(new ArgumentListBuilder(cmd)).stdout(stdout)
+                    .stderr(stdout).quiet(true).start()
+                    .joinWithTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                            TaskListener.NULL);
+        } catch (IOException ex) {
+            // not found
+            return -1;
+        }
+    }
+
+    /**
+     * Gets whether the specified output of {@code cmake --help} lists the
+     * Ninja Multi-Config generator (cmake 3.17 and later).
+     */
+    static boolean listsMultiConfig(String help) {
+        for (String line : help.split("\\r?\\n")) { //$NON-NLS-1$
+            if (line.trim().startsWith("Ninja Multi-Config")) //$NON-NLS-1$
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Chooses the generator from the build tools found.
+     *
+     * @param windows
+     *            whether the node runs Windows
+     * @param ninja
+     *            the command of ninja or {@code null}
+     * @param jom
+     *            the command of jom or {@code null}
+     * @param multiConfig
+     *            whether cmake supports the Ninja Multi-Config generator
+     */
+    static Result choose(boolean windows, String ninja, String jom,
+            boolean multiConfig) {
+        if (ninja != null) {
+            return new Result("Ninja", ninja, multiConfig); //$NON-NLS-1$
+        }
+        if (windows && jom != null) {
+            return new Result("NMake Makefiles JOM", jom, false); //$NON-NLS-1$
+        }
+        return new Result(null, null, false);
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The generator chosen for a node.
+     */
+    static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String generator;
+        private final String buildTool;
+        private final boolean multiConfig;
+
+        Result(String generator, String buildTool, boolean multiConfig) {
+            this.generator = generator;
+            this.buildTool = buildTool;
+            this.multiConfig = multiConfig;
+        }
+
+        /**
+         * Gets the name of the generator.
+         *
+         * @return the name or {@code null} to let cmake choose
+         */
+        String getGenerator() {
+            return generator;
+        }
+
+        /**
+         * Gets the command of the build tool of the generator.
+         *
+         * @return the command or {@code null} if cmake chooses the generator
+         */
+        String getBuildTool() {
+            return buildTool;
+        }
+
+        /**
+         * Gets whether the {@code Ninja Multi-Config} generator is available,
+         * i.e. ninja was found and cmake supports the generator.
+         */
+        boolean isMultiConfigAvailable() {
+            return multiConfig;
+        }
+    }
+
+    /** a cached result */
+    private static class Cached {
+        /** the channel of the computer the result was probed on */
+        final VirtualChannel channel;
+        final String key;
+        final Result result;
+
+        Cached(VirtualChannel channel, String key, Result result) {
+            this.channel = channel;
+            this.key = key;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import hudson.model.TaskListener;
+
+/**
+ * Generates the definitions of Ninja job pools for the compile and link steps
+ * of a build, sized from the physical memory of the node. The pools cap the
+ * number of concurrent jobs of memory-hungry steps (e.g. linking with LTO)
+ * while the number of all other jobs is left to the build tool.<br>
+ * The definitions are passed to cmake as {@code CMAKE_JOB_POOLS},
+ * {@code CMAKE_JOB_POOL_COMPILE} and {@code CMAKE_JOB_POOL_LINK}, which are
+ * honored by the Ninja generators only.
+ *
+ * @author Martin Weber
+ */
+class JobPools {
+
+    /** the name of the job pool for compile steps */
+    static final String COMPILE_POOL = "cmakebuilder_compile"; //$NON-NLS-1$
+    /** the name of the job pool for link steps */
+    static final String LINK_POOL = "cmakebuilder_link"; //$NON-NLS-1$
+
+    private JobPools() {
+    }
+
+    /**
+     * Computes the size of a job pool.
+     *
+     * @param processors
+     *            the number of processors of the node
+     * @param totalMemory
+     *            the physical memory of the node in bytes or a negative value
+     *            if unknown
+     * @param memoryPerJob
+     *            the memory one job of the pool needs in bytes
+     * @return the number of jobs, at least {@code 1}
+     */
+    static int computeSize(int processors, long totalMemory,
+            long memoryPerJob) {
+        return BuildToolStep.computeJobs(processors, totalMemory, memoryPerJob);
+    }
+
+    /**
+     * Prepends the job pool definitions to the specified cmake arguments, so
+     * the arguments may override them. Logs the sizes of the pools.
+     *
+     * @param cmakeArgs
+     *            the cmake arguments or {@code null}
+     * @param resources
+     *            the resources of the node
+     * @param compileJobMemory
+     *            the memory of a compile job in MiB or {@code 0} to not
+     *            define a compile pool
+     * @param linkJobMemory
+     *            the memory of a link job in MiB or {@code 0} to not define a
+     *            link pool
+     * @return the arguments, never {@code null}
+     */
+    static String addDefinitions(String cmakeArgs, NodeResources resources,
+            int compileJobMemory, int linkJobMemory, TaskListener listener) {
+        final StringBuilder pools = new StringBuilder();
+        final StringBuilder args = new StringBuilder();
+        if (compileJobMemory > 0) {
+            final int size = computeSize(resources.getProcessors(),
+                    resources.getTotalMemory(),
+                    compileJobMemory * NodeResources.MIB);
+            pools.append(COMPILE_POOL).append('=').append(size);
+            args.append(" -D CMAKE_JOB_POOL_COMPILE=").append(COMPILE_POOL); //$NON-NLS-1$
+            log(listener, COMPILE_POOL, size, compileJobMemory, resources);
+        }
+        if (linkJobMemory > 0) {
+            final int size = computeSize(resources.getProcessors(),
+                    resources.getTotalMemory(),
+                    linkJobMemory * NodeResources.MIB);
+            if (pools.length() > 0)
+                pools.append(';');
+            pools.append(LINK_POOL).append('=').append(size);
+            args.append(" -D CMAKE_JOB_POOL_LINK=").append(LINK_POOL); //$NON-NLS-1$
+            log(listener, LINK_POOL, size, linkJobMemory, resources);
+        }
+        if (pools.length() == 0)
+            return cmakeArgs == null ? "" : cmakeArgs; //$NON-NLS-1$
+        args.insert(0, "-D CMAKE_JOB_POOLS=" + pools); //$NON-NLS-1$
+        if (cmakeArgs != null)
+            args.append(' ').append(cmakeArgs);
+        return args.toString();
+    }
+
+    private static void log(TaskListener listener, String pool, int size,
+            int memoryPerJob, NodeResources resources) {
+        final long total = resources.getTotalMemory();
+        listener.getLogger().printf(Messages.getString("JobPools.Pool"), //$NON-NLS-1$
+                pool, size, memoryPerJob,
+                total < 0 ? "?" : Long.toString(total / NodeResources.MIB), //$NON-NLS-1$
+                resources.getProcessors());
+    }
+}
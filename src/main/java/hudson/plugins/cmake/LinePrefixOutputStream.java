@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * An output stream that writes each line to a shared print stream, preceded
+ * by a prefix. Complete lines are written atomically, so the output of
+ * processes that run concurrently can be told apart in the log.
+ *
+ * @author Martin Weber
+ */
+class LinePrefixOutputStream extends OutputStream {
+
+    private final PrintStream target;
+    private final byte[] prefix;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+    /**
+     * @param target
+     *            the stream to write to, used as the lock for writing a line
+     * @param prefix
+     *            the prefix of each line
+     * @param charset
+     *            the charset to encode the prefix
+     */
+    LinePrefixOutputStream(PrintStream target, String prefix,
+            Charset charset) {
+        this.target = target;
+        this.prefix = prefix.getBytes(charset);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        line.write(b);
+        if (b == '\n') {
+            writeLine();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int start = off;
+        final int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                line.write(b, start, i + 1 - start);
+                writeLine();
+                start = i + 1;
+            }
+        }
+        line.write(b, start, end - start);
+    }
+
+    /**
+     * Writes an incomplete last line, terminated by a newline.
+     */
+    @Override
+    public void close() throws IOException {
+        if (line.size() > 0) {
+            line.write('\n');
+            writeLine();
+        }
+    }
+
+    private void writeLine() {
+        synchronized (target) {
+            target.write(prefix, 0, prefix.length);
+            target.write(line.toByteArray(), 0, line.size());
+            target.flush();
+        }
+        line.reset();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * The processors and the physical memory of a node, to size the parallelism
+ * of a build. Memory limits of a Linux control group (container) the agent
+ * runs in are taken into account.
+ *
+ * @author Martin Weber
+ */
+class NodeResources implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** one mebibyte */
+    static final long MIB = 1024L * 1024L;
+
+    private final int processors;
+    private final long totalMemory;
+    private final long availableMemory;
+
+    NodeResources(int processors, long totalMemory, long availableMemory) {
+        this.processors = processors;
+        this.totalMemory = totalMemory;
+        this.availableMemory = availableMemory;
+    }
+
+    /**
+     * Gets the number of processors available to the agent JVM.
+     */
+    int getProcessors() {
+        return processors;
+    }
+
+    /**
+     * Gets the size of the physical memory in bytes.
+     *
+     * @return the size or {@code -1} if unknown
+     */
+    long getTotalMemory() {
+        return totalMemory;
+    }
+
+    /**
+     * Gets the size of the physical memory that is available for new
+     * processes without swapping, in bytes.
+     *
+     * @return the size or {@code -1} if unknown
+     */
+    long getAvailableMemory() {
+        return availableMemory;
+    }
+
+    /**
+     * Gets an equal share of these resources, for builds that run
+     * concurrently on the node.
+     *
+     * @param builds
+     *            the number of builds that share the resources
+     * @return the share, with at least one processor
+     */
+    NodeResources share(int builds) {
+        return new NodeResources(Math.max(1, processors / builds),
+                totalMemory < 0 ? -1 : totalMemory / builds,
+                availableMemory < 0 ? -1 : availableMemory / builds);
+    }
+
+    /**
+     * Reads the value of the specified key from {@code /proc/meminfo}.
+     *
+     * @return the value in bytes or {@code -1} if unknown
+     */
+    static long readMeminfo(Path meminfo, String key) throws IOException {
+        if (!Files.isReadable(meminfo))
+            return -1;
+        try (BufferedReader reader = Files.newBufferedReader(meminfo,
+                StandardCharsets.US_ASCII)) {
+            for (String line; (line = reader.readLine()) != null;) {
+                if (line.startsWith(key) && line.length() > key.length()
+                        && line.charAt(key.length()) == ':') {
+                    // e.g. 'MemAvailable:   12345678 kB'
+                    final String[] parts = line.substring(key.length() + 1)
+                            .trim().split("\\s+"); //$NON-NLS-1$
+                    final long value = Long.parseLong(parts[0]);
+                    return parts.length > 1 && parts[1].equals("kB") //$NON-NLS-1$
+                            ? value * 1024L
+                            : value;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            // ignore, unknown format
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a number from a control group file.
+     *
+     * @return the number or {@code -1} if the file does not exist or holds no
+     *         limit
+     */
+    static long readCgroupValue(Path file) throws IOException {
+        if (!Files.isReadable(file))
+            return -1;
+        final String value = new String(Files.readAllBytes(file),
+                StandardCharsets.US_ASCII).trim();
+        try {
+            final long limit = Long.parseLong(value);
+            // cgroup v1 reports 'no limit' as a huge number
+            return limit >= Long.MAX_VALUE / 2 ? -1 : limit;
+        } catch (NumberFormatException ex) {
+            return -1; // 'max'
+        }
+    }
+
+    /**
+     * Gets the smaller of two sizes that may be unknown.
+     */
+    private static long min(long a, long b) {
+        if (a < 0)
+            return b;
+        if (b < 0)
+            return a;
+        return Math.min(a, b);
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Gets the resources of the node it is run on.
+     */
+    static class Probe extends MasterToSlaveCallable<NodeResources, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public NodeResources call() throws IOException {
+            long total = -1;
+            long available = -1;
+            final OperatingSystemMXBean os = ManagementFactory
+                    .getOperatingSystemMXBean();
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                final com.sun.management.OperatingSystemMXBean sunOs = (com.sun.management.OperatingSystemMXBean) os;
+                total = sunOs.getTotalPhysicalMemorySize();
+                available = sunOs.getFreePhysicalMemorySize();
+            }
+            // on Linux, the free memory does not include the page cache
+            final Path meminfo = Paths.get("/proc/meminfo"); //$NON-NLS-1$
+            final long memAvailable = readMeminfo(meminfo, "MemAvailable"); //$NON-NLS-1$
+            if (memAvailable >= 0) {
+                available = memAvailable;
+                total = readMeminfo(meminfo, "MemTotal"); //$NON-NLS-1$
+            }
+            // memory limit of the container
+            final Path cgroup = Paths.get("/sys/fs/cgroup"); //$NON-NLS-1$
+            long limit = readCgroupValue(cgroup.resolve("memory.max")); //$NON-NLS-1$
+            long usage = readCgroupValue(cgroup.resolve("memory.current")); //$NON-NLS-1$
+            if (limit < 0) {
+                limit = readCgroupValue(
+                        cgroup.resolve("memory/memory.limit_in_bytes")); //$NON-NLS-1$
+                usage = readCgroupValue(
+                        cgroup.resolve("memory/memory.usage_in_bytes")); //$NON-NLS-1$
+            }
+            if (limit >= 0) {
+                total = min(total, limit);
+                if (usage >= 0)
+                    available = min(available, Math.max(0, limit - usage));
+            }
+            return new NodeResources(Runtime.getRuntime().availableProcessors(),
+                    total, available);
+        }
+    }
+}
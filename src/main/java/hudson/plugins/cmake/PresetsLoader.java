@@ -0,0 +1,368 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.marw.cmake.presets.BuildPreset;
+import de.marw.cmake.presets.ConfigurePreset;
+import de.marw.cmake.presets.Preset;
+import de.marw.cmake.presets.PresetMacros;
+import de.marw.cmake.presets.Presets;
+import de.marw.cmake.presets.PresetsReader;
+import de.marw.cmake.presets.TestPreset;
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Loads the CMake presets of a source tree on the node and translates the
+ * presets a step uses into the arguments of cmake, the build tool step and
+ * the arguments of ctest. Passing the settings explicitly instead of
+ * {@code --preset} lets the plugin skip unchanged configures, seed and pool
+ * build directories and size the parallelism of the build tool.<br>
+ * The presets are read and resolved on the node and cached there per source
+ * directory; a cached result is used as long as the SHA-256 hashes of the
+ * presets files and the files they include are unchanged. Unlike their
+ * modification times, the hashes do not depend on how the files were checked
+ * out.
+ *
+ * @author Martin Weber
+ */
+class PresetsLoader {
+
+    /** the maximum number of source directories to cache presets of */
+    private static final int MAX_CACHED = 64;
+
+    private PresetsLoader() {
+    }
+
+    /**
+     * Loads the presets of the specified source directory.
+     *
+     * @return the presets, never {@code null}
+     * @throws AbortException
+     *             if the source directory has no presets file
+     */
+    static Presets load(FilePath sourceDir)
+            throws IOException, InterruptedException {
+        final Presets presets = sourceDir.act(new Load());
+        if (presets == null) {
+            throw new AbortException(String.format(
+                    Messages.getString("PresetsLoader.No_presets"), //$NON-NLS-1$
+                    PresetsReader.PRESETS_FILE, PresetsReader.USER_PRESETS_FILE,
+                    sourceDir.getRemote()));
+        }
+        return presets;
+    }
+
+    /**
+     * Gets the preset with the specified name.
+     *
+     * @param kind
+     *            the kind of the preset for messages, e.g. {@code build}
+     * @param name
+     *            the name of the preset or {@code null}
+     * @return the preset or {@code null} if the name is {@code null}
+     * @throws AbortException
+     *             if there is no such preset or the preset is hidden
+     */
+    static <P extends Preset> P select(Map<String, P> presets, String kind,
+            String name) throws AbortException {
+        if (name == null)
+            return null;
+        final P preset = presets.get(name);
+        if (preset == null) {
+            throw new AbortException(String.format(
+                    Messages.getString("PresetsLoader.Unknown_preset"), //$NON-NLS-1$
+                    kind, name, presets.keySet()));
+        }
+        if (preset.isHidden()) {
+            throw new AbortException(String.format(
+                    Messages.getString("PresetsLoader.Hidden_preset"), //$NON-NLS-1$
+                    kind, name));
+        }
+        return preset;
+    }
+
+    /**
+     * Gets the values of the {@code ${name}} macros of the specified preset.
+     *
+     * @param sourceDir
+     *            the top-level source directory
+     * @param generator
+     *            the generator or {@code null}
+     * @param osName
+     *            the {@code os.name} system property of the node
+     */
+    static Map<String, String> getMacros(FilePath sourceDir, Preset preset,
+            String generator, String osName) {
+        final Map<String, String> macros = new HashMap<>();
+        macros.put("sourceDir", sourceDir.getRemote()); //$NON-NLS-1$
+        final FilePath parent = sourceDir.getParent();
+        if (parent != null)
+            macros.put("sourceParentDir", parent.getRemote()); //$NON-NLS-1$
+        macros.put("sourceDirName", sourceDir.getName()); //$NON-NLS-1$
+        macros.put("presetName", preset.getName()); //$NON-NLS-1$
+        if (generator != null)
+            macros.put("generator", generator); //$NON-NLS-1$
+        macros.put("fileDir", preset.getFileDir()); //$NON-NLS-1$
+        final String hostSystemName = getHostSystemName(osName);
+        macros.put("hostSystemName", hostSystemName); //$NON-NLS-1$
+        macros.put("pathListSep", //$NON-NLS-1$
+                "Windows".equals(hostSystemName) ? ";" : ":"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        return macros;
+    }
+
+    /**
+     * Gets the value cmake reports as {@code CMAKE_HOST_SYSTEM_NAME} for the
+     * specified {@code os.name} system property.
+     */
+    static String getHostSystemName(String osName) {
+        if (osName == null)
+            return ""; //$NON-NLS-1$
+        if (osName.startsWith("Windows")) //$NON-NLS-1$
+            return "Windows"; //$NON-NLS-1$
+        if (osName.startsWith("Mac")) //$NON-NLS-1$
+            return "Darwin"; //$NON-NLS-1$
+        return osName;
+    }
+
+    /**
+     * Gets the cmake arguments that define the cache variables, the
+     * toolchain file and the installation directory of the specified
+     * configure preset.
+     */
+    static List<String> toCmakeArgs(ConfigurePreset preset,
+            PresetMacros macros) throws IOException {
+        final List<String> args = new ArrayList<>();
+        for (Map.Entry<String, ConfigurePreset.CacheVariable> entry : preset
+                .getCacheVariables().entrySet()) {
+            final ConfigurePreset.CacheVariable variable = entry.getValue();
+            if (variable == null)
+                continue; // not set
+            args.add("-D" + entry.getKey() //$NON-NLS-1$
+                    + (variable.getType() == null ? "" //$NON-NLS-1$
+                            : ":" + variable.getType()) //$NON-NLS-1$
+                    + "=" + macros.expand(variable.getValue())); //$NON-NLS-1$
+        }
+        if (preset.getToolchainFile() != null) {
+            args.add("-DCMAKE_TOOLCHAIN_FILE:FILEPATH=" //$NON-NLS-1$
+                    + macros.expand(preset.getToolchainFile()));
+        }
+        if (preset.getInstallDir() != null) {
+            args.add("-DCMAKE_INSTALL_PREFIX:PATH=" //$NON-NLS-1$
+                    + macros.expand(preset.getInstallDir()));
+        }
+        return args;
+    }
+
+    /**
+     * Creates the build tool step that builds the specified build preset
+     * through {@code cmake --build}. The number of parallel jobs is that of
+     * the preset or, if it does not specify one, computed from the
+     * resources of the node.
+     */
+    static BuildToolStep toBuildToolStep(BuildPreset preset) {
+        final List<String> args = new ArrayList<>();
+        if (preset.getTargets() != null && !preset.getTargets().isEmpty()) {
+            args.add("--target"); //$NON-NLS-1$
+            args.addAll(preset.getTargets());
+        }
+        if (preset.getConfiguration() != null) {
+            args.add("--config"); //$NON-NLS-1$
+            args.add(preset.getConfiguration());
+        }
+        if (preset.isCleanFirst())
+            args.add("--clean-first"); //$NON-NLS-1$
+        if (preset.isVerbose())
+            args.add("--verbose"); //$NON-NLS-1$
+        if (preset.getNativeToolOptions() != null
+                && !preset.getNativeToolOptions().isEmpty()) {
+            args.add("--"); //$NON-NLS-1$
+            args.addAll(preset.getNativeToolOptions());
+        }
+        final BuildToolStep step = new BuildToolStep();
+        step.setWithCmake(true);
+        step.setArgs(join(args));
+        final Integer jobs = preset.getJobs();
+        step.setParallelism(jobs != null && jobs > 0 ? jobs.toString()
+                : BuildToolStep.AUTO_PARALLELISM);
+        return step;
+    }
+
+    /**
+     * Gets the ctest arguments of the specified test preset.
+     *
+     * @param processors
+     *            the number of tests to run in parallel if the preset does
+     *            not specify it
+     */
+    static List<String> toCtestArgs(TestPreset preset, int processors) {
+        final List<String> args = new ArrayList<>();
+        if (preset.getConfiguration() != null) {
+            args.add("-C"); //$NON-NLS-1$
+            args.add(preset.getConfiguration());
+        }
+        final Integer jobs = preset.getJobs();
+        args.add("-j"); //$NON-NLS-1$
+        args.add(Integer.toString(jobs != null && jobs > 0 ? jobs : processors));
+        if (preset.isOutputOnFailure())
+            args.add("--output-on-failure"); //$NON-NLS-1$
+        if (preset.isStopOnFailure())
+            args.add("--stop-on-failure"); //$NON-NLS-1$
+        if (preset.getTimeout() != null) {
+            args.add("--timeout"); //$NON-NLS-1$
+            args.add(preset.getTimeout().toString());
+        }
+        addOption(args, "-R", preset.getIncludeName()); //$NON-NLS-1$
+        addOption(args, "-L", preset.getIncludeLabel()); //$NON-NLS-1$
+        addOption(args, "-E", preset.getExcludeName()); //$NON-NLS-1$
+        addOption(args, "-LE", preset.getExcludeLabel()); //$NON-NLS-1$
+        return args;
+    }
+
+    private static void addOption(List<String> args, String option,
+            String value) {
+        if (value != null) {
+            args.add(option);
+            args.add(value);
+        }
+    }
+
+    /**
+     * Gets the path of the specified directory relative to the workspace.
+     *
+     * @return the relative path or the absolute path if the directory is not
+     *         below the workspace
+     */
+    static String relativize(String workSpace, String dir) {
+        if (dir.length() > workSpace.length() + 1 && dir.startsWith(workSpace)) {
+            final char sep = dir.charAt(workSpace.length());
+            if (sep == '/' || sep == '\\')
+                return dir.substring(workSpace.length() + 1);
+        }
+        return dir;
+    }
+
+    /**
+     * Joins the specified arguments to a string that
+     * {@link hudson.Util#tokenize(String)} splits into the same arguments.
+     */
+    static String join(List<String> args) {
+        final StringBuilder sb = new StringBuilder();
+        for (String arg : args) {
+            if (sb.length() > 0)
+                sb.append(' ');
+            sb.append(quote(arg));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Quotes the specified argument if it is empty or holds white space,
+     * quotes or backslashes.
+     */
+    static String quote(String arg) {
+        if (!arg.isEmpty() && !arg.matches(".*[\\s\"'\\\\].*")) //$NON-NLS-1$
+            return arg;
+        final StringBuilder sb = new StringBuilder(arg.length() + 2)
+                .append('"');
+        for (int i = 0; i < arg.length(); i++) {
+            final char c = arg.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\');
+            sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Reads the presets of a source directory or gets them from the cache.
+     */
+    static class Load extends MasterToSlaveFileCallable<Presets> {
+        private static final long serialVersionUID = 1L;
+
+        /** the presets by source directory, least recently used first */
+        private static final Map<String, Presets> cache = new LinkedHashMap<String, Presets>(
+                16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Presets> eldest) {
+                return size() > MAX_CACHED;
+            }
+        };
+
+        /**
+         * @return the presets or {@code null} if the directory has no presets
+         *         file
+         */
+        @Override
+        public Presets invoke(File dir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            return load(dir.toPath());
+        }
+
+        static Presets load(Path sourceDir) throws IOException {
+            final String key = sourceDir.toAbsolutePath().normalize()
+                    .toString();
+            Presets presets;
+            synchronized (cache) {
+                presets = cache.get(key);
+            }
+            if (presets != null && isCurrent(presets, sourceDir))
+                return presets;
+            presets = PresetsReader.read(sourceDir);
+            synchronized (cache) {
+                if (presets == null) {
+                    cache.remove(key);
+                } else {
+                    cache.put(key, presets);
+                }
+            }
+            return presets;
+        }
+
+        /**
+         * Gets whether the files the specified presets were read from are
+         * unchanged and no presets file was added.
+         */
+        static boolean isCurrent(Presets presets, Path sourceDir)
+                throws IOException {
+            for (String name : new String[] { PresetsReader.PRESETS_FILE,
+                    PresetsReader.USER_PRESETS_FILE }) {
+                final Path file = sourceDir.resolve(name).toAbsolutePath()
+                        .normalize();
+                if (Files.exists(file) != presets.getFiles()
+                        .containsKey(file.toString()))
+                    return false;
+            }
+            for (Map.Entry<String, String> entry : presets.getFiles()
+                    .entrySet()) {
+                final Path file = Paths.get(entry.getKey());
+                if (!Files.isRegularFile(file) || !entry.getValue()
+                        .equals(PresetsReader.hash(file)))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
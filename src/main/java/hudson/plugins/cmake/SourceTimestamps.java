@@ -0,0 +1,468 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.NullStream;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Sets the modification time of each file git tracks in a source tree to the
+ * commit time of the last commit that changed the file. A fresh checkout
+ * gives every file the time of the checkout, which makes the build tool
+ * rebuild a build tree of a former build (restored from a snapshot, leased
+ * from the build dir pool or kept in a persistent workspace) from scratch.
+ * <br>
+ * The history is walked once, by a single {@code git log} process whose
+ * output is parsed as a stream; the walk stops as soon as each tracked file
+ * has been seen. git is run by the launcher of the build, on the node of the
+ * source directory.
+ * <br>
+ * An older time is only safe for a file that did not change since the commit
+ * the build tree was built from: a file that changed in a commit made before,
+ * but merged after that build would otherwise look older than the outputs
+ * built from its former content. Each build tree therefore records the commit
+ * it was built from in {@value #COMMIT_FILE}, and files changed since
+ * that commit, including local modifications of the work tree, get the current
+ * time instead.
+ *
+ * @author Martin Weber
+ */
+class SourceTimestamps {
+
+    /** the byte that starts the commit time of a commit in the log */
+    private static final int COMMIT_MARK = 1;
+    /**
+     * the file in a build tree that records the commit the tree was built
+     * from, relative to the build directory
+     */
+    static final String COMMIT_FILE = "CMakeFiles/cmakebuilder-source-commit"; //$NON-NLS-1$
+    private static final String GIT = "git"; //$NON-NLS-1$
+
+    private SourceTimestamps() {
+    }
+
+    /**
+     * Normalizes the modification times of the tracked files below the
+     * specified source directory and logs the result.
+     *
+     * @param launcher
+     *            the launcher to run git with
+     * @param builtCommits
+     *            the commits the build trees to build from the sources were
+     *            built from, as returned by {@link #getBuiltCommit}
+     * @param env
+     *            the environment to run git in
+     */
+    static void normalize(Launcher launcher, FilePath sourceDir,
+            Collection<String> builtCommits, Map<String, String> env,
+            TaskListener listener) throws IOException, InterruptedException {
+        final List<String> commits = new ArrayList<>();
+        for (String commit : builtCommits) {
+            if (commit == null) {
+                listener.getLogger().printf(
+                        Messages.getString("SourceTimestamps.Unknown_build"), //$NON-NLS-1$
+                        sourceDir.getRemote());
+                return;
+            }
+            if (!commit.isEmpty() && !commits.contains(commit))
+                commits.add(commit);
+        }
+        final Result result = normalizeTimes(launcher, sourceDir, commits,
+                env);
+        switch (result.getOutcome()) {
+        case NORMALIZED:
+            listener.getLogger().printf(
+                    Messages.getString("SourceTimestamps.Normalized"), //$NON-NLS-1$
+                    result.getFiles(), result.getChanged(),
+                    result.getCommits(), sourceDir.getRemote());
+            break;
+        case NO_GIT:
+            listener.getLogger().printf(
+                    Messages.getString("SourceTimestamps.No_git"), //$NON-NLS-1$
+                    sourceDir.getRemote());
+            break;
+        case NOT_A_WORK_TREE:
+            listener.getLogger().printf(
+                    Messages.getString("SourceTimestamps.Not_a_work_tree"), //$NON-NLS-1$
+                    sourceDir.getRemote());
+            break;
+        case UNKNOWN_COMMIT:
+            listener.getLogger().printf(
+                    Messages.getString("SourceTimestamps.Unknown_commit"), //$NON-NLS-1$
+                    sourceDir.getRemote());
+            break;
+        }
+    }
+
+    /**
+     * Normalizes the modification times of the tracked files below the
+     * specified source directory.
+     *
+     * @param launcher
+     *            the launcher to run git with
+     * @param builtCommits
+     *            the commits the build trees were built from
+     * @param env
+     *            the environment to run git in
+     */
+    static Result normalizeTimes(Launcher launcher, FilePath sourceDir,
+            List<String> builtCommits, Map<String, String> env)
+            throws IOException, InterruptedException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int lsFiles = git(launcher, sourceDir, env, out, "ls-files", //$NON-NLS-1$
+                "-z"); //$NON-NLS-1$
+        if (lsFiles < 0)
+            return new Result(Result.Outcome.NO_GIT);
+        if (lsFiles != 0)
+            return new Result(Result.Outcome.NOT_A_WORK_TREE);
+        final Set<String> tracked = parseFileList(
+                new ByteArrayInputStream(out.toByteArray()));
+
+        // files changed since a build tree was built get the current time,
+        // diffed against the work tree to include local changes
+        final Set<String> changed = new HashSet<>();
+        for (String commit : builtCommits) {
+            out.reset();
+            if (git(launcher, sourceDir, env, out, "diff", "-z", //$NON-NLS-1$ //$NON-NLS-2$
+                    "--name-only", "--no-renames", "--relative", commit, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    "--", ".") != 0) //$NON-NLS-1$ //$NON-NLS-2$
+                return new Result(Result.Outcome.UNKNOWN_COMMIT);
+            changed.addAll(
+                    parseFileList(new ByteArrayInputStream(out.toByteArray())));
+        }
+        changed.retainAll(tracked);
+        final Set<String> unchanged = new HashSet<>(tracked);
+        unchanged.removeAll(changed);
+
+        final Map<String, Long> times = new HashMap<>(unchanged.size());
+        int commits = 0;
+        if (!unchanged.isEmpty()) {
+            // paths relative to the source directory, as listed by ls-files
+            final Proc log = launcher.launch().pwd(sourceDir).envs(env)
+                    .cmds(GIT, "log", "-z", "--name-only", "--no-renames", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                            "--relative", "--format=%x01%ct", "HEAD", "--", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                            ".") //$NON-NLS-1$
+                    .readStdout().stderr(new NullStream()).quiet(true)
+                    .start();
+            try (InputStream in = log.getStdout()) {
+                commits = parseLog(in, unchanged, times);
+            } finally {
+                // the walk stops early, once each file has been seen
+                log.kill();
+            }
+        }
+        return sourceDir.act(new SetTimes(times, changed, commits));
+    }
+
+    /**
+     * Gets the commit checked out in the specified directory.
+     *
+     * @param launcher
+     *            the launcher to run git with
+     * @param env
+     *            the environment to run git in
+     * @return the commit or {@code null} if git cannot be run or the
+     *         directory is not in a git work tree
+     */
+    static String getHeadCommit(Launcher launcher, FilePath dir,
+            Map<String, String> env) throws InterruptedException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        if (git(launcher, dir, env, out, "rev-parse", "HEAD") != 0) //$NON-NLS-1$ //$NON-NLS-2$
+            return null;
+        final String commit = new String(out.toByteArray(),
+                StandardCharsets.UTF_8).trim();
+        return commit.isEmpty() ? null : commit;
+    }
+
+    /**
+     * Gets the commit the specified build tree was built from.
+     *
+     * @return the commit, an empty string if the tree was never configured,
+     *         or {@code null} if it is unknown
+     */
+    static String getBuiltCommit(FilePath buildDir)
+            throws IOException, InterruptedException {
+        final FilePath commitFile = buildDir.child(COMMIT_FILE);
+        if (commitFile.exists())
+            return commitFile.readToString().trim();
+        return buildDir.child("CMakeCache.txt").exists() ? null : ""; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Records the commit checked out in the specified source directory as
+     * the commit the specified build tree was built from. To be called only
+     * after the build tool built the tree successfully.
+     *
+     * @param launcher
+     *            the launcher to run git with
+     * @param env
+     *            the environment to run git in
+     */
+    static void recordBuiltCommit(Launcher launcher, FilePath sourceDir,
+            FilePath buildDir, Map<String, String> env)
+            throws IOException, InterruptedException {
+        final String commit = getHeadCommit(launcher, sourceDir, env);
+        if (commit != null) {
+            buildDir.child(COMMIT_FILE).write(commit, "UTF-8"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Reads the output of {@code git ls-files -z}.
+     *
+     * @return the paths of the tracked files
+     */
+    static Set<String> parseFileList(InputStream in) throws IOException {
+        final Set<String> files = new HashSet<>();
+        final InputStream bin = new BufferedInputStream(in);
+        for (String token; (token = nextToken(bin)) != null;) {
+            if (!token.isEmpty())
+                files.add(token);
+        }
+        return files;
+    }
+
+    /**
+     * Reads the output of
+     * {@code git log -z --name-only --format=%x01%ct} until each of the
+     * specified files has been seen.
+     *
+     * @param tracked
+     *            the paths of the files to get the times of
+     * @param times
+     *            receives the commit time in seconds by path of each tracked
+     *            file that is in the log
+     * @return the number of commits read
+     */
+    static int parseLog(InputStream in, Set<String> tracked,
+            Map<String, Long> times) throws IOException {
+        final InputStream bin = new BufferedInputStream(in);
+        int commits = 0;
+        long time = 0;
+        for (String token; times.size() < tracked.size()
+                && (token = nextToken(bin)) != null;) {
+            // file names of a commit follow a newline
+            if (token.startsWith("\n")) //$NON-NLS-1$
+                token = token.substring(1);
+            if (token.isEmpty())
+                continue;
+            if (token.charAt(0) == COMMIT_MARK) {
+                time = Long.parseLong(token.substring(1).trim());
+                commits++;
+            } else if (tracked.contains(token) && !times.containsKey(token)) {
+                // the log is newest first
+                times.put(token, time);
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Reads the next NUL terminated token.
+     *
+     * @return the token or {@code null} at the end of the stream
+     */
+    private static String nextToken(InputStream in) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) > 0) {
+            buf.write(b);
+        }
+        if (b < 0 && buf.size() == 0)
+            return null;
+        return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sets the modification times of the specified files.
+     *
+     * @param times
+     *            the time in seconds by path
+     * @return the number of files whose time was set
+     */
+    static int apply(Path dir, Map<String, Long> times) throws IOException {
+        int files = 0;
+        for (Map.Entry<String, Long> entry : times.entrySet()) {
+            if (setTime(dir.resolve(entry.getKey()),
+                    entry.getValue() * 1000L))
+                files++;
+        }
+        return files;
+    }
+
+    /**
+     * Sets the modification times of the specified files to the specified
+     * time.
+     *
+     * @return the number of files whose time was set
+     */
+    static int touch(Path dir, Set<String> paths, long millis)
+            throws IOException {
+        int files = 0;
+        for (String path : paths) {
+            if (setTime(dir.resolve(path), millis))
+                files++;
+        }
+        return files;
+    }
+
+    private static boolean setTime(Path file, long millis) throws IOException {
+        // the time of a link is that of its target
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+            return false;
+        Files.setLastModifiedTime(file, FileTime.fromMillis(millis));
+        return true;
+    }
+
+    /**
+     * Runs git in the specified directory and waits for it to exit.
+     *
+     * @param out
+     *            receives the output of git
+     * @return the exit code or {@code -1} if git cannot be run
+     */
+    private static int git(Launcher launcher, FilePath dir,
+            Map<String, String> env, OutputStream out, String... args)
+            throws InterruptedException {
+        final String[] cmd = new String[args.length + 1];
+        cmd[0] = GIT;
+        System.arraycopy(args, 0, cmd, 1, args.length);
+        try {
+            return launcher.launch().pwd(dir).envs(env).cmds(cmd).stdout(out)
+                    .stderr(new NullStream()).quiet(true).join();
+        } catch (IOException ex) {
+            // not found
+            return -1;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * The outcome of a normalization.
+     */
+    static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** what happened */
+        enum Outcome {
+            /** the times were set */
+            NORMALIZED,
+            /** git could not be run */
+            NO_GIT,
+            /** the directory is not in a git work tree */
+            NOT_A_WORK_TREE,
+            /** a commit a build tree was built from is not in the history */
+            UNKNOWN_COMMIT
+        }
+
+        private final Outcome outcome;
+        private final int files;
+        private final int changed;
+        private final int commits;
+
+        Result(Outcome outcome) {
+            this(outcome, 0, 0, 0);
+        }
+
+        Result(Outcome outcome, int files, int changed, int commits) {
+            this.outcome = outcome;
+            this.files = files;
+            this.changed = changed;
+            this.commits = commits;
+        }
+
+        Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Gets the number of files whose modification time was set to their
+         * commit time.
+         */
+        int getFiles() {
+            return files;
+        }
+
+        /**
+         * Gets the number of files changed since a build tree was built,
+         * whose modification time was set to the current time.
+         */
+        int getChanged() {
+            return changed;
+        }
+
+        /**
+         * Gets the number of commits walked.
+         */
+        int getCommits() {
+            return commits;
+        }
+    }
+
+    /**
+     * Sets the modification times of the tracked files below a directory.
+     */
+    static class SetTimes extends MasterToSlaveFileCallable<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, Long> times;
+        private final Set<String> changed;
+        private final int commits;
+
+        /**
+         * @param times
+         *            the commit time in seconds by path of the files that did
+         *            not change since a build tree was built
+         * @param changed
+         *            the paths of the files that changed, which get the
+         *            current time
+         * @param commits
+         *            the number of commits walked
+         */
+        SetTimes(Map<String, Long> times, Set<String> changed, int commits) {
+            this.times = new HashMap<>(times);
+            this.changed = new HashSet<>(changed);
+            this.commits = commits;
+        }
+
+        @Override
+        public Result invoke(File dir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            return new Result(Result.Outcome.NORMALIZED,
+                    apply(dir.toPath(), times),
+                    touch(dir.toPath(), changed, System.currentTimeMillis()),
+                    commits);
+        }
+    }
+}
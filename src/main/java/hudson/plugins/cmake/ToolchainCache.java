@@ -0,0 +1,479 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Martin Weber
+ */
+package hudson.plugins.cmake;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * A cache on a node for the results of the toolchain detection cmake performs
+ * on the first configure of a build directory: the compiler identification,
+ * the compiler checks and the results of {@code check_*()} commands like
+ * {@code check_include_file()}.<br>
+ * After a configure, the files cmake wrote to
+ * {@code CMakeFiles/<version>/} ({@code CMakeSystem.cmake} and the
+ * {@code CMake<LANG>Compiler.cmake} files) and the cache entries holding the
+ * toolchain programs and the check results are stored below the root
+ * directory of the node. Before a configure of an empty build directory (e.g.
+ * on a clean build), the directory is seeded from the store, so cmake loads
+ * the results instead of determining them again.<br>
+ * Entries are keyed by a hash of the cmake command line, the cmake home and
+ * the environment variables that select compilers and flags. An entry is
+ * discarded if the cmake executable or a compiler changed on disk since it
+ * was stored.<br>
+ * The modification time of an entry directory is its time of last use. When
+ * an entry is stored, the least recently used entries that exceed the maximum
+ * number of entries are deleted.
+ *
+ * @author Martin Weber
+ */
+class ToolchainCache {
+
+    /** the name of the store directory below the root directory of a node */
+    static final String STORE_DIR_NAME = "cmakebuilder-toolchains"; //$NON-NLS-1$
+    /** the maximum number of entries in a store, system property */
+    static final int MAX_ENTRIES = Integer.getInteger(
+            ToolchainCache.class.getName() + ".maxEntries", 100); //$NON-NLS-1$
+    /**
+     * the minimum age of an orphaned temporary directory (left by a crashed
+     * node) before it is deleted
+     */
+    private static final long TMP_MIN_AGE_MILLIS = 60 * 60 * 1000L;
+
+    /** environment variables cmake reads to determine the toolchain */
+    private static final List<String> ENV_VAR_NAMES = Collections
+            .unmodifiableList(Arrays.asList("PATH", "CC", "CXX", "FC", "ASM", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                    "CUDACXX", "HIPCXX", "OBJC", "OBJCXX", "RC", "CFLAGS", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+                    "CXXFLAGS", "FFLAGS", "CUDAFLAGS", "LDFLAGS", "SDKROOT", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                    "MACOSX_DEPLOYMENT_TARGET")); //$NON-NLS-1$
+
+    /** the toolchain programs cmake looks up besides the compilers */
+    private static final Set<String> TOOL_KEYS = new HashSet<>(Arrays.asList(
+            "CMAKE_AR", "CMAKE_RANLIB", "CMAKE_LINKER", "CMAKE_NM", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            "CMAKE_OBJCOPY", "CMAKE_OBJDUMP", "CMAKE_STRIP", "CMAKE_ADDR2LINE", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            "CMAKE_READELF", "CMAKE_DLLTOOL", "CMAKE_MT", "CMAKE_TAPI")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    /**
+     * the beginnings of the help strings of the cache entries the
+     * {@code check_*()} commands and {@code try_run()} store their results in
+     */
+    private static final String[] CHECK_HELP_PREFIXES = { "Have ", "Test ", //$NON-NLS-1$ //$NON-NLS-2$
+            "CHECK_TYPE_SIZE:", "Result of TRY_RUN", "Result of try_run()" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    private static final String CACHE_FILE = "CMakeCache.txt"; //$NON-NLS-1$
+    /** the file of an entry listing the files to check for modification */
+    private static final String STAMPS_FILE = "stamps.txt"; //$NON-NLS-1$
+    private static final String FILES_DIR = "files"; //$NON-NLS-1$
+
+    /** the results of seeding a build directory */
+    enum Result {
+        /** the build dir was seeded */
+        SEEDED,
+        /** the store has no entry for the toolchain */
+        NOT_CACHED,
+        /** the entry was discarded, since a toolchain program changed */
+        STALE,
+        /** the build dir is configured already */
+        CONFIGURED
+    }
+
+    private ToolchainCache() {
+    }
+
+    /**
+     * Computes the key of the store entry for the specified inputs.
+     *
+     * @param cmakeCall
+     *            the cmake command line
+     * @param toolHome
+     *            the home directory of the cmake installation or {@code null}
+     * @param env
+     *            the environment cmake is run in
+     */
+    static String computeKey(List<String> cmakeCall, String toolHome,
+            Map<String, String> env) {
+        final List<String> inputs = new ArrayList<>(cmakeCall);
+        for (String name : ENV_VAR_NAMES) {
+            inputs.add(name + "=" + env.get(name)); //$NON-NLS-1$
+        }
+        return ConfigureFingerprint.hashInputs(inputs, toolHome);
+    }
+
+    /**
+     * Gets the store directory of the specified node.
+     *
+     * @return the path of the store or {@code null} if the node is offline
+     */
+    static String getStoreDir(Node node) {
+        final FilePath root = node == null ? null : node.getRootPath();
+        return root == null ? null : root.child(STORE_DIR_NAME).getRemote();
+    }
+
+    /**
+     * Seeds the specified build directory from the store entry.
+     *
+     * @param entry
+     *            the store entry
+     * @param buildDir
+     *            the build directory
+     */
+    static Result seed(Path entry, Path buildDir) throws IOException {
+        if (Files.exists(buildDir.resolve(CACHE_FILE))) {
+            return Result.CONFIGURED;
+        }
+        if (!Files.isRegularFile(entry.resolve(STAMPS_FILE))) {
+            return Result.NOT_CACHED;
+        }
+        if (!isUpToDate(entry)) {
+            BuildDirTrash.deleteRecursive(entry);
+            return Result.STALE;
+        }
+        final Path files = entry.resolve(FILES_DIR);
+        final List<Path> targets = new ArrayList<>();
+        try {
+            try (DirectoryStream<Path> versions = Files
+                    .newDirectoryStream(files.resolve("CMakeFiles"))) { //$NON-NLS-1$
+                for (Path version : versions) {
+                    final Path target = buildDir.resolve("CMakeFiles") //$NON-NLS-1$
+                            .resolve(version.getFileName().toString());
+                    targets.add(target);
+                    Files.createDirectories(target);
+                    try (DirectoryStream<Path> cmakeFiles = Files
+                            .newDirectoryStream(version)) {
+                        for (Path file : cmakeFiles) {
+                            Files.copy(file,
+                                    target.resolve(
+                                            file.getFileName().toString()),
+                                    StandardCopyOption.REPLACE_EXISTING,
+                                    StandardCopyOption.COPY_ATTRIBUTES);
+                        }
+                    }
+                }
+            }
+            Files.copy(entry.resolve(CACHE_FILE),
+                    buildDir.resolve(CACHE_FILE));
+        } catch (NoSuchFileException ex) {
+            // evicted by a concurrent build, remove the partial copy
+            for (Path target : targets) {
+                BuildDirTrash.deleteRecursive(target);
+            }
+            return Result.NOT_CACHED;
+        }
+        // mark as recently used
+        Files.setLastModifiedTime(entry,
+                FileTime.fromMillis(System.currentTimeMillis()));
+        return Result.SEEDED;
+    }
+
+    /**
+     * Stores the toolchain detection results of the specified build directory
+     * unless the store has an entry for the key already.
+     *
+     * @param entry
+     *            the store entry
+     * @param buildDir
+     *            the configured build directory
+     * @param cmakeBin
+     *            the path of the cmake executable
+     * @return {@code true} if an entry was stored
+     */
+    static boolean store(Path entry, Path buildDir, String cmakeBin)
+            throws IOException {
+        if (Files.exists(entry)) {
+            return false;
+        }
+        final List<Path> versions = new ArrayList<>();
+        final Path cmakeFiles = buildDir.resolve("CMakeFiles"); //$NON-NLS-1$
+        if (Files.isDirectory(cmakeFiles)) {
+            try (DirectoryStream<Path> dirs = Files
+                    .newDirectoryStream(cmakeFiles)) {
+                for (Path dir : dirs) {
+                    if (Files.isRegularFile(dir.resolve("CMakeSystem.cmake"))) //$NON-NLS-1$
+                        versions.add(dir);
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            return false; // configure failed early or cmake < 2.8
+        }
+
+        // write into a temporary directory and rename it, so concurrent
+        // builds never see a partial entry
+        final Path tmp = entry.resolveSibling(
+                entry.getFileName() + "-" + UUID.randomUUID()); //$NON-NLS-1$
+        try {
+            final List<String> programs = new ArrayList<>();
+            programs.add(cmakeBin);
+            Files.createDirectories(tmp);
+            try (BufferedReader reader = Files.newBufferedReader(
+                    buildDir.resolve(CACHE_FILE), StandardCharsets.UTF_8);
+                    Writer writer = Files.newBufferedWriter(
+                            tmp.resolve(CACHE_FILE), StandardCharsets.UTF_8)) {
+                writer.write("# Toolchain detection results stored by the Jenkins cmakebuilder plugin\n"); //$NON-NLS-1$
+                copyToolchainEntries(reader, writer, programs);
+            }
+            final List<String> stamps = new ArrayList<>();
+            for (String program : programs) {
+                stamps.add(stamp(Paths.get(program)) + "\t" + program); //$NON-NLS-1$
+            }
+            Files.write(tmp.resolve(STAMPS_FILE), stamps,
+                    StandardCharsets.UTF_8);
+            for (Path version : versions) {
+                final Path target = tmp.resolve(FILES_DIR)
+                        .resolve("CMakeFiles") //$NON-NLS-1$
+                        .resolve(version.getFileName().toString());
+                Files.createDirectories(target);
+                try (DirectoryStream<Path> files = Files
+                        .newDirectoryStream(version, "CMake*.cmake")) { //$NON-NLS-1$
+                    for (Path file : files) {
+                        Files.copy(file,
+                                target.resolve(file.getFileName().toString()),
+                                StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                // a concurrent build stored the entry first
+                return false;
+            }
+            return true;
+        } finally {
+            BuildDirTrash.deleteRecursive(tmp);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries of the specified store that
+     * exceed the specified number of entries. Also deletes temporary
+     * directories left by a node that crashed while storing an entry.
+     *
+     * @return the number of entries deleted
+     */
+    static int evict(Path store, int maxEntries) throws IOException {
+        final List<Path> entries = new ArrayList<>();
+        final Map<Path, Long> lastUsed = new HashMap<>();
+        final long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(store)) {
+            for (Path dir : dirs) {
+                final long modified;
+                try {
+                    modified = Files.getLastModifiedTime(dir).toMillis();
+                } catch (NoSuchFileException ex) {
+                    continue;
+                }
+                if (dir.getFileName().toString().indexOf('-') < 0) {
+                    entries.add(dir);
+                    lastUsed.put(dir, modified);
+                } else if (now - modified > TMP_MIN_AGE_MILLIS) {
+                    BuildDirTrash.deleteRecursive(dir);
+                }
+            }
+        }
+        // least recently used first
+        Collections.sort(entries, new Comparator<Path>() {
+            @Override
+            public int compare(Path p1, Path p2) {
+                return Long.compare(lastUsed.get(p1), lastUsed.get(p2));
+            }
+        });
+        int evicted = 0;
+        for (int i = 0; i < entries.size() - maxEntries; i++) {
+            final Path entry = entries.get(i);
+            // rename first, so concurrent builds see the entry or nothing
+            final Path trash = entry.resolveSibling(
+                    entry.getFileName() + "-" + UUID.randomUUID()); //$NON-NLS-1$
+            try {
+                Files.move(entry, trash, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                continue; // evicted concurrently or in use (Windows)
+            }
+            BuildDirTrash.deleteRecursive(trash);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Copies the cache entries holding the toolchain programs and the check
+     * results, each with its help string.
+     *
+     * @param programs
+     *            receives the absolute paths of the compilers
+     */
+    static void copyToolchainEntries(BufferedReader reader, Writer writer,
+            List<String> programs) throws IOException {
+        final StringBuilder help = new StringBuilder();
+        for (String line; (line = reader.readLine()) != null;) {
+            if (line.startsWith("//")) { //$NON-NLS-1$
+                help.append(line).append('\n');
+                continue;
+            }
+            final int colon = line.indexOf(':');
+            final int equals = line.indexOf('=');
+            if (!line.startsWith("#") && colon > 0 && equals > colon) { //$NON-NLS-1$
+                final String key = line.substring(0, colon);
+                final String type = line.substring(colon + 1, equals);
+                if (isToolchainEntry(key, type, help)) {
+                    writer.write(help.toString());
+                    writer.write(line);
+                    writer.write("\n\n"); //$NON-NLS-1$
+                    final String value = line.substring(equals + 1);
+                    if (key.endsWith("_COMPILER") //$NON-NLS-1$
+                            && new File(value).isAbsolute()) {
+                        programs.add(value);
+                    }
+                }
+            }
+            help.setLength(0);
+        }
+    }
+
+    private static boolean isToolchainEntry(String key, String type,
+            CharSequence help) {
+        if (type.equals("FILEPATH")) { //$NON-NLS-1$
+            return key.startsWith("CMAKE_") && (key.endsWith("_COMPILER") //$NON-NLS-1$ //$NON-NLS-2$
+                    || key.endsWith("_COMPILER_AR") //$NON-NLS-1$
+                    || key.endsWith("_COMPILER_RANLIB") //$NON-NLS-1$
+                    || TOOL_KEYS.contains(key));
+        }
+        if (type.equals("INTERNAL")) { //$NON-NLS-1$
+            if (key.startsWith("CMAKE_CACHE_") && key.endsWith("_VERSION")) //$NON-NLS-1$ //$NON-NLS-2$
+                return true;
+            for (String prefix : CHECK_HELP_PREFIXES) {
+                if (help.length() > 2 && help.toString().startsWith(prefix, 2))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets whether the programs listed in the stamps file of the specified
+     * entry are unchanged.
+     */
+    private static boolean isUpToDate(Path entry) throws IOException {
+        for (String line : Files.readAllLines(entry.resolve(STAMPS_FILE),
+                StandardCharsets.UTF_8)) {
+            final int tab = line.indexOf('\t');
+            if (tab < 0 || !line.substring(0, tab)
+                    .equals(stamp(Paths.get(line.substring(tab + 1))))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the size and the modification time of the specified file.
+     */
+    private static String stamp(Path file) throws IOException {
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(file,
+                    BasicFileAttributes.class);
+            return attrs.size() + "/" + attrs.lastModifiedTime().toMillis(); //$NON-NLS-1$
+        } catch (NoSuchFileException ex) {
+            return "missing"; //$NON-NLS-1$
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////
+    // inner classes
+    ////////////////////////////////////////////////////////////////////
+    /**
+     * Seeds a build directory from the store of the node before cmake is run.
+     */
+    static class Seed extends MasterToSlaveFileCallable<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final String storeDir;
+        private final String key;
+
+        /**
+         * @param storeDir
+         *            the path of the store on the node
+         * @param key
+         *            the key of the entry, see
+         *            {@link ToolchainCache#computeKey(List, String, Map)}
+         */
+        Seed(String storeDir, String key) {
+            this.storeDir = storeDir;
+            this.key = key;
+        }
+
+        @Override
+        public Result invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            return seed(Paths.get(storeDir, key), buildDir.toPath());
+        }
+    }
+
+    /**
+     * Stores the toolchain detection results of a build directory after cmake
+     * has been run.
+     */
+    static class Store extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final String storeDir;
+        private final String key;
+        private final String cmakeBin;
+
+        /**
+         * @param storeDir
+         *            the path of the store on the node
+         * @param key
+         *            the key of the entry, see
+         *            {@link ToolchainCache#computeKey(List, String, Map)}
+         * @param cmakeBin
+         *            the path of the cmake executable
+         */
+        Store(String storeDir, String key, String cmakeBin) {
+            this.storeDir = storeDir;
+            this.key = key;
+            this.cmakeBin = cmakeBin;
+        }
+
+        @Override
+        public Boolean invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final Path store = Paths.get(storeDir);
+            Files.createDirectories(store);
+            if (!store(store.resolve(key), buildDir.toPath(), cmakeBin)) {
+                return false;
+            }
+            evict(store, MAX_ENTRIES);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.marw.cmake.cmakecache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the CMakeCacheDiff.
+ *
+ * @author Martin Weber
+ */
+public class CMakeCacheDiffTest {
+
+    @Test
+    public void testCompute() throws Exception {
+        CMakeCache previous = CMakeCache.read(new StringReader(
+                "A:STRING=1\n" + "B:STRING=2\n"
+                        + "CMAKE_C_COMPILER:FILEPATH=/usr/bin/gcc-9\n"
+                        + "D:BOOL=ON\n"));
+        CMakeCache current = CMakeCache.read(new StringReader(
+                "B:STRING=2\n" + "CMAKE_C_COMPILER:FILEPATH=/usr/bin/gcc-10\n"
+                        + "D:BOOL=ON\n" + "E:PATH=/tmp\n"));
+        CMakeCacheDiff diff = CMakeCacheDiff.compute(previous, current);
+        assertFalse(diff.isEmpty());
+        assertEquals(Arrays.asList("E"), diff.getAdded());
+        assertEquals(Arrays.asList("A"), diff.getRemoved());
+        assertEquals(1, diff.getChanged().size());
+        CMakeCacheDiff.Change change = diff.getChanged().get(0);
+        assertEquals("CMAKE_C_COMPILER", change.getKey());
+        assertEquals("/usr/bin/gcc-9", change.getOldValue());
+        assertEquals("/usr/bin/gcc-10", change.getNewValue());
+        assertTrue(diff.affects("A"));
+        assertTrue(diff.affects("CMAKE_C_COMPILER"));
+        assertTrue(diff.affects("E"));
+        assertFalse(diff.affects("B"));
+    }
+
+    @Test
+    public void testComputeDigests() throws Exception {
+        CMakeCache previous = CMakeCache.read(new StringReader(
+                "A:STRING=1\n" + "B:STRING=2\n"
+                        + "CMAKE_C_COMPILER:FILEPATH=/usr/bin/gcc-9\n"
+                        + "CMAKE_C_FLAGS:STRING=-O2\n"));
+        CMakeCache current = CMakeCache.read(new StringReader(
+                "B:STRING=2\n" + "CMAKE_C_COMPILER:FILEPATH=/usr/bin/gcc-10\n"
+                        + "CMAKE_C_FLAGS:STRING=-O3\n" + "E:PATH=/tmp\n"));
+        CMakeCacheFileParser.EntryFilter compilers = new CMakeCacheFileParser.EntryFilter() {
+            @Override
+            public boolean accept(String key) {
+                return key.endsWith("_COMPILER");
+            }
+        };
+        // values of the compiler entries only
+        CMakeCacheDiff diff = CMakeCacheDiff.compute(
+                CMakeCacheDigest.of(previous), previous.select(compilers),
+                CMakeCacheDigest.of(current), current.select(compilers));
+        assertEquals(Arrays.asList("E"), diff.getAdded());
+        assertEquals(Arrays.asList("A"), diff.getRemoved());
+        assertEquals(2, diff.getChanged().size());
+        CMakeCacheDiff.Change change = diff.getChanged().get(0);
+        assertEquals("CMAKE_C_COMPILER", change.getKey());
+        assertEquals("/usr/bin/gcc-9", change.getOldValue());
+        assertEquals("/usr/bin/gcc-10", change.getNewValue());
+        change = diff.getChanged().get(1);
+        assertEquals("CMAKE_C_FLAGS", change.getKey());
+        assertNull(change.getOldValue());
+        assertNull(change.getNewValue());
+
+        assertTrue(CMakeCacheDiff.compute(CMakeCacheDigest.of(current), null,
+                CMakeCacheDigest.of(current), null).isEmpty());
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        final String content = "A:STRING=1\nB:STRING=2\n";
+        CMakeCacheDiff diff = CMakeCacheDiff.compute(
+                CMakeCache.read(new StringReader(content)),
+                CMakeCache.read(new StringReader(content)));
+        assertTrue(diff.isEmpty());
+    }
+}
@@ -0,0 +1,339 @@
+package de.marw.cmake.cmakecache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryVisitor;
+
+/**
+ * Conformance tests that verify that {@link CMakeCacheFileParser} yields the
+ * same results as the former regular expression based parser
+ * ({@link RegexCMakeCacheFileParser}).
+ *
+ * @author Martin Weber
+ */
+public class CMakeCacheFileParserTest {
+
+    private static final EntryFilter CMAKE_KEYS = new EntryFilter() {
+        @Override
+        public boolean accept(String key) {
+            return key != null && key.startsWith("CMAKE_");
+        }
+    };
+
+    private static final EntryFilter KEY_1_PREFIX = new EntryFilter() {
+        @Override
+        public boolean accept(String key) {
+            return key.startsWith("KEY_1");
+        }
+    };
+
+    @Test
+    public void testValidAsList() throws Exception {
+        final String input = load("conformance-valid.txt");
+        assertConformance(input, null, new ArrayList<SimpleCMakeCacheEntry>(),
+                new ArrayList<SimpleCMakeCacheEntry>());
+    }
+
+    @Test
+    public void testValidAsSet() throws Exception {
+        final String input = load("conformance-valid.txt");
+        assertConformance(input, null, new HashSet<SimpleCMakeCacheEntry>(),
+                new HashSet<SimpleCMakeCacheEntry>());
+    }
+
+    @Test
+    public void testValidFiltered() throws Exception {
+        final String input = load("conformance-valid.txt");
+        assertConformance(input, CMAKE_KEYS,
+                new ArrayList<SimpleCMakeCacheEntry>(),
+                new ArrayList<SimpleCMakeCacheEntry>());
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        final String input = load("conformance-malformed.txt");
+        // the former parser cannot collect malformed lines without a filter
+        assertConformance(input, CMAKE_KEYS,
+                new ArrayList<SimpleCMakeCacheEntry>(),
+                new ArrayList<SimpleCMakeCacheEntry>());
+        assertConformance(input, null, null, null);
+    }
+
+    /**
+     * Lines that do not fit into the parser´s buffer and CR-LF sequences that
+     * are split across buffer boundaries.
+     */
+    @Test
+    public void testBufferBoundaries() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("//help text ").append(i).append("\r\n");
+            sb.append("KEY_").append(i).append(":STRING=");
+            for (int j = 0; j < i % 37; j++) {
+                sb.append('v');
+            }
+            sb.append(i % 3 == 0 ? "\r" : "\r\n");
+        }
+        for (int j = 0; j < 50000; j++) {
+            sb.append('x');
+        }
+        sb.append("=long key\nLONG_VALUE:STRING=");
+        for (int j = 0; j < 50000; j++) {
+            sb.append('y');
+        }
+        assertConformance(sb.toString(), null,
+                new ArrayList<SimpleCMakeCacheEntry>(),
+                new ArrayList<SimpleCMakeCacheEntry>());
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        final String input = load("conformance-valid.txt");
+        Map<String, String> values = new CMakeCacheFileParser().lookup(
+                new StringReader(input), Arrays.asList("CMAKE_MAKE_PROGRAM",
+                        "DUPLICATE", "QUOTED_VALUE", "NO_SUCH_KEY"));
+        assertEquals(3, values.size());
+        assertEquals("/usr/bin/make", values.get("CMAKE_MAKE_PROGRAM"));
+        assertEquals("first", values.get("DUPLICATE"));
+        assertEquals("keep me  '", values.get("QUOTED_VALUE"));
+    }
+
+    /**
+     * Verifies that the lookup stops reading once all keys are found.
+     */
+    @Test
+    public void testLookupStopsEarly() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("CMAKE_GENERATOR:INTERNAL=Ninja\n");
+        sb.append("CMAKE_BUILD_TYPE:STRING=Release\n");
+        for (int i = 0; i < 100000; i++) {
+            sb.append("KEY_").append(i).append(":STRING=value\n");
+        }
+        final int[] charsRead = new int[1];
+        Reader reader = new StringReader(sb.toString()) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int n = super.read(cbuf, off, len);
+                charsRead[0] += Math.max(n, 0);
+                return n;
+            }
+        };
+        Map<String, String> values = new CMakeCacheFileParser().lookup(reader,
+                Arrays.asList("CMAKE_BUILD_TYPE", "CMAKE_GENERATOR"));
+        assertEquals("Ninja", values.get("CMAKE_GENERATOR"));
+        assertEquals("Release", values.get("CMAKE_BUILD_TYPE"));
+        assertTrue("read whole input", charsRead[0] < sb.length());
+    }
+
+    @Test
+    public void testLookupBytes() throws Exception {
+        final byte[] input = load("conformance-valid.txt")
+                .getBytes(StandardCharsets.UTF_8);
+        Map<String, String> values = new CMakeCacheFileParser().lookup(
+                ByteBuffer.wrap(input), StandardCharsets.UTF_8,
+                Arrays.asList("CMAKE_MAKE_PROGRAM", "UNICODE", "NO_SUCH_KEY"));
+        assertEquals(2, values.size());
+        assertEquals("/usr/bin/make", values.get("CMAKE_MAKE_PROGRAM"));
+        assertEquals("caf\u00e9 \u00fcber \u65e5\u672c", values.get("UNICODE"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnscannableCharset() throws Exception {
+        new CMakeCacheFileParser().lookup(ByteBuffer.allocate(0),
+                StandardCharsets.UTF_16, Arrays.asList("CMAKE_MAKE_PROGRAM"));
+    }
+
+    @Test
+    public void testVisitor() throws Exception {
+        final List<String> entries = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        new CMakeCacheFileParser().parse(
+                new StringReader("// help\nA:BOOL=ON\nbroken line\n"
+                        + "B:FILEPATH=/usr/bin/cc\nC:UNKNOWN=x\n"),
+                null, new EntryVisitor() {
+                    @Override
+                    public boolean onEntry(String key, CMakeCacheEntryType type,
+                            String value) {
+                        entries.add(key + ":" + type + "=" + value);
+                        return true;
+                    }
+
+                    @Override
+                    public boolean onError(int lineNumber, String text) {
+                        errors.add(lineNumber + ":" + text);
+                        return true;
+                    }
+                });
+        assertEquals(Arrays.asList("A:BOOL=ON", "B:FILEPATH=/usr/bin/cc",
+                "C:STRING=x"), entries);
+        assertEquals(Arrays.asList("3:broken line"), errors);
+    }
+
+    /**
+     * Verifies that parsing stops as soon as the visitor asks to.
+     */
+    @Test
+    public void testVisitorStops() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append("KEY_").append(i).append(":STRING=value\n");
+        }
+        final byte[] input = sb.toString().getBytes(StandardCharsets.UTF_8);
+        final List<String> keys = new ArrayList<>();
+        new CMakeCacheFileParser().parse(ByteBuffer.wrap(input),
+                StandardCharsets.UTF_8, KEY_1_PREFIX, new EntryVisitor() {
+                    @Override
+                    public boolean onEntry(String key, CMakeCacheEntryType type,
+                            String value) {
+                        keys.add(key);
+                        return keys.size() < 3;
+                    }
+
+                    @Override
+                    public boolean onError(int lineNumber, String text) {
+                        return true;
+                    }
+                });
+        assertEquals(Arrays.asList("KEY_1", "KEY_10", "KEY_11"), keys);
+    }
+
+    @Test
+    public void testDuplicatesInSet() throws Exception {
+        Set<SimpleCMakeCacheEntry> entries = new HashSet<>();
+        new CMakeCacheFileParser().parse(
+                new StringReader("A:STRING=1\nB:STRING=2\nA:STRING=3\n"), null,
+                entries, null);
+        assertEquals(new HashSet<>(Arrays.asList("A=3", "B=2")),
+                toStrings(entries));
+    }
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        List<SimpleCMakeCacheEntry> entries = new ArrayList<>();
+        assertFalse(new CMakeCacheFileParser().parse(new StringReader(""),
+                null, entries, null));
+        assertEquals(0, entries.size());
+    }
+
+    /**
+     * A 'KEY:TYPE' line without '=' is malformed, whether read as characters
+     * or scanned as bytes.
+     */
+    @Test
+    public void testTypeWithoutEquals() throws Exception {
+        final String input = "A:BOOL=ON\nCMAKE_C_COMPILER:FILEPATH\n";
+        List<SimpleCMakeCacheEntry> entries = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        new CMakeCacheFileParser().parse(new StringReader(input), null,
+                entries, errors);
+        assertEquals(Arrays.asList("A=ON"), toStrings(entries));
+        assertEquals(1, errors.size());
+
+        entries.clear();
+        errors.clear();
+        new CMakeCacheFileParser().parse(
+                ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, null, entries, errors);
+        assertEquals(Arrays.asList("A=ON"), toStrings(entries));
+        assertEquals(1, errors.size());
+    }
+
+    /**
+     * Asserts that the parser yields the same results as the reference
+     * parser, both when reading characters and when scanning bytes.
+     */
+    private static void assertConformance(String input, EntryFilter filter,
+            Collection<SimpleCMakeCacheEntry> expectedEntries,
+            Collection<SimpleCMakeCacheEntry> actualEntries)
+            throws IOException {
+        final List<String> expectedErrors = new ArrayList<>();
+        final List<String> actualErrors = new ArrayList<>();
+        final boolean expected = new RegexCMakeCacheFileParser().parse(
+                new StringReader(input), filter, expectedEntries,
+                expectedErrors);
+        final boolean actual = new CMakeCacheFileParser().parse(
+                new StringReader(input), filter, actualEntries, actualErrors);
+
+        assertEquals("return value", expected, actual);
+        assertEquals("errors", expectedErrors, actualErrors);
+        if (expectedEntries != null) {
+            assertEquals("entries", toStrings(expectedEntries),
+                    toStrings(actualEntries));
+        }
+
+        for (Charset charset : new Charset[] { StandardCharsets.UTF_8,
+                StandardCharsets.ISO_8859_1 }) {
+            // input as seen by a reader of the encoded bytes
+            final byte[] bytes = input.getBytes(charset);
+            final String decoded = new String(bytes, charset);
+            Collection<SimpleCMakeCacheEntry> expectedBytes = newCollection(
+                    expectedEntries);
+            Collection<SimpleCMakeCacheEntry> actualBytes = newCollection(
+                    expectedEntries);
+            expectedErrors.clear();
+            actualErrors.clear();
+            new RegexCMakeCacheFileParser().parse(new StringReader(decoded),
+                    filter, expectedBytes, expectedErrors);
+            new CMakeCacheFileParser().parse(ByteBuffer.wrap(bytes), charset,
+                    filter, actualBytes, actualErrors);
+            assertEquals("errors " + charset, expectedErrors, actualErrors);
+            if (expectedBytes != null) {
+                assertEquals("entries " + charset, toStrings(expectedBytes),
+                        toStrings(actualBytes));
+            }
+        }
+    }
+
+    private static Collection<SimpleCMakeCacheEntry> newCollection(
+            Collection<SimpleCMakeCacheEntry> like) {
+        if (like == null)
+            return null;
+        return like instanceof Set ? new HashSet<SimpleCMakeCacheEntry>()
+                : new ArrayList<SimpleCMakeCacheEntry>();
+    }
+
+    private static Collection<String> toStrings(
+            Collection<SimpleCMakeCacheEntry> entries) {
+        final Collection<String> result = entries instanceof Set
+                ? new HashSet<String>() : new ArrayList<String>();
+        for (SimpleCMakeCacheEntry entry : entries) {
+            result.add(entry.toString());
+        }
+        return result;
+    }
+
+    private static String load(String name) throws IOException {
+        try (InputStream is = CMakeCacheFileParserTest.class
+                .getResourceAsStream(name);
+                Reader reader = new InputStreamReader(is,
+                        StandardCharsets.UTF_8)) {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[4096];
+            for (int n; (n = reader.read(buf)) >= 0;) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        }
+    }
+}
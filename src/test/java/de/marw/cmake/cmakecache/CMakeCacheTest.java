@@ -0,0 +1,151 @@
+package de.marw.cmake.cmakecache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CMakeCache} model.
+ *
+ * @author Martin Weber
+ */
+public class CMakeCacheTest {
+
+    private CMakeCache testee;
+
+    @Before
+    public void setUp() throws Exception {
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("conformance-valid.txt"),
+                StandardCharsets.UTF_8)) {
+            testee = CMakeCache.read(reader);
+        }
+    }
+
+    @Test
+    public void testTypes() {
+        assertEquals(CMakeCacheEntryType.FILEPATH,
+                testee.getType("CMAKE_MAKE_PROGRAM"));
+        assertEquals(CMakeCacheEntryType.STRING,
+                testee.getType("CMAKE_BUILD_TYPE"));
+        assertEquals(CMakeCacheEntryType.BOOL,
+                testee.getType("CMAKE_COLOR_MAKEFILE"));
+        assertEquals(CMakeCacheEntryType.PATH,
+                testee.getType("CMAKE_INSTALL_PREFIX"));
+        assertEquals(CMakeCacheEntryType.INTERNAL,
+                testee.getType("CMAKE_GENERATOR"));
+        assertEquals(CMakeCacheEntryType.STATIC,
+                testee.getType("LAST_LINE_WITHOUT_EOL"));
+        assertEquals(CMakeCacheEntryType.UNINITIALIZED,
+                testee.getType("NO_TYPE"));
+        // unknown type names map to STRING, like CMake does
+        assertEquals(CMakeCacheEntryType.STRING, testee.getType("EMPTY_TYPE"));
+        assertNull(testee.getType("NO_SUCH_KEY"));
+    }
+
+    @Test
+    public void testAdvanced() {
+        assertTrue(testee.isAdvanced("CMAKE_ADDR2LINE"));
+        assertEquals(CMakeCacheEntryType.FILEPATH,
+                testee.getType("CMAKE_ADDR2LINE"));
+        assertFalse(testee.isAdvanced("CMAKE_BUILD_TYPE"));
+        assertFalse("marker entry",
+                testee.containsKey("CMAKE_ADDR2LINE-ADVANCED"));
+        // the advanced flag must not leak into the type ordinal
+        final int index = testee.indexOf("CMAKE_ADDR2LINE");
+        assertTrue(testee.isAdvanced(index));
+        assertEquals(CMakeCacheEntryType.FILEPATH, testee.getType(index));
+        for (int i = 0; i < testee.size(); i++) {
+            assertNotNull(testee.getKey(i), testee.getType(i));
+        }
+    }
+
+    @Test
+    public void testValues() {
+        assertEquals("Unix Makefiles", testee.getValue("CMAKE_GENERATOR"));
+        assertEquals("", testee.getValue("CMAKE_CXX_FLAGS"));
+        assertEquals("second", testee.getValue("DUPLICATE"));
+        assertNull(testee.getValue("NO_SUCH_KEY"));
+    }
+
+    /**
+     * Verifies that the model holds the same entries as the collection based
+     * parser yields.
+     */
+    @Test
+    public void testSelect() {
+        CMakeCache selected = testee
+                .select(new CMakeCacheFileParser.EntryFilter() {
+                    @Override
+                    public boolean accept(String key) {
+                        return key.startsWith("CMAKE_A")
+                                || key.equals("CMAKE_GENERATOR");
+                    }
+                });
+        assertEquals(Arrays.asList("CMAKE_ADDR2LINE", "CMAKE_GENERATOR"),
+                selected.getKeys());
+        assertTrue(selected.isAdvanced("CMAKE_ADDR2LINE"));
+        assertEquals(CMakeCacheEntryType.FILEPATH,
+                selected.getType("CMAKE_ADDR2LINE"));
+        assertEquals("Unix Makefiles", selected.getValue("CMAKE_GENERATOR"));
+    }
+
+    @Test
+    public void testAgreesWithParser() throws Exception {
+        Set<SimpleCMakeCacheEntry> entries = new HashSet<>();
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("conformance-valid.txt"),
+                StandardCharsets.UTF_8)) {
+            new CMakeCacheFileParser().parse(reader, null, entries, null);
+        }
+        assertEquals(entries.size() - 1, testee.size());
+        for (SimpleCMakeCacheEntry entry : entries) {
+            if (entry.getKey().endsWith("-ADVANCED"))
+                continue;
+            assertEquals(entry.getKey(), entry.getValue(),
+                    testee.getValue(entry.getKey()));
+        }
+        for (int i = 1; i < testee.size(); i++) {
+            assertTrue("sorted",
+                    testee.getKey(i - 1).compareTo(testee.getKey(i)) < 0);
+        }
+    }
+
+    @Test
+    public void testReadBytes() throws Exception {
+        final String input = "CMAKE_GENERATOR:INTERNAL=Ninja\n"
+                + "A-ADVANCED:INTERNAL=1\r\nA:BOOL=ON\n"
+                + "B:STRING=\u00fcber\r\n";
+        final CMakeCache cache = CMakeCache.read(
+                ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8);
+        assertEquals(3, cache.size());
+        assertEquals("Ninja", cache.getValue("CMAKE_GENERATOR"));
+        assertEquals(CMakeCacheEntryType.BOOL, cache.getType("A"));
+        assertTrue(cache.isAdvanced("A"));
+        assertEquals("\u00fcber", cache.getValue("B"));
+    }
+
+    @Test
+    public void testInternedKeys() throws Exception {
+        CMakeCache other = CMakeCache
+                .read(new StringReader("CMAKE_GENERATOR:INTERNAL=Ninja\n"));
+        assertSame(testee.getKey(testee.indexOf("CMAKE_GENERATOR")),
+                other.getKey(0));
+    }
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+
+package de.marw.cmake.cmakecache;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.Reader;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.marw.cmake.cmakecache.CMakeCacheFileParser.EntryFilter;
+
+/**
+ * The regular expression based CMake cache file parser as it was before the
+ * parser was changed to scan characters. Used as the reference implementation
+ * in conformance tests only.
+ *
+ * @author Martin Weber
+ */
+class RegexCMakeCacheFileParser {
+
+    // input line is: key:type=value
+    private static final Pattern reg = Pattern
+            .compile("([^=:]*):([^=]*)=(.*[^\t ]|[\t ]*)[\t ]*");
+    // input line is: "key":type=value
+    private static final Pattern regQuoted = Pattern
+            .compile("\"([^=:]*)\":([^=]*)=(.*[^\t ]|[\t ]*)[\t ]*");
+    // input line is: key=value
+    private static final Pattern regNoType = Pattern
+            .compile("([^=]*)=(.*[^\t ]|[\t ]*)[\t ]*");
+    // input line is: "key"=value
+    private static final Pattern regQuotedNoType = Pattern
+            .compile("\"([^=]*)\"=(.*[^\t ]|[\t ]*)[\t ]*");
+
+    /**
+     * Parses the content of the specified input stream as a CMake cache file
+     * content. <br>
+     * This implementation is inspired by <a href=
+     * "https://github.com/Kitware/CMake/blob/master/Source/cmCacheManager.cxx"
+     * >cmCacheManager.cxx</a>.
+     *
+     * @param isr
+     *            the reader that serves the content of the CMake cache file
+     * @param filter
+     *            an optional filter for CMake cache file entries or
+     *            {@code null} if all entries are of interest
+     * @param parsedEntries
+     *            receives the parsed cache file entries. Specify {@code null},
+     *            if you want to verify the correct syntax of the cache file
+     *            only. Specify an instance of {@link List}, if you expect
+     *            multiple cache entires of the same key int the file. Normally,
+     *            you would specify an instance of {@link Set} here.
+     * @param errorLog
+     *            receives messages concerning parse errors. Specify
+     *            {@code null}, if you are not interested in error messages.
+     * @return {@code true} if the file could be parsed without errors,
+     *         otherwise {@code false}
+     * @throws IOException
+     *             if an operation on the input stream failed
+     */
+    public boolean parse(final Reader isr, final EntryFilter filter,
+            Collection<SimpleCMakeCacheEntry> parsedEntries,
+            List<String> errorLog) throws IOException {
+        final LineNumberReader reader = isr instanceof LineNumberReader
+                ? (LineNumberReader) isr : new LineNumberReader(isr);
+        boolean hasErrors = false;
+
+        Map<String, SimpleCMakeCacheEntry> uniqueMap = null;
+        if (parsedEntries != null && parsedEntries instanceof Set) {
+            // avoid returning duplicate keys
+            uniqueMap = new HashMap<String, SimpleCMakeCacheEntry>();
+        }
+
+        for (String line; null != (line = reader.readLine());) {
+            int idx = 0;
+            // skip leading whitespaces...
+            for (; idx < line.length(); idx++) {
+                final char c = line.charAt(idx);
+                if (!Character.isWhitespace(c))
+                    break;
+            }
+            if (!(idx < line.length()))
+                continue; // skip blank lines
+
+            if (line.charAt(idx) == '#')
+                continue; // skip cmake comment lines
+
+            if (idx < line.length()) {
+                line = line.substring(idx);
+
+                if (line.startsWith("//"))
+                    continue; // ignore help string
+
+                // parse cache entry...
+                String key = null;
+                String value = null;
+                Matcher matcher;
+
+                if ((matcher = reg.matcher(line)).matches()
+                        || (matcher = regQuoted.matcher(line)).matches()) {
+                    // input line is: key:type=value
+                    // input line is: "key":type=value
+                    key = matcher.group(1);
+                    // we do not need the type from group(2)
+                    value = matcher.group(3);
+                } else if ((matcher = regNoType.matcher(line)).matches()
+                        || (matcher = regQuotedNoType.matcher(line))
+                                .matches()) {
+                    // input line is: key=value
+                    // input line is: "key"=value
+                    key = matcher.group(1);
+                    value = matcher.group(2);
+                } else {
+                    hasErrors |= true;
+                    // add error message
+                    if (errorLog != null) {
+                        final String msg = MessageFormat.format(
+                                "Error: Line {0,number,integer}: Offending entry: {1}",
+                                reader.getLineNumber(), line);
+                        errorLog.add(msg);
+                    }
+                }
+
+                if (filter != null && parsedEntries != null) {
+                    // no need to call the filter if nothing is to be returned
+                    if (!filter.accept(key))
+                        continue; // uninteresting entry, get next line
+                }
+
+                // if value is enclosed in single quotes ('foo') then remove
+                // them
+                // it is used to enclose trailing space or tab
+                if (key != null && value != null && value.length() >= 2
+                        && value.charAt(0) == '\''
+                        && value.charAt(value.length() - 1) == '\'') {
+
+                    value = value.substring(1, value.length());
+                }
+
+                // store entry
+                if (parsedEntries != null) {
+                    final SimpleCMakeCacheEntry entry = new SimpleCMakeCacheEntry(
+                            key, value);
+                    if (uniqueMap != null)
+                        uniqueMap.put(key, entry);
+                    else
+                        parsedEntries.add(entry);
+                }
+            }
+        }
+        if (parsedEntries != null && uniqueMap != null)
+            parsedEntries.addAll(uniqueMap.values());
+        return hasErrors;
+    }
+}
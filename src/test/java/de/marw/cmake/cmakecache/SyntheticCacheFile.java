@@ -0,0 +1,113 @@
+package de.marw.cmake.cmakecache;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates the content of a synthetic CMake cache file that looks like the
+ * ones CMake writes: a file header, section comments, a help string for each
+ * external entry, quoted keys and values, advanced markers and internal
+ * entries. The {@code CMAKE_MAKE_PROGRAM} entry sits in the middle of the
+ * external entries, where CMake sorts it.
+ *
+ * @author Martin Weber
+ */
+public class SyntheticCacheFile {
+
+    /** the key of the entry that holds the build tool */
+    public static final String BUILD_TOOL_KEY = "CMAKE_MAKE_PROGRAM";
+    /** the value of the entry that holds the build tool */
+    public static final String BUILD_TOOL = "/usr/bin/ninja";
+
+    private SyntheticCacheFile() {
+    }
+
+    /**
+     * Gets the content of a cache file with the specified number of entries.
+     */
+    public static String content(int entries) {
+        final StringWriter writer = new StringWriter(entries * 96);
+        try {
+            write(writer, entries);
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes a cache file with the specified number of entries.
+     */
+    public static void write(Path file, int entries, Charset charset)
+            throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, charset)) {
+            write(writer, entries);
+        }
+    }
+
+    private static void write(Writer writer, int entries) throws IOException {
+        writer.write("# This is the CMakeCache file.\n"
+                + "# For build in directory: /home/jenkins/workspace/proj/build\n"
+                + "# It was generated by CMake: /usr/bin/cmake\n"
+                + "# You can edit this file to change values found and used by cmake.\n"
+                + "# If you do not want to change any of the values, simply exit the editor.\n"
+                + "# If you do want to change a value, simply edit, save, and exit the editor.\n"
+                + "# The syntax for the file is as follows:\n"
+                + "# KEY:TYPE=VALUE\n"
+                + "# KEY is the name of a variable in the cache.\n"
+                + "# TYPE is a hint to GUIs for the type of VALUE, DO NOT EDIT TYPE!.\n"
+                + "# VALUE is the current value for the KEY.\n\n"
+                + "########################\n"
+                + "# EXTERNAL cache entries\n"
+                + "########################\n\n");
+        final int external = entries * 3 / 4;
+        for (int i = 0; i < external; i++) {
+            if (i == external / 2) {
+                writer.write("//Program used to build from build.ninja files.\n");
+                writer.write(BUILD_TOOL_KEY + ":FILEPATH=" + BUILD_TOOL + "\n\n");
+            }
+            writer.write("//Help string for entry " + i
+                    + ", describes what the entry is good for\n"
+                    + "// and continues on a second line.\n");
+            switch (i % 5) {
+            case 0:
+                writer.write("MYPROJ_LIB_" + i
+                        + ":FILEPATH=/usr/lib/x86_64-linux-gnu/lib" + i + ".so\n");
+                break;
+            case 1:
+                writer.write("MYPROJ_WITH_FEATURE_" + i + ":BOOL=ON\n");
+                break;
+            case 2:
+                writer.write("\"MYPROJ_QUOTED KEY_" + i
+                        + "\":STRING='value with trailing blank '\n");
+                break;
+            case 3:
+                writer.write("MYPROJ_INCLUDE_DIR_" + i
+                        + ":PATH=/opt/vendor/include/component" + i + "  \n");
+                break;
+            default:
+                writer.write("MYPROJ_FLAGS_" + i
+                        + ":STRING=-O2 -g -DNDEBUG -Wall -Wextra -DNAME=\"x=y\"\n");
+                break;
+            }
+            writer.write('\n');
+        }
+        writer.write("\n########################\n"
+                + "# INTERNAL cache entries\n"
+                + "########################\n\n");
+        for (int i = external; i < entries; i++) {
+            if (i % 2 == 0) {
+                writer.write("//ADVANCED property for variable: MYPROJ_FLAGS_"
+                        + i + "\n");
+                writer.write("MYPROJ_FLAGS_" + i + "-ADVANCED:INTERNAL=1\n");
+            } else {
+                writer.write("//Have include stdint.h\n");
+                writer.write("HAVE_HEADER_" + i + ":INTERNAL=1\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.fileapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Martin Weber
+ */
+public class CodeModelReaderTest {
+
+    private Path buildDir;
+
+    @Before
+    public void setUp() throws Exception {
+        buildDir = Files.createTempDirectory("build");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walkFileTree(buildDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testWriteQuery() throws IOException {
+        CodeModelReader.writeQuery(buildDir);
+        // again, must not fail
+        CodeModelReader.writeQuery(buildDir);
+        assertTrue(Files.isRegularFile(buildDir.resolve(
+                ".cmake/api/v1/query/client-cmakebuilder/codemodel-v2")));
+    }
+
+    @Test
+    public void testNoReply() throws IOException {
+        assertNull(CodeModelReader.read(buildDir));
+        write("index-2026-01-01T00-00-00-0000.json",
+                "{\"cmake\":{},\"objects\":[],\"reply\":{\"codemodel-v2\":"
+                        + "{\"jsonFile\":\"codemodel-v2-0.json\"}}}");
+        assertNull(CodeModelReader.read(buildDir));
+        // cmake could not answer the query
+        write("index-2026-01-01T00-00-01-0000.json",
+                "{\"reply\":{\"client-cmakebuilder\":{\"codemodel-v2\":"
+                        + "{\"error\":\"unknown request kind\"}}}}");
+        assertNull(CodeModelReader.read(buildDir));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        // an outdated index
+        write("index-2026-01-01T00-00-00-0000.json",
+                "{\"reply\":{\"client-cmakebuilder\":{\"codemodel-v2\":"
+                        + "{\"jsonFile\":\"missing.json\"}}}}");
+        write("index-2026-01-02T00-00-00-0000.json",
+                "{\"cmake\":{\"version\":{\"string\":\"3.27.0\"}},"
+                        + "\"objects\":[{\"kind\":\"codemodel\"}],"
+                        + "\"reply\":{\"client-other\":{},"
+                        + "\"client-cmakebuilder\":{\"codemodel-v2\":"
+                        + "{\"kind\":\"codemodel\",\"version\":{\"major\":2,\"minor\":6},"
+                        + "\"jsonFile\":\"codemodel-v2-abc.json\"}}}}");
+        write("codemodel-v2-abc.json",
+                "{\"kind\":\"codemodel\",\"version\":{\"major\":2,\"minor\":6},"
+                        + "\"paths\":{\"source\":\"/src\",\"build\":\"/build\"},"
+                        + "\"configurations\":["
+                        + "{\"name\":\"Debug\",\"directories\":[{\"source\":\".\"}],"
+                        + "\"targets\":["
+                        + "{\"name\":\"app\",\"id\":\"app::@1\",\"directoryIndex\":0,\"jsonFile\":\"target-app-Debug.json\"},"
+                        + "{\"name\":\"util\",\"id\":\"util::@1\",\"jsonFile\":\"target-util-Debug.json\"}]},"
+                        + "{\"name\":\"Release\",\"targets\":["
+                        + "{\"name\":\"app\",\"jsonFile\":\"target-app-Release.json\"}]}]}");
+        write("target-app-Debug.json", target("app", "EXECUTABLE",
+                "app", "Debug/app", "Debug/app.pdb"));
+        write("target-util-Debug.json", target("util", "UTILITY", null));
+        write("target-app-Release.json",
+                target("app", "EXECUTABLE", "app", "Release/app"));
+
+        final CodeModel model = CodeModelReader.read(buildDir);
+        assertEquals("/src", model.getSourceDir());
+        assertEquals("/build", model.getBuildDir());
+        assertEquals(2, model.getConfigurations().size());
+        final CodeModel.Configuration debug = model.getConfiguration("Debug");
+        assertEquals(2, debug.getTargets().size());
+        final CodeModel.Target app = debug.getTarget("app");
+        assertEquals("EXECUTABLE", app.getType());
+        assertEquals("app", app.getNameOnDisk());
+        assertEquals(Arrays.asList("Debug/app", "Debug/app.pdb"),
+                app.getArtifacts());
+        final CodeModel.Target util = debug.getTarget("util");
+        assertEquals("UTILITY", util.getType());
+        assertNull(util.getNameOnDisk());
+        assertEquals(Collections.emptyList(), util.getArtifacts());
+        assertEquals(Arrays.asList("Release/app"), model
+                .getConfiguration("Release").getTarget("app").getArtifacts());
+        assertNull(model.getConfiguration("MinSizeRel"));
+    }
+
+    /**
+     * Creates a target object. Members are sorted by name, like cmake writes
+     * them.
+     */
+    private static String target(String name, String type, String nameOnDisk,
+            String... artifacts) {
+        final StringBuilder json = new StringBuilder("{");
+        if (artifacts.length > 0) {
+            json.append("\"artifacts\":[");
+            for (int i = 0; i < artifacts.length; i++) {
+                json.append(i > 0 ? "," : "").append("{\"path\":\"")
+                        .append(artifacts[i]).append("\"}");
+            }
+            json.append("],");
+        }
+        json.append("\"backtraceGraph\":{\"commands\":[\"add_executable\"],"
+                + "\"files\":[\"CMakeLists.txt\"],\"nodes\":[{\"file\":0}]},");
+        json.append("\"compileGroups\":[{\"language\":\"C\",\"sourceIndexes\":[0,1]}],");
+        json.append("\"id\":\"").append(name).append("::@1\",");
+        json.append("\"name\":\"").append(name).append("\",");
+        if (nameOnDisk != null) {
+            json.append("\"nameOnDisk\":\"").append(nameOnDisk).append("\",");
+        }
+        json.append("\"sources\":[{\"path\":\"a.c\"},{\"path\":\"b.c\",\"isGenerated\":true}],");
+        json.append("\"type\":\"").append(type).append("\"}");
+        return json.toString();
+    }
+
+    private void write(String replyFile, String content) throws IOException {
+        final Path file = buildDir.resolve(".cmake/api/v1/reply/" + replyFile);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.fileapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import de.marw.cmake.fileapi.JsonReader.Token;
+
+/**
+ * @author Martin Weber
+ */
+public class JsonReaderTest {
+
+    @Test
+    public void testTokens() throws IOException {
+        final JsonReader reader = new JsonReader(new StringReader(
+                " {\"a\": [1, -2.5e3, true, false, null], \"b\" : {}, \"c\":\"x\"}\n"));
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(Token.NUMBER, reader.peek());
+        assertEquals("1", reader.nextString());
+        assertEquals("-2.5e3", reader.nextString());
+        assertEquals("true", reader.nextString());
+        assertEquals("false", reader.nextString());
+        assertEquals(Token.NULL, reader.peek());
+        reader.skipValue();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals("c", reader.nextName());
+        assertEquals("x", reader.nextString());
+        reader.endObject();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        final JsonReader reader = new JsonReader(new StringReader(
+                "[\"C:\\\\src\\/a\\\"b\\\"\\n\\u00e4\"]"));
+        reader.beginArray();
+        assertEquals("C:\\src/a\"b\"\n\u00e4", reader.nextString());
+        reader.endArray();
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        final JsonReader reader = new JsonReader(new StringReader(
+                "{\"sources\":[{\"path\":\"a.c\",\"x\":[[],{}]},{}],\"name\":\"foo\"}"));
+        reader.beginObject();
+        assertEquals("sources", reader.nextName());
+        reader.skipValue();
+        assertEquals("name", reader.nextName());
+        assertEquals("foo", reader.nextString());
+        reader.endObject();
+    }
+
+    @Test
+    public void testLargeDocument() throws IOException {
+        // exceeds the buffer of the reader
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0)
+                json.append(',');
+            json.append("{\"path\":\"src/file").append(i).append(".c\"}");
+        }
+        json.append(']');
+        final JsonReader reader = new JsonReader(
+                new StringReader(json.toString()));
+        reader.beginArray();
+        int count = 0;
+        while (reader.hasNext()) {
+            reader.beginObject();
+            reader.nextName();
+            assertEquals("src/file" + count + ".c", reader.nextString());
+            reader.endObject();
+            count++;
+        }
+        reader.endArray();
+        assertEquals(5000, count);
+    }
+
+    @Test
+    public void testMalformed() {
+        final String[] documents = { "{\"a\" 1}", "[1 2]", "{\"a\":1,}x",
+                "[\"abc", "{1:2}", "[tru]", "{} {}" };
+        for (String document : documents) {
+            final JsonReader reader = new JsonReader(
+                    new StringReader(document));
+            try {
+                reader.skipValue();
+                reader.peek();
+                fail("accepted " + document);
+            } catch (IOException expected) {
+            }
+        }
+    }
+}
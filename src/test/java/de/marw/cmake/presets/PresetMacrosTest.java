@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Martin Weber
+ */
+public class PresetMacrosTest {
+
+    @Test
+    public void testExpand() throws Exception {
+        final Map<String, String> macros = new HashMap<>();
+        macros.put("sourceDir", "/ws/src");
+        macros.put("presetName", "debug");
+        final Map<String, String> presetEnv = new LinkedHashMap<>();
+        presetEnv.put("ROOT", "$env{HOME}/sdk");
+        presetEnv.put("PATH", "$env{ROOT}/bin:$penv{PATH}");
+        presetEnv.put("GONE", null);
+        final Map<String, String> env = new HashMap<>();
+        env.put("HOME", "/home/j");
+        env.put("PATH", "/usr/bin");
+        env.put("GONE", "x");
+        final PresetMacros expander = new PresetMacros(macros, presetEnv, env);
+
+        assertEquals("/ws/src/build/debug",
+                expander.expand("${sourceDir}/build/${presetName}"));
+        assertEquals("$ ${unknown} $vendor{x} a$b",
+                expander.expand("${dollar} ${unknown} $vendor{x} a$b"));
+        // not a macro: no { right after the namespace
+        assertEquals("a$ {b} $1{c} $x-{d} /ws/src",
+                expander.expand("a$ {b} $1{c} $x-{d} ${sourceDir}"));
+        assertEquals("$env{unclosed", expander.expand("$env{unclosed"));
+        assertEquals("/home/j/sdk/bin:/usr/bin", expander.expand("$env{PATH}"));
+        assertEquals("", expander.expand("$env{GONE}$env{UNSET}"));
+        assertEquals("x", expander.expand("$penv{GONE}"));
+        assertNull(expander.expand(null));
+
+        final Map<String, String> expanded = expander.expandEnvironment();
+        assertEquals("/home/j/sdk", expanded.get("ROOT"));
+        assertEquals("/home/j/sdk/bin:/usr/bin", expanded.get("PATH"));
+        assertNull(expanded.get("GONE"));
+    }
+
+    @Test
+    public void testSelfReference() throws Exception {
+        final Map<String, String> presetEnv = new LinkedHashMap<>();
+        presetEnv.put("X", "a$env{X}");
+        presetEnv.put("Y", "$env{Z}");
+        presetEnv.put("Z", "$env{Y}");
+        presetEnv.put("OK", "$penv{OK}:$env{W}$env{W}");
+        presetEnv.put("W", "w");
+        final PresetMacros expander = new PresetMacros(
+                Collections.<String, String> emptyMap(), presetEnv,
+                Collections.singletonMap("OK", "p"));
+        assertEquals("p:ww", expander.expand("$env{OK}"));
+        for (String value : new String[] { "$env{X}", "$env{Y}" }) {
+            try {
+                expander.expand(value);
+                fail(value);
+            } catch (IOException expected) {
+            }
+        }
+        try {
+            expander.expandEnvironment();
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
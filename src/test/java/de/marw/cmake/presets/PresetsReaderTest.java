@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Martin Weber.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Martin Weber - Initial implementation
+ *******************************************************************************/
+package de.marw.cmake.presets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Martin Weber
+ */
+public class PresetsReaderTest {
+
+    private Path sourceDir;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDir = Files.createTempDirectory("src");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testNoPresets() throws Exception {
+        assertNull(PresetsReader.read(sourceDir));
+    }
+
+    @Test
+    public void testInheritance() throws Exception {
+        write("CMakePresets.json", "{'version': 3, 'configurePresets': ["
+                + "{'name': 'base', 'hidden': true, 'generator': 'Ninja',"
+                + " 'binaryDir': '${sourceDir}/build/${presetName}',"
+                + " 'cacheVariables': {'A': 'base', 'B': 'base', 'C': 'base'},"
+                + " 'environment': {'CC': 'gcc'}},"
+                + "{'name': 'other', 'hidden': true, 'generator': 'Unix Makefiles',"
+                + " 'cacheVariables': {'B': {'type': 'BOOL', 'value': true}}},"
+                + "{'name': 'debug', 'inherits': ['other', 'base'],"
+                + " 'cacheVariables': {'A': 'debug', 'C': null,"
+                + " 'CMAKE_BUILD_TYPE': 'Debug'}}],"
+                + "'buildPresets': [{'name': 'b-base', 'hidden': true, 'jobs': 4,"
+                + " 'targets': 'all'},"
+                + "{'name': 'b', 'inherits': 'b-base', 'configurePreset': 'debug',"
+                + " 'targets': ['app', 'lib'], 'cleanFirst': true}],"
+                + "'testPresets': [{'name': 't', 'configurePreset': 'debug',"
+                + " 'output': {'outputOnFailure': true},"
+                + " 'execution': {'jobs': 8, 'stopOnFailure': true},"
+                + " 'filter': {'exclude': {'name': 'slow'}}}],"
+                + "'vendor': {'x': [1, 2]}}");
+        final Presets presets = PresetsReader.read(sourceDir);
+
+        final ConfigurePreset debug = presets.getConfigurePresets()
+                .get("debug");
+        assertTrue(presets.getConfigurePresets().get("base").isHidden());
+        assertFalse(debug.isHidden());
+        // earlier parent wins
+        assertEquals("Unix Makefiles", debug.getGenerator());
+        assertEquals("${sourceDir}/build/${presetName}", debug.getBinaryDir());
+        assertEquals("debug", debug.getCacheVariables().get("A").getValue());
+        assertEquals("BOOL", debug.getCacheVariables().get("B").getType());
+        assertEquals("TRUE", debug.getCacheVariables().get("B").getValue());
+        assertTrue(debug.getCacheVariables().containsKey("C"));
+        assertNull(debug.getCacheVariables().get("C"));
+        assertEquals("gcc", debug.getEnvironment().get("CC"));
+
+        final BuildPreset build = presets.getBuildPresets().get("b");
+        assertEquals("debug", build.getConfigurePreset());
+        assertEquals(Integer.valueOf(4), build.getJobs());
+        assertEquals(Arrays.asList("app", "lib"), build.getTargets());
+        assertTrue(build.isCleanFirst());
+
+        final TestPreset test = presets.getTestPresets().get("t");
+        assertTrue(test.isOutputOnFailure());
+        assertTrue(test.isStopOnFailure());
+        assertEquals(Integer.valueOf(8), test.getJobs());
+        assertEquals("slow", test.getExcludeName());
+        assertNull(test.getIncludeName());
+    }
+
+    @Test
+    public void testIncludes() throws Exception {
+        Files.createDirectories(sourceDir.resolve("cmake"));
+        write("CMakePresets.json", "{'version': 4, 'include': ['cmake/base.json'],"
+                + "'configurePresets': [{'name': 'ci', 'inherits': 'base'}]}");
+        write("cmake/base.json", "{'version': 4, 'include': 'common.json',"
+                + "'configurePresets': [{'name': 'base', 'inherits': 'common',"
+                + " 'binaryDir': '${fileDir}/out'}]}");
+        write("cmake/common.json", "{'version': 4,"
+                + "'configurePresets': [{'name': 'common', 'generator': 'Ninja'}]}");
+        write("CMakeUserPresets.json", "{'version': 4,"
+                + "'configurePresets': [{'name': 'mine', 'inherits': 'ci'}]}");
+
+        final Presets presets = PresetsReader.read(sourceDir);
+        assertEquals(4, presets.getFiles().size());
+        final ConfigurePreset mine = presets.getConfigurePresets().get("mine");
+        assertEquals("Ninja", mine.getGenerator());
+        assertEquals("${fileDir}/out", mine.getBinaryDir());
+        assertEquals(sourceDir.resolve("cmake").toAbsolutePath().toString(),
+                presets.getConfigurePresets().get("base").getFileDir());
+        assertEquals(sourceDir.toAbsolutePath().toString(),
+                mine.getFileDir());
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        write("CMakePresets.json", "{'configurePresets': ["
+                + "{'name': 'a', 'inherits': 'b'}, {'name': 'b', 'inherits': 'a'}]}");
+        assertReadFails("inherits from itself");
+
+        write("CMakePresets.json", "{'configurePresets': ["
+                + "{'name': 'a', 'inherits': 'missing'}]}");
+        assertReadFails("unknown preset missing");
+
+        write("CMakePresets.json", "{'configurePresets': ["
+                + "{'name': 'a'}, {'name': 'a'}]}");
+        assertReadFails("duplicate preset a");
+    }
+
+    private void assertReadFails(String message) {
+        try {
+            PresetsReader.read(sourceDir);
+            fail("exception expected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(),
+                    expected.getMessage().contains(message));
+        }
+    }
+
+    /**
+     * Writes a file, with single quotes replaced by double quotes.
+     */
+    private void write(String name, String json) throws IOException {
+        Files.write(sourceDir.resolve(name),
+                json.replace('\'', '"').getBytes(StandardCharsets.UTF_8));
+    }
+}
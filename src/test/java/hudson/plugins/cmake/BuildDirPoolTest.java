@@ -0,0 +1,164 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the BuildDirPool.
+ *
+ * @author Martin Weber
+ */
+public class BuildDirPoolTest {
+
+    private static final Map<String, String> ENV = Collections
+            .singletonMap("CC", "gcc");
+
+    private Path root;
+    private Path pool;
+    private Path sources;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("pool");
+        pool = root.resolve("pool");
+        sources = Files.createDirectories(root.resolve("ws/src"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BuildDirTrash.deleteRecursive(root);
+    }
+
+    @Test
+    public void testComputeKey() {
+        final String key = BuildDirPool.computeKey("repo", "Ninja", "Debug",
+                "/opt/cmake", ENV);
+        assertEquals(key, BuildDirPool.computeKey("repo", "Ninja", "Debug",
+                "/opt/cmake", ENV));
+        assertNotEquals(key, BuildDirPool.computeKey("repo", "Ninja",
+                "Release", "/opt/cmake", ENV));
+        assertNotEquals(key, BuildDirPool.computeKey("repo", "Ninja", "Debug",
+                "/opt/cmake", Collections.singletonMap("CC", "clang")));
+    }
+
+    @Test
+    public void testLease() throws Exception {
+        final String key = BuildDirPool.computeKey("repo", null, null, null,
+                ENV);
+        final BuildDirPool.Lease lease1 = BuildDirPool.lease(pool, key,
+                sources, "job#1");
+        assertFalse(lease1.isWarm());
+        assertTrue(Files.isDirectory(Paths.get(lease1.getBuildDir())));
+        assertTrue(Files.isSymbolicLink(Paths.get(lease1.getSourceDir())));
+        assertEquals(sources.toRealPath(),
+                Paths.get(lease1.getSourceDir()).toRealPath());
+
+        // leased: a concurrent build gets another tree
+        final BuildDirPool.Lease lease2 = BuildDirPool.lease(pool, key,
+                sources, "job#2");
+        assertNotEquals(lease1.getEntry(), lease2.getEntry());
+
+        write(Paths.get(lease1.getBuildDir()).resolve("CMakeCache.txt"), 10);
+        BuildDirPool.release(pool, lease1, Long.MAX_VALUE);
+        final BuildDirPool.Lease lease3 = BuildDirPool.lease(pool, key,
+                root.resolve("ws2"), "job#3");
+        assertEquals(lease1.getEntry(), lease3.getEntry());
+        assertTrue(lease3.isWarm());
+        // the link points to the sources of the new build
+        assertEquals(root.resolve("ws2"),
+                Files.readSymbolicLink(Paths.get(lease3.getSourceDir())));
+        BuildDirPool.release(pool, lease2, Long.MAX_VALUE);
+        BuildDirPool.release(pool, lease3, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testEvict() throws Exception {
+        final BuildDirPool.Lease old = BuildDirPool.lease(pool,
+                BuildDirPool.computeKey("old", null, null, null, ENV), sources,
+                "job#1");
+        write(Paths.get(old.getBuildDir()).resolve("obj"), 1000);
+        BuildDirPool.release(pool, old, Long.MAX_VALUE);
+        Thread.sleep(5);
+        final BuildDirPool.Lease leased = BuildDirPool.lease(pool,
+                BuildDirPool.computeKey("leased", null, null, null, ENV),
+                sources, "job#2");
+        write(Paths.get(leased.getBuildDir()).resolve("obj"), 1000);
+        final BuildDirPool.Lease recent = BuildDirPool.lease(pool,
+                BuildDirPool.computeKey("recent", null, null, null, ENV),
+                sources, "job#3");
+        write(Paths.get(recent.getBuildDir()).resolve("obj"), 1000);
+
+        // the least recently used tree is evicted, the leased one is kept
+        final BuildDirPool.Usage usage = BuildDirPool.release(pool, recent,
+                2500);
+        assertEquals(1, usage.getEvicted());
+        assertEquals(2, usage.getEntries().size());
+        assertEquals(2000, usage.getSize());
+        assertFalse(Files.exists(Paths.get(old.getEntry())));
+        assertTrue(Files.exists(Paths.get(leased.getBuildDir())));
+        // moved out of the pool and deleted
+        final Path evicted = pool.resolve(BuildDirPool.EVICTED_DIR);
+        assertEquals(0, evicted.toFile().list().length);
+
+        // a leased tree is never evicted
+        final BuildDirPool.Usage usage2 = BuildDirPool.evict(pool, 0);
+        assertEquals(1, usage2.getEvicted());
+        assertTrue(Files.exists(Paths.get(leased.getBuildDir())));
+        BuildDirPool.release(pool, leased, Long.MAX_VALUE);
+
+        // left over when the node was shut down
+        Files.createDirectories(evicted.resolve("x-1"));
+        write(evicted.resolve("x-1").resolve("obj"), 10);
+        assertEquals(0, BuildDirPool.evict(pool, Long.MAX_VALUE).getEvicted());
+        assertEquals(0, evicted.toFile().list().length);
+    }
+
+    @Test
+    public void testExpiredLease() throws Exception {
+        final String key = BuildDirPool.computeKey("repo", null, null, null,
+                ENV);
+        final long now = System.currentTimeMillis();
+        final BuildDirPool.Lease stale = BuildDirPool.lease(pool, key,
+                sources, "job#1", now);
+        assertNull(stale.getExpiredOwner());
+        // not yet expired: another tree
+        final BuildDirPool.Lease other = BuildDirPool.lease(pool, key,
+                sources, "job#2", now + 1);
+        assertNotEquals(stale.getEntry(), other.getEntry());
+        BuildDirPool.release(pool, other, Long.MAX_VALUE);
+
+        // expired: the tree is taken over
+        final BuildDirPool.Lease lease = BuildDirPool.lease(pool, key,
+                sources, "job#3", now + BuildDirPool.MAX_LEASE_MILLIS);
+        assertEquals(stale.getEntry(), lease.getEntry());
+        assertEquals("job#1", lease.getExpiredOwner());
+        // a late return of the expired lease does not return the tree
+        BuildDirPool.release(pool, stale, Long.MAX_VALUE);
+        final BuildDirPool.Lease next = BuildDirPool.lease(pool, key, sources,
+                "job#4");
+        assertNotEquals(lease.getEntry(), next.getEntry());
+        BuildDirPool.release(pool, next, Long.MAX_VALUE);
+        BuildDirPool.release(pool, lease, Long.MAX_VALUE);
+    }
+
+    private static void write(Path file, int size) throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++)
+            sb.append('x');
+        Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,190 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the BuildDirSnapshot.
+ *
+ * @author Martin Weber
+ */
+public class BuildDirSnapshotTest {
+
+    private Path root;
+    private Path store;
+    private Path buildDir;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("snapshot");
+        store = root.resolve("store");
+        buildDir = Files.createDirectories(root.resolve("build"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BuildDirTrash.deleteRecursive(root);
+    }
+
+    @Test
+    public void testIsAbsolute() {
+        assertTrue(BuildDirSnapshot.isAbsolute("/mnt/snapshots"));
+        assertTrue(BuildDirSnapshot.isAbsolute("C:\\snapshots"));
+        assertTrue(BuildDirSnapshot.isAbsolute("d:/snapshots"));
+        assertTrue(BuildDirSnapshot.isAbsolute("\\\\server\\share"));
+        assertFalse(BuildDirSnapshot.isAbsolute("snapshots"));
+        assertFalse(BuildDirSnapshot.isAbsolute("c:snapshots"));
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        assertEquals(BuildDirSnapshot.Result.NOT_STORED,
+                BuildDirSnapshot.restore(store, "key", buildDir));
+        BuildDirSnapshot.save(store, "key", buildDir);
+        assertEquals(BuildDirSnapshot.Result.NOT_STORED,
+                BuildDirSnapshot.restore(store, "other", buildDir));
+
+        Files.createFile(buildDir.resolve(CacheTreeScanner.CACHE_FILE_NAME));
+        assertEquals(BuildDirSnapshot.Result.CONFIGURED,
+                BuildDirSnapshot.restore(store, "key", buildDir));
+    }
+
+    @Test
+    public void testSave() throws Exception {
+        final BuildDirSnapshot.Snapshot first = BuildDirSnapshot.save(store,
+                "key", buildDir);
+        assertTrue(first.isAdded());
+        assertTrue(Files.isRegularFile(store.resolve("objects")
+                .resolve(first.getHash() + ".tar.gz")));
+        assertEquals(first.getHash(), new String(
+                Files.readAllBytes(store.resolve("refs").resolve("key")),
+                "US-ASCII"));
+
+        // same content: stored once
+        final BuildDirSnapshot.Snapshot second = BuildDirSnapshot.save(store,
+                "key2", buildDir);
+        assertFalse(second.isAdded());
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals(1, count(store.resolve("objects")));
+    }
+
+    @Test
+    public void testCollectGarbage() throws Exception {
+        final BuildDirSnapshot.Snapshot snapshot = BuildDirSnapshot.save(store,
+                "key", buildDir);
+        final Path orphan = store.resolve("objects").resolve("0123.tar.gz");
+        Files.createFile(orphan);
+
+        // too young to delete
+        BuildDirSnapshot.collectGarbage(store, 60_000L, Long.MAX_VALUE);
+        assertTrue(Files.exists(orphan));
+
+        Files.setLastModifiedTime(orphan,
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000L));
+        Files.setLastModifiedTime(
+                store.resolve("objects")
+                        .resolve(snapshot.getHash() + ".tar.gz"),
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000L));
+        BuildDirSnapshot.collectGarbage(store, 60_000L, Long.MAX_VALUE);
+        assertFalse(Files.exists(orphan));
+        // still referenced
+        assertEquals(1, count(store.resolve("objects")));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final long time = (System.currentTimeMillis() - 3_600_000L) / 1000L
+                * 1000L;
+        final Path obj = Files.createDirectories(buildDir.resolve("src/obj"))
+                .resolve("main.o");
+        Files.write(obj, "object".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(obj, FileTime.fromMillis(time));
+        final Path log = buildDir.resolve(".ninja_log");
+        Files.write(log, "# ninja log v5\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(log, FileTime.fromMillis(time + 2000L));
+        BuildDirSnapshot.save(store, "key", buildDir);
+
+        final Path restored = root.resolve("restored");
+        Files.createDirectories(restored);
+        assertEquals(BuildDirSnapshot.Result.RESTORED,
+                BuildDirSnapshot.restore(store, "key", restored));
+        final Path obj2 = restored.resolve("src/obj/main.o");
+        assertEquals("object", new String(Files.readAllBytes(obj2),
+                StandardCharsets.UTF_8));
+        assertEquals(time, Files.getLastModifiedTime(obj2).toMillis());
+        assertEquals(time + 2000L, Files
+                .getLastModifiedTime(restored.resolve(".ninja_log"))
+                .toMillis());
+    }
+
+    @Test
+    public void testCollectGarbage_replaced() throws Exception {
+        final BuildDirSnapshot.Snapshot first = BuildDirSnapshot.save(store,
+                "key", buildDir);
+        final Path archive = store.resolve("objects")
+                .resolve(first.getHash() + ".tar.gz");
+        // added long ago
+        Files.setLastModifiedTime(archive,
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000L));
+        Files.write(buildDir.resolve("changed"), new byte[] { 1 });
+        final BuildDirSnapshot.Snapshot second = BuildDirSnapshot.save(store,
+                "key", buildDir);
+        assertFalse(first.getHash().equals(second.getHash()));
+
+        // unreferenced just now: kept
+        BuildDirSnapshot.collectGarbage(store, 60_000L, Long.MAX_VALUE);
+        assertTrue(Files.exists(archive));
+    }
+
+    @Test
+    public void testCollectGarbage_refs() throws Exception {
+        final BuildDirSnapshot.Snapshot snapshot = BuildDirSnapshot.save(store,
+                "key", buildDir);
+        final Path ref = store.resolve("refs").resolve("key");
+        Files.setLastModifiedTime(ref,
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000L));
+        BuildDirSnapshot.collectGarbage(store, 60_000L, 60_000L);
+        assertFalse(Files.exists(ref));
+        // unreferenced just now: kept
+        assertTrue(Files.exists(store.resolve("objects")
+                .resolve(snapshot.getHash() + ".tar.gz")));
+
+        // a restore alone does not keep the reference, the tree may fail to
+        // build
+        BuildDirSnapshot.save(store, "key", buildDir);
+        Files.setLastModifiedTime(ref,
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000L));
+        final Path restored = Files.createDirectories(root.resolve("restored"));
+        assertEquals(BuildDirSnapshot.Result.RESTORED,
+                BuildDirSnapshot.restore(store, "key", restored));
+        BuildDirSnapshot.collectGarbage(store, 60_000L, 60_000L);
+        assertFalse(Files.exists(ref));
+
+        // saving after the build succeeded keeps it
+        BuildDirSnapshot.save(store, "key", buildDir);
+        Files.setLastModifiedTime(ref,
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000L));
+        final Path built = Files.createDirectories(root.resolve("built"));
+        assertEquals(BuildDirSnapshot.Result.RESTORED,
+                BuildDirSnapshot.restore(store, "key", built));
+        BuildDirSnapshot.save(store, "key", built);
+        BuildDirSnapshot.collectGarbage(store, 60_000L, 60_000L);
+        assertTrue(Files.exists(ref));
+    }
+
+    private static long count(Path dir) throws Exception {
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the BuildDirTrash.
+ *
+ * @author Martin Weber
+ */
+public class BuildDirTrashTest {
+
+    private Path root;
+    private Path trash;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("node");
+        trash = root.resolve(BuildDirTrash.TRASH_DIR_NAME);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testMoveToTrash() throws Exception {
+        Path buildDir = createTree(root.resolve("workspace/build"));
+        assertTrue(BuildDirTrash.moveToTrash(trash, buildDir));
+        assertFalse(Files.exists(buildDir));
+        awaitEmptyTrash();
+    }
+
+    @Test
+    public void testNonexistentDir() throws Exception {
+        assertTrue(BuildDirTrash.moveToTrash(trash,
+                root.resolve("workspace/nonexistent")));
+    }
+
+    /**
+     * Verifies that directories left in the trash are deleted.
+     */
+    @Test
+    public void testLeftOvers() throws Exception {
+        createTree(trash.resolve("build-left-over"));
+        assertTrue(BuildDirTrash.moveToTrash(trash,
+                root.resolve("workspace/nonexistent")));
+        awaitEmptyTrash();
+    }
+
+    private static Path createTree(Path dir) throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Path sub = Files.createDirectories(dir.resolve("CMakeFiles/t" + i));
+            Files.write(sub.resolve("main.o"), new byte[100]);
+        }
+        return dir;
+    }
+
+    private void awaitEmptyTrash() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            try (Stream<Path> entries = Files.list(trash)) {
+                if (!entries.findAny().isPresent())
+                    return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("trash not emptied");
+    }
+}
@@ -0,0 +1,144 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import hudson.EnvVars;
+import hudson.model.TaskListener;
+
+/**
+ * Tests the BuildToolStepRunner and the LinePrefixOutputStream.
+ *
+ * @author Martin Weber
+ */
+public class BuildToolStepRunnerTest {
+
+    @Test
+    public void testPartition() {
+        final BuildToolStep a = step(null);
+        final BuildToolStep b1 = step("b");
+        final BuildToolStep b2 = step("b");
+        final BuildToolStep c = step("c");
+        final BuildToolStep d = step(null);
+        final BuildToolStep b3 = step("b");
+        final List<List<BuildToolStep>> groups = BuildToolStepRunner
+                .partition(Arrays.asList(a, b1, b2, c, d, b3));
+        assertEquals(5, groups.size());
+        assertEquals(Arrays.asList(a), groups.get(0));
+        assertEquals(Arrays.asList(b1, b2), groups.get(1));
+        assertEquals(Arrays.asList(c), groups.get(2));
+        assertEquals(Arrays.asList(d), groups.get(3));
+        // not consecutive: a group of its own
+        assertSame(b3, groups.get(4).get(0));
+    }
+
+    @Test
+    public void testPartition_ungrouped() {
+        final List<List<BuildToolStep>> groups = BuildToolStepRunner
+                .partition(Arrays.asList(step(null), step(""), step(null)));
+        assertEquals(3, groups.size());
+    }
+
+    @Test
+    public void testShareJobs() {
+        // unspecified: the share
+        assertEquals(8, BuildToolStepRunner.shareJobs(0, 16, 2));
+        assertEquals(5, BuildToolStepRunner.shareJobs(0, 16, 3));
+        // limited to the share
+        assertEquals(4, BuildToolStepRunner.shareJobs(4, 16, 2));
+        assertEquals(8, BuildToolStepRunner.shareJobs(32, 16, 2));
+        // at least one
+        assertEquals(1, BuildToolStepRunner.shareJobs(0, 2, 4));
+    }
+
+    @Test
+    public void testGetTargets() {
+        final BuildToolStep a = step("g");
+        a.setArgs("lib app");
+        final BuildToolStep b = step("g");
+        b.setArgs("app docs");
+        final List<BuildToolStep> group = Arrays.asList(a, b);
+        assertEquals(Arrays.asList("lib", "app", "docs"),
+                runner("/usr/bin/ninja").getTargets(group));
+        assertEquals(Arrays.asList("lib", "app", "docs"),
+                runner("C:\\bin\\ninja-build.exe").getTargets(group));
+        // make is run for each step
+        assertNull(runner("/usr/bin/make").getTargets(group));
+        assertNull(runner(null).getTargets(group));
+        // options are per step
+        b.setArgs("-k 0 docs");
+        assertNull(runner("/usr/bin/ninja").getTargets(group));
+        // a step without targets builds the default target
+        b.setArgs("");
+        assertNull(runner("/usr/bin/ninja").getTargets(group));
+        b.setArgs("docs");
+        b.setWithCmake(true);
+        assertNull(runner("/usr/bin/ninja").getTargets(group));
+    }
+
+    @Test
+    public void testGetTargets_withCmake() {
+        final BuildToolStep a = step("g");
+        a.setWithCmake(true);
+        a.setArgs("--target lib app");
+        final BuildToolStep b = step("g");
+        b.setWithCmake(true);
+        b.setArgs("-t app docs");
+        final List<BuildToolStep> group = Arrays.asList(a, b);
+        assertEquals(Arrays.asList("lib", "app", "docs"),
+                runner(null).getTargets(group));
+        assertEquals(Arrays.asList("lib", "app", "docs"),
+                runner("/usr/bin/make").getTargets(group));
+        // options for the build tool
+        b.setArgs("--target docs -- -k");
+        assertNull(runner(null).getTargets(group));
+        b.setArgs("--config Release --target docs");
+        assertNull(runner(null).getTargets(group));
+        // the default target
+        b.setArgs("");
+        assertNull(runner(null).getTargets(group));
+        b.setArgs("docs");
+        assertNull(runner(null).getTargets(group));
+        b.setArgs("--target docs");
+        b.setWithCmake(false);
+        assertNull(runner("/usr/bin/ninja").getTargets(group));
+    }
+
+    @Test
+    public void testLinePrefix() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final PrintStream log = new PrintStream(bytes, true, "UTF-8");
+        final LinePrefixOutputStream out1 = new LinePrefixOutputStream(log,
+                "[g #1] ", StandardCharsets.UTF_8);
+        final LinePrefixOutputStream out2 = new LinePrefixOutputStream(log,
+                "[g #2] ", StandardCharsets.UTF_8);
+        out1.write("foo".getBytes(StandardCharsets.UTF_8));
+        out2.write("bar\nba".getBytes(StandardCharsets.UTF_8));
+        out1.write("\nfoo2\n".getBytes(StandardCharsets.UTF_8));
+        out2.write('z');
+        out2.close();
+        out1.close();
+        assertEquals("[g #2] bar\n[g #1] foo\n[g #1] foo2\n[g #2] baz\n",
+                new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static BuildToolStepRunner runner(String buildTool) {
+        return new BuildToolStepRunner(null, null, buildTool, new EnvVars(),
+                TaskListener.NULL);
+    }
+
+    private static BuildToolStep step(String group) {
+        final BuildToolStep step = new BuildToolStep();
+        step.setParallelGroup(group);
+        return step;
+    }
+}
@@ -161,4 +161,58 @@ public class BuildToolStepTest {
         assertTrue(environmentVars.containsKey(var));
         assertEquals(exValue, environmentVars.get(var));
     }
+
+    @Test
+    public final void testAddJobsArgument() {
+        final String[] args = { "all", "--", "-k" };
+        assertArrayEquals(args, BuildToolStep.addJobsArgument(args, 0, false));
+        assertArrayEquals(new String[] { "-j6", "all", "--", "-k" },
+                BuildToolStep.addJobsArgument(args, 6, false));
+        assertArrayEquals(new String[] { "--parallel", "6", "all", "--", "-k" },
+                BuildToolStep.addJobsArgument(args, 6, true));
+        // specified by user
+        final String[] userArgs = { "-j", "2", "all" };
+        assertArrayEquals(userArgs,
+                BuildToolStep.addJobsArgument(userArgs, 6, false));
+        final String[] userCmakeArgs = { "--parallel=2" };
+        assertArrayEquals(userCmakeArgs,
+                BuildToolStep.addJobsArgument(userCmakeArgs, 6, true));
+    }
+
+    @Test
+    public final void testAcceptsJobsOption() {
+        assertTrue(BuildToolStep.acceptsJobsOption("/usr/bin/make"));
+        assertTrue(BuildToolStep.acceptsJobsOption("ninja-build"));
+        assertTrue(BuildToolStep.acceptsJobsOption("C:\\msys64\\mingw32-make.EXE"));
+        assertFalse(BuildToolStep.acceptsJobsOption("C:\\VS\\nmake.exe"));
+        assertFalse(BuildToolStep.acceptsJobsOption("/usr/bin/xcodebuild"));
+        assertFalse(BuildToolStep.acceptsJobsOption("${CMAKE_BUILD_TOOL}"));
+        assertFalse(BuildToolStep.acceptsJobsOption(null));
+    }
+
+    @Test
+    public final void testComputeJobs() {
+        final long gib = 1024L * 1024L * 1024L;
+        // bound by processors
+        assertEquals(8, BuildToolStep.computeJobs(8, 64 * gib, gib));
+        // bound by memory
+        assertEquals(3, BuildToolStep.computeJobs(8, 7 * gib, 2 * gib));
+        // at least one job
+        assertEquals(1, BuildToolStep.computeJobs(8, gib / 2, gib));
+        // memory unknown
+        assertEquals(8, BuildToolStep.computeJobs(8, -1, gib));
+    }
+
+    @Test
+    public final void testGetJobs() {
+        assertEquals(0, testee.getJobs(new EnvVars(), null,
+                new DummyTaskListener()));
+        testee.setParallelism("12");
+        assertEquals(12, testee.getJobs(new EnvVars(), null,
+                new DummyTaskListener()));
+        assertEquals(BuildToolStep.DEFAULT_MEMORY_PER_JOB,
+                testee.getMemoryPerJob());
+        testee.setMemoryPerJob(4096);
+        assertEquals(4096, testee.getMemoryPerJob());
+    }
 }
@@ -0,0 +1,65 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marw.cmake.cmakecache.CMakeCache;
+
+/**
+ * Tests the CMakeCacheLoader.
+ *
+ * @author Martin Weber
+ */
+public class CMakeCacheLoaderTest {
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws Exception {
+        CMakeCacheLoader.clear();
+        cacheFile = File.createTempFile("CMakeCache", ".txt");
+        write("CMAKE_MAKE_PROGRAM:FILEPATH=/usr/bin/make\n");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(cacheFile.toPath());
+    }
+
+    @Test
+    public void testUnchangedFileIsServedFromMemory() throws Exception {
+        final long hits = CMakeCacheLoader.getHitCount();
+        final long misses = CMakeCacheLoader.getMissCount();
+        CMakeCache first = CMakeCacheLoader.load(cacheFile);
+        CMakeCache second = CMakeCacheLoader.load(cacheFile);
+        assertSame(first, second);
+        assertEquals(hits + 1, CMakeCacheLoader.getHitCount());
+        assertEquals(misses + 1, CMakeCacheLoader.getMissCount());
+    }
+
+    @Test
+    public void testChangedFileIsParsed() throws Exception {
+        CMakeCache first = CMakeCacheLoader.load(cacheFile);
+        write("CMAKE_MAKE_PROGRAM:FILEPATH=/usr/bin/ninja\n");
+        final long misses = CMakeCacheLoader.getMissCount();
+        CMakeCache second = CMakeCacheLoader.load(cacheFile);
+        assertNotSame(first, second);
+        assertEquals(misses + 1, CMakeCacheLoader.getMissCount());
+        assertEquals("/usr/bin/ninja",
+                second.getValue("CMAKE_MAKE_PROGRAM"));
+    }
+
+    private void write(String content) throws Exception {
+        Files.write(cacheFile.toPath(),
+                content.getBytes(Charset.defaultCharset()));
+    }
+}
@@ -0,0 +1,55 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.marw.cmake.cmakecache.CMakeCache;
+
+/**
+ * Tests the selection of cache entries by glob patterns.
+ *
+ * @author Martin Weber
+ */
+public class CacheEntriesParserTest {
+
+    private static final String CACHE = "CMAKE_C_COMPILER:FILEPATH=/usr/bin/gcc\n"
+            + "CMAKE_CXX_COMPILER:FILEPATH=/usr/bin/g++\n"
+            + "CMAKE_CXX_FLAGS:STRING=-Wall\n"
+            + "MYPROJ_WITH_FOO:BOOL=ON\n"
+            + "MYPROJ_WITH-BAR:BOOL=OFF\n"
+            + "OTHER:STRING=x\n";
+
+    @Test
+    public void testSelectMatching() throws Exception {
+        CMakeCache cache = CMakeCache.read(new StringReader(CACHE));
+        Map<String, String> values = CacheEntriesParser.selectMatching(cache,
+                "CMAKE_*_COMPILER, MYPROJ_*");
+        assertEquals(Arrays.asList("CMAKE_CXX_COMPILER", "CMAKE_C_COMPILER",
+                "MYPROJ_WITH_FOO"), Arrays.asList(values.keySet().toArray()));
+        assertEquals("/usr/bin/g++", values.get("CMAKE_CXX_COMPILER"));
+        assertEquals("ON", values.get("MYPROJ_WITH_FOO"));
+    }
+
+    @Test
+    public void testSelectMatchingSingleChar() throws Exception {
+        CMakeCache cache = CMakeCache.read(new StringReader(CACHE));
+        Map<String, String> values = CacheEntriesParser.selectMatching(cache,
+                "CMAKE_?_COMPILER");
+        assertEquals(1, values.size());
+        assertEquals("/usr/bin/gcc", values.get("CMAKE_C_COMPILER"));
+    }
+
+    @Test
+    public void testSelectMatchingNothing() throws Exception {
+        CMakeCache cache = CMakeCache.read(new StringReader(CACHE));
+        assertTrue(CacheEntriesParser.selectMatching(cache, null).isEmpty());
+        assertTrue(CacheEntriesParser.selectMatching(cache, " ,").isEmpty());
+        assertTrue(CacheEntriesParser.selectMatching(null, "*").isEmpty());
+    }
+}
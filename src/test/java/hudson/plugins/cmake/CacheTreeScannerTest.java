@@ -0,0 +1,95 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the CacheTreeScanner.
+ *
+ * @author Martin Weber
+ */
+public class CacheTreeScannerTest {
+
+    private Path root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("superbuild");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        write(".", "CMAKE_GENERATOR:INTERNAL=Ninja\n");
+        for (int i = 0; i < 20; i++) {
+            write("ext/proj" + i + "-build", "CMAKE_GENERATOR:INTERNAL=Ninja\n"
+                    + "CMAKE_BUILD_TYPE:STRING=Release" + i + "\n"
+                    + "CMAKE_BUILD_TYPE-ADVANCED:INTERNAL=1\n");
+        }
+        // never searched
+        write("CMakeFiles/ignored", "CMAKE_GENERATOR:INTERNAL=Ninja\n");
+
+        CacheTreeSummary summary = new CacheTreeScanner(
+                CacheEntriesParser.CMAKE_GENERATOR,
+                CacheEntriesParser.CMAKE_BUILD_TYPE).invoke(root.toFile(),
+                        null);
+        assertEquals(21, summary.getCaches().size());
+        assertEquals(".", summary.getCaches().get(0).getDirectory());
+        assertNull(summary.getCache(".").getValue("CMAKE_BUILD_TYPE"));
+        assertEquals(1, summary.getCache(".").getEntryCount());
+        CacheTreeSummary.Cache cache = summary.getCache("ext/proj7-build");
+        assertEquals("Ninja", cache.getValue("CMAKE_GENERATOR"));
+        assertEquals("Release7", cache.getValue("CMAKE_BUILD_TYPE"));
+        assertEquals(2, cache.getEntryCount());
+        assertNull(cache.getValue("CMAKE_MAKE_PROGRAM"));
+        assertNull(summary.getCache("CMakeFiles/ignored"));
+        assertTrue(summary.getUnreadable().isEmpty());
+    }
+
+    @Test
+    public void testMissingRoot() throws Exception {
+        CacheTreeSummary summary = new CacheTreeScanner(
+                CacheEntriesParser.CMAKE_GENERATOR)
+                        .invoke(new File(root.toFile(), "nonexistent"), null);
+        assertTrue(summary.getCaches().isEmpty());
+    }
+
+    private void write(String dir, String content) throws IOException {
+        Path d = root.resolve(dir);
+        Files.createDirectories(d);
+        Files.write(d.resolve(CacheTreeScanner.CACHE_FILE_NAME),
+                content.getBytes(Charset.defaultCharset()));
+    }
+}
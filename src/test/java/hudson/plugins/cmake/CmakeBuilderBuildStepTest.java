@@ -195,4 +195,45 @@ public class CmakeBuilderBuildStepTest {
         j.assertLogContains(makeTargets, build);
         j.assertLogContains(makeTargets2, build);
     }
+
+    /**
+     * Verify that several build types are built concurrently, each in a
+     * build directory of its own and for its configuration.
+     */
+    @Test
+    @ConditionalIgnore(value = "SKIPPED: cmake tool not installed", condition = CmakeNotInstalledIgnoreCondition.class)
+    public void testBuildConcurrently() throws Exception {
+        WorkflowJob p = j.createProject(WorkflowJob.class);
+        String cMakeLists = "cmake_minimum_required(VERSION 3.10)\n"
+                + "project(test C)\n" + "add_executable(main main.c)\n";
+        String cCode = "int main(int argc, char** argv) { return 0; }";
+
+        // @formatter:off
+        String script = String.format(Locale.ENGLISH, "node {\n"
+                + "  writeFile text: '''\n" + "%s\n''',\n"
+                + "     file: 'CMakeLists.txt'\n"
+                + "  writeFile text: '''\n" + "%s\n''',\n"
+                + "     file: 'main.c'\n"
+                + "  cmakeBuild buildDir: 'build',\n"
+                + "      buildTypes: 'Debug Release',\n"
+                + "      installation: '%s',\n"
+                + "      sourceDir: ''," + "      cleanBuild: true,\n"
+                + "      steps: [[withCmake: true]]\n"
+                + "  if (!fileExists('build/Debug/CMakeCache.txt')"
+                + " || !fileExists('build/Release/CMakeCache.txt')) {\n"
+                + "    error 'build dir missing'\n"
+                + "  }\n"
+                + "}",
+                // @formatter:on
+                cMakeLists, cCode, CmakeTool.DEFAULT);
+
+        p.setDefinition(new CpsFlowDefinition(script, true));
+        WorkflowRun build = p.scheduleBuild2(0).get();
+        j.assertBuildStatus(Result.SUCCESS, build);
+
+        j.assertLogContains("Building 2 build types [Debug, Release] concurrently", build);
+        j.assertLogContains("[Debug] ", build);
+        j.assertLogContains("[Release] ", build);
+        j.assertLogContains("--config Release", build);
+    }
 }
@@ -28,7 +28,7 @@ public class CmakeBuilderFormRoundTripTest {
         j.assertEqualBeans(
                 before,
                 after,
-                "installationName,generator,sourceDir,buildType,cleanBuild,preloadScript,cmakeArgs");
+                "installationName,generator,sourceDir,buildType,cleanBuild,preloadScript,cmakeArgs,exportCacheEntries,skipConfigureIfUnchanged,cleanInBackground,reuseToolchainChecks,compileJobMemory,linkJobMemory,compilerLauncher,normalizeSourceTimestamps,recordTargets");
         assertEquals(after.getBuildDir(),"build");
     }
 
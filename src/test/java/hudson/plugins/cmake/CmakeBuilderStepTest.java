@@ -0,0 +1,37 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the build types of the CmakeBuilderStep.
+ *
+ * @author Martin Weber
+ */
+public class CmakeBuilderStepTest {
+
+    @Test
+    public void testSplitBuildTypes() {
+        assertTrue(CmakeBuilderStep.splitBuildTypes(null).isEmpty());
+        assertEquals(Arrays.asList("Debug"),
+                CmakeBuilderStep.splitBuildTypes("Debug"));
+        assertEquals(Arrays.asList("Debug", "Release", "RelWithDebInfo"),
+                CmakeBuilderStep
+                        .splitBuildTypes("Debug, Release\tRelWithDebInfo,"));
+        // duplicates
+        assertEquals(Arrays.asList("Debug", "Release"),
+                CmakeBuilderStep.splitBuildTypes("Debug Release Debug"));
+    }
+
+    @Test
+    public void testDeriveBuildDir() {
+        assertEquals("build/Debug",
+                CmakeBuilderStep.deriveBuildDir("build", "Debug"));
+        assertEquals("Release",
+                CmakeBuilderStep.deriveBuildDir(null, "Release"));
+    }
+}
@@ -0,0 +1,116 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests the CompilerLauncher.
+ *
+ * @author Martin Weber
+ */
+public class CompilerLauncherTest {
+
+    @Test
+    public void testAddDefinitions() {
+        assertEquals("-D CMAKE_C_COMPILER_LAUNCHER=ccache"
+                + " -D CMAKE_CXX_COMPILER_LAUNCHER=ccache",
+                CompilerLauncher.addDefinitions(null, "ccache",
+                        Arrays.asList("C", "CXX")));
+        assertEquals("-D CMAKE_C_COMPILER_LAUNCHER=sccache -Wdev",
+                CompilerLauncher.addDefinitions("-Wdev", "sccache",
+                        Arrays.asList("C")));
+        // quoted for tokenizing
+        assertEquals("-D \"CMAKE_C_COMPILER_LAUNCHER=/opt/my tools/ccache\"",
+                CompilerLauncher.addDefinitions(null, "/opt/my tools/ccache",
+                        Arrays.asList("C")));
+        assertEquals("-Wdev", CompilerLauncher.addDefinitions("-Wdev",
+                "ccache", Collections.<String> emptyList()));
+        assertNull(CompilerLauncher.addDefinitions(null, "ccache",
+                Collections.<String> emptyList()));
+    }
+
+    @Test
+    public void testSelectLanguages() {
+        final Map<String, String> entries = new HashMap<>();
+        entries.put("CMAKE_C_COMPILER", "/usr/bin/cc");
+        entries.put("CMAKE_CUDA_COMPILER", "/usr/local/cuda/bin/nvcc");
+        // not found
+        entries.put("CMAKE_CXX_COMPILER", "");
+        assertEquals(Arrays.asList("C", "CUDA"),
+                CompilerLauncher.selectLanguages(entries));
+        assertTrue(CompilerLauncher
+                .selectLanguages(Collections.<String, String> emptyMap())
+                .isEmpty());
+    }
+
+    @Test
+    public void testGetEnvironment() {
+        final Map<String, String> env = CompilerLauncher
+                .getEnvironment("ccache");
+        assertEquals("ccache", env.get("CMAKE_C_COMPILER_LAUNCHER"));
+        assertEquals("ccache", env.get("CMAKE_CXX_COMPILER_LAUNCHER"));
+        assertEquals("ccache", env.get("CMAKE_CUDA_COMPILER_LAUNCHER"));
+    }
+
+    @Test
+    public void testHasStats() {
+        assertTrue(CompilerLauncher.hasStats("ccache"));
+        assertTrue(CompilerLauncher.hasStats("/usr/bin/ccache"));
+        assertTrue(CompilerLauncher.hasStats("C:\\tools\\sccache.exe"));
+        assertFalse(CompilerLauncher.hasStats("distcc"));
+    }
+
+    @Test
+    public void testParseCcacheStats() {
+        final CompilerLauncher.Stats stats = CompilerLauncher
+                .parseCcacheStats("stats_updated_timestamp\t1700000000\n"
+                        + "direct_cache_hit\t120\n"
+                        + "preprocessed_cache_hit\t30\n"
+                        + "cache_miss\t50\n"
+                        + "called_for_link\t7\n");
+        assertEquals(150, stats.getHits());
+        assertEquals(50, stats.getMisses());
+        assertEquals(75.0, stats.getHitRate(), 0.001);
+        // ccache 3.7 names
+        assertEquals(5, CompilerLauncher.parseCcacheStats(
+                "cache_hit_direct\t2\ncache_hit_preprocessed\t3\ncache_miss\t0\n")
+                .getHits());
+        assertNull(CompilerLauncher.parseCcacheStats("Usage: ccache ..."));
+    }
+
+    @Test
+    public void testParseSccacheStats() {
+        final CompilerLauncher.Stats stats = CompilerLauncher
+                .parseSccacheStats("Compile requests                     42\n"
+                        + "Cache hits                           30\n"
+                        + "Cache hits (C/C++)                   30\n"
+                        + "Cache misses                         10\n"
+                        + "Cache misses (C/C++)                 10\n");
+        assertEquals(30, stats.getHits());
+        assertEquals(10, stats.getMisses());
+        assertNull(CompilerLauncher.parseSccacheStats("no server"));
+    }
+
+    @Test
+    public void testMinus() {
+        final CompilerLauncher.Stats before = new CompilerLauncher.Stats(100,
+                20);
+        final CompilerLauncher.Stats delta = new CompilerLauncher.Stats(130,
+                25).minus(before);
+        assertEquals(30, delta.getHits());
+        assertEquals(5, delta.getMisses());
+        // counters were reset
+        assertEquals(3, new CompilerLauncher.Stats(3, 1).minus(before)
+                .getHits());
+        assertEquals(0, new CompilerLauncher.Stats(0, 0).getHitRate(), 0);
+    }
+}
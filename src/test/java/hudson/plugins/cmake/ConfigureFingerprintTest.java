@@ -0,0 +1,130 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.plugins.cmake.ConfigureFingerprint.Result;
+
+/**
+ * Tests the ConfigureFingerprint.
+ *
+ * @author Martin Weber
+ */
+public class ConfigureFingerprintTest {
+
+    private Path buildDir;
+    private final String inputs = ConfigureFingerprint.hashInputs(
+            Arrays.asList("cmake", "-G", "Ninja", "/src"), "/opt/cmake");
+
+    @Before
+    public void setUp() throws Exception {
+        buildDir = Files.createTempDirectory("build");
+        write("CMakeCache.txt", "CMAKE_GENERATOR:INTERNAL=Unix Makefiles\n");
+        write("../" + buildDir.getFileName() + "-CMakeLists.txt",
+                "project(foo)\n");
+        write("CMakeFiles/Makefile.cmake",
+                "# CMAKE generated file: DO NOT EDIT!\n"
+                        + "set(CMAKE_DEPENDS_GENERATOR \"Unix Makefiles\")\n"
+                        + "set(CMAKE_MAKEFILE_DEPENDS\n"
+                        + "  \"CMakeCache.txt\"\n" + "  \"../"
+                        + buildDir.getFileName() + "-CMakeLists.txt\"\n"
+                        + "  \"/nonexistent/Modules/CMakeCInformation.cmake\"\n"
+                        + "  )\n");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(buildDir
+                .resolveSibling(buildDir.getFileName() + "-CMakeLists.txt"));
+        Files.walkFileTree(buildDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        assertEquals(Result.NOT_CONFIGURED, check(inputs));
+        new ConfigureFingerprint.Store(inputs).invoke(buildDir.toFile(), null);
+        assertEquals(Result.UNCHANGED, check(inputs));
+    }
+
+    @Test
+    public void testInputsChanged() throws Exception {
+        new ConfigureFingerprint.Store(inputs).invoke(buildDir.toFile(), null);
+        String other = ConfigureFingerprint.hashInputs(
+                Arrays.asList("cmake", "-G", "Ninja", "/src"), "/opt/cmake-2");
+        assertEquals(Result.INPUTS_CHANGED, check(other));
+    }
+
+    @Test
+    public void testListfileChanged() throws Exception {
+        new ConfigureFingerprint.Store(inputs).invoke(buildDir.toFile(), null);
+        write("../" + buildDir.getFileName() + "-CMakeLists.txt",
+                "project(bar)\n");
+        assertEquals(Result.LISTFILES_CHANGED, check(inputs));
+    }
+
+    @Test
+    public void testListfilesUnknown() throws Exception {
+        new ConfigureFingerprint.Store(inputs).invoke(buildDir.toFile(), null);
+        Files.delete(buildDir.resolve("CMakeFiles/Makefile.cmake"));
+        assertEquals(Result.LISTFILES_UNKNOWN, check(inputs));
+    }
+
+    @Test
+    public void testNinjaListfiles() throws Exception {
+        Files.delete(buildDir.resolve("CMakeFiles/Makefile.cmake"));
+        write("build.ninja", "# CMAKE generated file: DO NOT EDIT!\n"
+                + "build cmake_object_order_depends_target_foo: phony\n"
+                + "build build.ninja: RERUN_CMAKE | ../CMakeLists.txt"
+                + " ../cmake/My$ Module.cmake $\n"
+                + "    C$:/cmake/Modules/CMakeCInformation.cmake CMakeCache.txt\n"
+                + "  pool = console\n");
+        assertEquals(Arrays.asList("../CMakeLists.txt",
+                "../cmake/My Module.cmake",
+                "C:/cmake/Modules/CMakeCInformation.cmake", "CMakeCache.txt"),
+                ConfigureFingerprint.getListfiles(buildDir));
+    }
+
+    @Test
+    public void testNoListfiles() throws Exception {
+        Files.delete(buildDir.resolve("CMakeFiles/Makefile.cmake"));
+        assertNull(ConfigureFingerprint.getListfiles(buildDir));
+    }
+
+    private Result check(String inputsHash) throws Exception {
+        return new ConfigureFingerprint.Check(inputsHash)
+                .invoke(buildDir.toFile(), null);
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = buildDir.resolve(name).normalize();
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Tests the DeleteRecursive.
+ *
+ * @author Martin Weber
+ */
+public class DeleteRecursiveTest {
+
+    @Test
+    public void testDelete() throws Exception {
+        Path dir = Files.createTempDirectory("build");
+        for (int i = 0; i < 20; i++) {
+            Path sub = Files.createDirectories(
+                    dir.resolve("CMakeFiles/target" + i + ".dir/src"));
+            Files.write(sub.resolve("a.o"), new byte[1000]);
+            Files.write(sub.resolve("b.o"), new byte[24]);
+        }
+        Files.write(dir.resolve("CMakeCache.txt"), new byte[100]);
+
+        DeleteRecursive.Result result = new DeleteRecursive()
+                .invoke(dir.toFile(), null);
+        assertFalse(Files.exists(dir));
+        assertEquals(41, result.getFiles());
+        assertEquals(20 * 1024 + 100, result.getBytes());
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void testInterrupted() throws Exception {
+        Path dir = Files.createTempDirectory("build");
+        try {
+            for (int i = 0; i < 200; i++) {
+                Path sub = Files.createDirectories(
+                        dir.resolve("CMakeFiles/target" + i + ".dir"));
+                Files.write(sub.resolve("a.o"), new byte[10]);
+            }
+            Thread.currentThread().interrupt();
+            new DeleteRecursive().invoke(dir.toFile(), null);
+        } finally {
+            Thread.interrupted();
+            new DeleteRecursive().invoke(dir.toFile(), null);
+        }
+    }
+
+    @Test
+    public void testNonexistent() throws Exception {
+        Path dir = Files.createTempDirectory("build");
+        Files.delete(dir);
+        DeleteRecursive.Result result = new DeleteRecursive()
+                .invoke(dir.toFile(), null);
+        assertEquals(0, result.getFiles());
+        assertEquals(0, result.getBytes());
+    }
+}
@@ -0,0 +1,47 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the GeneratorProbe.
+ *
+ * @author Martin Weber
+ */
+public class GeneratorProbeTest {
+
+    @Test
+    public void testChoose() {
+        GeneratorProbe.Result result = GeneratorProbe.choose(false,
+                "/usr/bin/ninja-build", null, true);
+        assertEquals("Ninja", result.getGenerator());
+        assertEquals("/usr/bin/ninja-build", result.getBuildTool());
+        assertTrue(result.isMultiConfigAvailable());
+
+        result = GeneratorProbe.choose(true, null, "C:\\Qt\\jom.exe", false);
+        assertEquals("NMake Makefiles JOM", result.getGenerator());
+        // jom on Windows only
+        result = GeneratorProbe.choose(false, null, "/opt/jom", false);
+        assertNull(result.getGenerator());
+        assertNull(result.getBuildTool());
+        assertFalse(result.isMultiConfigAvailable());
+    }
+
+
+    @Test
+    public void testListsMultiConfig() {
+        final String help = "Generators\n\n"
+                + "The following generators are available on this platform:\n"
+                + "* Unix Makefiles               = Generates standard UNIX makefiles.\r\n"
+                + "  Ninja                        = Generates build.ninja files.\n"
+                + "  Ninja Multi-Config           = Generates build-<Config>.ninja files.\n";
+        assertTrue(GeneratorProbe.listsMultiConfig(help));
+        assertFalse(GeneratorProbe.listsMultiConfig(
+                help.replace("Ninja Multi-Config", "Watcom WMake")));
+        assertFalse(GeneratorProbe.listsMultiConfig(""));
+    }
+}
@@ -0,0 +1,47 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import hudson.util.StreamTaskListener;
+
+/**
+ * Tests the JobPools.
+ *
+ * @author Martin Weber
+ */
+public class JobPoolsTest {
+    private static final long GIB = 1024L * 1024L * 1024L;
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    private final StreamTaskListener listener = new StreamTaskListener(log);
+
+    @Test
+    public void testComputeSize() {
+        assertEquals(4, JobPools.computeSize(32, 32 * GIB, 8 * GIB));
+        assertEquals(16, JobPools.computeSize(16, 64 * GIB, GIB));
+        assertEquals(1, JobPools.computeSize(16, 4 * GIB, 8 * GIB));
+    }
+
+    @Test
+    public void testAddDefinitions() {
+        final NodeResources resources = new NodeResources(32, 32 * GIB,
+                20 * GIB);
+        assertEquals(
+                "-D CMAKE_JOB_POOLS=cmakebuilder_link=4"
+                        + " -D CMAKE_JOB_POOL_LINK=cmakebuilder_link",
+                JobPools.addDefinitions(null, resources, 0, 8192, listener));
+        assertEquals(
+                "-D CMAKE_JOB_POOLS=cmakebuilder_compile=16;cmakebuilder_link=4"
+                        + " -D CMAKE_JOB_POOL_COMPILE=cmakebuilder_compile"
+                        + " -D CMAKE_JOB_POOL_LINK=cmakebuilder_link"
+                        + " -D FOO=bar",
+                JobPools.addDefinitions("-D FOO=bar", resources, 2048, 8192,
+                        listener));
+        assertTrue(log.toString().contains("cmakebuilder_link: 4 jobs"));
+    }
+}
@@ -0,0 +1,74 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Tests the NodeResources.
+ *
+ * @author Martin Weber
+ */
+public class NodeResourcesTest {
+
+    @Test
+    public void testReadMeminfo() throws IOException {
+        final Path meminfo = Files.createTempFile("meminfo", null);
+        try {
+            Files.write(meminfo, ("MemTotal:       32651180 kB\n"
+                    + "MemFree:         1234567 kB\n"
+                    + "MemAvailable:   20000000 kB\n"
+                    + "HugePages_Total:       0\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+            assertEquals(32651180L * 1024,
+                    NodeResources.readMeminfo(meminfo, "MemTotal"));
+            assertEquals(20000000L * 1024,
+                    NodeResources.readMeminfo(meminfo, "MemAvailable"));
+            assertEquals(0, NodeResources.readMeminfo(meminfo, "HugePages_Total"));
+            assertEquals(-1, NodeResources.readMeminfo(meminfo, "Mem"));
+        } finally {
+            Files.delete(meminfo);
+        }
+        assertEquals(-1, NodeResources.readMeminfo(meminfo, "MemTotal"));
+    }
+
+    @Test
+    public void testReadCgroupValue() throws IOException {
+        final Path file = Files.createTempFile("memory", null);
+        try {
+            Files.write(file, "4294967296\n".getBytes(StandardCharsets.US_ASCII));
+            assertEquals(4294967296L, NodeResources.readCgroupValue(file));
+            Files.write(file, "max\n".getBytes(StandardCharsets.US_ASCII));
+            assertEquals(-1, NodeResources.readCgroupValue(file));
+            // cgroup v1 without limit
+            Files.write(file, "9223372036854771712\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            assertEquals(-1, NodeResources.readCgroupValue(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testProbe() throws IOException {
+        final NodeResources resources = new NodeResources.Probe().call();
+        assertTrue(resources.getProcessors() > 0);
+        assertTrue(resources.getAvailableMemory() <= resources.getTotalMemory());
+    }
+
+    @Test
+    public void testShare() {
+        final NodeResources share = new NodeResources(16, 64L * NodeResources.MIB,
+                -1).share(3);
+        assertEquals(5, share.getProcessors());
+        assertEquals(64L * NodeResources.MIB / 3, share.getTotalMemory());
+        assertEquals(-1, share.getAvailableMemory());
+        assertEquals(1, new NodeResources(2, -1, -1).share(4).getProcessors());
+    }
+}
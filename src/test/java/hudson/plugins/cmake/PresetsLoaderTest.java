@@ -0,0 +1,151 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.marw.cmake.presets.PresetMacros;
+import de.marw.cmake.presets.Presets;
+
+/**
+ * Tests the PresetsLoader.
+ *
+ * @author Martin Weber
+ */
+public class PresetsLoaderTest {
+
+    private static final String PRESETS = "{'version': 3,"
+            + "'configurePresets': [{'name': 'ci', 'toolchainFile': '${sourceDir}/tc.cmake',"
+            + " 'cacheVariables': {'CMAKE_BUILD_TYPE': 'Release',"
+            + " 'OPT': {'type': 'BOOL', 'value': 'ON'}, 'NAME': 'a b', 'UNSET': null}}],"
+            + "'buildPresets': [{'name': 'b', 'configurePreset': 'ci',"
+            + " 'targets': ['app', 'my lib'], 'configuration': 'Release'},"
+            + "{'name': 'b8', 'configurePreset': 'ci', 'jobs': 8,"
+            + " 'nativeToolOptions': ['-k', '0']}],"
+            + "'testPresets': [{'name': 't', 'configurePreset': 'ci',"
+            + " 'configuration': 'Release', 'output': {'outputOnFailure': true},"
+            + " 'execution': {'timeout': 60},"
+            + " 'filter': {'include': {'label': 'fast'}}}]}";
+
+    private Path sourceDir;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDir = Files.createTempDirectory("src");
+        write("CMakePresets.json", PRESETS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BuildDirTrash.deleteRecursive(sourceDir);
+    }
+
+    @Test
+    public void testToCmakeArgs() throws Exception {
+        final Presets presets = PresetsLoader.Load.load(sourceDir);
+        final PresetMacros macros = new PresetMacros(
+                Collections.singletonMap("sourceDir", "/ws"),
+                Collections.<String, String> emptyMap(),
+                Collections.<String, String> emptyMap());
+        assertEquals(
+                Arrays.asList("-DCMAKE_BUILD_TYPE=Release", "-DOPT:BOOL=ON",
+                        "-DNAME=a b",
+                        "-DCMAKE_TOOLCHAIN_FILE:FILEPATH=/ws/tc.cmake"),
+                PresetsLoader.toCmakeArgs(
+                        presets.getConfigurePresets().get("ci"), macros));
+    }
+
+    @Test
+    public void testToBuildToolStep() throws Exception {
+        final Presets presets = PresetsLoader.Load.load(sourceDir);
+        BuildToolStep step = PresetsLoader
+                .toBuildToolStep(presets.getBuildPresets().get("b"));
+        assertEquals(true, step.getWithCmake());
+        assertEquals("--target app \"my lib\" --config Release",
+                step.getArgs());
+        assertEquals(BuildToolStep.AUTO_PARALLELISM, step.getParallelism());
+
+        step = PresetsLoader
+                .toBuildToolStep(presets.getBuildPresets().get("b8"));
+        assertEquals("-- -k 0", step.getArgs());
+        assertEquals("8", step.getParallelism());
+    }
+
+    @Test
+    public void testToCtestArgs() throws Exception {
+        final Presets presets = PresetsLoader.Load.load(sourceDir);
+        assertEquals(
+                Arrays.asList("-C", "Release", "-j", "6",
+                        "--output-on-failure", "--timeout", "60", "-L",
+                        "fast"),
+                PresetsLoader.toCtestArgs(
+                        presets.getTestPresets().get("t"), 6));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final Presets presets = PresetsLoader.Load.load(sourceDir);
+        assertSame(presets, PresetsLoader.Load.load(sourceDir));
+
+        // added user presets file
+        write("CMakeUserPresets.json", "{'version': 3}");
+        final Presets withUser = PresetsLoader.Load.load(sourceDir);
+        assertNotSame(presets, withUser);
+        assertEquals(2, withUser.getFiles().size());
+        assertSame(withUser, PresetsLoader.Load.load(sourceDir));
+
+        // changed content of the same size and time, the content tells
+        final FileTime time = Files.getLastModifiedTime(
+                sourceDir.resolve("CMakePresets.json"));
+        write("CMakePresets.json", PRESETS.replace("'b8'", "'b9'"));
+        Files.setLastModifiedTime(sourceDir.resolve("CMakePresets.json"),
+                time);
+        final Presets changed = PresetsLoader.Load.load(sourceDir);
+        assertNotSame(withUser, changed);
+        assertNull(changed.getBuildPresets().get("b8"));
+
+        Files.delete(sourceDir.resolve("CMakePresets.json"));
+        Files.delete(sourceDir.resolve("CMakeUserPresets.json"));
+        assertNull(PresetsLoader.Load.load(sourceDir));
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("plain", PresetsLoader.quote("plain"));
+        assertEquals("\"\"", PresetsLoader.quote(""));
+        assertEquals("\"a b\"", PresetsLoader.quote("a b"));
+        assertEquals("\"C:\\\\x \\\"y\\\"\"", PresetsLoader.quote("C:\\x \"y\""));
+    }
+
+    @Test
+    public void testRelativize() {
+        assertEquals("build/ci", PresetsLoader.relativize("/ws", "/ws/build/ci"));
+        assertEquals("b", PresetsLoader.relativize("C:\\ws", "C:\\ws\\b"));
+        assertEquals("/ws2/b", PresetsLoader.relativize("/ws", "/ws2/b"));
+        assertEquals("/other", PresetsLoader.relativize("/ws", "/other"));
+    }
+
+    @Test
+    public void testGetHostSystemName() {
+        assertEquals("Linux", PresetsLoader.getHostSystemName("Linux"));
+        assertEquals("Windows", PresetsLoader.getHostSystemName("Windows 10"));
+        assertEquals("Darwin", PresetsLoader.getHostSystemName("Mac OS X"));
+    }
+
+    private void write(String name, String json) throws Exception {
+        Files.write(sourceDir.resolve(name),
+                json.replace('\'', '"').getBytes(StandardCharsets.UTF_8));
+    }
+}
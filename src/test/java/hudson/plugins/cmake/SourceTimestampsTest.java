@@ -0,0 +1,173 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+
+/**
+ * Tests the SourceTimestamps.
+ *
+ * @author Martin Weber
+ */
+public class SourceTimestampsTest {
+
+    @Test
+    public void testParseFileList() throws Exception {
+        assertEquals(new HashSet<>(Arrays.asList("a.c", "dir/b c.h")),
+                SourceTimestamps.parseFileList(stream("a.c\0dir/b c.h\0")));
+        assertEquals(0, SourceTimestamps.parseFileList(stream("")).size());
+    }
+
+    @Test
+    public void testParseLog() throws Exception {
+        final String log = "\u0001300\0\na.c\0dir/b.h\0" // newest first
+                + "\u0001200\0\0" // no files
+                + "\u0001100\0\na.c\0gone.c\0c.c\0";
+        final Set<String> tracked = new HashSet<>(
+                Arrays.asList("a.c", "dir/b.h", "c.c"));
+        final Map<String, Long> times = new HashMap<>();
+        assertEquals(3, SourceTimestamps.parseLog(stream(log), tracked, times));
+        assertEquals(Long.valueOf(300), times.get("a.c"));
+        assertEquals(Long.valueOf(300), times.get("dir/b.h"));
+        assertEquals(Long.valueOf(100), times.get("c.c"));
+        assertEquals(3, times.size());
+    }
+
+    @Test
+    public void testParseLog_stopsEarly() throws Exception {
+        final String log = "\u0001300\0\na.c\0\u0001100\0\nb.c\0";
+        final Map<String, Long> times = new HashMap<>();
+        assertEquals(1, SourceTimestamps.parseLog(stream(log),
+                new HashSet<>(Arrays.asList("a.c")), times));
+        assertEquals(Long.valueOf(300), times.get("a.c"));
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        final Path dir = Files.createTempDirectory("src");
+        try {
+            Files.createFile(dir.resolve("a.c"));
+            final Map<String, Long> times = new HashMap<>();
+            times.put("a.c", 1_500_000_000L);
+            times.put("deleted.c", 1_500_000_000L);
+            assertEquals(1, SourceTimestamps.apply(dir, times));
+            assertEquals(1_500_000_000_000L,
+                    Files.getLastModifiedTime(dir.resolve("a.c")).toMillis());
+        } finally {
+            BuildDirTrash.deleteRecursive(dir);
+        }
+    }
+
+    @Test
+    public void testTouch() throws Exception {
+        final Path dir = Files.createTempDirectory("src");
+        try {
+            Files.createFile(dir.resolve("a.c"));
+            assertEquals(1, SourceTimestamps.touch(dir,
+                    new HashSet<>(Arrays.asList("a.c", "deleted.c")),
+                    1_600_000_000_000L));
+            assertEquals(1_600_000_000_000L,
+                    Files.getLastModifiedTime(dir.resolve("a.c")).toMillis());
+        } finally {
+            BuildDirTrash.deleteRecursive(dir);
+        }
+    }
+
+    @Test
+    public void testNormalize() throws Exception {
+        final Path dir = Files.createTempDirectory("src");
+        try {
+            Assume.assumeTrue(git(dir, null, "init", "-q") == 0);
+            Files.createFile(dir.resolve("a.c"));
+            Files.createFile(dir.resolve("b.c"));
+            Files.createFile(dir.resolve("c.c"));
+            commit(dir, "@1500000000");
+            final Launcher launcher = new Launcher.LocalLauncher(
+                    TaskListener.NULL);
+            final FilePath sourceDir = new FilePath(dir.toFile());
+            final String built = SourceTimestamps.getHeadCommit(launcher,
+                    sourceDir, System.getenv());
+            // changed later, but committed before the tree was built
+            Files.write(dir.resolve("b.c"),
+                    "int b;".getBytes(StandardCharsets.UTF_8));
+            commit(dir, "@1400000000");
+            // modified locally, not committed
+            Files.write(dir.resolve("c.c"),
+                    "int c;".getBytes(StandardCharsets.UTF_8));
+
+            final long before = System.currentTimeMillis();
+            final SourceTimestamps.Result result = SourceTimestamps
+                    .normalizeTimes(launcher, sourceDir, Arrays.asList(built),
+                            System.getenv());
+            assertEquals(SourceTimestamps.Result.Outcome.NORMALIZED,
+                    result.getOutcome());
+            assertEquals(1, result.getFiles());
+            assertEquals(2, result.getChanged());
+            assertEquals(1_500_000_000_000L,
+                    Files.getLastModifiedTime(dir.resolve("a.c")).toMillis());
+            assertTrue(Files.getLastModifiedTime(dir.resolve("b.c"))
+                    .toMillis() >= before - 1000);
+            assertTrue(Files.getLastModifiedTime(dir.resolve("c.c"))
+                    .toMillis() >= before - 1000);
+
+            assertEquals(SourceTimestamps.Result.Outcome.UNKNOWN_COMMIT,
+                    SourceTimestamps.normalizeTimes(launcher, sourceDir,
+                            Arrays.asList("0123456789abcdef0123456789abcdef01234567"), // not in the history
+                            System.getenv()).getOutcome());
+        } finally {
+            BuildDirTrash.deleteRecursive(dir);
+        }
+    }
+
+    private static void commit(Path dir, String date) throws Exception {
+        assertEquals(0, git(dir, null, "add", "."));
+        assertEquals(0, git(dir, date, "-c", "user.name=test", "-c",
+                "user.email=test@example.com", "commit", "-q", "-m", date));
+    }
+
+    /**
+     * @param date
+     *            the commit time or {@code null}
+     * @return the exit code or -1 if git cannot be run
+     */
+    private static int git(Path dir, String date, String... args)
+            throws Exception {
+        final List<String> cmd = new ArrayList<>();
+        cmd.add("git");
+        cmd.addAll(Arrays.asList(args));
+        final ProcessBuilder pb = new ProcessBuilder(cmd)
+                .directory(dir.toFile()).inheritIO();
+        if (date != null) {
+            pb.environment().put("GIT_AUTHOR_DATE", date);
+            pb.environment().put("GIT_COMMITTER_DATE", date);
+        }
+        try {
+            return pb.start().waitFor();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    private static ByteArrayInputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,174 @@
+package hudson.plugins.cmake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.plugins.cmake.ToolchainCache.Result;
+
+/**
+ * Tests the ToolchainCache.
+ *
+ * @author Martin Weber
+ */
+public class ToolchainCacheTest {
+
+    private Path root;
+    private Path compiler;
+    private Path cmake;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("toolchain");
+        compiler = write(root.resolve("bin/cc"), "compiler");
+        cmake = write(root.resolve("bin/cmake"), "cmake");
+        final Path buildDir = root.resolve("build");
+        write(buildDir.resolve("CMakeCache.txt"), "# This is the CMakeCache file.\n"
+                + "//Build type\n" + "CMAKE_BUILD_TYPE:STRING=Debug\n\n"
+                + "//C compiler\n" + "CMAKE_C_COMPILER:FILEPATH=" + compiler
+                + "\n\n" + "//Path to a program.\n"
+                + "CMAKE_AR:FILEPATH=/usr/bin/ar\n\n"
+                + "//Path to a program.\n"
+                + "CMAKE_MAKE_PROGRAM:FILEPATH=/usr/bin/make\n\n"
+                + "//Have include stdio.h\n" + "HAVE_STDIO_H:INTERNAL=1\n"
+                + "//Test HAVE_ATOMICS\n" + "HAVE_ATOMICS:INTERNAL=\n"
+                + "//Result of try_run()\n" + "RUN_RESULT:INTERNAL=0\n"
+                + "//ADVANCED property for variable: CMAKE_AR\n"
+                + "CMAKE_AR-ADVANCED:INTERNAL=1\n"
+                + "//This is the directory where this CMakeCache.txt was created\n"
+                + "CMAKE_CACHEFILE_DIR:INTERNAL=" + buildDir + "\n"
+                + "//Major version of cmake used to create the current loaded cache\n"
+                + "CMAKE_CACHE_MAJOR_VERSION:INTERNAL=3\n"
+                + "//Project state\n" + "FOO_SOURCES:INTERNAL=a.c;b.c\n");
+        write(buildDir.resolve("CMakeFiles/3.27.0/CMakeSystem.cmake"),
+                "set(CMAKE_SYSTEM \"Linux\")\n");
+        write(buildDir.resolve("CMakeFiles/3.27.0/CMakeCCompiler.cmake"),
+                "set(CMAKE_C_COMPILER \"" + compiler + "\")\n");
+        write(buildDir.resolve("CMakeFiles/3.27.0/CompilerIdC/a.out"), "x");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BuildDirTrash.deleteRecursive(root);
+    }
+
+    @Test
+    public void testComputeKey() {
+        final List<String> call = Arrays.asList("cmake", "-G", "Ninja", "/src");
+        final String key = ToolchainCache.computeKey(call, "/opt/cmake",
+                Collections.singletonMap("CC", "gcc"));
+        assertEquals(key, ToolchainCache.computeKey(call, "/opt/cmake",
+                Collections.singletonMap("CC", "gcc")));
+        assertNotEquals(key, ToolchainCache.computeKey(call, "/opt/cmake",
+                Collections.singletonMap("CC", "clang")));
+        // other variables do not matter
+        final Map<String, String> env = new HashMap<>();
+        env.put("CC", "gcc");
+        env.put("BUILD_NUMBER", "42");
+        assertEquals(key, ToolchainCache.computeKey(call, "/opt/cmake", env));
+    }
+
+    @Test
+    public void testStoreAndSeed() throws IOException {
+        final Path entry = root.resolve("store/key");
+        final Path newBuildDir = root.resolve("clean");
+        Files.createDirectories(newBuildDir);
+        assertEquals(Result.NOT_CACHED,
+                ToolchainCache.seed(entry, newBuildDir));
+
+        assertTrue(ToolchainCache.store(entry, root.resolve("build"),
+                cmake.toString()));
+        // stored once only
+        assertFalse(ToolchainCache.store(entry, root.resolve("build"),
+                cmake.toString()));
+
+        assertEquals(Result.SEEDED, ToolchainCache.seed(entry, newBuildDir));
+        assertTrue(Files.isRegularFile(
+                newBuildDir.resolve("CMakeFiles/3.27.0/CMakeSystem.cmake")));
+        assertTrue(Files.isRegularFile(
+                newBuildDir.resolve("CMakeFiles/3.27.0/CMakeCCompiler.cmake")));
+        assertFalse(Files.exists(
+                newBuildDir.resolve("CMakeFiles/3.27.0/CompilerIdC")));
+        final String cache = new String(
+                Files.readAllBytes(newBuildDir.resolve("CMakeCache.txt")),
+                StandardCharsets.UTF_8);
+        assertTrue(cache.contains("//C compiler\nCMAKE_C_COMPILER:FILEPATH="));
+        assertTrue(cache.contains("CMAKE_AR:FILEPATH=/usr/bin/ar\n"));
+        assertTrue(cache.contains("//Have include stdio.h\nHAVE_STDIO_H:INTERNAL=1\n"));
+        assertTrue(cache.contains("HAVE_ATOMICS:INTERNAL=\n"));
+        assertTrue(cache.contains("RUN_RESULT:INTERNAL=0\n"));
+        assertTrue(cache.contains("CMAKE_CACHE_MAJOR_VERSION:INTERNAL=3\n"));
+        assertFalse(cache.contains("CMAKE_BUILD_TYPE"));
+        assertFalse(cache.contains("CMAKE_MAKE_PROGRAM"));
+        assertFalse(cache.contains("CMAKE_AR-ADVANCED"));
+        assertFalse(cache.contains("CMAKE_CACHEFILE_DIR"));
+        assertFalse(cache.contains("FOO_SOURCES"));
+
+        // configured now
+        assertEquals(Result.CONFIGURED,
+                ToolchainCache.seed(entry, newBuildDir));
+    }
+
+    @Test
+    public void testStale() throws IOException {
+        final Path entry = root.resolve("store/key");
+        assertTrue(ToolchainCache.store(entry, root.resolve("build"),
+                cmake.toString()));
+        Files.setLastModifiedTime(compiler, FileTime.fromMillis(
+                Files.getLastModifiedTime(compiler).toMillis() + 10000));
+        final Path newBuildDir = root.resolve("clean");
+        Files.createDirectories(newBuildDir);
+        assertEquals(Result.STALE, ToolchainCache.seed(entry, newBuildDir));
+        assertFalse(Files.exists(entry));
+        assertFalse(Files.exists(newBuildDir.resolve("CMakeCache.txt")));
+    }
+
+    @Test
+    public void testEvict() throws IOException {
+        final Path store = root.resolve("store");
+        for (int i = 0; i < 5; i++) {
+            final Path entry = store.resolve("key" + i);
+            assertTrue(ToolchainCache.store(entry, root.resolve("build"),
+                    cmake.toString()));
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(
+                    System.currentTimeMillis() - (10 - i) * 60000L));
+        }
+        // key0 is the oldest, but used recently
+        final Path newBuildDir = root.resolve("clean");
+        Files.createDirectories(newBuildDir);
+        assertEquals(Result.SEEDED,
+                ToolchainCache.seed(store.resolve("key0"), newBuildDir));
+        // orphaned temporary directory
+        final Path tmp = Files.createDirectories(store.resolve("key9-tmp"));
+        Files.setLastModifiedTime(tmp, FileTime.fromMillis(0));
+
+        assertEquals(2, ToolchainCache.evict(store, 3));
+        assertTrue(Files.exists(store.resolve("key0")));
+        assertFalse(Files.exists(store.resolve("key1")));
+        assertFalse(Files.exists(store.resolve("key2")));
+        assertTrue(Files.exists(store.resolve("key3")));
+        assertTrue(Files.exists(store.resolve("key4")));
+        assertFalse(Files.exists(tmp));
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}